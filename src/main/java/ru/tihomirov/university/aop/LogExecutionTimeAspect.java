@@ -1,25 +1,66 @@
 package ru.tihomirov.university.aop;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время выполнения методов с {@link LogExecutionTime} пишется в Micrometer-таймер
+ * {@value #TIMER_NAME} (теги class, method, outcome, exception) с перцентильной гистограммой.
+ * В лог попадают только вызовы дольше app.timing.slow-threshold.
+ */
 @Aspect
 @Slf4j
 @Component
 public class LogExecutionTimeAspect {
 
-    @Around("@annotation(ru.tihomirov.university.aop.LogExecutionTime)")
-    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
+    static final String TIMER_NAME = "method.execution";
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
 
-        Object proceed = joinPoint.proceed();
+    public LogExecutionTimeAspect(MeterRegistry meterRegistry,
+                                  @Value("${app.timing.slow-threshold:500ms}") Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
 
-        long duration = System.currentTimeMillis() - start;
-        log.info("Method {} executed in {} ms", joinPoint.getSignature(), duration);
+    @Around("@annotation(ru.tihomirov.university.aop.LogExecutionTime)")
+    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            timer(joinPoint, failure).record(duration, TimeUnit.NANOSECONDS);
+            if (duration >= slowThresholdNanos) {
+                log.warn("Method {} executed in {} ms", joinPoint.getSignature(), TimeUnit.NANOSECONDS.toMillis(duration));
+            }
+        }
+    }
 
-        return proceed;
+    private Timer timer(ProceedingJoinPoint joinPoint, Throwable failure) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        return Timer.builder(TIMER_NAME)
+                .description("Время выполнения методов с @LogExecutionTime")
+                .tag("class", signature.getDeclaringType().getSimpleName())
+                .tag("method", signature.getName())
+                .tag("outcome", failure == null ? "success" : "error")
+                .tag("exception", failure == null ? "none" : failure.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 }
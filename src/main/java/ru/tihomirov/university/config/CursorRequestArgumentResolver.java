@@ -0,0 +1,39 @@
+package ru.tihomirov.university.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import ru.tihomirov.university.dto.CursorRequest;
+
+/**
+ * Собирает {@link CursorRequest} из ?cursor= и ?size=: без size — размер по умолчанию,
+ * больше максимума — обрезается до максимума, меньше единицы — единица.
+ */
+public class CursorRequestArgumentResolver implements HandlerMethodArgumentResolver {
+
+    public static final String CURSOR_PARAM = "cursor";
+    public static final String SIZE_PARAM = "size";
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    public CursorRequestArgumentResolver(int defaultSize, int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CursorRequest.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public CursorRequest resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                         NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        String sizeParam = webRequest.getParameter(SIZE_PARAM);
+        int size = sizeParam == null || sizeParam.isBlank() ? defaultSize : Integer.parseInt(sizeParam.trim());
+        return new CursorRequest(webRequest.getParameter(CURSOR_PARAM), Math.min(Math.max(size, 1), maxSize));
+    }
+}
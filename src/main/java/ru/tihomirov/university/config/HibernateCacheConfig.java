@@ -0,0 +1,48 @@
+package ru.tihomirov.university.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+/**
+ * Общий JCache CacheManager для кэша второго уровня Hibernate и метрики hit/miss по его регионам
+ * (cache.gets{cache=..., result=hit|miss} в /actuator/prometheus).
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        return provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // Регионы создаются вместе с SessionFactory, поэтому метрики привязываются после старта
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> hibernateCacheMetricsBinder(CacheManager hibernateCacheManager,
+                                                                                  MeterRegistry meterRegistry) {
+        return event -> bindCacheMetrics(hibernateCacheManager, meterRegistry);
+    }
+
+    static void bindCacheMetrics(CacheManager cacheManager, MeterRegistry registry) {
+        for (String name : cacheManager.getCacheNames()) {
+            JCacheMetrics.monitor(registry, cacheManager.getCache(name), Tags.of("cache.manager", "hibernate"));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.tihomirov.university.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${app.paging.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.paging.max-size:500}")
+    private int maxPageSize;
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CursorRequestArgumentResolver(defaultPageSize, maxPageSize));
+    }
+}
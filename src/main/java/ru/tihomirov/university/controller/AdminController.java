@@ -1,11 +1,21 @@
 package ru.tihomirov.university.controller;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import ru.tihomirov.university.dto.BulkRegisterJobDto;
 import ru.tihomirov.university.dto.RegisterRequest;
 import ru.tihomirov.university.dto.RegisterResponse;
+import ru.tihomirov.university.dto.StudentImportReport;
+import ru.tihomirov.university.service.AttendanceSummaryService;
+import ru.tihomirov.university.service.StudentImportService;
+import ru.tihomirov.university.service.UserProvisioningService;
 import ru.tihomirov.university.service.UserService;
 
 @RestController
@@ -14,10 +24,41 @@ import ru.tihomirov.university.service.UserService;
 public class AdminController {
 
     private final UserService userService;
+    private final AttendanceSummaryService attendanceSummaryService;
+    private final StudentImportService studentImportService;
+    private final UserProvisioningService userProvisioningService;
 
     @PostMapping("/register")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<RegisterResponse> register(@RequestBody RegisterRequest request) {
         return ResponseEntity.ok(userService.registerUser(request));
     }
+
+    // Массовая регистрация: задание выполняется в фоне, ход и итоги по каждому пользователю — GET по id задания
+    @PostMapping("/register/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkRegisterJobDto> registerBulk(@RequestBody List<RegisterRequest> requests) {
+        return ResponseEntity.accepted().body(userProvisioningService.submit(requests));
+    }
+
+    @GetMapping("/register/bulk/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkRegisterJobDto> getBulkRegisterJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(userProvisioningService.getJob(jobId));
+    }
+
+    // Внеплановая пересборка сводки посещаемости (штатно — по расписанию app.attendance.summary.rebuild-cron)
+    @PostMapping("/attendance-summary/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> rebuildAttendanceSummary() {
+        return ResponseEntity.ok(Map.of("rows", attendanceSummaryService.rebuild()));
+    }
+
+    // Импорт студентов из CSV (приёмная кампания); ошибки — в отчёте по номерам строк
+    @PostMapping(value = "/students/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StudentImportReport> importStudents(@RequestParam("file") MultipartFile file,
+                                                              @RequestParam(defaultValue = ",") char delimiter) throws IOException {
+        return ResponseEntity.ok(studentImportService.importCsv(file, delimiter));
+    }
 }
@@ -4,19 +4,36 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.AttendanceJournalDto;
+import ru.tihomirov.university.dto.AttendanceSummaryDto;
+import ru.tihomirov.university.dto.CheckInCodeDto;
+import ru.tihomirov.university.dto.CheckInResult;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.dto.GroupAttendanceResponse;
 import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.exception.ValidationException;
 import ru.tihomirov.university.model.Attendance;
 import ru.tihomirov.university.repository.ScheduleRepository;
 import ru.tihomirov.university.repository.StudentRepository;
 import ru.tihomirov.university.repository.TeacherRepository;
+import ru.tihomirov.university.security.ScheduleOwnership;
 import ru.tihomirov.university.security.UserDetailsImpl;
+import ru.tihomirov.university.service.AttendanceEventHub;
+import ru.tihomirov.university.service.AttendanceJournalService;
 import ru.tihomirov.university.service.AttendanceService;
+import ru.tihomirov.university.service.AttendanceSummaryService;
+import ru.tihomirov.university.service.CheckInService;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -27,6 +44,11 @@ import java.util.List;
 public class AttendanceController {
 
     private final AttendanceService attendanceService;
+    private final AttendanceSummaryService attendanceSummaryService;
+    private final AttendanceJournalService attendanceJournalService;
+    private final AttendanceEventHub attendanceEventHub;
+    private final CheckInService checkInService;
+    private final ScheduleOwnership scheduleOwnership;
     private final ScheduleRepository scheduleRepository;
     private final StudentRepository studentRepository;
 
@@ -43,14 +65,8 @@ public class AttendanceController {
             throw new AccessDeniedException("Студент не может создавать записи о посещаемости");
         }
 
-        if (userDetails.hasRole("TEACHER")) {
-            Long scheduleTeacherId = scheduleRepository.findById(attendance.getSchedule().getId())
-                    .orElseThrow(() -> new EntityNotFoundException("Schedule not found"))
-                    .getTeacher().getId();
-
-            if (!scheduleTeacherId.equals(userDetails.getTeacherId())) {
-                throw new AccessDeniedException("Преподаватель может отмечать посещаемость только на своих занятиях");
-            }
+        if (userDetails.hasRole("TEACHER") && !scheduleOwnership.isOwner(userDetails, attendance.getSchedule().getId())) {
+            throw new AccessDeniedException("Преподаватель может отмечать посещаемость только на своих занятиях");
         }
 
         return ResponseEntity.ok(attendanceService.save(attendance));
@@ -64,13 +80,10 @@ public class AttendanceController {
             throw new AccessDeniedException("Студент не может редактировать записи о посещаемости");
         }
 
-        Attendance existing = attendanceService.getById(id);
+        Long scheduleId = attendanceService.getScheduleId(id);
 
-        if (userDetails.hasRole("TEACHER")) {
-            Long scheduleTeacherId = existing.getSchedule().getTeacher().getId();
-            if (!scheduleTeacherId.equals(userDetails.getTeacherId())) {
-                throw new AccessDeniedException("Преподаватель может редактировать только посещаемость на своих занятиях");
-            }
+        if (userDetails.hasRole("TEACHER") && !scheduleOwnership.isOwner(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может редактировать только посещаемость на своих занятиях");
         }
 
         return ResponseEntity.ok(attendanceService.update(id, attendance));
@@ -79,17 +92,15 @@ public class AttendanceController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         UserDetailsImpl userDetails = getCurrentUser();
-        Attendance existing = attendanceService.getById(id);
 
         if (userDetails.hasRole("STUDENT")) {
             throw new AccessDeniedException("Студент не может удалять записи о посещаемости");
         }
 
-        if (userDetails.hasRole("TEACHER")) {
-            Long scheduleTeacherId = existing.getSchedule().getTeacher().getId();
-            if (!scheduleTeacherId.equals(userDetails.getTeacherId())) {
-                throw new AccessDeniedException("Преподаватель может удалять только посещаемость на своих занятиях");
-            }
+        Long scheduleId = attendanceService.getScheduleId(id);
+
+        if (userDetails.hasRole("TEACHER") && !scheduleOwnership.isOwner(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может удалять только посещаемость на своих занятиях");
         }
 
         attendanceService.delete(id);
@@ -97,14 +108,14 @@ public class AttendanceController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Attendance>> getAll() {
+    public ResponseEntity<CursorPage<Attendance>> getAll(CursorRequest page) {
         UserDetailsImpl userDetails = getCurrentUser();
 
         if (userDetails.hasRole("STUDENT")) {
-            return ResponseEntity.ok(attendanceService.getByStudentId(userDetails.getStudentId()));
+            return ResponseEntity.ok(attendanceService.getByStudentId(userDetails.getStudentId(), page));
         }
 
-        return ResponseEntity.ok(attendanceService.getAll());
+        return ResponseEntity.ok(attendanceService.getAll(page));
     }
 
     @GetMapping("/{id}")
@@ -132,18 +143,8 @@ public class AttendanceController {
     public ResponseEntity<List<Attendance>> getBySchedule(@PathVariable Long scheduleId) {
         UserDetailsImpl userDetails = getCurrentUser();
 
-        scheduleRepository.findById(scheduleId).orElseThrow(() ->
-                new EntityNotFoundException("Расписание с ID " + scheduleId + " не найдена")
-        );
-
-        if (userDetails.hasRole("TEACHER")) {
-            Long scheduleTeacherId = scheduleRepository.findById(scheduleId)
-                    .orElseThrow(() -> new EntityNotFoundException("Schedule not found"))
-                    .getTeacher().getId();
-
-            if (!scheduleTeacherId.equals(userDetails.getTeacherId())) {
-                throw new AccessDeniedException("Преподаватель может просматривать посещаемость только на своих занятиях");
-            }
+        if (!scheduleOwnership.canAccess(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может просматривать посещаемость только на своих занятиях");
         }
 
         return ResponseEntity.ok(attendanceService.getByScheduleId(scheduleId));
@@ -153,18 +154,8 @@ public class AttendanceController {
     public ResponseEntity<Page<Attendance>> getBySchedulePaged(@PathVariable Long scheduleId, Pageable pageable) {
         UserDetailsImpl userDetails = getCurrentUser();
 
-        scheduleRepository.findById(scheduleId).orElseThrow(() ->
-                new EntityNotFoundException("Расписание с ID " + scheduleId + " не найдена")
-        );
-
-        if (userDetails.hasRole("TEACHER")) {
-            Long scheduleTeacherId = scheduleRepository.findById(scheduleId)
-                    .orElseThrow(() -> new EntityNotFoundException("Schedule not found"))
-                    .getTeacher().getId();
-
-            if (!scheduleTeacherId.equals(userDetails.getTeacherId())) {
-                throw new AccessDeniedException("Преподаватель может просматривать посещаемость только на своих занятиях");
-            }
+        if (!scheduleOwnership.canAccess(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может просматривать посещаемость только на своих занятиях");
         }
 
         return ResponseEntity.ok(attendanceService.getByScheduleIdPaged(scheduleId, pageable));
@@ -201,60 +192,142 @@ public class AttendanceController {
     }
 
     @GetMapping("/status/{statusId}")
-    public ResponseEntity<List<Attendance>> getByStatus(@PathVariable Long statusId) {
+    public ResponseEntity<CursorPage<Attendance>> getByStatus(
+            @PathVariable Long statusId,
+            CursorRequest page,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long groupId) {
         UserDetailsImpl userDetails = getCurrentUser();
 
         if (userDetails.hasRole("STUDENT")) {
             throw new AccessDeniedException("Студент не может фильтровать по статусам посещаемости");
         }
 
-        return ResponseEntity.ok(attendanceService.getByAttendanceStatusId(statusId));
+        return ResponseEntity.ok(attendanceService.getByAttendanceStatusId(statusId, page, from, to, groupId));
     }
 
     @GetMapping("/schedule/{scheduleId}/info")
     public ResponseEntity<List<AttendanceInfoDto>> getFormattedBySchedule(@PathVariable Long scheduleId) {
         UserDetailsImpl userDetails = getCurrentUser();
 
-        scheduleRepository.findById(scheduleId).orElseThrow(() ->
-                new EntityNotFoundException("Расписание с ID " + scheduleId + " не найдена")
-        );
-
-        if (userDetails.hasRole("TEACHER")) {
-            Long scheduleTeacherId = scheduleRepository.findById(scheduleId)
-                    .orElseThrow(() -> new EntityNotFoundException("Schedule not found"))
-                    .getTeacher().getId();
-
-            if (!scheduleTeacherId.equals(userDetails.getTeacherId())) {
-                throw new AccessDeniedException("Преподаватель может просматривать посещаемость только на своих занятиях");
-            }
+        if (userDetails.hasRole("TEACHER") && !scheduleOwnership.isOwner(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может просматривать посещаемость только на своих занятиях");
         }
 
         List<AttendanceInfoDto> result = attendanceService.getFormattedAttendanceBySchedule(scheduleId);
         if (result.isEmpty()) {
+            // EntityNotFoundException, если самого занятия нет
+            scheduleOwnership.teacherOf(scheduleId);
             throw new EntityNotFoundException("Для расписания с ID " + scheduleId + " не найдено записей о посещаемости");
         }
         return ResponseEntity.ok(result);
     }
 
+    // Live-отметки занятия (SSE): событие snapshot со всеми отметками, затем MARKED/UPDATED/DELETED
+    @GetMapping(value = "/schedule/{scheduleId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBySchedule(@PathVariable Long scheduleId) {
+        UserDetailsImpl userDetails = getCurrentUser();
+
+        if (userDetails.hasRole("STUDENT")) {
+            throw new AccessDeniedException("Студент не может просматривать отметки всей группы");
+        }
+
+        if (!scheduleOwnership.canAccess(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может просматривать посещаемость только на своих занятиях");
+        }
+
+        return attendanceEventHub.subscribe(scheduleId);
+    }
+
+    // Новый код самоотметки для экрана аудитории; экран запрашивает его раз в период ротации
+    @PostMapping("/schedule/{scheduleId}/check-in/code")
+    public ResponseEntity<CheckInCodeDto> issueCheckInCode(@PathVariable Long scheduleId) {
+        UserDetailsImpl userDetails = getCurrentUser();
+
+        if (userDetails.hasRole("STUDENT")) {
+            throw new AccessDeniedException("Студент не может выдавать код отметки");
+        }
+
+        if (userDetails.hasRole("TEACHER") && !scheduleOwnership.isOwner(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может выдавать код только на своих занятиях");
+        }
+
+        return ResponseEntity.ok(checkInService.issueCode(scheduleId));
+    }
+
+    // Самоотметка студента по коду: без обращений к БД, запись в фоне — ответ 202
+    @PostMapping("/schedule/{scheduleId}/check-in")
+    public ResponseEntity<CheckInResult> checkIn(@PathVariable Long scheduleId, @RequestParam String code) {
+        UserDetailsImpl userDetails = getCurrentUser();
+
+        if (!userDetails.hasRole("STUDENT") || userDetails.getStudentId() == null) {
+            throw new AccessDeniedException("Отметиться по коду может только студент");
+        }
+
+        CheckInResult result = checkInService.checkIn(scheduleId, userDetails.getStudentId(), code);
+        return switch (result) {
+            case ACCEPTED -> ResponseEntity.accepted().body(result);
+            case ALREADY_CHECKED_IN -> ResponseEntity.ok(result);
+            case INVALID_CODE -> throw new ValidationException("Неверный или устаревший код отметки");
+            case NOT_IN_GROUP -> throw new AccessDeniedException("Студент не из группы этого занятия");
+            case QUEUE_FULL -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(result);
+        };
+    }
+
     @GetMapping("/student/{studentId}/info")
     public ResponseEntity<List<AttendanceInfoDto>> getFormattedByStudent(@PathVariable Long studentId) {
         UserDetailsImpl userDetails = getCurrentUser();
 
-        studentRepository.findById(studentId).orElseThrow(() ->
-                new EntityNotFoundException("Студент с ID " + studentId + " не найден")
-        );
-
         if (userDetails.hasRole("STUDENT") && !userDetails.getStudentId().equals(studentId)) {
             throw new AccessDeniedException("Студент может просматривать только свою посещаемость");
         }
 
         List<AttendanceInfoDto> result = attendanceService.getFormattedAttendanceByStudent(studentId);
         if (result.isEmpty()) {
+            if (!studentRepository.existsById(studentId)) {
+                throw new EntityNotFoundException("Студент с ID " + studentId + " не найден");
+            }
             throw new EntityNotFoundException("Для студента с ID " + studentId + " не найдено записей о посещаемости");
         }
         return ResponseEntity.ok(result);
     }
 
+    // Итоги по курсам и типам занятий читаются из attendance_summary, без агрегации отметок
+    @GetMapping("/summary/student/{studentId}")
+    public ResponseEntity<List<AttendanceSummaryDto>> getSummaryByStudent(@PathVariable Long studentId) {
+        UserDetailsImpl userDetails = getCurrentUser();
+
+        if (userDetails.hasRole("STUDENT") && !userDetails.getStudentId().equals(studentId)) {
+            throw new AccessDeniedException("Студент может просматривать только свою посещаемость");
+        }
+
+        List<AttendanceSummaryDto> result = attendanceSummaryService.getByStudentId(studentId);
+        if (result.isEmpty() && !studentRepository.existsById(studentId)) {
+            throw new EntityNotFoundException("Студент с ID " + studentId + " не найден");
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // Журнал группы по курсу: все занятия × все студенты одним ответом (см. AttendanceJournalDto)
+    @GetMapping("/journal")
+    public ResponseEntity<AttendanceJournalDto> getJournal(@RequestParam Long groupId, @RequestParam Long courseId) {
+        UserDetailsImpl userDetails = getCurrentUser();
+
+        if (userDetails.hasRole("STUDENT")) {
+            throw new AccessDeniedException("Студент не может просматривать журнал группы");
+        }
+
+        if (userDetails.hasRole("TEACHER")
+                && !scheduleRepository.existsByGroupIdAndCourseIdAndTeacherId(groupId, courseId, userDetails.getTeacherId())) {
+            throw new AccessDeniedException("Преподаватель может просматривать журнал только своих занятий");
+        }
+
+        return ResponseEntity.ok(attendanceJournalService.getJournal(groupId, courseId));
+    }
+
     @PostMapping("/mark")
     public ResponseEntity<Attendance> markAttendance(
             @RequestParam Long scheduleId,
@@ -268,21 +341,15 @@ public class AttendanceController {
         }
 
         Long teacherId = userDetails.getTeacherId();
-        if (userDetails.hasRole("TEACHER")) {
-            Long scheduleTeacherId = scheduleRepository.findById(scheduleId)
-                    .orElseThrow(() -> new EntityNotFoundException("Schedule not found"))
-                    .getTeacher().getId();
-
-            if (!scheduleTeacherId.equals(teacherId)) {
-                throw new AccessDeniedException("Преподаватель может отмечать посещаемость только на своих занятиях");
-            }
+        if (userDetails.hasRole("TEACHER") && !scheduleOwnership.isOwner(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может отмечать посещаемость только на своих занятиях");
         }
 
         return ResponseEntity.ok(attendanceService.markAttendance(scheduleId, studentId, teacherId, statusId));
     }
 
     @PostMapping("/mark-group")
-    public ResponseEntity<List<Attendance>> markAttendanceForGroup(
+    public ResponseEntity<GroupAttendanceResponse> markAttendanceForGroup(
             @RequestParam Long scheduleId,
             @RequestParam List<Long> studentIds,
             @RequestParam Long statusId) {
@@ -294,14 +361,8 @@ public class AttendanceController {
         }
 
         Long teacherId = userDetails.getTeacherId();
-        if (userDetails.hasRole("TEACHER")) {
-            Long scheduleTeacherId = scheduleRepository.findById(scheduleId)
-                    .orElseThrow(() -> new EntityNotFoundException("Schedule not found"))
-                    .getTeacher().getId();
-
-            if (!scheduleTeacherId.equals(teacherId)) {
-                throw new AccessDeniedException("Преподаватель может отмечать посещаемость только на своих занятиях");
-            }
+        if (userDetails.hasRole("TEACHER") && !scheduleOwnership.isOwner(userDetails, scheduleId)) {
+            throw new AccessDeniedException("Преподаватель может отмечать посещаемость только на своих занятиях");
         }
 
         return ResponseEntity.ok(attendanceService.markAttendanceForGroup(scheduleId, teacherId, studentIds, statusId));
@@ -1,6 +1,8 @@
 package ru.tihomirov.university.controller;
 
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -8,7 +10,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import ru.tihomirov.university.dto.AuthRequest;
 import ru.tihomirov.university.dto.AuthResponse;
+import ru.tihomirov.university.dto.RefreshRequest;
 import ru.tihomirov.university.security.JwtUtils;
+import ru.tihomirov.university.security.RefreshTokenService;
+import ru.tihomirov.university.security.TokenRevocationService;
 import ru.tihomirov.university.security.UserDetailsImpl;
 
 @RestController
@@ -18,6 +23,8 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request) {
@@ -27,7 +34,29 @@ public class AuthController {
 
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         String token = jwtUtils.generateToken(userDetails.getUser());
+        String refreshToken = refreshTokenService.issue(userDetails.getUser());
 
-        return ResponseEntity.ok(new AuthResponse(token));
+        return ResponseEntity.ok(new AuthResponse(token, refreshToken));
+    }
+
+    // Новая пара токенов без проверки пароля; предъявленный refresh-токен больше не действует
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(refreshTokenService.refresh(request.getRefreshToken()));
+    }
+
+    // Отзываются цепочка refresh-токенов и предъявленный access-токен, если он ещё действителен
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody RefreshRequest request,
+                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        refreshTokenService.revoke(request.getRefreshToken());
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            try {
+                tokenRevocationService.revokeToken(jwtUtils.extractAllClaims(authorization.substring(7)));
+            } catch (JwtException | IllegalArgumentException e) {
+                // Истёкший или чужой токен отзывать незачем
+            }
+        }
+        return ResponseEntity.noContent().build();
     }
 }
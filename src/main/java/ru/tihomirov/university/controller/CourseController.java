@@ -3,12 +3,12 @@ package ru.tihomirov.university.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.model.Course;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.service.CourseService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/courses")
 @RequiredArgsConstructor
@@ -17,8 +17,8 @@ public class CourseController {
     private final CourseService courseService;
 
     @GetMapping
-    public ResponseEntity<List<Course>> getAllCourses() {
-        return ResponseEntity.ok(courseService.getAll());
+    public ResponseEntity<CursorPage<Course>> getAllCourses(CursorRequest page) {
+        return ResponseEntity.ok(courseService.getAll(page));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,66 @@
+package ru.tihomirov.university.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.tihomirov.university.dto.ExportFilter;
+import ru.tihomirov.university.dto.ExportFormat;
+import ru.tihomirov.university.exception.ValidationException;
+import ru.tihomirov.university.service.ExportService;
+
+import java.time.LocalDate;
+
+/**
+ * Выгрузка за произвольный период (например, весь семестр) в NDJSON или CSV.
+ * Тело пишется в ответ по мере чтения из БД, без сборки списка в памяти.
+ */
+@RestController
+@RequestMapping("/api/admin/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/attendance")
+    public ResponseEntity<StreamingResponseBody> exportAttendance(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long groupId,
+            @RequestParam(required = false) Long courseId) {
+        ExportFilter filter = filter(from, to, groupId, courseId);
+        return stream("attendance", format, out -> exportService.exportAttendance(filter, format, out));
+    }
+
+    @GetMapping("/schedules")
+    public ResponseEntity<StreamingResponseBody> exportSchedules(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long groupId,
+            @RequestParam(required = false) Long courseId) {
+        ExportFilter filter = filter(from, to, groupId, courseId);
+        return stream("schedules", format, out -> exportService.exportSchedules(filter, format, out));
+    }
+
+    private static ExportFilter filter(LocalDate from, LocalDate to, Long groupId, Long courseId) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ValidationException("Date 'from' must not be after 'to'");
+        }
+        return new ExportFilter().setDateFrom(from).setDateTo(to).setGroupId(groupId).setCourseId(courseId);
+    }
+
+    // Тело выполняется в отдельном потоке после возврата из контроллера; транзакция открывается в сервисе
+    private static ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension()).build().toString())
+                .body(body);
+    }
+}
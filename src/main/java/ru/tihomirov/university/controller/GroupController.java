@@ -3,11 +3,11 @@ package ru.tihomirov.university.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.service.GroupService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/groups")
 @RequiredArgsConstructor
@@ -16,8 +16,8 @@ public class GroupController {
     private final GroupService groupService;
 
     @GetMapping
-    public ResponseEntity<List<Group>> getAll() {
-        return ResponseEntity.ok(groupService.getAll());
+    public ResponseEntity<CursorPage<Group>> getAll(CursorRequest page) {
+        return ResponseEntity.ok(groupService.getAll(page));
     }
 
     @GetMapping("/{id}")
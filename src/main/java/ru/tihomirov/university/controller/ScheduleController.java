@@ -9,7 +9,12 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.dto.ScheduleConflictDto;
 import ru.tihomirov.university.dto.ScheduleInfoDto;
+import ru.tihomirov.university.dto.ScheduleSeriesRequest;
+import ru.tihomirov.university.dto.ScheduleSeriesResponse;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Schedule;
 import ru.tihomirov.university.repository.GroupRepository;
@@ -87,9 +92,35 @@ public class ScheduleController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/series")
+    public ResponseEntity<ScheduleSeriesResponse> createSeries(@RequestBody List<ScheduleSeriesRequest> series) {
+        UserDetailsImpl userDetails = getCurrentUser();
+
+        if (userDetails.hasRole("STUDENT")) {
+            throw new AccessDeniedException("Студент не может создавать расписание");
+        }
+
+        if (userDetails.hasRole("TEACHER")) {
+            boolean foreign = series.stream().anyMatch(s -> !userDetails.getTeacherId().equals(s.getTeacherId()));
+            if (foreign) {
+                throw new AccessDeniedException("Преподаватель может создавать только своё расписание");
+            }
+        }
+
+        return ResponseEntity.ok(scheduleService.createSeries(series));
+    }
+
+    @PostMapping("/conflicts")
+    public ResponseEntity<List<ScheduleConflictDto>> checkConflicts(@RequestBody List<Schedule> schedules) {
+        if (getCurrentUser().hasRole("STUDENT")) {
+            throw new AccessDeniedException("Студент не может проверять расписание");
+        }
+        return ResponseEntity.ok(scheduleService.checkConflicts(schedules));
+    }
+
     @GetMapping
-    public ResponseEntity<List<Schedule>> getAll() {
-        return ResponseEntity.ok(scheduleService.getAll());
+    public ResponseEntity<CursorPage<Schedule>> getAll(CursorRequest page) {
+        return ResponseEntity.ok(scheduleService.getAll(page));
     }
 
     @GetMapping("/{id}")
@@ -130,24 +161,27 @@ public class ScheduleController {
     }
 
     @GetMapping("/date/{date}")
-    public ResponseEntity<List<Schedule>> getByDate(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return ResponseEntity.ok(scheduleService.getByDate(date));
+    public ResponseEntity<CursorPage<Schedule>> getByDate(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                          CursorRequest page) {
+        return ResponseEntity.ok(scheduleService.getByDate(date, page));
     }
 
     @GetMapping("/group/{groupId}/info")
     public ResponseEntity<List<ScheduleInfoDto>> getFormattedByGroup(@PathVariable Long groupId) {
-        groupRepository.findById(groupId).orElseThrow(() ->
-                new EntityNotFoundException("Группа с ID " + groupId + " не найдена")
-        );
-        return ResponseEntity.ok(scheduleService.getFormattedScheduleByGroup(groupId));
+        List<ScheduleInfoDto> result = scheduleService.getFormattedScheduleByGroup(groupId);
+        if (result.isEmpty() && !groupRepository.existsById(groupId)) {
+            throw new EntityNotFoundException("Группа с ID " + groupId + " не найдена");
+        }
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/teacher/{teacherId}/info")
     public ResponseEntity<List<ScheduleInfoDto>> getFormattedByTeacher(@PathVariable Long teacherId) {
-        teacherRepository.findById(teacherId).orElseThrow(() ->
-                new EntityNotFoundException("Преподаватель с ID " + teacherId + " не найден")
-        );
-        return ResponseEntity.ok(scheduleService.getFormattedScheduleByTeacher(teacherId));
+        List<ScheduleInfoDto> result = scheduleService.getFormattedScheduleByTeacher(teacherId);
+        if (result.isEmpty() && !teacherRepository.existsById(teacherId)) {
+            throw new EntityNotFoundException("Преподаватель с ID " + teacherId + " не найден");
+        }
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/group/name/{groupName}/info")
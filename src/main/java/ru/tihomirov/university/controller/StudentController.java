@@ -3,6 +3,8 @@ package ru.tihomirov.university.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.model.Student;
 import ru.tihomirov.university.service.StudentService;
 
@@ -16,8 +18,8 @@ public class StudentController {
     private final StudentService studentService;
 
     @GetMapping
-    public ResponseEntity<List<Student>> getAll() {
-        return ResponseEntity.ok(studentService.getAll());
+    public ResponseEntity<CursorPage<Student>> getAll(CursorRequest page) {
+        return ResponseEntity.ok(studentService.getAll(page));
     }
 
     @GetMapping("/{id}")
@@ -35,6 +37,11 @@ public class StudentController {
         return ResponseEntity.ok(studentService.save(student));
     }
 
+    @PostMapping("/group/{groupId}/enroll")
+    public ResponseEntity<List<Student>> enroll(@PathVariable Long groupId, @RequestBody List<Student> students) {
+        return ResponseEntity.ok(studentService.enroll(groupId, students));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Student> update(@PathVariable Long id, @RequestBody Student updatedStudent) {
         return ResponseEntity.ok(studentService.update(id, updatedStudent));
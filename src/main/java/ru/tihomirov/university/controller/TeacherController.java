@@ -3,12 +3,12 @@ package ru.tihomirov.university.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.model.Teacher;
 import ru.tihomirov.university.service.TeacherService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/teachers")
 @RequiredArgsConstructor
@@ -17,8 +17,8 @@ public class TeacherController {
     private final TeacherService teacherService;
 
     @GetMapping
-    public ResponseEntity<List<Teacher>> getAll() {
-        return ResponseEntity.ok(teacherService.getAll());
+    public ResponseEntity<CursorPage<Teacher>> getAll(CursorRequest page) {
+        return ResponseEntity.ok(teacherService.getAll(page));
     }
 
     @GetMapping("/{id}")
@@ -3,14 +3,14 @@ package ru.tihomirov.university.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.dto.RegisterRequest;
 import ru.tihomirov.university.dto.RegisterResponse;
 import ru.tihomirov.university.dto.UpdateUserRequest;
 import ru.tihomirov.university.model.User;
 import ru.tihomirov.university.service.UserService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/admin/users")
 @RequiredArgsConstructor
@@ -34,8 +34,15 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    // Все выданные пользователю токены перестают действовать на всех узлах
+    @PostMapping("/{id}/revoke-tokens")
+    public ResponseEntity<Void> revokeTokens(@PathVariable Long id) {
+        userService.revokeTokens(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping
-    public ResponseEntity<List<User>> getAll() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<CursorPage<User>> getAll(CursorRequest page) {
+        return ResponseEntity.ok(userService.getAllUsers(page));
     }
 }
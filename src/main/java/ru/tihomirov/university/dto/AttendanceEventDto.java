@@ -0,0 +1,43 @@
+package ru.tihomirov.university.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.time.LocalTime;
+
+/**
+ * Изменение отметки на занятии для live-подписчиков. События идемпотентны по attendanceId
+ * (MARKED/UPDATED — вставить или заменить, DELETED — убрать); sequence растёт на 1 в пределах занятия,
+ * разрыв в нумерации означает, что медленный подписчик потерял события и должен переподключиться.
+ */
+@Data
+@NoArgsConstructor
+@Accessors(chain = true)
+public class AttendanceEventDto {
+
+    public enum Type { MARKED, UPDATED, DELETED }
+
+    private Type type;
+    private long sequence;
+    private Long attendanceId;
+    private Long scheduleId;
+    private Long studentId;
+    private String studentFullName;
+    private Long attendanceStatusId;
+    private String attendanceStatusName;
+    private LocalTime markedTime;
+
+    // Строка снимка текущих отметок занятия
+    public AttendanceEventDto(Long attendanceId, Long scheduleId, Long studentId, String studentFullName,
+                              Long attendanceStatusId, String attendanceStatusName, LocalTime markedTime) {
+        this.type = Type.MARKED;
+        this.attendanceId = attendanceId;
+        this.scheduleId = scheduleId;
+        this.studentId = studentId;
+        this.studentFullName = studentFullName;
+        this.attendanceStatusId = attendanceStatusId;
+        this.attendanceStatusName = attendanceStatusName;
+        this.markedTime = markedTime;
+    }
+}
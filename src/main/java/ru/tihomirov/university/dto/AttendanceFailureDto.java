@@ -0,0 +1,13 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AttendanceFailureDto {
+    public static final String ALREADY_MARKED = "Attendance already marked for this student on this schedule";
+
+    private Long studentId;
+    private String reason;
+}
@@ -1,11 +1,16 @@
 package ru.tihomirov.university.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 @Accessors(chain = true)
 public class AttendanceInfoDto {
     private String studentFullName;
@@ -13,6 +18,7 @@ public class AttendanceInfoDto {
     private String teacherFullName;
     private String attendanceStatusName;
     private LocalTime markedTime;
+    private LocalDate scheduleDate;
     private LocalTime scheduleStartTime;
     private LocalTime scheduleEndTime;
     private String courseName;
@@ -0,0 +1,23 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Строка агрегирующего запроса журнала: пара (занятие, студент группы) и статус, если отметка есть
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceJournalCellDto {
+    private Long scheduleId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private String classTypeName;
+    private Long studentId;
+    private String studentFullName;
+    private Long attendanceStatusId;
+    private String attendanceStatusName;
+}
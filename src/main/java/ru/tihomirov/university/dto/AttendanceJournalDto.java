@@ -0,0 +1,58 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журнал группы по курсу: матрица студенты × занятия.
+ * cells — построчно по студентам: cells[i * sessions.size() + j] — отметка студента i на занятии j;
+ * 0 — нет отметки, k > 0 — статус statuses[k - 1]. В JSON массив байт передаётся строкой base64.
+ */
+@Data
+@Accessors(chain = true)
+public class AttendanceJournalDto {
+    private Long groupId;
+    private Long courseId;
+    private List<JournalStudent> students = new ArrayList<>();
+    private List<JournalSession> sessions = new ArrayList<>();
+    private List<JournalStatus> statuses = new ArrayList<>();
+    private byte[] cells = new byte[0];
+
+    // Код ячейки для студента и занятия по их позициям в students и sessions
+    public int cell(int student, int session) {
+        return cells[student * sessions.size() + session] & 0xFF;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class JournalStudent {
+        private Long id;
+        private String fullName;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class JournalSession {
+        private Long scheduleId;
+        private LocalDate date;
+        private LocalTime startTime;
+        private String classTypeName;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class JournalStatus {
+        private Long id;
+        private String name;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+// Одна отметка в разрезе сводки: чья, по какому курсу и типу занятия, с каким статусом
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class AttendanceMarkDto {
+    private Long studentId;
+    private Long courseId;
+    private Long classTypeId;
+    private String attendanceStatusName;
+    // Не входят в ключ сводки: группа — для сброса журнала, занятие — для live-событий
+    private Long groupId;
+    private Long scheduleId;
+}
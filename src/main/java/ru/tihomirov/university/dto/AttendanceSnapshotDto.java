@@ -0,0 +1,17 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Первое сообщение live-подписки: все отметки занятия; дальше идут события с sequence > этого
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceSnapshotDto {
+    private Long scheduleId;
+    private long sequence;
+    private List<AttendanceEventDto> marks;
+}
@@ -0,0 +1,36 @@
+package ru.tihomirov.university.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+@Data
+@NoArgsConstructor
+@Accessors(chain = true)
+public class AttendanceSummaryDto {
+    private Long courseId;
+    private String courseName;
+    private Long classTypeId;
+    private String classTypeName;
+    private int presentCount;
+    private int absentCount;
+    private int lateCount;
+    private int markedCount; // отметки студента с любым статусом
+    private long heldCount; // занятия группы студента по курсу и типу, дата которых уже наступила
+    private double attendancePercent; // (присутствовал + опоздал) / отмеченных занятий
+
+    public AttendanceSummaryDto(Long courseId, String courseName, Long classTypeId, String classTypeName,
+                                int presentCount, int absentCount, int lateCount, int markedCount, long heldCount) {
+        this.courseId = courseId;
+        this.courseName = courseName;
+        this.classTypeId = classTypeId;
+        this.classTypeName = classTypeName;
+        this.presentCount = presentCount;
+        this.absentCount = absentCount;
+        this.lateCount = lateCount;
+        this.markedCount = markedCount;
+        this.heldCount = heldCount;
+        this.attendancePercent = markedCount == 0 ? 0.0
+                : Math.round((presentCount + lateCount) * 1000.0 / markedCount) / 10.0;
+    }
+}
@@ -7,4 +7,6 @@ import lombok.Data;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    // Одноразовый: при обновлении выдаётся следующий, прежний становится недействительным
+    private String refreshToken;
 }
@@ -0,0 +1,26 @@
+package ru.tihomirov.university.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Accessors(chain = true)
+public class BulkRegisterJobDto {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private String id;
+    private Status status;
+    private int total;
+    private int hashed;
+    private int created;
+    private int rejected;
+    private Instant submittedAt;
+    private Instant finishedAt;
+    private String error;
+    // Заполняется по завершении задания, пока оно выполняется — null
+    private List<BulkRegisterOutcome> outcomes;
+}
@@ -0,0 +1,18 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegisterOutcome {
+
+    public enum Status { CREATED, REJECTED }
+
+    private int index; // позиция в запросе
+    private String username;
+    private Status status;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Код самоотметки для показа на экране аудитории; предыдущий код принимается до своего expiresAt
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckInCodeDto {
+    private Long scheduleId;
+    private String code;
+    private Instant expiresAt;
+}
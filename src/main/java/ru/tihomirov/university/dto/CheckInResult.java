@@ -0,0 +1,9 @@
+package ru.tihomirov.university.dto;
+
+public enum CheckInResult {
+    ACCEPTED,            // принята и поставлена в очередь на запись
+    ALREADY_CHECKED_IN,  // повторная отметка того же студента — ничего не делается
+    INVALID_CODE,        // код неверный, устарел или для занятия не выдавался
+    NOT_IN_GROUP,        // студент не из группы этого занятия
+    QUEUE_FULL           // очередь записи переполнена — клиенту стоит повторить позже
+}
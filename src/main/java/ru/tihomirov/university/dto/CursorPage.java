@@ -0,0 +1,32 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Window;
+import ru.tihomirov.university.repository.KeysetOrder;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor; // непрозрачный курсор следующей страницы; null — следующей страницы нет
+
+    // rows выбираются с запасом в одну запись: по ней видно, есть ли продолжение
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+
+    public static <T> CursorPage<T> of(Window<T> window, KeysetOrder order) {
+        String next = window.hasNext() && !window.isEmpty()
+                ? order.encode(window.positionAt(window.size() - 1))
+                : null;
+        return new CursorPage<>(window.getContent(), next);
+    }
+}
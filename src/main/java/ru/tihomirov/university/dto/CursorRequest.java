@@ -0,0 +1,35 @@
+package ru.tihomirov.university.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import ru.tihomirov.university.repository.KeysetOrder;
+
+/**
+ * Параметры cursor-страницы (?cursor=&size=). В контроллеры приходит через
+ * CursorRequestArgumentResolver — размер там уже приведён к умолчанию и ограничен сверху.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CursorRequest {
+
+    private final String cursor; // null — первая страница
+    private final int size;
+
+    public static CursorRequest first(int size) {
+        return new CursorRequest(null, size);
+    }
+
+    public <T> CursorPage<T> fetch(KeysetOrder order, WindowQuery<T> query) {
+        Window<T> window = query.find(order.decode(cursor), order.sort(), Limit.of(size));
+        return CursorPage.of(window, order);
+    }
+
+    @FunctionalInterface
+    public interface WindowQuery<T> {
+        Window<T> find(ScrollPosition position, Sort sort, Limit limit);
+    }
+}
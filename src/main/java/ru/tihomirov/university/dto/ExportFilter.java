@@ -0,0 +1,16 @@
+package ru.tihomirov.university.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDate;
+
+// Фильтры выгрузки; null — без ограничения
+@Data
+@Accessors(chain = true)
+public class ExportFilter {
+    private LocalDate dateFrom;
+    private LocalDate dateTo;
+    private Long groupId;
+    private Long courseId;
+}
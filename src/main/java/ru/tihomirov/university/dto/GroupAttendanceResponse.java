@@ -0,0 +1,15 @@
+package ru.tihomirov.university.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+import ru.tihomirov.university.model.Attendance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Accessors(chain = true)
+public class GroupAttendanceResponse {
+    private List<Attendance> marked = new ArrayList<>();
+    private List<AttendanceFailureDto> failures = new ArrayList<>();
+}
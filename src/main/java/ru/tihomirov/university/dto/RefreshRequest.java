@@ -0,0 +1,8 @@
+package ru.tihomirov.university.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshRequest {
+    private String refreshToken;
+}
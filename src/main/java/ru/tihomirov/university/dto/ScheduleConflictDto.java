@@ -0,0 +1,18 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleConflictDto {
+    // Позиция слота в проверяемом списке
+    private int index;
+    // GROUP или TEACHER
+    private String type;
+    // id занятия, с которым пересечение; null — пересечение с другим слотом из того же списка
+    private Long conflictingScheduleId;
+    private String message;
+}
@@ -0,0 +1,20 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleSeriesConflictDto {
+    // Позиция серии в запросе
+    private int seriesIndex;
+    private LocalDate date;
+    // GROUP или TEACHER
+    private String type;
+    private Long conflictingScheduleId;
+    private String message;
+}
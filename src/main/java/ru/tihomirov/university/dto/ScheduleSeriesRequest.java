@@ -0,0 +1,33 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class ScheduleSeriesRequest {
+    private Long groupId;
+    private Long courseId;
+    private Long teacherId;
+    private Long classTypeId;
+
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    private LocalDate dateFrom;
+    private LocalDate dateTo;
+    // 1 — каждую неделю, 2 — через неделю (числитель/знаменатель)
+    private int weekInterval = 1;
+    private List<LocalDate> excludedDates = new ArrayList<>();
+}
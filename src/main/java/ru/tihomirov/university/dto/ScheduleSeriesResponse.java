@@ -0,0 +1,19 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class ScheduleSeriesResponse {
+    private int requested;
+    private int created;
+    private List<ScheduleSeriesConflictDto> rejected = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class ScheduleSlotDto {
+    private Long id;
+    private Long groupId;
+    private Long teacherId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+}
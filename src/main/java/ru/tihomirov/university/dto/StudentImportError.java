@@ -0,0 +1,13 @@
+package ru.tihomirov.university.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportError {
+    private int row; // номер записи в файле, заголовок — 1
+    private String message;
+}
@@ -0,0 +1,18 @@
+package ru.tihomirov.university.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Accessors(chain = true)
+public class StudentImportReport {
+    private int rows;
+    private int imported;
+    private Map<String, Integer> importedByGroup = new LinkedHashMap<>();
+    private List<StudentImportError> errors = new ArrayList<>();
+}
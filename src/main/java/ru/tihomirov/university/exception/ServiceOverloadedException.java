@@ -0,0 +1,20 @@
+package ru.tihomirov.university.exception;
+
+import java.time.Duration;
+
+/**
+ * Запрос отклонён из-за перегрузки; клиенту отвечаем 503 с Retry-After.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.tihomirov.university.exception;
+
+/**
+ * Некорректные данные запроса (серия занятий, CSV, курсор, диапазон дат); клиенту отвечаем 400 с текстом ошибки.
+ */
+public class ValidationException extends RuntimeException {
+    public ValidationException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.tihomirov.university.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.experimental.Accessors;
@@ -7,25 +8,40 @@ import lombok.experimental.Accessors;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "attendance")
+@NamedEntityGraph(name = Attendance.GRAPH_DETAILS,
+        attributeNodes = {
+                @NamedAttributeNode(value = "schedule", subgraph = "schedule"),
+                @NamedAttributeNode(value = "student", subgraph = "student"),
+                @NamedAttributeNode("attendanceStatus")},
+        subgraphs = {
+                @NamedSubgraph(name = "schedule", attributeNodes = {
+                        @NamedAttributeNode("group"), @NamedAttributeNode("course"),
+                        @NamedAttributeNode("teacher"), @NamedAttributeNode("classType")}),
+                @NamedSubgraph(name = "student", attributeNodes = @NamedAttributeNode("group"))})
+@Table(name = "attendance", uniqueConstraints = @UniqueConstraint(
+        name = "uc_attendance_schedule_student", columnNames = {"schedule_id", "student_id"}))
 @Data
 @Accessors(chain = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Attendance {
 
+    // Отметка вместе с занятием (группа, курс, преподаватель, тип) и студентом с группой
+    public static final String GRAPH_DETAILS = "Attendance.details";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_id_seq")
-    @SequenceGenerator(name = "attendance_id_seq", sequenceName = "attendance_id_seq", initialValue = 1, allocationSize = 1)
+    @SequenceGenerator(name = "attendance_id_seq", sequenceName = "attendance_id_seq", initialValue = 1, allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "schedule_id")
     private Schedule schedule;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id")
     private Student student;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id")
     private AttendanceStatus attendanceStatus;
 
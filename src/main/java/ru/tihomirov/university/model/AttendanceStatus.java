@@ -1,17 +1,23 @@
 package ru.tihomirov.university.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "attendance_statuses")
 @Table(name = "attendance_status")
 @Data
 @Accessors(chain = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class AttendanceStatus {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_status_id_seq")
-    @SequenceGenerator(name = "attendance_status_id_seq", sequenceName = "attendance_status_id_seq", initialValue = 1, allocationSize = 1)
+    @SequenceGenerator(name = "attendance_status_id_seq", sequenceName = "attendance_status_id_seq", initialValue = 1, allocationSize = 50)
     private Long id;
 
     private String attendanceStatusName;
@@ -0,0 +1,33 @@
+package ru.tihomirov.university.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Сводка посещаемости студента по курсу и типу занятия. Счётчики меняются атомарными UPDATE
+ * вместе с отметками (AttendanceSummaryService), поэтому через JPA таблица только читается.
+ */
+@Entity
+@Table(name = "attendance_summary")
+@Data
+@Accessors(chain = true)
+public class AttendanceSummary {
+
+    @EmbeddedId
+    private AttendanceSummaryId id;
+
+    @Column(nullable = false)
+    private int presentCount;
+
+    @Column(nullable = false)
+    private int absentCount;
+
+    @Column(nullable = false)
+    private int lateCount;
+
+    // Отметки студента, включая статусы вне трёх категорий; не число проведённых занятий —
+    // занятие, на котором студента не отметили, сюда не попадает
+    @Column(nullable = false)
+    private int markedCount;
+}
@@ -1,18 +1,24 @@
 package ru.tihomirov.university.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "groups")
 @Table(name = "groups")
 @Data
 @Accessors(chain = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Group {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "group_id_seq")
-    @SequenceGenerator(name = "group_id_seq", sequenceName = "group_id_seq", initialValue = 1, allocationSize = 1)
+    @SequenceGenerator(name = "group_id_seq", sequenceName = "group_id_seq", initialValue = 1, allocationSize = 50)
     private Long id;
 
     private String name;
@@ -0,0 +1,46 @@
+package ru.tihomirov.university.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Refresh-токен. Сам токен не хранится — только его HMAC. Все токены одной цепочки ротаций
+ * (от одного входа) имеют общий familyId: повторное использование любого из них отзывает всю цепочку.
+ */
+@Entity
+@Table(name = "refresh_token")
+@Data
+@Accessors(chain = true)
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_token_id_seq")
+    @SequenceGenerator(name = "refresh_token_id_seq", sequenceName = "refresh_token_id_seq", initialValue = 1, allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private UUID familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    // Версия токенов пользователя на момент входа: после смены роли или пароля цепочка недействительна
+    @Column(nullable = false)
+    private Integer tokenVersion;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // Когда токен обменяли на следующий; повторный обмен — признак кражи
+    private Instant usedAt;
+
+    private boolean revoked;
+}
@@ -0,0 +1,29 @@
+package ru.tihomirov.university.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.Instant;
+
+/**
+ * Запись списка отзыва access-токенов. Ключ — jti:&lt;id токена&gt; для одного токена или
+ * user:&lt;id пользователя&gt; для всех его токенов, выданных не позже revokedAt.
+ */
+@Entity
+@Table(name = "revoked_token")
+@Data
+@Accessors(chain = true)
+public class RevokedToken {
+
+    @Id
+    @Column(length = 64)
+    private String tokenKey;
+
+    @Column(nullable = false)
+    private Instant revokedAt;
+
+    // После этого момента все затронутые токены истекли сами, и запись можно удалить
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -1,5 +1,6 @@
 package ru.tihomirov.university.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.experimental.Accessors;
@@ -8,33 +9,39 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
+@NamedEntityGraph(name = Schedule.GRAPH_DETAILS, attributeNodes = {
+        @NamedAttributeNode("group"), @NamedAttributeNode("course"),
+        @NamedAttributeNode("teacher"), @NamedAttributeNode("classType")})
 @Table(name = "schedule")
 @Data
 @Accessors(chain = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Schedule {
 
+    public static final String GRAPH_DETAILS = "Schedule.details";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "schedule_id_seq")
-    @SequenceGenerator(name = "schedule_id_seq", sequenceName = "schedule_id_seq", initialValue = 1, allocationSize = 1)
+    @SequenceGenerator(name = "schedule_id_seq", sequenceName = "schedule_id_seq", initialValue = 1, allocationSize = 50)
     private Long id;
 
     private LocalDate date;
     private LocalTime startTime;
     private LocalTime endTime;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "group_id")
     private Group group;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id")
     private Course course;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id")
     private Teacher teacher;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "class_type_id")
     private ClassType classType;
 }
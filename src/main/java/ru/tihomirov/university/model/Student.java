@@ -1,18 +1,23 @@
 package ru.tihomirov.university.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
 @Entity
+@NamedEntityGraph(name = Student.GRAPH_WITH_GROUP, attributeNodes = @NamedAttributeNode("group"))
 @Table(name = "students")
 @Data
 @Accessors(chain = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Student {
 
+    public static final String GRAPH_WITH_GROUP = "Student.withGroup";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_id_seq")
-    @SequenceGenerator(name = "student_id_seq", sequenceName = "student_id_seq", initialValue = 1, allocationSize = 1)
+    @SequenceGenerator(name = "student_id_seq", sequenceName = "student_id_seq", initialValue = 1, allocationSize = 50)
     private Long id;
 
     private String lastName;
@@ -21,7 +26,7 @@ public class Student {
     private String email;
     private String phone;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "group_id")
     private Group group;
 }
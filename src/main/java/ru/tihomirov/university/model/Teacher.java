@@ -1,18 +1,24 @@
 package ru.tihomirov.university.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "teachers")
 @Table(name = "teachers")
 @Data
 @Accessors(chain = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Teacher {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "teacher_id_seq")
-    @SequenceGenerator(name = "teacher_id_seq", sequenceName = "teacher_id_seq", initialValue = 1, allocationSize = 1)
+    @SequenceGenerator(name = "teacher_id_seq", sequenceName = "teacher_id_seq", initialValue = 1, allocationSize = 50)
     private Long id;
 
     private String lastName;
@@ -1,32 +1,48 @@
 package ru.tihomirov.university.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
 @Entity
+@NamedEntityGraph(name = User.GRAPH_WITH_ROLE, attributeNodes = @NamedAttributeNode("role"))
+@NamedEntityGraph(name = User.GRAPH_DETAILS,
+        attributeNodes = {
+                @NamedAttributeNode("role"),
+                @NamedAttributeNode(value = "student", subgraph = "student"),
+                @NamedAttributeNode("teacher")},
+        subgraphs = @NamedSubgraph(name = "student", attributeNodes = @NamedAttributeNode("group")))
 @Table(name = "users")
 @Data
 @Accessors(chain = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
 
+    // Аутентификации нужна только роль; id студента и преподавателя читаются из прокси без запроса
+    public static final String GRAPH_WITH_ROLE = "User.withRole";
+    public static final String GRAPH_DETAILS = "User.details";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_seq")
-    @SequenceGenerator(name = "user_id_seq", sequenceName = "user_id_seq", initialValue = 1, allocationSize = 1)
+    @SequenceGenerator(name = "user_id_seq", sequenceName = "user_id_seq", initialValue = 1, allocationSize = 50)
     private Long id;
 
     private String username;
     private String password;
 
-    @ManyToOne
+    // Растёт при смене роли, привязки или пароля — старые JWT с прежней версией отклоняются
+    private Integer tokenVersion = 0;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "role_id")
     private Role role;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id")
     private Student student;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id")
     private Teacher teacher;
 }
@@ -0,0 +1,18 @@
+package ru.tihomirov.university.repository;
+
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Вставка отметок без предварительного чтения: уникальность (schedule_id, student_id) проверяет БД.
+ */
+public interface AttendanceInsertRepository {
+
+    /**
+     * Отмечает студентов на занятии одним JDBC-батчем; уже отмеченные пропускаются (ON CONFLICT DO NOTHING).
+     *
+     * @return id новых отметок по id студента — только для реально вставленных строк
+     */
+    Map<Long, Long> insertIfAbsent(Long scheduleId, Collection<Long> studentIds, Long statusId, LocalTime markedTime);
+}
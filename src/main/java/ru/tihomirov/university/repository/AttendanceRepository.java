@@ -1,16 +1,148 @@
 package ru.tihomirov.university.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.tihomirov.university.dto.AttendanceEventDto;
+import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.AttendanceJournalCellDto;
+import ru.tihomirov.university.dto.AttendanceMarkDto;
 import ru.tihomirov.university.model.Attendance;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AttendanceRepository extends JpaRepository<Attendance, Long>{
+public interface AttendanceRepository extends JpaRepository<Attendance, Long>, CursorRepository<Attendance, Long>,
+        AttendanceInsertRepository {
+
+    // Проекция сразу в AttendanceInfoDto одним join-запросом, без загрузки сущностей
+    String INFO_SELECT = "select new ru.tihomirov.university.dto.AttendanceInfoDto(" +
+            "trim(concat(coalesce(stu.lastName, ''), ' ', coalesce(stu.name, ''), ' ', coalesce(stu.middleName, ''))), " +
+            "g.name, " +
+            "trim(concat(coalesce(t.lastName, ''), ' ', coalesce(t.name, ''), ' ', coalesce(t.middleName, ''))), " +
+            "st.attendanceStatusName, a.markedTime, s.date, s.startTime, s.endTime, c.name) " +
+            "from Attendance a join a.student stu join a.schedule s join a.attendanceStatus st " +
+            "join s.group g join s.teacher t join s.course c ";
+    String EXPORT_FETCH_SIZE = "500";
+
+    // Связи ленивые: методы, чей результат отдаётся клиенту целиком, грузят граф одним запросом
+    @Override
+    @EntityGraph(Attendance.GRAPH_DETAILS)
+    Optional<Attendance> findById(Long id);
+
+    @Override
+    @EntityGraph(Attendance.GRAPH_DETAILS)
+    List<Attendance> findAll();
+
+    @Override
+    @EntityGraph(Attendance.GRAPH_DETAILS)
+    Window<Attendance> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(Attendance.GRAPH_DETAILS)
     List<Attendance> findByScheduleId(Long scheduleId);
+    @EntityGraph(Attendance.GRAPH_DETAILS)
     Page<Attendance> findByScheduleId(Long scheduleId, Pageable pageable);
 
+    @EntityGraph(Attendance.GRAPH_DETAILS)
     List<Attendance> findByStudentId(Long studentId);
+    @EntityGraph(Attendance.GRAPH_DETAILS)
     Page<Attendance> findByStudentId(Long studentId, Pageable pageable);
+    @EntityGraph(Attendance.GRAPH_DETAILS)
+    Window<Attendance> findByStudentId(Long studentId, ScrollPosition position, Sort sort, Limit limit);
+
+    @Query(INFO_SELECT + "where s.id = :scheduleId order by stu.lastName, stu.name, a.id")
+    List<AttendanceInfoDto> findInfoByScheduleId(@Param("scheduleId") Long scheduleId);
+
+    @Query(INFO_SELECT + "where stu.id = :studentId order by s.date, s.startTime, a.id")
+    List<AttendanceInfoDto> findInfoByStudentId(@Param("studentId") Long studentId);
+
+    // Выгрузка: курсор только вперёд, строки приходят из БД пачками по EXPORT_FETCH_SIZE.
+    // Stream закрывается вызывающим и читается внутри транзакции (иначе драйвер PostgreSQL читает всё сразу)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(INFO_SELECT + "where (:dateFrom is null or s.date >= :dateFrom) " +
+            "and (:dateTo is null or s.date <= :dateTo) " +
+            "and (:groupId is null or g.id = :groupId) " +
+            "and (:courseId is null or c.id = :courseId) " +
+            "order by s.date, s.startTime, a.id")
+    Stream<AttendanceInfoDto> streamInfo(@Param("dateFrom") LocalDate dateFrom,
+                                         @Param("dateTo") LocalDate dateTo,
+                                         @Param("groupId") Long groupId,
+                                         @Param("courseId") Long courseId);
+
+    @EntityGraph(Attendance.GRAPH_DETAILS)
+    Optional<Attendance> findByScheduleIdAndStudentId(Long scheduleId, Long studentId);
+
+    // Журнал группы по курсу одним запросом: все пары (занятие, текущий студент группы), отметка — left join.
+    // Порядок строк задаёт порядок столбцов (занятия по времени) и строк (студенты по ФИО) матрицы
+    @Query("select new ru.tihomirov.university.dto.AttendanceJournalCellDto(" +
+            "s.id, s.date, s.startTime, ct.name, stu.id, " +
+            "trim(concat(coalesce(stu.lastName, ''), ' ', coalesce(stu.name, ''), ' ', coalesce(stu.middleName, ''))), " +
+            "st.id, st.attendanceStatusName) " +
+            "from Schedule s " +
+            "left join s.classType ct " +
+            "join Student stu on stu.group.id = s.group.id " +
+            "left join Attendance a on a.schedule.id = s.id and a.student.id = stu.id " +
+            "left join a.attendanceStatus st " +
+            "where s.group.id = :groupId and s.course.id = :courseId " +
+            "order by s.date, s.startTime, s.id, stu.lastName, stu.name, stu.id")
+    List<AttendanceJournalCellDto> findJournalCells(@Param("groupId") Long groupId, @Param("courseId") Long courseId);
+
+    // Снимок для live-подписки: отметки занятия плоскими строками, без загрузки графа сущностей
+    @Query("select new ru.tihomirov.university.dto.AttendanceEventDto(a.id, a.schedule.id, stu.id, " +
+            "trim(concat(coalesce(stu.lastName, ''), ' ', coalesce(stu.name, ''), ' ', coalesce(stu.middleName, ''))), " +
+            "st.id, st.attendanceStatusName, a.markedTime) " +
+            "from Attendance a join a.student stu left join a.attendanceStatus st " +
+            "where a.schedule.id = :scheduleId order by stu.lastName, stu.name, a.id")
+    List<AttendanceEventDto> findEventsByScheduleId(@Param("scheduleId") Long scheduleId);
+
+    // Ключ сводки и статус отметки без загрузки сущностей — для вычитания из attendance_summary при удалении
+    @Query("select new ru.tihomirov.university.dto.AttendanceMarkDto(" +
+            "a.student.id, s.course.id, s.classType.id, st.attendanceStatusName, s.group.id, s.id) " +
+            "from Attendance a left join a.schedule s left join a.attendanceStatus st " +
+            "where a.id = :id")
+    Optional<AttendanceMarkDto> findMarkById(@Param("id") Long id);
+
+    // Только id занятия — проверка владельца перед изменением или удалением без загрузки графа
+    @Query("select a.schedule.id from Attendance a where a.id = :id")
+    Optional<Long> findScheduleIdById(@Param("id") Long id);
+
+    // Фильтр по статусу с keyset-пагинацией по id (индекс idx_attendance_status_id);
+    // связанный граф подтягивается тем же запросом, без дозагрузки по каждой строке
+    @Query("select a from Attendance a " +
+            "join fetch a.attendanceStatus st " +
+            "join fetch a.schedule s " +
+            "join fetch s.group g " +
+            "join fetch s.course " +
+            "join fetch s.teacher " +
+            "join fetch s.classType " +
+            "join fetch a.student stu " +
+            "left join fetch stu.group " +
+            "where st.id = :statusId and a.id > :afterId " +
+            "and (:dateFrom is null or s.date >= :dateFrom) " +
+            "and (:dateTo is null or s.date <= :dateTo) " +
+            "and (:groupId is null or g.id = :groupId) " +
+            "order by a.id")
+    List<Attendance> findByStatusAfter(@Param("statusId") Long statusId,
+                                       @Param("afterId") Long afterId,
+                                       @Param("dateFrom") LocalDate dateFrom,
+                                       @Param("dateTo") LocalDate dateTo,
+                                       @Param("groupId") Long groupId,
+                                       Pageable pageable);
+
+    @Query("select a.student.id from Attendance a where a.schedule.id = :scheduleId")
+    List<Long> findMarkedStudentIdsBySchedule(@Param("scheduleId") Long scheduleId);
 }
@@ -1,10 +1,14 @@
 package ru.tihomirov.university.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.tihomirov.university.model.AttendanceStatus;
 
 import java.util.Optional;
 
 public interface AttendanceStatusRepository extends JpaRepository<AttendanceStatus, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<AttendanceStatus> findByAttendanceStatusName(String attendanceStatusName);
 }
@@ -0,0 +1,28 @@
+package ru.tihomirov.university.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.tihomirov.university.dto.AttendanceSummaryDto;
+import ru.tihomirov.university.model.AttendanceSummary;
+import ru.tihomirov.university.model.AttendanceSummaryId;
+
+import java.util.List;
+
+public interface AttendanceSummaryRepository extends JpaRepository<AttendanceSummary, AttendanceSummaryId> {
+
+    // Диапазон первичного ключа по student_id: число строк = число курсов студента, не число отметок.
+    // Проведённые занятия считаются по расписанию текущей группы студента (idx_schedule_group_course) —
+    // по подзапросу на строку сводки
+    @Query("select new ru.tihomirov.university.dto.AttendanceSummaryDto(" +
+            "c.id, c.name, ct.id, ct.name, s.presentCount, s.absentCount, s.lateCount, s.markedCount, " +
+            "(select count(sc) from Schedule sc where sc.group.id = stu.group.id " +
+            "and sc.course.id = s.id.courseId and sc.classType.id = s.id.classTypeId and sc.date <= current_date)) " +
+            "from AttendanceSummary s " +
+            "join Course c on c.id = s.id.courseId " +
+            "join ClassType ct on ct.id = s.id.classTypeId " +
+            "join Student stu on stu.id = s.id.studentId " +
+            "where s.id.studentId = :studentId " +
+            "order by c.name, ct.name")
+    List<AttendanceSummaryDto> findDtoByStudentId(@Param("studentId") Long studentId);
+}
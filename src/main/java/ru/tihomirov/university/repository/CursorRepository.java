@@ -0,0 +1,17 @@
+package ru.tihomirov.university.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Keyset-листинг всей таблицы: WHERE по ключам последней строки вместо OFFSET,
+ * поэтому страница стоит одинаково на любой глубине. Курсоры — {@link KeysetOrder}.
+ */
+@NoRepositoryBean
+public interface CursorRepository<T, ID> extends Repository<T, ID> {
+    Window<T> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+}
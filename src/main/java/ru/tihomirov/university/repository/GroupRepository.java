@@ -1,10 +1,42 @@
 package ru.tihomirov.university.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.tihomirov.university.model.Group;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface GroupRepository extends JpaRepository<Group, Long> {
+public interface GroupRepository extends JpaRepository<Group, Long>, CursorRepository<Group, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<Group> findByName(String name);
+
+    List<Group> findByNameIn(Collection<String> names);
+
+    // Запись расписания группы идёт под блокировкой её строки: проверка пересечений и вставка занятия
+    // не чередуются с такой же записью ни на этом, ни на другом узле. Порядок по id — без взаимных блокировок
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select g from Group g where g.id in :ids order by g.id")
+    List<Group> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Счётчик меняется одним условным UPDATE без чтения в Java: параллельные зачисления не теряются
+    // и не переполняют группу. 0 — группы нет или в ней меньше seats свободных мест.
+    // HQL-update сам сбрасывает регион "groups" кэша второго уровня.
+    @Modifying
+    @Query("update Group g set g.countStudents = coalesce(g.countStudents, 0) + :seats " +
+            "where g.id = :id and coalesce(g.countStudents, 0) + :seats <= g.maxCountStudents")
+    int reserveSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    @Modifying
+    @Query("update Group g set g.countStudents = g.countStudents - :seats " +
+            "where g.id = :id and g.countStudents >= :seats")
+    int releaseSeats(@Param("id") Long id, @Param("seats") int seats);
 }
@@ -0,0 +1,93 @@
+package ru.tihomirov.university.repository;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import ru.tihomirov.university.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Порядок keyset-пагинации и формат непрозрачного курсора для него.
+ * Курсор — base64url от "ПОРЯДОК:v1,v2,…": значения ключей последней строки страницы в порядке сортировки.
+ * Последний ключ всегда id, поэтому порядок строгий и строки не теряются и не повторяются на стыке страниц.
+ */
+public enum KeysetOrder {
+
+    ID(key("id", Long::valueOf)),
+    SCHEDULE_TIME(key("date", LocalDate::parse), key("startTime", LocalTime::parse), key("id", Long::valueOf));
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final List<Key> keys;
+    private final Sort sort;
+
+    KeysetOrder(Key... keys) {
+        this.keys = List.of(keys);
+        this.sort = Sort.by(this.keys.stream().map(k -> Sort.Order.asc(k.property())).toList());
+    }
+
+    public Sort sort() {
+        return sort;
+    }
+
+    // null или пустой курсор — первая страница
+    public ScrollPosition decode(String cursor) {
+        List<Object> values = values(cursor);
+        if (values.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> position = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            position.put(keys.get(i).property(), values.get(i));
+        }
+        return ScrollPosition.forward(position);
+    }
+
+    public String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalStateException("Keyset position expected, got " + position);
+        }
+        return encode(keys.stream().map(k -> keyset.getKeys().get(k.property())).toList());
+    }
+
+    // Для запросов, где keyset-условие написано вручную (@Query): значения ключей по порядку
+    public String encode(List<?> values) {
+        StringJoiner joiner = new StringJoiner(",", name() + ":", "");
+        values.forEach(v -> joiner.add(String.valueOf(v)));
+        return ENCODER.encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public List<Object> values(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return List.of();
+        }
+        try {
+            String raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            String[] parts = raw.substring(separator + 1).split(",", -1);
+            if (separator < 0 || !raw.substring(0, separator).equals(name()) || parts.length != keys.size()) {
+                throw new IllegalArgumentException();
+            }
+            List<Object> values = new ArrayList<>(parts.length);
+            for (int i = 0; i < parts.length; i++) {
+                values.add(keys.get(i).parser().apply(parts[i]));
+            }
+            return values;
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static Key key(String property, Function<String, Object> parser) {
+        return new Key(property, parser);
+    }
+
+    private record Key(String property, Function<String, Object> parser) {
+    }
+}
@@ -0,0 +1,31 @@
+package ru.tihomirov.university.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.tihomirov.university.model.RefreshToken;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // Поиск по уникальному индексу хеша; пользователь с ролью — тем же запросом, для claims нового JWT
+    @Query("select t from RefreshToken t join fetch t.user u join fetch u.role where t.tokenHash = :hash")
+    Optional<RefreshToken> findByTokenHash(@Param("hash") String hash);
+
+    // Условный UPDATE: из параллельных обменов одного токена проходит только один
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :now where t.id = :id and t.usedAt is null and t.revoked = false")
+    int markUsed(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.familyId = :familyId")
+    int revokeFamily(@Param("familyId") UUID familyId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
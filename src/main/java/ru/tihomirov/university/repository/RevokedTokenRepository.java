@@ -0,0 +1,24 @@
+package ru.tihomirov.university.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.tihomirov.university.model.RevokedToken;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // Только ключи действующих записей — для пересборки фильтра Блума
+    @Query("select r.tokenKey from RevokedToken r where r.expiresAt > :now")
+    List<String> findActiveKeys(@Param("now") Instant now);
+
+    List<RevokedToken> findByTokenKeyIn(Collection<String> tokenKeys);
+
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,23 +1,70 @@
 package ru.tihomirov.university.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.tihomirov.university.dto.ScheduleInfoDto;
+import ru.tihomirov.university.dto.ScheduleSlotDto;
 import ru.tihomirov.university.model.Schedule;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
+public interface ScheduleRepository extends JpaRepository<Schedule, Long>, CursorRepository<Schedule, Long> {
 
+    // Проекция сразу в ScheduleInfoDto одним join-запросом, без загрузки сущностей
+    String INFO_SELECT = "select new ru.tihomirov.university.dto.ScheduleInfoDto(" +
+            "s.date, s.startTime, s.endTime, " +
+            "trim(concat(coalesce(t.lastName, ''), ' ', coalesce(t.name, ''), ' ', coalesce(t.middleName, ''))), " +
+            "c.name, ct.name, g.name) " +
+            "from Schedule s join s.teacher t join s.course c join s.classType ct join s.group g ";
+    String INFO_ORDER = " order by s.date, s.startTime, s.id";
+    String EXPORT_FETCH_SIZE = "500";
+
+    // findById остаётся ленивым: проверкам владельца и изменениям хватает id связей.
+    // Для ответа клиенту занятие грузится вместе с группой, курсом, преподавателем и типом
+    @EntityGraph(Schedule.GRAPH_DETAILS)
+    @Query("select s from Schedule s where s.id = :id")
+    Optional<Schedule> findWithDetailsById(@Param("id") Long id);
+
+    @Override
+    @EntityGraph(Schedule.GRAPH_DETAILS)
+    List<Schedule> findAll();
+
+    @Override
+    @EntityGraph(Schedule.GRAPH_DETAILS)
+    Window<Schedule> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(Schedule.GRAPH_DETAILS)
     List<Schedule> findByGroupId(Long groupId);
+    @EntityGraph(Schedule.GRAPH_DETAILS)
     Page<Schedule> findByGroupId(Long groupId, Pageable pageable);
 
+    @EntityGraph(Schedule.GRAPH_DETAILS)
     List<Schedule> findByTeacherId(Long teacherId);
+    @EntityGraph(Schedule.GRAPH_DETAILS)
     Page<Schedule> findByTeacherId(Long teacherId, Pageable pageable);
 
+    @EntityGraph(Schedule.GRAPH_DETAILS)
     List<Schedule> findByDate(LocalDate date);
+    @EntityGraph(Schedule.GRAPH_DETAILS)
+    Window<Schedule> findByDate(LocalDate date, ScrollPosition position, Sort sort, Limit limit);
+    @Override
+    @EntityGraph(Schedule.GRAPH_DETAILS)
     Page<Schedule> findAll(Pageable pageable);
 
     boolean existsByGroupIdAndDateAndStartTimeLessThanAndEndTimeGreaterThan(
@@ -28,6 +75,54 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
             Long teacherId, LocalDate date, LocalTime endTime, LocalTime startTime
     );
 
+    boolean existsByGroupIdAndCourseIdAndTeacherId(Long groupId, Long courseId, Long teacherId);
+
+    @EntityGraph(Schedule.GRAPH_DETAILS)
     List<Schedule> findByGroup_Name(String name);
+    @EntityGraph(Schedule.GRAPH_DETAILS)
     List<Schedule> findByTeacher_Email(String email);
+
+    @Query(INFO_SELECT + "where g.id = :groupId" + INFO_ORDER)
+    List<ScheduleInfoDto> findInfoByGroupId(@Param("groupId") Long groupId);
+
+    @Query(INFO_SELECT + "where t.id = :teacherId" + INFO_ORDER)
+    List<ScheduleInfoDto> findInfoByTeacherId(@Param("teacherId") Long teacherId);
+
+    @Query(INFO_SELECT + "where g.name = :groupName" + INFO_ORDER)
+    List<ScheduleInfoDto> findInfoByGroupName(@Param("groupName") String groupName);
+
+    @Query(INFO_SELECT + "where t.email = :email" + INFO_ORDER)
+    List<ScheduleInfoDto> findInfoByTeacherEmail(@Param("email") String email);
+
+    // Выгрузка: курсор только вперёд с ограниченным fetch size, читается внутри транзакции
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(INFO_SELECT + "where (:dateFrom is null or s.date >= :dateFrom) " +
+            "and (:dateTo is null or s.date <= :dateTo) " +
+            "and (:groupId is null or g.id = :groupId) " +
+            "and (:courseId is null or c.id = :courseId)" + INFO_ORDER)
+    Stream<ScheduleInfoDto> streamInfo(@Param("dateFrom") LocalDate dateFrom,
+                                       @Param("dateTo") LocalDate dateTo,
+                                       @Param("groupId") Long groupId,
+                                       @Param("courseId") Long courseId);
+
+    // Владелец занятия для проверок доступа; 0 — занятие без преподавателя
+    @Query("select coalesce(t.id, 0) from Schedule s left join s.teacher t where s.id = :id")
+    Optional<Long> findTeacherIdById(@Param("id") Long id);
+
+    // Только поля, нужные индексу конфликтов
+    String SLOT_SELECT = "select new ru.tihomirov.university.dto.ScheduleSlotDto(" +
+            "s.id, s.group.id, s.teacher.id, s.date, s.startTime, s.endTime) from Schedule s ";
+
+    @Query(SLOT_SELECT)
+    List<ScheduleSlotDto> findAllSlots();
+
+    // Занятия групп и преподавателей за период — то, с чем может пересечься записываемое расписание
+    @Query(SLOT_SELECT + "where s.date between :dateFrom and :dateTo " +
+            "and (s.group.id in :groupIds or s.teacher.id in :teacherIds)")
+    List<ScheduleSlotDto> findSlots(@Param("groupIds") Collection<Long> groupIds,
+                                    @Param("teacherIds") Collection<Long> teacherIds,
+                                    @Param("dateFrom") LocalDate dateFrom,
+                                    @Param("dateTo") LocalDate dateTo);
 }
@@ -1,13 +1,49 @@
 package ru.tihomirov.university.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.tihomirov.university.model.Student;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, CursorRepository<Student, Long> {
+
+    // Студент всегда отдаётся с группой — подтягиваем её тем же запросом
+    @Override
+    @EntityGraph(Student.GRAPH_WITH_GROUP)
+    Optional<Student> findById(Long id);
+
+    @Override
+    @EntityGraph(Student.GRAPH_WITH_GROUP)
+    List<Student> findAll();
+
+    @Override
+    @EntityGraph(Student.GRAPH_WITH_GROUP)
+    Window<Student> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Override
+    @EntityGraph(Student.GRAPH_WITH_GROUP)
+    List<Student> findAllById(Iterable<Long> ids);
+
+    @EntityGraph(Student.GRAPH_WITH_GROUP)
     List<Student> findByGroupId(Long groupId);
+    @EntityGraph(Student.GRAPH_WITH_GROUP)
     Page<Student> findAllByGroupId(Long groupId, Pageable pageable);
+
+    @Query("select s.id from Student s where s.group.id = :groupId")
+    List<Long> findIdsByGroupId(@Param("groupId") Long groupId);
+
+    // Студенты из списка, которые существуют и ещё не привязаны к учётной записи
+    @Query("select s.id from Student s where s.id in :ids and not exists (select u.id from User u where u.student = s)")
+    List<Long> findUnlinkedIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,10 +1,29 @@
 package ru.tihomirov.university.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.tihomirov.university.model.Teacher;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface TeacherRepository extends JpaRepository<Teacher, Long> {
+public interface TeacherRepository extends JpaRepository<Teacher, Long>, CursorRepository<Teacher, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<Teacher> findByEmail(String email);
+
+    // Как GroupRepository.lockAllById: записи расписания одного преподавателя идут по очереди
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Teacher t where t.id in :ids order by t.id")
+    List<Teacher> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Преподаватели из списка, которые существуют и ещё не привязаны к учётной записи
+    @Query("select t.id from Teacher t where t.id in :ids and not exists (select u.id from User u where u.teacher = t)")
+    List<Long> findUnlinkedIds(@Param("ids") Collection<Long> ids);
 }
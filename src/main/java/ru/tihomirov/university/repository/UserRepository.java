@@ -1,10 +1,38 @@
 package ru.tihomirov.university.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.tihomirov.university.model.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, CursorRepository<User, Long> {
+    @EntityGraph(User.GRAPH_WITH_ROLE)
     Optional<User> findByUsername(String username);
+
+    @Override
+    @EntityGraph(User.GRAPH_DETAILS)
+    Optional<User> findById(Long id);
+
+    @Override
+    @EntityGraph(User.GRAPH_DETAILS)
+    List<User> findAll();
+
+    @Override
+    @EntityGraph(User.GRAPH_DETAILS)
+    Window<User> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
 }
@@ -1,5 +1,8 @@
 package ru.tihomirov.university.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -9,34 +12,95 @@ import org.springframework.stereotype.Component;
 import ru.tihomirov.university.model.User;
 
 import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
 public class JwtUtils {
 
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_STUDENT_ID = "studentId";
+    public static final String CLAIM_TEACHER_ID = "teacherId";
+    public static final String CLAIM_VERSION = "ver";
+
     @Value("${jwt.secret:MyJwtSecretKey12345678901234567890}")
     private String secret;
 
-    @Value("${jwt.expiration:3600000}") // 1 час
+    @Value("${jwt.expiration:900000}") // 15 минут; дальше клиент обновляет токен по refresh-токену
     private long expiration;
 
+    @Value("${jwt.verified-cache.max-size:10000}") // 0 — без кэша
+    private long verifiedCacheMaxSize;
+
     private Key key;
+    private JwtParser parser;
+
+    // Уже проверенные токены: повторный запрос с тем же токеном не трогает HMAC и JSON.
+    // Ключ — сам токен (хэш строки + equals), запись живёт до exp токена.
+    private Cache<String, Claims> verifiedTokens;
 
     @PostConstruct
     public void init() {
         key = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verifiedTokens = verifiedCacheMaxSize > 0
+                ? Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheMaxSize)
+                    .expireAfter(new Expiry<String, Claims>() {
+                        @Override
+                        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                            long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+                            return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+
+                        @Override
+                        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .build()
+                : null;
     }
 
     public String generateToken(User user) {
+        return generateToken(
+                user.getId(),
+                user.getUsername(),
+                user.getRole().getName(),
+                user.getStudent() != null ? user.getStudent().getId() : null,
+                user.getTeacher() != null ? user.getTeacher().getId() : null,
+                user.getTokenVersion());
+    }
+
+    // Для обновления по refresh-токену: claims берутся из снимка, сохранённого при входе
+    public String generateToken(Long userId, String username, String role, Long studentId, Long teacherId, Integer version) {
         return Jwts.builder()
-                .setSubject(user.getUsername())
+                .setId(UUID.randomUUID().toString())
+                .setSubject(username)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ROLE, role)
+                .claim(CLAIM_STUDENT_ID, studentId)
+                .claim(CLAIM_TEACHER_ID, teacherId)
+                .claim(CLAIM_VERSION, version)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    public Duration getAccessTokenTtl() {
+        return Duration.ofMillis(expiration);
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -46,12 +110,38 @@ public class JwtUtils {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(extractAllClaims(token));
+    }
+
+    // Подпись и срок действия проверяются при разборе: просроченный или подделанный токен даёт JwtException
+    public Claims extractAllClaims(String token) {
+        if (verifiedTokens == null) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+        Claims cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(token, claims);
+        }
+        return claims;
+    }
+
+    // Principal целиком из claims — без обращения к БД; null для токенов без нужных claims
+    public UserDetailsImpl toPrincipal(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        return UserDetailsImpl.fromClaims(
+                userId,
+                claims.getSubject(),
+                role,
+                claims.get(CLAIM_STUDENT_ID, Long.class),
+                claims.get(CLAIM_TEACHER_ID, Long.class));
     }
 
     public boolean isTokenExpired(String token) {
@@ -59,13 +149,13 @@ public class JwtUtils {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        final Claims claims = extractAllClaims(token);
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            extractAllClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -0,0 +1,179 @@
+package ru.tihomirov.university.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import ru.tihomirov.university.exception.ServiceOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Контроль допуска для проверки паролей при входе. BCrypt выполняется на отдельном пуле
+ * (по умолчанию — половина ядер) с ограниченной очередью, поэтому массовый вход к началу пары
+ * не занимает процессор целиком. Поток запроса ждёт результат, поэтому число одновременных входов
+ * (в пуле и в очереди) ограничено app.security.login.max-in-flight — по умолчанию четверть
+ * server.tomcat.threads.max: остальные потоки Tomcat остаются для прочих запросов.
+ * Если лимит исчерпан, очередь полна или ответ не готов за app.security.login.max-queue-wait,
+ * вход сразу отклоняется с {@link ServiceOverloadedException}.
+ * <p>
+ * Метрики: {@value #QUEUE_WAIT_TIMER} — ожидание в очереди, {@value #HASH_TIMER} — сама проверка BCrypt,
+ * {@value #REJECTED_COUNTER} — отказы (тег reason), {@value #QUEUE_GAUGE} — длина очереди.
+ */
+@Component
+public class LoginAdmission {
+
+    static final String QUEUE_WAIT_TIMER = "auth.login.queue.wait";
+    static final String HASH_TIMER = "auth.login.hash";
+    static final String REJECTED_COUNTER = "auth.login.rejected";
+    static final String QUEUE_GAUGE = "auth.login.queue.size";
+
+    private final ThreadPoolExecutor pool;
+    private final Semaphore inFlight;
+    private final long maxQueueWaitNanos;
+    private final Duration retryAfter;
+    private final Timer queueWait;
+    private final Timer hashTime;
+    private final Counter rejectedInFlight;
+    private final Counter rejectedFull;
+    private final Counter rejectedStale;
+    private final Counter rejectedTimeout;
+
+    @Autowired
+    public LoginAdmission(MeterRegistry meterRegistry,
+                          @Value("${app.security.login.threads:0}") int threads,
+                          @Value("${app.security.login.queue-capacity:50}") int queueCapacity,
+                          @Value("${app.security.login.max-in-flight:0}") int maxInFlight,
+                          @Value("${server.tomcat.threads.max:200}") int serverThreads,
+                          @Value("${app.security.login.max-queue-wait:5s}") Duration maxQueueWait,
+                          @Value("${app.security.login.retry-after:2s}") Duration retryAfter) {
+        this(meterRegistry, threads, queueCapacity, maxInFlight > 0 ? maxInFlight : Math.max(1, serverThreads / 4),
+                maxQueueWait, retryAfter);
+    }
+
+    LoginAdmission(MeterRegistry meterRegistry, int threads, int queueCapacity, int maxInFlight,
+                   Duration maxQueueWait, Duration retryAfter) {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.inFlight = new Semaphore(maxInFlight);
+        // Места в очереди сверх лимита одновременных входов никогда не заняты
+        int capacity = Math.max(1, Math.min(queueCapacity, maxInFlight - size));
+        // AbortPolicy: при полной очереди execute бросает RejectedExecutionException, а не ждёт
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), r -> {
+                    Thread thread = new Thread(r, "bcrypt-login-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.retryAfter = retryAfter;
+        this.queueWait = Timer.builder(QUEUE_WAIT_TIMER)
+                .description("Ожидание проверки пароля в очереди")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.hashTime = Timer.builder(HASH_TIMER)
+                .description("Проверка пароля BCrypt")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedInFlight = Counter.builder(REJECTED_COUNTER).tag("reason", "in_flight").register(meterRegistry);
+        this.rejectedFull = Counter.builder(REJECTED_COUNTER).tag("reason", "queue_full").register(meterRegistry);
+        this.rejectedStale = Counter.builder(REJECTED_COUNTER).tag("reason", "queue_wait").register(meterRegistry);
+        this.rejectedTimeout = Counter.builder(REJECTED_COUNTER).tag("reason", "timeout").register(meterRegistry);
+        Gauge.builder(QUEUE_GAUGE, pool, p -> p.getQueue().size()).register(meterRegistry);
+    }
+
+    /**
+     * Кодировщик для DaoAuthenticationProvider: matches идёт через пул, остальное — напрямую.
+     */
+    public PasswordEncoder guard(PasswordEncoder delegate) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return delegate.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return LoginAdmission.this.matches(delegate, rawPassword, encodedPassword);
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return delegate.upgradeEncoding(encodedPassword);
+            }
+        };
+    }
+
+    boolean matches(PasswordEncoder delegate, CharSequence rawPassword, String encodedPassword) {
+        // Разрешение держит поток запроса, который ждёт результат, — без него отказ без ожидания
+        if (!inFlight.tryAcquire()) {
+            rejectedInFlight.increment();
+            throw overloaded();
+        }
+        try {
+            return check(delegate, rawPassword, encodedPassword);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private boolean check(PasswordEncoder delegate, CharSequence rawPassword, String encodedPassword) {
+        long submitted = System.nanoTime();
+        Future<Boolean> result;
+        try {
+            result = pool.submit(() -> {
+                long started = System.nanoTime();
+                long waited = started - submitted;
+                queueWait.record(waited, TimeUnit.NANOSECONDS);
+                // Клиент, скорее всего, уже не ждёт ответа — не тратим на него BCrypt
+                if (waited > maxQueueWaitNanos) {
+                    rejectedStale.increment();
+                    throw overloaded();
+                }
+                try {
+                    return delegate.matches(rawPassword, encodedPassword);
+                } finally {
+                    hashTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedFull.increment();
+            throw overloaded();
+        }
+
+        try {
+            return result.get(maxQueueWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Задача из очереди уже не запустится; начатая проверка BCrypt доработает, но ответа никто не ждёт
+            result.cancel(true);
+            rejectedTimeout.increment();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new AuthenticationServiceException("Password check failed", e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Password check interrupted", e);
+        }
+    }
+
+    private ServiceOverloadedException overloaded() {
+        return new ServiceOverloadedException("Слишком много одновременных входов, повторите попытку позже", retryAfter);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,264 @@
+package ru.tihomirov.university.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tihomirov.university.dto.AuthResponse;
+import ru.tihomirov.university.model.RefreshToken;
+import ru.tihomirov.university.model.User;
+import ru.tihomirov.university.repository.RefreshTokenRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Ротация refresh-токенов. Access-токен живёт недолго, а новый выдаётся по refresh-токену без BCrypt:
+ * HMAC от предъявленного токена, поиск в индексе в памяти (при промахе — один запрос по уникальному
+ * индексу token_hash), условный UPDATE старого токена и INSERT следующего.
+ * <p>
+ * Каждый refresh-токен обменивается один раз. Повторное предъявление уже обменянного токена значит,
+ * что его копия у кого-то ещё, — отзывается вся цепочка (family), и войти придётся заново.
+ * Смена роли, пароля или привязки (tokenVersion) тоже делает цепочку недействительной.
+ */
+@Slf4j
+@Component
+public class RefreshTokenService {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final JwtUtils jwtUtils;
+    private final EntityManager entityManager;
+    private final Clock clock;
+    private final Duration ttl;
+    private final SecretKeySpec hmacKey;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac> mac;
+
+    // HMAC токена -> снимок строки и claims для нового JWT; промах — не отказ, а поход в БД
+    private final Cache<String, Entry> index;
+    // Отозванные цепочки: запись в индексе могла попасть туда до отзыва
+    private final Cache<UUID, Boolean> revokedFamilies;
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               TokenVersionRegistry tokenVersionRegistry,
+                               JwtUtils jwtUtils,
+                               EntityManager entityManager,
+                               @Value("${app.security.refresh.secret:${jwt.secret:MyJwtSecretKey12345678901234567890}}") String secret,
+                               @Value("${app.security.refresh.ttl:30d}") Duration ttl,
+                               @Value("${app.security.refresh.index-size:200000}") long indexSize) {
+        this(refreshTokenRepository, tokenVersionRegistry, jwtUtils, entityManager, Clock.systemUTC(), secret, ttl, indexSize);
+    }
+
+    RefreshTokenService(RefreshTokenRepository refreshTokenRepository, TokenVersionRegistry tokenVersionRegistry,
+                        JwtUtils jwtUtils, EntityManager entityManager, Clock clock,
+                        String secret, Duration ttl, long indexSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.jwtUtils = jwtUtils;
+        this.entityManager = entityManager;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.hmacKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        this.index = Caffeine.newBuilder().maximumSize(indexSize).expireAfterWrite(ttl).build();
+        // Потеря записи при вытеснении не опасна: отзыв уже записан в БД, промах индекса прочитает его оттуда
+        this.revokedFamilies = Caffeine.newBuilder().maximumSize(indexSize).expireAfterWrite(ttl).build();
+    }
+
+    /**
+     * Начинает новую цепочку при входе по паролю.
+     */
+    @Transactional
+    public String issue(User user) {
+        Snapshot snapshot = new Snapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getRole().getName(),
+                user.getStudent() != null ? user.getStudent().getId() : null,
+                user.getTeacher() != null ? user.getTeacher().getId() : null,
+                user.getTokenVersion());
+        return store(UUID.randomUUID(), snapshot);
+    }
+
+    /**
+     * Обменивает refresh-токен на новый access-токен и следующий refresh-токен той же цепочки.
+     * Транзакция не откатывается при отказе: отзыв цепочки при повторном использовании должен сохраниться.
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public AuthResponse refresh(String token) {
+        Entry entry = find(token);
+        Instant now = clock.instant();
+        if (entry == null || entry.revoked || !entry.expiresAt.isAfter(now)
+                || revokedFamilies.getIfPresent(entry.familyId) != null) {
+            throw invalid();
+        }
+        Snapshot user = entry.snapshot;
+        if (!tokenVersionRegistry.isCurrent(user.userId(), user.tokenVersion())) {
+            revokeFamily(entry.familyId);
+            throw invalid();
+        }
+        // Обменянный токен (здесь или на другом узле — тогда UPDATE не найдёт строку) — повторное использование
+        if (entry.used || refreshTokenRepository.markUsed(entry.id, now) == 0) {
+            entry.used = true;
+            log.warn("Refresh token reuse detected for user {}, revoking token family {}", user.userId(), entry.familyId);
+            revokeFamily(entry.familyId);
+            throw invalid();
+        }
+        afterCommit(() -> entry.used = true);
+
+        String next = store(entry.familyId, user);
+        String access = jwtUtils.generateToken(user.userId(), user.username(), user.role(),
+                user.studentId(), user.teacherId(), user.tokenVersion());
+        return new AuthResponse(access, next);
+    }
+
+    /**
+     * Выход: отзывает всю цепочку, к которой относится токен. Неизвестный токен игнорируется.
+     */
+    @Transactional
+    public void revoke(String token) {
+        Entry entry = find(token);
+        if (entry != null) {
+            revokeFamily(entry.familyId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.refresh.purge-interval:1h}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(clock.instant());
+        if (deleted > 0) {
+            log.debug("Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String store(UUID familyId, Snapshot user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = ENCODER.encodeToString(bytes);
+        String hash = hash(token);
+        Instant expiresAt = clock.instant().plus(ttl);
+
+        RefreshToken saved = refreshTokenRepository.save(new RefreshToken()
+                .setTokenHash(hash)
+                .setFamilyId(familyId)
+                .setUser(entityManager.getReference(User.class, user.userId()))
+                .setTokenVersion(user.tokenVersion())
+                .setExpiresAt(expiresAt));
+        Entry entry = new Entry(saved.getId(), familyId, expiresAt, user, false, false);
+        afterCommit(() -> index.put(hash, entry));
+        return token;
+    }
+
+    // Индекс отражает только закоммиченное: после отката ротации в нём не должно остаться ни нового токена,
+    // ни отметки об обмене старого — иначе повторное предъявление выглядело бы как кража
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Entry find(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String hash = hash(token);
+        Entry entry = index.getIfPresent(hash);
+        if (entry != null) {
+            return entry;
+        }
+        entry = refreshTokenRepository.findByTokenHash(hash).map(RefreshTokenService::toEntry).orElse(null);
+        if (entry != null) {
+            index.put(hash, entry);
+        }
+        return entry;
+    }
+
+    private void revokeFamily(UUID familyId) {
+        refreshTokenRepository.revokeFamily(familyId);
+        revokedFamilies.put(familyId, Boolean.TRUE);
+    }
+
+    String hash(String token) {
+        return ENCODER.encodeToString(mac.get().doFinal(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance("HmacSHA256");
+            instance.init(hmacKey);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static Entry toEntry(RefreshToken token) {
+        User user = token.getUser();
+        Snapshot snapshot = new Snapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getRole().getName(),
+                user.getStudent() != null ? user.getStudent().getId() : null,
+                user.getTeacher() != null ? user.getTeacher().getId() : null,
+                token.getTokenVersion());
+        return new Entry(token.getId(), token.getFamilyId(), token.getExpiresAt(), snapshot,
+                token.getUsedAt() != null, token.isRevoked());
+    }
+
+    private static BadCredentialsException invalid() {
+        return new BadCredentialsException("Invalid or expired refresh token");
+    }
+
+    // Claims access-токена на момент входа; актуальность проверяется по tokenVersion
+    private record Snapshot(Long userId, String username, String role, Long studentId, Long teacherId,
+                            Integer tokenVersion) {
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final UUID familyId;
+        private final Instant expiresAt;
+        private final Snapshot snapshot;
+        private final boolean revoked;
+        // Только ускоряет отказ: источник истины — условный UPDATE в markUsed
+        private volatile boolean used;
+
+        private Entry(Long id, UUID familyId, Instant expiresAt, Snapshot snapshot, boolean used, boolean revoked) {
+            this.id = id;
+            this.familyId = familyId;
+            this.expiresAt = expiresAt;
+            this.snapshot = snapshot;
+            this.used = used;
+            this.revoked = revoked;
+        }
+    }
+}
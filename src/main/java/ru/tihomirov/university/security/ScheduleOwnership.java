@@ -0,0 +1,188 @@
+package ru.tihomirov.university.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.repository.ScheduleRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Проверка «занятие принадлежит преподавателю». Владелец занятия берётся из кэша scheduleId → teacherId,
+ * в БД ходим один раз на занятие; запись сбрасывается при изменении и удалении занятия.
+ * Доступна и из выражений: {@code @PreAuthorize("@scheduleOwnership.canAccess(authentication, #scheduleId)")}.
+ */
+@Component("scheduleOwnership")
+public class ScheduleOwnership {
+
+    // id в БД начинаются с 1: 0 — занятие без преподавателя, такое не принадлежит никому
+    static final long NO_TEACHER = 0;
+
+    private final ScheduleRepository scheduleRepository;
+    private final int maxEntries;
+    private final LongLongMap owners = new LongLongMap();
+    // Растёт при каждом сбросе: владелец, прочитанный во время чужой записи, в кэш не попадает
+    private final AtomicLong version = new AtomicLong();
+
+    @Autowired
+    public ScheduleOwnership(ScheduleRepository scheduleRepository,
+                             @Value("${app.security.schedule-ownership.max-entries:200000}") int maxEntries) {
+        this.scheduleRepository = scheduleRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    // id преподавателя занятия или NO_TEACHER
+    public long teacherOf(Long scheduleId) {
+        long cached = owners.get(scheduleId, -1);
+        if (cached >= 0) {
+            return cached;
+        }
+        long before = version.get();
+        long teacherId = scheduleRepository.findTeacherIdById(scheduleId)
+                .orElseThrow(() -> new EntityNotFoundException("Расписание с ID " + scheduleId + " не найдена"));
+        if (version.get() == before) {
+            if (owners.size() >= maxEntries) {
+                owners.clear();
+            }
+            owners.put(scheduleId, teacherId);
+        }
+        return teacherId;
+    }
+
+    public boolean isOwner(UserDetailsImpl user, Long scheduleId) {
+        long teacherId = teacherOf(scheduleId);
+        return teacherId != NO_TEACHER && user.getTeacherId() != null && user.getTeacherId() == teacherId;
+    }
+
+    // Преподавателю — только свои занятия, остальным ролям владелец не важен; несуществующее занятие — 404
+    public boolean canAccess(UserDetailsImpl user, Long scheduleId) {
+        if (user.hasRole("TEACHER")) {
+            return isOwner(user, scheduleId);
+        }
+        teacherOf(scheduleId);
+        return true;
+    }
+
+    public boolean canAccess(Authentication authentication, Long scheduleId) {
+        return authentication != null
+                && authentication.getPrincipal() instanceof UserDetailsImpl user
+                && canAccess(user, scheduleId);
+    }
+
+    // До коммита другой запрос ещё может прочитать старого владельца — сбрасываем и после него
+    public void evict(Long scheduleId) {
+        version.incrementAndGet();
+        owners.remove(scheduleId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                    owners.remove(scheduleId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Открытая адресация с линейным пробированием на двух массивах long: без упаковки ключей и значений
+     * и без объекта на запись. Удаление сдвигает хвост цепочки назад, поэтому «надгробий» нет.
+     */
+    static final class LongLongMap {
+
+        private static final long EMPTY = 0; // id в БД не бывают нулевыми
+
+        private long[] keys = new long[64];
+        private long[] values = new long[64];
+        private int size;
+
+        synchronized long get(long key, long missing) {
+            int mask = keys.length - 1;
+            for (int i = index(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return missing;
+        }
+
+        synchronized void put(long key, long value) {
+            if (key == EMPTY) {
+                throw new IllegalArgumentException("Key must not be 0");
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        synchronized void remove(long key) {
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            // Сдвигаем назад записи, которые иначе стали бы недостижимы из своей исходной ячейки
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = index(keys[j], mask);
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = EMPTY;
+            size--;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            keys = new long[64];
+            values = new long[64];
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[capacity];
+            values = new long[capacity];
+            int mask = capacity - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] != EMPTY) {
+                    int i = index(oldKeys[k], mask);
+                    while (keys[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[k];
+                    values[i] = oldValues[k];
+                }
+            }
+        }
+
+        // Перемешивание битов: последовательные id не должны ложиться в соседние ячейки одной цепочкой
+        private static int index(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
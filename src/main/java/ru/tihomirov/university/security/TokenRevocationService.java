@@ -0,0 +1,156 @@
+package ru.tihomirov.university.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tihomirov.university.model.RevokedToken;
+import ru.tihomirov.university.repository.RevokedTokenRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отзыв выданных access-токенов. Список отзыва хранится в БД (revoked_token), а на каждый запрос
+ * проверяется только фильтр Блума в памяти: для подавляющего большинства токенов ответ «точно не отозван»
+ * без обращения к БД. Точная проверка по первичному ключу идёт лишь при срабатывании фильтра.
+ * <p>
+ * Фильтр пересобирается из БД по расписанию (так отзыв, сделанный на другом узле, доходит
+ * за app.security.revocation.rebuild-interval) и после каждого отзыва на этом узле; до пересборки
+ * новый ключ сразу добавляется в текущий фильтр.
+ */
+@Slf4j
+@Component
+public class TokenRevocationService {
+
+    static final String JTI_PREFIX = "jti:";
+    static final String USER_PREFIX = "user:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Clock clock;
+    private final Duration accessTokenTtl;
+    private final long minExpectedKeys;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    @Autowired
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  JwtUtils jwtUtils,
+                                  @Value("${app.security.revocation.expected-keys:10000}") long minExpectedKeys,
+                                  @Value("${app.security.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this(revokedTokenRepository, Clock.systemUTC(), jwtUtils.getAccessTokenTtl(), minExpectedKeys, falsePositiveRate);
+    }
+
+    TokenRevocationService(RevokedTokenRepository revokedTokenRepository, Clock clock, Duration accessTokenTtl,
+                           long minExpectedKeys, double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.clock = clock;
+        this.accessTokenTtl = accessTokenTtl;
+        this.minExpectedKeys = minExpectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(minExpectedKeys, falsePositiveRate);
+    }
+
+    /**
+     * Отозван ли токен с уже проверенной подписью. Без срабатывания фильтра — без обращения к БД.
+     */
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        BloomFilter current = filter;
+        List<String> keys = new ArrayList<>(2);
+        if (jti != null && current.mightContain(JTI_PREFIX + jti)) {
+            keys.add(JTI_PREFIX + jti);
+        }
+        if (userId != null && current.mightContain(USER_PREFIX + userId)) {
+            keys.add(USER_PREFIX + userId);
+        }
+        if (keys.isEmpty()) {
+            return false;
+        }
+
+        Instant issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+        for (RevokedToken revoked : revokedTokenRepository.findByTokenKeyIn(keys)) {
+            if (revoked.getTokenKey().startsWith(JTI_PREFIX)) {
+                return true;
+            }
+            // iat в JWT с точностью до секунды: токен, выданный в ту же секунду, что и отзыв, тоже отклоняется
+            if (issuedAt == null || !issuedAt.isAfter(revoked.getRevokedAt().truncatedTo(ChronoUnit.SECONDS))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Отзывает один токен (выход). Запись живёт до истечения самого токена.
+     */
+    @Transactional
+    public void revokeToken(Claims claims) {
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            return;
+        }
+        save(JTI_PREFIX + claims.getId(), claims.getExpiration().toInstant());
+    }
+
+    /**
+     * Отзывает все токены пользователя, выданные до этого момента (блокировка, удаление, смена прав).
+     * Более поздние токены действуют: повторный отзыв сдвигает границу.
+     */
+    @Transactional
+    public void revokeUser(Long userId) {
+        save(USER_PREFIX + userId, clock.instant().plus(accessTokenTtl));
+    }
+
+    // synchronized: более ранняя выборка не должна заменить фильтр, собранный позже
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${app.security.revocation.rebuild-interval:30s}",
+            initialDelayString = "${app.security.revocation.rebuild-interval:30s}")
+    public synchronized void rebuild() {
+        List<String> keys = revokedTokenRepository.findActiveKeys(clock.instant());
+        // Запас вдвое: ключи, отозванные до следующей пересборки, не поднимают долю ложных срабатываний
+        BloomFilter next = new BloomFilter(Math.max(minExpectedKeys, keys.size() * 2L), falsePositiveRate);
+        keys.forEach(next::add);
+        filter = next;
+        log.debug("Token revocation filter rebuilt: {} keys, {} bits, {} hashes", keys.size(), next.bitCount(), next.hashCount());
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.purge-interval:1h}")
+    @Transactional
+    public void purgeExpired() {
+        revokedTokenRepository.deleteExpired(clock.instant());
+    }
+
+    private void save(String key, Instant expiresAt) {
+        Instant now = clock.instant();
+        RevokedToken revoked = revokedTokenRepository.findById(key).orElseGet(() -> new RevokedToken().setTokenKey(key));
+        revokedTokenRepository.save(revoked
+                .setRevokedAt(now)
+                .setExpiresAt(revoked.getExpiresAt() != null && revoked.getExpiresAt().isAfter(expiresAt)
+                        ? revoked.getExpiresAt() : expiresAt));
+
+        // Сразу в текущий фильтр; пересборка после коммита подхватит и то, что пропустила параллельная
+        filter.add(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    rebuild();
+                }
+            });
+        } else {
+            rebuild();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.tihomirov.university.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tihomirov.university.repository.UserRepository;
+
+import java.time.Duration;
+
+/**
+ * Текущая версия токенов пользователя. Версия растёт при смене роли, привязки или пароля,
+ * и токены со старой версией отклоняются. В БД ходим один раз на пользователя за ttl, дальше — из памяти.
+ * Кэш ограничен по размеру и живёт недолго: смена версии на другом узле видна здесь не позже чем через ttl.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final int MISSING = -1;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> versions;
+
+    @Autowired
+    public TokenVersionRegistry(UserRepository userRepository,
+                                @Value("${app.security.token-version.max-entries:100000}") long maxEntries,
+                                @Value("${app.security.token-version.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).build();
+    }
+
+    public boolean isCurrent(Long userId, Integer tokenVersion) {
+        if (userId == null || tokenVersion == null) {
+            return false;
+        }
+        int current = versions.get(userId, id -> userRepository.findTokenVersionById(id).orElse(MISSING));
+        return current != MISSING && current == tokenVersion;
+    }
+
+    public void update(Long userId, int version) {
+        afterCommit(() -> versions.put(userId, version));
+    }
+
+    public void remove(Long userId) {
+        afterCommit(() -> versions.put(userId, MISSING));
+    }
+
+    // Новая версия попадает в кэш только после коммита: откат изменения не должен отзывать действующие токены
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
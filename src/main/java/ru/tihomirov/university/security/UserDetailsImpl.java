@@ -1,6 +1,5 @@
 package ru.tihomirov.university.security;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -11,31 +10,63 @@ import ru.tihomirov.university.model.User;
 import java.util.Collection;
 import java.util.Collections;
 
-@RequiredArgsConstructor
 public class UserDetailsImpl implements UserDetails {
 
-    private final User user;
+    private final User user; // null, если principal восстановлен из claims JWT без обращения к БД
+    private final Long userId;
+    private final String username;
+    private final String password;
+    private final String role;
+    private final Long studentId;
+    private final Long teacherId;
+
+    public UserDetailsImpl(User user) {
+        this.user = user;
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.password = user.getPassword();
+        this.role = user.getRole() != null ? user.getRole().getName() : null;
+        this.studentId = user.getStudent() != null ? user.getStudent().getId() : null;
+        this.teacherId = user.getTeacher() != null ? user.getTeacher().getId() : null;
+    }
+
+    private UserDetailsImpl(Long userId, String username, String role, Long studentId, Long teacherId) {
+        this.user = null;
+        this.userId = userId;
+        this.username = username;
+        this.password = null;
+        this.role = role;
+        this.studentId = studentId;
+        this.teacherId = teacherId;
+    }
+
+    public static UserDetailsImpl fromClaims(Long userId, String username, String role, Long studentId, Long teacherId) {
+        return new UserDetailsImpl(userId, username, role, studentId, teacherId);
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.singleton(
-                new SimpleGrantedAuthority("ROLE_" + user.getRole().getName())
+                new SimpleGrantedAuthority("ROLE_" + role)
         );
     }
 
     public boolean hasRole(String role) {
-        return user.getRole().getName().equalsIgnoreCase(role);
+        return this.role != null && this.role.equalsIgnoreCase(role);
     }
 
+    public String getRole() {
+        return role;
+    }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
     @Override
@@ -63,15 +94,15 @@ public class UserDetailsImpl implements UserDetails {
     }
 
     public Long getUserId() {
-        return user.getId();
+        return userId;
     }
 
     public Long getStudentId() {
-        return user.getStudent() != null ? user.getStudent().getId() : null;
+        return studentId;
     }
 
     public Long getTeacherId() {
-        return user.getTeacher() != null ? user.getTeacher().getId() : null;
+        return teacherId;
     }
 
     private UserDetailsImpl getCurrentUser() {
@@ -0,0 +1,251 @@
+package ru.tihomirov.university.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.tihomirov.university.dto.AttendanceEventDto;
+import ru.tihomirov.university.dto.AttendanceSnapshotDto;
+import ru.tihomirov.university.repository.AttendanceRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live-рассылка изменений отметок по занятиям (SSE).
+ * Подписчик получает снимок отметок занятия, затем события после коммита записи. У каждого подписчика
+ * свой ограниченный буфер: при переполнении выбрасываются самые старые события, запись отметок
+ * медленный клиент не тормозит. Простаивающий подписчик не занимает поток — отправку выполняет общий
+ * небольшой пул только когда в буфере что-то есть.
+ */
+@Slf4j
+@Component
+public class AttendanceEventHub {
+
+    private final AttendanceRepository attendanceRepository;
+    private final Executor sender;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    private static final AttendanceEventDto PING = new AttendanceEventDto();
+
+    private final Map<Long, Topic> topics = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AttendanceEventHub(AttendanceRepository attendanceRepository,
+                              @Value("${app.attendance.events.buffer-size:256}") int bufferSize,
+                              @Value("${app.attendance.events.timeout:30m}") Duration timeout,
+                              @Value("${app.attendance.events.sender-threads:4}") int senderThreads) {
+        this(attendanceRepository, newSenderPool(senderThreads), bufferSize, timeout.toMillis());
+    }
+
+    AttendanceEventHub(AttendanceRepository attendanceRepository, Executor sender, int bufferSize, long timeoutMillis) {
+        this.attendanceRepository = attendanceRepository;
+        this.sender = sender;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public SseEmitter subscribe(Long scheduleId) {
+        return subscribe(scheduleId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long scheduleId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(scheduleId, emitter);
+        // Сначала подписка, потом снимок: события, закоммиченные между ними, уже копятся в буфере
+        Topic topic = topics.compute(scheduleId, (id, existing) -> {
+            Topic t = existing != null ? existing : new Topic();
+            t.subscribers.add(subscriber);
+            return t;
+        });
+        emitter.onCompletion(() -> unsubscribe(scheduleId, subscriber));
+        emitter.onTimeout(() -> unsubscribe(scheduleId, subscriber));
+        emitter.onError(e -> unsubscribe(scheduleId, subscriber));
+
+        long sequence = topic.sequence.get();
+        try {
+            List<AttendanceEventDto> marks = attendanceRepository.findEventsByScheduleId(scheduleId);
+            subscriber.start(new AttendanceSnapshotDto(scheduleId, sequence, marks));
+        } catch (RuntimeException e) {
+            unsubscribe(scheduleId, subscriber);
+            throw e;
+        }
+        return emitter;
+    }
+
+    // Рассылка только после успешного коммита: откаченная отметка подписчикам не видна
+    public void publishAfterCommit(List<AttendanceEventDto> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            events.forEach(this::publish);
+            return;
+        }
+        List<AttendanceEventDto> committed = List.copyOf(events);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                committed.forEach(AttendanceEventHub.this::publish);
+            }
+        });
+    }
+
+    void publish(AttendanceEventDto event) {
+        Topic topic = topics.get(event.getScheduleId());
+        if (topic == null) {
+            return; // на занятие никто не подписан
+        }
+        // Номер и постановка в буферы под одной блокировкой: порядок sequence у всех подписчиков совпадает
+        synchronized (topic) {
+            event.setSequence(topic.sequence.incrementAndGet());
+            topic.subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    public int subscriberCount(Long scheduleId) {
+        Topic topic = topics.get(scheduleId);
+        return topic == null ? 0 : topic.subscribers.size();
+    }
+
+    // Комментарий-пинг не даёт прокси закрыть молчащее соединение и выявляет отключившихся клиентов
+    @Scheduled(fixedDelayString = "${app.attendance.events.heartbeat:30s}")
+    public void heartbeat() {
+        topics.values().forEach(topic -> topic.subscribers.forEach(Subscriber::ping));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        topics.values().forEach(topic -> topic.subscribers.forEach(s -> s.emitter.complete()));
+        if (sender instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void unsubscribe(Long scheduleId, Subscriber subscriber) {
+        topics.computeIfPresent(scheduleId, (id, topic) -> {
+            topic.subscribers.remove(subscriber);
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+    }
+
+    private static ExecutorService newSenderPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "attendance-sse-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Topic {
+        private final AtomicLong sequence = new AtomicLong();
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    }
+
+    // Билдер события изменяемый, поэтому собирается для каждого подписчика при отправке
+    private static SseEmitter.SseEventBuilder toSse(AttendanceEventDto event) {
+        if (event == PING) {
+            return SseEmitter.event().comment("ping");
+        }
+        return SseEmitter.event().id(Long.toString(event.getSequence())).name(event.getType().name()).data(event);
+    }
+
+    private final class Subscriber {
+        private final Long scheduleId;
+        private final SseEmitter emitter;
+        private final Deque<AttendanceEventDto> buffer = new ArrayDeque<>();
+        private AttendanceSnapshotDto snapshot;
+        private long snapshotSequence = -1;
+        private boolean draining;
+        private boolean closed;
+
+        private Subscriber(Long scheduleId, SseEmitter emitter) {
+            this.scheduleId = scheduleId;
+            this.emitter = emitter;
+        }
+
+        synchronized void start(AttendanceSnapshotDto snapshotDto) {
+            snapshotSequence = snapshotDto.getSequence();
+            snapshot = snapshotDto;
+            // события, уже учтённые снимком, не повторяем
+            buffer.removeIf(event -> event != PING && event.getSequence() <= snapshotSequence);
+            scheduleDrain();
+        }
+
+        synchronized void offer(AttendanceEventDto event) {
+            if (closed) {
+                return;
+            }
+            if (buffer.size() >= bufferSize) {
+                buffer.pollFirst();
+            }
+            buffer.addLast(event);
+            scheduleDrain();
+        }
+
+        // Пинг нужен только молчащему соединению и не должен вытеснять события из полного буфера
+        synchronized void ping() {
+            if (!closed && buffer.isEmpty() && snapshot == null && snapshotSequence >= 0) {
+                buffer.addLast(PING);
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (!draining && snapshotSequence >= 0 && !closed) {
+                draining = true;
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining = false;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    if (closed) {
+                        draining = false;
+                        return;
+                    }
+                    if (snapshot != null) {
+                        next = SseEmitter.event().name("snapshot").id(Long.toString(snapshot.getSequence())).data(snapshot);
+                        snapshot = null;
+                    } else {
+                        AttendanceEventDto event = buffer.pollFirst();
+                        if (event == null) {
+                            draining = false;
+                            return;
+                        }
+                        next = toSse(event);
+                    }
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("SSE-подписчик занятия {} отключился: {}", scheduleId, e.getMessage());
+                    synchronized (this) {
+                        closed = true;
+                        draining = false;
+                        buffer.clear();
+                    }
+                    unsubscribe(scheduleId, this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.tihomirov.university.service;
+
+import ru.tihomirov.university.dto.AttendanceJournalDto;
+
+public interface AttendanceJournalService {
+    AttendanceJournalDto getJournal(Long groupId, Long courseId);
+    // Сбрасывают закэшированный журнал; вызываются при записи отметок, расписания и состава группы
+    void evict(Long groupId, Long courseId);
+    void evictGroup(Long groupId);
+}
@@ -0,0 +1,111 @@
+package ru.tihomirov.university.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tihomirov.university.dto.AttendanceJournalCellDto;
+import ru.tihomirov.university.dto.AttendanceJournalDto;
+import ru.tihomirov.university.dto.AttendanceJournalDto.JournalSession;
+import ru.tihomirov.university.dto.AttendanceJournalDto.JournalStatus;
+import ru.tihomirov.university.dto.AttendanceJournalDto.JournalStudent;
+import ru.tihomirov.university.repository.AttendanceRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Журнал (группа, курс) строится одним запросом и хранится в памяти до ближайшей записи,
+ * которая его затрагивает: отметки, занятия этой группы по курсу или состава группы.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceJournalServiceImpl implements AttendanceJournalService {
+
+    private static final int MAX_STATUSES = 255;
+
+    private final AttendanceRepository attendanceRepository;
+
+    private final Map<JournalKey, AttendanceJournalDto> journals = new ConcurrentHashMap<>();
+    // Растёт при каждом сбросе: журнал, собранный во время чужой записи, в кэш не попадает
+    private final AtomicLong version = new AtomicLong();
+
+    @Override
+    public AttendanceJournalDto getJournal(Long groupId, Long courseId) {
+        JournalKey key = new JournalKey(groupId, courseId);
+        AttendanceJournalDto cached = journals.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long before = version.get();
+        AttendanceJournalDto journal = build(groupId, courseId, attendanceRepository.findJournalCells(groupId, courseId));
+        if (version.get() == before) {
+            journals.put(key, journal);
+        }
+        return journal;
+    }
+
+    @Override
+    public void evict(Long groupId, Long courseId) {
+        JournalKey key = new JournalKey(groupId, courseId);
+        evictNowAndAfterCommit(() -> journals.remove(key));
+    }
+
+    @Override
+    public void evictGroup(Long groupId) {
+        evictNowAndAfterCommit(() -> journals.keySet().removeIf(key -> key.groupId().equals(groupId)));
+    }
+
+    // До коммита другой запрос ещё может прочитать и закэшировать старые данные — сбрасываем и после него
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        version.incrementAndGet();
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private static AttendanceJournalDto build(Long groupId, Long courseId, List<AttendanceJournalCellDto> rows) {
+        // Строки отсортированы по занятию, затем по студенту: индексы присваиваются в порядке появления
+        Map<Long, Integer> sessionIndex = new LinkedHashMap<>();
+        Map<Long, Integer> studentIndex = new HashMap<>();
+        Map<Long, Integer> statusIndex = new HashMap<>();
+        AttendanceJournalDto journal = new AttendanceJournalDto().setGroupId(groupId).setCourseId(courseId);
+        for (AttendanceJournalCellDto row : rows) {
+            if (sessionIndex.putIfAbsent(row.getScheduleId(), sessionIndex.size()) == null) {
+                journal.getSessions().add(new JournalSession(
+                        row.getScheduleId(), row.getDate(), row.getStartTime(), row.getClassTypeName()));
+            }
+            if (studentIndex.putIfAbsent(row.getStudentId(), studentIndex.size()) == null) {
+                journal.getStudents().add(new JournalStudent(row.getStudentId(), row.getStudentFullName()));
+            }
+            if (row.getAttendanceStatusId() != null
+                    && statusIndex.putIfAbsent(row.getAttendanceStatusId(), statusIndex.size() + 1) == null) {
+                if (statusIndex.size() > MAX_STATUSES) {
+                    throw new IllegalStateException("Too many attendance statuses for journal encoding");
+                }
+                journal.getStatuses().add(new JournalStatus(row.getAttendanceStatusId(), row.getAttendanceStatusName()));
+            }
+        }
+
+        int sessions = sessionIndex.size();
+        byte[] cells = new byte[studentIndex.size() * sessions];
+        for (AttendanceJournalCellDto row : rows) {
+            if (row.getAttendanceStatusId() != null) {
+                int offset = studentIndex.get(row.getStudentId()) * sessions + sessionIndex.get(row.getScheduleId());
+                cells[offset] = (byte) (int) statusIndex.get(row.getAttendanceStatusId());
+            }
+        }
+        return journal.setCells(cells);
+    }
+
+    private record JournalKey(Long groupId, Long courseId) {
+    }
+}
@@ -3,6 +3,9 @@ package ru.tihomirov.university.service;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.dto.GroupAttendanceResponse;
 import ru.tihomirov.university.model.Attendance;
 
 import java.time.LocalDate;
@@ -13,19 +16,22 @@ public interface AttendanceService {
     Attendance update(Long id, Attendance updatedAttendance);
     void delete(Long id);
     Attendance getById(Long id);
-    List<Attendance> getAll();
+    Long getScheduleId(Long id);
+    CursorPage<Attendance> getAll(CursorRequest page);
 
     List<Attendance> getByScheduleId(Long scheduleId);
     Page<Attendance> getByScheduleIdPaged(Long scheduleId, Pageable pageable);
 
     List<Attendance> getByStudentId(Long studentId);
+    CursorPage<Attendance> getByStudentId(Long studentId, CursorRequest page);
     Page<Attendance> getByStudentIdPaged(Long studentId, Pageable pageable);
 
-    List<Attendance> getByAttendanceStatusId(Long statusId);
+    CursorPage<Attendance> getByAttendanceStatusId(Long statusId, CursorRequest page,
+                                                   LocalDate dateFrom, LocalDate dateTo, Long groupId);
 
     List<AttendanceInfoDto> getFormattedAttendanceBySchedule(Long scheduleId);
     List<AttendanceInfoDto> getFormattedAttendanceByStudent(Long studentId);
 
     Attendance markAttendance(Long scheduleId, Long studentId, Long teacherId, Long statusId);
-    List<Attendance> markAttendanceForGroup(Long scheduleId, Long teacherId, List<Long> studentIds, Long statusId);
+    GroupAttendanceResponse markAttendanceForGroup(Long scheduleId, Long teacherId, List<Long> studentIds, Long statusId);
 }
\ No newline at end of file
@@ -2,11 +2,18 @@ package ru.tihomirov.university.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.tihomirov.university.aop.LogExecutionTime;
+import ru.tihomirov.university.dto.AttendanceEventDto;
+import ru.tihomirov.university.dto.AttendanceFailureDto;
 import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.AttendanceMarkDto;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.dto.GroupAttendanceResponse;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Attendance;
 import ru.tihomirov.university.model.AttendanceStatus;
@@ -14,47 +21,58 @@ import ru.tihomirov.university.model.Schedule;
 import ru.tihomirov.university.model.Student;
 import ru.tihomirov.university.repository.AttendanceRepository;
 import ru.tihomirov.university.repository.AttendanceStatusRepository;
+import ru.tihomirov.university.repository.KeysetOrder;
 import ru.tihomirov.university.repository.ScheduleRepository;
 import ru.tihomirov.university.repository.StudentRepository;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AttendanceServiceImpl implements AttendanceService {
 
+
     private final AttendanceRepository attendanceRepository;
     private final ScheduleRepository scheduleRepository;
     private final StudentRepository studentRepository;
     private final AttendanceStatusRepository attendanceStatusRepository;
+    private final AttendanceSummaryService attendanceSummaryService;
+    private final AttendanceJournalService attendanceJournalService;
+    private final AttendanceEventHub attendanceEventHub;
 
     @Override
     @LogExecutionTime
     @Transactional
     public Attendance save(Attendance attendance) {
-        Schedule schedule = scheduleRepository.findById(attendance.getSchedule().getId())
+        Schedule schedule = scheduleRepository.findWithDetailsById(attendance.getSchedule().getId())
                 .orElseThrow(() -> new EntityNotFoundException("Schedule not found"));
         Student student = studentRepository.findById(attendance.getStudent().getId())
                 .orElseThrow(() -> new EntityNotFoundException("Student not found"));
         AttendanceStatus status = attendanceStatusRepository.findById(attendance.getAttendanceStatus().getId())
                 .orElseThrow(() -> new EntityNotFoundException("AttendanceStatus not found"));
 
-        if (attendanceRepository.findByScheduleId(schedule.getId()).stream()
-                .anyMatch(a -> a.getStudent().getId().equals(student.getId()))) {
-            throw new IllegalStateException("Attendance already marked for this student on this schedule");
-        }
-
-        attendance.setSchedule(schedule);
-        attendance.setStudent(student);
-        attendance.setAttendanceStatus(status);
+        LocalTime markedTime = attendance.getMarkedTime() != null ? attendance.getMarkedTime() : LocalTime.now();
 
-        if (attendance.getMarkedTime() == null) {
-            attendance.setMarkedTime(LocalTime.now());
+        // Уникальность (schedule_id, student_id) гарантирует БД: вставка через ON CONFLICT DO NOTHING
+        // не читает список отметок и корректна при одновременных отметках одного студента
+        Long id = attendanceRepository.insertIfAbsent(schedule.getId(), List.of(student.getId()), status.getId(), markedTime)
+                .get(student.getId());
+        if (id == null) {
+            throw new IllegalStateException("Attendance already marked for this student on this schedule");
         }
-
-        return attendanceRepository.save(attendance);
+        AttendanceMarkDto added = mark(schedule, student, status);
+        attendanceSummaryService.apply(List.of(), List.of(added));
+        evictJournal(added);
+
+        // Граф уже загружен для проверок выше: отметка собирается из него без повторного чтения
+        Attendance saved = marked(id, schedule, student, status, markedTime);
+        attendanceEventHub.publishAfterCommit(List.of(event(AttendanceEventDto.Type.MARKED, saved)));
+        return saved;
     }
 
     @Override
@@ -63,9 +81,11 @@ public class AttendanceServiceImpl implements AttendanceService {
     public Attendance update(Long id, Attendance updatedAttendance) {
         Attendance existing = attendanceRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Attendance not found with id: " + id));
+        // Граф уже загружен findById: старый ключ сводки снимается до изменения полей
+        AttendanceMarkDto before = mark(existing.getSchedule(), existing.getStudent(), existing.getAttendanceStatus());
 
         if (updatedAttendance.getSchedule() != null) {
-            Schedule schedule = scheduleRepository.findById(updatedAttendance.getSchedule().getId())
+            Schedule schedule = scheduleRepository.findWithDetailsById(updatedAttendance.getSchedule().getId())
                     .orElseThrow(() -> new EntityNotFoundException("Schedule not found"));
             existing.setSchedule(schedule);
         }
@@ -86,17 +106,28 @@ public class AttendanceServiceImpl implements AttendanceService {
             existing.setMarkedTime(updatedAttendance.getMarkedTime());
         }
 
-        return attendanceRepository.save(existing);
+        Attendance saved = attendanceRepository.save(existing);
+        AttendanceMarkDto after = mark(saved.getSchedule(), saved.getStudent(), saved.getAttendanceStatus());
+        attendanceSummaryService.apply(List.of(before), List.of(after));
+        evictJournal(before);
+        evictJournal(after);
+        // Перенос на другое занятие для подписчиков выглядит как удаление там и отметка здесь
+        attendanceEventHub.publishAfterCommit(Objects.equals(before.getScheduleId(), after.getScheduleId())
+                ? List.of(event(AttendanceEventDto.Type.UPDATED, saved))
+                : List.of(deleted(id, before), event(AttendanceEventDto.Type.MARKED, saved)));
+        return saved;
     }
 
     @Override
     @LogExecutionTime
     @Transactional
     public void delete(Long id) {
-        if (!attendanceRepository.existsById(id)) {
-            throw new EntityNotFoundException("Attendance not found with id: " + id);
-        }
+        AttendanceMarkDto removed = attendanceRepository.findMarkById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Attendance not found with id: " + id));
         attendanceRepository.deleteById(id);
+        attendanceSummaryService.apply(List.of(removed), List.of());
+        evictJournal(removed);
+        attendanceEventHub.publishAfterCommit(List.of(deleted(id, removed)));
     }
 
     @Override
@@ -106,8 +137,14 @@ public class AttendanceServiceImpl implements AttendanceService {
     }
 
     @Override
-    public List<Attendance> getAll() {
-        return attendanceRepository.findAll();
+    public Long getScheduleId(Long id) {
+        return attendanceRepository.findScheduleIdById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Attendance not found with id: " + id));
+    }
+
+    @Override
+    public CursorPage<Attendance> getAll(CursorRequest page) {
+        return page.fetch(KeysetOrder.ID, attendanceRepository::findAllBy);
     }
 
     @Override
@@ -125,50 +162,47 @@ public class AttendanceServiceImpl implements AttendanceService {
         return attendanceRepository.findByStudentId(studentId);
     }
 
+    @Override
+    public CursorPage<Attendance> getByStudentId(Long studentId, CursorRequest page) {
+        return page.fetch(KeysetOrder.ID,
+                (position, sort, limit) -> attendanceRepository.findByStudentId(studentId, position, sort, limit));
+    }
+
     @Override
     public Page<Attendance> getByStudentIdPaged(Long studentId, Pageable pageable) {
         return attendanceRepository.findByStudentId(studentId, pageable);
     }
 
     @Override
-    public List<Attendance> getByAttendanceStatusId(Long statusId) {
-        return attendanceRepository.findAll().stream()
-                .filter(attendance -> attendance.getAttendanceStatus().getId().equals(statusId))
-                .collect(Collectors.toList());
+    public CursorPage<Attendance> getByAttendanceStatusId(Long statusId, CursorRequest page,
+                                                          LocalDate dateFrom, LocalDate dateTo, Long groupId) {
+        // keyset-условие по id написано в запросе вручную (там же фильтры и fetch join)
+        List<Object> after = KeysetOrder.ID.values(page.getCursor());
+        List<Attendance> rows = attendanceRepository.findByStatusAfter(
+                statusId, after.isEmpty() ? 0L : (Long) after.get(0), dateFrom, dateTo, groupId,
+                PageRequest.of(0, page.getSize() + 1));
+        return CursorPage.of(rows, page.getSize(), a -> KeysetOrder.ID.encode(List.of(a.getId())));
     }
 
     @Override
     public List<AttendanceInfoDto> getFormattedAttendanceBySchedule(Long scheduleId) {
-        return attendanceRepository.findByScheduleId(scheduleId)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return attendanceRepository.findInfoByScheduleId(scheduleId);
     }
 
     @Override
     public List<AttendanceInfoDto> getFormattedAttendanceByStudent(Long studentId) {
-        return getByStudentId(studentId)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return attendanceRepository.findInfoByStudentId(studentId);
     }
 
     @Override
     @LogExecutionTime
     @Transactional
     public Attendance markAttendance(Long scheduleId, Long studentId, Long teacherId, Long statusId) {
-        Attendance attendance = new Attendance();
-
-        Schedule schedule = scheduleRepository.findById(scheduleId)
-                .orElseThrow(() -> new EntityNotFoundException("Schedule not found"));
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new EntityNotFoundException("Student not found"));
-        AttendanceStatus status = attendanceStatusRepository.findById(statusId)
-                .orElseThrow(() -> new EntityNotFoundException("AttendanceStatus not found"));
-
-        attendance.setSchedule(schedule)
-                .setStudent(student)
-                .setAttendanceStatus(status)
+        // Проверку существования и загрузку графа выполняет save — здесь только ссылки по id
+        Attendance attendance = new Attendance()
+                .setSchedule(new Schedule().setId(scheduleId))
+                .setStudent(new Student().setId(studentId))
+                .setAttendanceStatus(new AttendanceStatus().setId(statusId))
                 .setMarkedTime(LocalTime.now());
 
         return save(attendance);
@@ -177,41 +211,108 @@ public class AttendanceServiceImpl implements AttendanceService {
     @Override
     @LogExecutionTime
     @Transactional
-    public List<Attendance> markAttendanceForGroup(Long scheduleId, Long teacherId, List<Long> studentIds, Long statusId) {
-        Schedule schedule = scheduleRepository.findById(scheduleId)
+    public GroupAttendanceResponse markAttendanceForGroup(Long scheduleId, Long teacherId, List<Long> studentIds, Long statusId) {
+        Schedule schedule = scheduleRepository.findWithDetailsById(scheduleId)
                 .orElseThrow(() -> new EntityNotFoundException("Schedule not found"));
         AttendanceStatus status = attendanceStatusRepository.findById(statusId)
                 .orElseThrow(() -> new EntityNotFoundException("AttendanceStatus not found"));
 
-        return studentIds.stream()
-                .map(studentId -> {
-                    Student student = studentRepository.findById(studentId)
-                            .orElseThrow(() -> new EntityNotFoundException("Student not found with id: " + studentId));
-
-                    Attendance attendance = new Attendance();
-                    attendance.setSchedule(schedule)
-                            .setStudent(student)
-                            .setAttendanceStatus(status)
-                            .setMarkedTime(LocalTime.now());
-
-                    return attendanceRepository.save(attendance);
-                })
-                .collect(Collectors.toList());
-    }
-
-    private AttendanceInfoDto mapToDto(Attendance attendance) {
-        return new AttendanceInfoDto()
-                .setStudentFullName(attendance.getStudent().getLastName() + " " +
-                        attendance.getStudent().getName() + " " +
-                        attendance.getStudent().getMiddleName())
-                .setGroupName(attendance.getSchedule().getGroup().getName())
-                .setTeacherFullName(attendance.getSchedule().getTeacher().getLastName() + " " +
-                        attendance.getSchedule().getTeacher().getName() + " " +
-                        attendance.getSchedule().getTeacher().getMiddleName())
-                .setAttendanceStatusName(attendance.getAttendanceStatus().getAttendanceStatusName())
-                .setMarkedTime(attendance.getMarkedTime())
-                .setScheduleStartTime(attendance.getSchedule().getStartTime())
-                .setScheduleEndTime(attendance.getSchedule().getEndTime())
-                .setCourseName(attendance.getSchedule().getCourse().getName());
+        GroupAttendanceResponse response = new GroupAttendanceResponse();
+
+        Set<Long> uniqueIds = new LinkedHashSet<>();
+        for (Long studentId : studentIds) {
+            if (!uniqueIds.add(studentId)) {
+                response.getFailures().add(new AttendanceFailureDto(studentId, "Duplicate student id in request"));
+            }
+        }
+        if (uniqueIds.isEmpty()) {
+            return response;
+        }
+
+        // Студенты — одним IN-запросом; уже отмеченных отсеивает сама вставка (ON CONFLICT DO NOTHING),
+        // поэтому параллельная отметка того же студента попадает в failures, а не в ошибку всей операции
+        Map<Long, Student> students = studentRepository.findAllById(uniqueIds).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        List<Long> existing = new ArrayList<>();
+        for (Long studentId : uniqueIds) {
+            if (students.containsKey(studentId)) {
+                existing.add(studentId);
+            } else {
+                response.getFailures().add(new AttendanceFailureDto(studentId, "Student not found with id: " + studentId));
+            }
+        }
+
+        LocalTime markedTime = LocalTime.now();
+        Map<Long, Long> inserted = attendanceRepository.insertIfAbsent(scheduleId, existing, statusId, markedTime);
+        List<Attendance> created = new ArrayList<>();
+        for (Long studentId : existing) {
+            Long id = inserted.get(studentId);
+            if (id == null) {
+                response.getFailures().add(new AttendanceFailureDto(studentId, AttendanceFailureDto.ALREADY_MARKED));
+            } else {
+                created.add(marked(id, schedule, students.get(studentId), status, markedTime));
+            }
+        }
+
+        response.setMarked(created);
+        attendanceSummaryService.apply(List.of(), created.stream()
+                .map(a -> mark(schedule, a.getStudent(), status))
+                .toList());
+        if (!created.isEmpty()) {
+            evictJournal(mark(schedule, null, status));
+        }
+        attendanceEventHub.publishAfterCommit(created.stream()
+                .map(a -> event(AttendanceEventDto.Type.MARKED, a))
+                .toList());
+        return response;
+    }
+
+    private static Attendance marked(Long id, Schedule schedule, Student student, AttendanceStatus status, LocalTime markedTime) {
+        return new Attendance()
+                .setId(id)
+                .setSchedule(schedule)
+                .setStudent(student)
+                .setAttendanceStatus(status)
+                .setMarkedTime(markedTime);
+    }
+
+    private void evictJournal(AttendanceMarkDto mark) {
+        if (mark.getGroupId() != null && mark.getCourseId() != null) {
+            attendanceJournalService.evict(mark.getGroupId(), mark.getCourseId());
+        }
+    }
+
+    private static AttendanceMarkDto mark(Schedule schedule, Student student, AttendanceStatus status) {
+        return new AttendanceMarkDto(
+                student != null ? student.getId() : null,
+                schedule != null && schedule.getCourse() != null ? schedule.getCourse().getId() : null,
+                schedule != null && schedule.getClassType() != null ? schedule.getClassType().getId() : null,
+                status != null ? status.getAttendanceStatusName() : null,
+                schedule != null && schedule.getGroup() != null ? schedule.getGroup().getId() : null,
+                schedule != null ? schedule.getId() : null);
+    }
+
+    private static AttendanceEventDto event(AttendanceEventDto.Type type, Attendance attendance) {
+        Student student = attendance.getStudent();
+        AttendanceStatus status = attendance.getAttendanceStatus();
+        return new AttendanceEventDto(
+                attendance.getId(),
+                attendance.getSchedule().getId(),
+                student != null ? student.getId() : null,
+                student != null ? Stream.of(student.getLastName(), student.getName(), student.getMiddleName())
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.joining(" ")) : null,
+                status != null ? status.getId() : null,
+                status != null ? status.getAttendanceStatusName() : null,
+                attendance.getMarkedTime())
+                .setType(type);
+    }
+
+    private static AttendanceEventDto deleted(Long attendanceId, AttendanceMarkDto mark) {
+        return new AttendanceEventDto()
+                .setType(AttendanceEventDto.Type.DELETED)
+                .setAttendanceId(attendanceId)
+                .setScheduleId(mark.getScheduleId())
+                .setStudentId(mark.getStudentId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package ru.tihomirov.university.service;
+
+import ru.tihomirov.university.dto.AttendanceMarkDto;
+import ru.tihomirov.university.dto.AttendanceSummaryDto;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AttendanceSummaryService {
+    // Учитывает изменения отметок в текущей транзакции: removed вычитаются, added прибавляются
+    void apply(Collection<AttendanceMarkDto> removed, Collection<AttendanceMarkDto> added);
+    List<AttendanceSummaryDto> getByStudentId(Long studentId);
+    // Полный пересчёт сводки по таблице attendance; возвращает число строк сводки
+    int rebuild();
+}
@@ -0,0 +1,206 @@
+package ru.tihomirov.university.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tihomirov.university.aop.LogExecutionTime;
+import ru.tihomirov.university.dto.AttendanceMarkDto;
+import ru.tihomirov.university.dto.AttendanceSummaryDto;
+import ru.tihomirov.university.repository.AttendanceSummaryRepository;
+
+import java.util.*;
+
+/**
+ * Сводка посещаемости (attendance_summary) как read-model: каждая запись отметки в той же транзакции
+ * сдвигает счётчики своей строки, поэтому чтение сводки студента не агрегирует таблицу attendance.
+ * Ночная пересборка исправляет расхождения, которые инкрементальный путь не видит
+ * (смена курса или типа занятия в расписании, правки БД в обход приложения); при старте пустая сводка
+ * заполняется по уже сделанным отметкам.
+ */
+@Slf4j
+@Service
+public class AttendanceSummaryServiceImpl implements AttendanceSummaryService {
+
+    private static final String INSERT_ROW = "INSERT INTO attendance_summary " +
+            "(student_id, course_id, class_type_id, present_count, absent_count, late_count, marked_count) " +
+            "VALUES (?, ?, ?, 0, 0, 0, 0) ON CONFLICT DO NOTHING";
+
+    private static final String ADD_DELTA = "UPDATE attendance_summary SET " +
+            "present_count = present_count + ?, absent_count = absent_count + ?, " +
+            "late_count = late_count + ?, marked_count = marked_count + ? " +
+            "WHERE student_id = ? AND course_id = ? AND class_type_id = ?";
+
+    private static final String SET_COUNTS = "UPDATE attendance_summary SET " +
+            "present_count = ?, absent_count = ?, late_count = ?, marked_count = ? " +
+            "WHERE student_id = ? AND course_id = ? AND class_type_id = ?";
+
+    private static final String INSERT_COUNTS = "INSERT INTO attendance_summary " +
+            "(present_count, absent_count, late_count, marked_count, student_id, course_id, class_type_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    // Ключи в том же порядке, что и в apply, — пересборка и отметки не блокируют друг друга крест-накрест
+    private static final String LOCK_ROWS = "SELECT student_id, course_id, class_type_id FROM attendance_summary " +
+            "ORDER BY student_id, course_id, class_type_id FOR UPDATE";
+
+    private static final String AGGREGATE = "SELECT a.student_id, s.course_id, s.class_type_id, " +
+            "SUM(CASE WHEN LOWER(st.attendance_status_name) IN (:present) THEN 1 ELSE 0 END) AS present_count, " +
+            "SUM(CASE WHEN LOWER(st.attendance_status_name) IN (:absent) THEN 1 ELSE 0 END) AS absent_count, " +
+            "SUM(CASE WHEN LOWER(st.attendance_status_name) IN (:late) THEN 1 ELSE 0 END) AS late_count, " +
+            "COUNT(*) AS marked_count " +
+            "FROM attendance a " +
+            "JOIN schedule s ON s.id = a.schedule_id " +
+            "LEFT JOIN attendance_status st ON st.id = a.teacher_id " +
+            "WHERE a.student_id IS NOT NULL AND s.course_id IS NOT NULL AND s.class_type_id IS NOT NULL " +
+            "GROUP BY a.student_id, s.course_id, s.class_type_id";
+
+    private final AttendanceSummaryRepository attendanceSummaryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final Set<String> presentStatuses;
+    private final Set<String> absentStatuses;
+    private final Set<String> lateStatuses;
+
+    public AttendanceSummaryServiceImpl(
+            AttendanceSummaryRepository attendanceSummaryRepository,
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            @Value("${app.attendance.summary.present-statuses:Присутствовал}") List<String> presentStatuses,
+            @Value("${app.attendance.summary.absent-statuses:Отсутствовал}") List<String> absentStatuses,
+            @Value("${app.attendance.summary.late-statuses:Опоздал}") List<String> lateStatuses) {
+        this.attendanceSummaryRepository = attendanceSummaryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.presentStatuses = normalize(presentStatuses);
+        this.absentStatuses = normalize(absentStatuses);
+        this.lateStatuses = normalize(lateStatuses);
+    }
+
+    @Override
+    @Transactional
+    public void apply(Collection<AttendanceMarkDto> removed, Collection<AttendanceMarkDto> added) {
+        // Ключи упорядочены: конкурентные транзакции блокируют строки сводки в одном порядке и не дают дедлок
+        Map<List<Long>, int[]> deltas = new TreeMap<>(Comparator
+                .<List<Long>, Long>comparing(k -> k.get(0))
+                .thenComparing(k -> k.get(1))
+                .thenComparing(k -> k.get(2)));
+        removed.forEach(mark -> accumulate(deltas, mark, -1));
+        added.forEach(mark -> accumulate(deltas, mark, 1));
+        deltas.values().removeIf(delta -> Arrays.stream(delta).allMatch(d -> d == 0));
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> keys = new ArrayList<>(deltas.size());
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            keys.add(key.toArray());
+            updates.add(new Object[]{delta[0], delta[1], delta[2], delta[3], key.get(0), key.get(1), key.get(2)});
+        });
+        // Два батча на всю операцию, как бы много отметок ни было: создать недостающие строки, сдвинуть счётчики
+        jdbcTemplate.batchUpdate(INSERT_ROW, keys);
+        jdbcTemplate.batchUpdate(ADD_DELTA, updates);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceSummaryDto> getByStudentId(Long studentId) {
+        return attendanceSummaryRepository.findDtoByStudentId(studentId);
+    }
+
+    /**
+     * Пересчитывает строки на месте, а не через DELETE + INSERT: отметка, ждущая блокировки строки,
+     * после коммита пересборки прибавляет свою дельту к пересчитанной строке, а не к удалённой.
+     * Существующие строки блокируются до подсчёта, поэтому подсчёт видит все отметки, успевшие сдвинуть
+     * эти строки, а не успевшие — ждут и сдвигают их после. Строки без отметок обнуляются, как и при удалении
+     * последней отметки. Окно остаётся только для ключа, которого в сводке ещё нет: если его одновременно
+     * создаёт отметка, пересборка его пропускает, и недостающие счётчики досчитает следующая пересборка.
+     */
+    @Override
+    @LogExecutionTime
+    @Scheduled(cron = "${app.attendance.summary.rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public int rebuild() {
+        int rows = recount();
+        log.info("Сводка посещаемости пересобрана: {} строк", rows);
+        return rows;
+    }
+
+    /**
+     * Таблица сводки создаётся пустой, а наполнять её отметками, сделанными до её появления, некому,
+     * кроме ночной пересборки. Поэтому при старте пустая сводка при непустом журнале собирается сразу.
+     * Миграцией это не сделать: статусы присутствия задаются настройками приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        boolean empty = jdbcTemplate.queryForList("SELECT 1 FROM attendance_summary LIMIT 1").isEmpty();
+        if (empty && !jdbcTemplate.queryForList("SELECT 1 FROM attendance LIMIT 1").isEmpty()) {
+            log.info("Сводка посещаемости пуста, первичное заполнение: {} строк", recount());
+        }
+    }
+
+    private int recount() {
+        Set<List<Long>> locked = new HashSet<>(jdbcTemplate.query(LOCK_ROWS, (rs, i) ->
+                List.of(rs.getLong("student_id"), rs.getLong("course_id"), rs.getLong("class_type_id"))));
+        Map<List<Long>, Object[]> counts = new HashMap<>();
+        namedParameterJdbcTemplate.query(AGGREGATE, new MapSqlParameterSource()
+                .addValue("present", inList(presentStatuses))
+                .addValue("absent", inList(absentStatuses))
+                .addValue("late", inList(lateStatuses)), rs -> {
+            long studentId = rs.getLong("student_id");
+            long courseId = rs.getLong("course_id");
+            long classTypeId = rs.getLong("class_type_id");
+            counts.put(List.of(studentId, courseId, classTypeId), new Object[]{
+                    rs.getInt("present_count"), rs.getInt("absent_count"), rs.getInt("late_count"),
+                    rs.getInt("marked_count"), studentId, courseId, classTypeId});
+        });
+
+        List<Object[]> updates = new ArrayList<>(locked.size());
+        for (List<Long> key : locked) {
+            Object[] row = counts.remove(key);
+            updates.add(row != null ? row : new Object[]{0, 0, 0, 0, key.get(0), key.get(1), key.get(2)});
+        }
+        jdbcTemplate.batchUpdate(SET_COUNTS, updates);
+        jdbcTemplate.batchUpdate(INSERT_COUNTS, new ArrayList<>(counts.values()));
+        return updates.size() + counts.size();
+    }
+
+    private void accumulate(Map<List<Long>, int[]> deltas, AttendanceMarkDto mark, int sign) {
+        if (mark.getStudentId() == null || mark.getCourseId() == null || mark.getClassTypeId() == null) {
+            return; // без курса или типа занятия отметка в сводку не попадает — так же, как при пересборке
+        }
+        int[] delta = deltas.computeIfAbsent(
+                List.of(mark.getStudentId(), mark.getCourseId(), mark.getClassTypeId()), k -> new int[4]);
+        String status = mark.getAttendanceStatusName() == null ? "" : mark.getAttendanceStatusName().toLowerCase(Locale.ROOT);
+        if (presentStatuses.contains(status)) {
+            delta[0] += sign;
+        } else if (absentStatuses.contains(status)) {
+            delta[1] += sign;
+        } else if (lateStatuses.contains(status)) {
+            delta[2] += sign;
+        }
+        delta[3] += sign;
+    }
+
+    private static Set<String> normalize(List<String> names) {
+        Set<String> result = new HashSet<>();
+        for (String name : names) {
+            if (!name.isBlank()) {
+                result.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return result;
+    }
+
+    // IN () недопустим в SQL: пустая категория заменяется значением, которого нет среди статусов
+    private static Collection<String> inList(Set<String> statuses) {
+        return statuses.isEmpty() ? List.of("\u0000") : statuses;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.tihomirov.university.service;
+
+import ru.tihomirov.university.dto.CheckInCodeDto;
+import ru.tihomirov.university.dto.CheckInResult;
+
+public interface CheckInService {
+    // Выдаёт новый код для занятия (вызывается экраном преподавателя раз в период ротации)
+    CheckInCodeDto issueCode(Long scheduleId);
+    // Проверка целиком в памяти; принятые отметки записываются пачками через flush
+    CheckInResult checkIn(Long scheduleId, Long studentId, String code);
+    // Записывает накопленные отметки; возвращает число отправленных в БД отметок
+    int flush();
+}
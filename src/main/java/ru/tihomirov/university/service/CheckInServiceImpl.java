@@ -0,0 +1,287 @@
+package ru.tihomirov.university.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.tihomirov.university.dto.AttendanceFailureDto;
+import ru.tihomirov.university.dto.CheckInCodeDto;
+import ru.tihomirov.university.dto.CheckInResult;
+import ru.tihomirov.university.dto.GroupAttendanceResponse;
+import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.model.Schedule;
+import ru.tihomirov.university.repository.AttendanceRepository;
+import ru.tihomirov.university.repository.AttendanceStatusRepository;
+import ru.tihomirov.university.repository.ScheduleRepository;
+import ru.tihomirov.university.repository.StudentRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Самоотметка студентов по коду занятия.
+ * Код, состав группы и уже отмеченные студенты занятия держатся в памяти, поэтому проверка
+ * отметки не обращается к БД. Принятые отметки копятся в ограниченной очереди и раз в
+ * flush-interval записываются пачкой через AttendanceService.markAttendanceForGroup
+ * (одна транзакция на занятие, JDBC-батч вставок, сводка, журнал и live-события как при ручной отметке).
+ * Принятая отметка не теряется при ошибке записи: пачка делится на отметки по одному студенту,
+ * а не записанные возвращаются в очередь до max-attempts попыток.
+ */
+@Slf4j
+@Service
+public class CheckInServiceImpl implements CheckInService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final ScheduleRepository scheduleRepository;
+    private final StudentRepository studentRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final AttendanceStatusRepository attendanceStatusRepository;
+    private final AttendanceService attendanceService;
+    private final Clock clock;
+    private final Duration codeTtl;
+    private final int codeLength;
+    private final String statusName;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingCheckIn> queue;
+
+    @Autowired
+    public CheckInServiceImpl(ScheduleRepository scheduleRepository,
+                              StudentRepository studentRepository,
+                              AttendanceRepository attendanceRepository,
+                              AttendanceStatusRepository attendanceStatusRepository,
+                              AttendanceService attendanceService,
+                              @Value("${app.checkin.code-ttl:30s}") Duration codeTtl,
+                              @Value("${app.checkin.code-length:6}") int codeLength,
+                              @Value("${app.checkin.status-name:Присутствовал}") String statusName,
+                              @Value("${app.checkin.queue-capacity:20000}") int queueCapacity,
+                              @Value("${app.checkin.batch-size:500}") int batchSize,
+                              @Value("${app.checkin.max-attempts:5}") int maxAttempts) {
+        this(scheduleRepository, studentRepository, attendanceRepository, attendanceStatusRepository, attendanceService,
+                Clock.systemUTC(), codeTtl, codeLength, statusName, queueCapacity, batchSize, maxAttempts);
+    }
+
+    CheckInServiceImpl(ScheduleRepository scheduleRepository,
+                       StudentRepository studentRepository,
+                       AttendanceRepository attendanceRepository,
+                       AttendanceStatusRepository attendanceStatusRepository,
+                       AttendanceService attendanceService,
+                       Clock clock, Duration codeTtl, int codeLength, String statusName,
+                       int queueCapacity, int batchSize, int maxAttempts) {
+        this.scheduleRepository = scheduleRepository;
+        this.studentRepository = studentRepository;
+        this.attendanceRepository = attendanceRepository;
+        this.attendanceStatusRepository = attendanceStatusRepository;
+        this.attendanceService = attendanceService;
+        this.clock = clock;
+        this.codeTtl = codeTtl;
+        this.codeLength = codeLength;
+        this.statusName = statusName;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public CheckInCodeDto issueCode(Long scheduleId) {
+        Schedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new EntityNotFoundException("Schedule not found with id: " + scheduleId));
+        Long statusId = attendanceStatusRepository.findByAttendanceStatusName(statusName)
+                .orElseThrow(() -> new EntityNotFoundException("AttendanceStatus not found: " + statusName))
+                .getId();
+
+        // Состав группы и ручные отметки перечитываются при каждой ротации — два лёгких запроса раз в codeTtl
+        Set<Long> roster = Set.copyOf(studentRepository.findIdsByGroupId(schedule.getGroup().getId()));
+        List<Long> marked = attendanceRepository.findMarkedStudentIdsBySchedule(scheduleId);
+
+        Session session = sessions.computeIfAbsent(scheduleId, id -> new Session());
+        Code code = new Code(randomCode(), clock.instant().plus(codeTtl));
+        synchronized (session) {
+            session.teacherId = schedule.getTeacher() != null ? schedule.getTeacher().getId() : null;
+            session.statusId = statusId;
+            session.roster = roster;
+            session.previous = session.current;
+            session.current = code;
+        }
+        session.checkedIn.addAll(marked);
+        return new CheckInCodeDto(scheduleId, code.value(), code.expiresAt());
+    }
+
+    @Override
+    public CheckInResult checkIn(Long scheduleId, Long studentId, String code) {
+        Session session = sessions.get(scheduleId);
+        if (session == null || code == null) {
+            return CheckInResult.INVALID_CODE;
+        }
+        Instant now = clock.instant();
+        Code current;
+        Code previous;
+        Set<Long> roster;
+        Long statusId;
+        Long teacherId;
+        synchronized (session) {
+            current = session.current;
+            previous = session.previous;
+            roster = session.roster;
+            statusId = session.statusId;
+            teacherId = session.teacherId;
+        }
+        if (!matches(current, code, now) && !matches(previous, code, now)) {
+            return CheckInResult.INVALID_CODE;
+        }
+        if (!roster.contains(studentId)) {
+            return CheckInResult.NOT_IN_GROUP;
+        }
+        if (!session.checkedIn.add(studentId)) {
+            return CheckInResult.ALREADY_CHECKED_IN;
+        }
+        if (!queue.offer(new PendingCheckIn(scheduleId, studentId, teacherId, statusId, 1))) {
+            session.checkedIn.remove(studentId);
+            return CheckInResult.QUEUE_FULL;
+        }
+        return CheckInResult.ACCEPTED;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.checkin.flush-interval:200ms}")
+    public synchronized int flush() {
+        int written = 0;
+        List<PendingCheckIn> batch = new ArrayList<>(batchSize);
+        List<PendingCheckIn> retry = new ArrayList<>();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            Map<Long, List<PendingCheckIn>> bySchedule = new LinkedHashMap<>();
+            batch.forEach(c -> bySchedule.computeIfAbsent(c.scheduleId(), id -> new ArrayList<>()).add(c));
+            for (List<PendingCheckIn> checkIns : bySchedule.values()) {
+                written += write(checkIns, retry);
+            }
+            batch.clear();
+        }
+        // Повтор — со следующим сбросом, а не в этом же цикле: временный сбой БД успевает пройти
+        for (PendingCheckIn checkIn : retry) {
+            if (!queue.offer(checkIn)) {
+                drop(checkIn, "очередь заполнена");
+            }
+        }
+        evictExpiredSessions();
+        return written;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        for (int attempt = 1; attempt < maxAttempts && !queue.isEmpty(); attempt++) {
+            flush();
+        }
+    }
+
+    private int write(List<PendingCheckIn> checkIns, List<PendingCheckIn> retry) {
+        PendingCheckIn first = checkIns.get(0);
+        List<Long> studentIds = checkIns.stream().map(PendingCheckIn::studentId).toList();
+        GroupAttendanceResponse response;
+        try {
+            response = attendanceService.markAttendanceForGroup(first.scheduleId(), first.teacherId(), studentIds, first.statusId());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать {} самоотметок занятия {}: {}", studentIds.size(), first.scheduleId(), e.getMessage());
+            if (checkIns.size() > 1) {
+                // Одна отметка, которую нельзя записать (например, студент удалён), не должна терять остальные
+                int written = 0;
+                for (PendingCheckIn checkIn : checkIns) {
+                    written += write(List.of(checkIn), retry);
+                }
+                return written;
+            }
+            retryOrDrop(first, e.getMessage(), retry);
+            return 0;
+        }
+
+        Map<Long, PendingCheckIn> byStudent = new HashMap<>();
+        checkIns.forEach(checkIn -> byStudent.putIfAbsent(checkIn.studentId(), checkIn));
+        int written = checkIns.size();
+        for (AttendanceFailureDto failure : response.getFailures()) {
+            // Отметка, которую преподаватель успел поставить вручную, — не ошибка: студент отмечен
+            if (AttendanceFailureDto.ALREADY_MARKED.equals(failure.getReason())) {
+                continue;
+            }
+            PendingCheckIn checkIn = byStudent.remove(failure.getStudentId());
+            if (checkIn != null) {
+                written--;
+                retryOrDrop(checkIn, failure.getReason(), retry);
+            }
+        }
+        return written;
+    }
+
+    private void retryOrDrop(PendingCheckIn checkIn, String reason, List<PendingCheckIn> retry) {
+        if (checkIn.attempt() < maxAttempts) {
+            retry.add(checkIn.nextAttempt());
+        } else {
+            drop(checkIn, reason);
+        }
+    }
+
+    private void drop(PendingCheckIn checkIn, String reason) {
+        log.error("Самоотметка студента {} на занятие {} не записана после {} попыток: {}",
+                checkIn.studentId(), checkIn.scheduleId(), checkIn.attempt(), reason);
+        Session session = sessions.get(checkIn.scheduleId());
+        if (session != null) {
+            session.checkedIn.remove(checkIn.studentId()); // студент сможет отметиться повторно
+        }
+    }
+
+    // Сессия живёт, пока действует хотя бы один её код
+    private void evictExpiredSessions() {
+        Instant now = clock.instant();
+        sessions.values().removeIf(session -> {
+            synchronized (session) {
+                return session.current == null || session.current.expiresAt().isBefore(now);
+            }
+        });
+    }
+
+    private static boolean matches(Code code, String submitted, Instant now) {
+        return code != null
+                && now.isBefore(code.expiresAt())
+                && MessageDigest.isEqual(code.value().getBytes(StandardCharsets.UTF_8),
+                submitted.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String randomCode() {
+        StringBuilder code = new StringBuilder(codeLength);
+        for (int i = 0; i < codeLength; i++) {
+            code.append((char) ('0' + RANDOM.nextInt(10)));
+        }
+        return code.toString();
+    }
+
+    private record Code(String value, Instant expiresAt) {
+    }
+
+    private record PendingCheckIn(Long scheduleId, Long studentId, Long teacherId, Long statusId, int attempt) {
+
+        private PendingCheckIn nextAttempt() {
+            return new PendingCheckIn(scheduleId, studentId, teacherId, statusId, attempt + 1);
+        }
+    }
+
+    private static final class Session {
+        private final Set<Long> checkedIn = ConcurrentHashMap.newKeySet();
+        private Set<Long> roster = Set.of();
+        private Long statusId;
+        private Long teacherId;
+        private Code current;
+        private Code previous;
+    }
+}
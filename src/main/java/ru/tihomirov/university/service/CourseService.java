@@ -1,11 +1,11 @@
 package ru.tihomirov.university.service;
 
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.model.Course;
 
-import java.util.List;
-
 public interface CourseService {
-    List<Course> getAll();
+    CursorPage<Course> getAll(CursorRequest page);
     Course getById(Long id);
     Course getByName(String name);
     Course save(Course course);
@@ -2,12 +2,13 @@ package ru.tihomirov.university.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Course;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.repository.CourseRepository;
-
-import java.util.List;
+import ru.tihomirov.university.repository.KeysetOrder;
 
 @Service
 @RequiredArgsConstructor
@@ -16,8 +17,8 @@ public class CourseServiceImpl implements CourseService {
     private final CourseRepository courseRepository;
 
     @Override
-    public List<Course> getAll() {
-        return courseRepository.findAll();
+    public CursorPage<Course> getAll(CursorRequest page) {
+        return page.fetch(KeysetOrder.ID, courseRepository::findAllBy);
     }
 
     @Override
@@ -0,0 +1,96 @@
+package ru.tihomirov.university.service;
+
+import ru.tihomirov.university.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV по RFC 4180: по одной записи за вызов, без чтения файла целиком.
+ * Поле в кавычках может содержать разделитель, перевод строки и удвоенные кавычки.
+ */
+class CsvReader {
+
+    private final Reader reader;
+    private final char delimiter;
+    private int pending = -2; // -2 — символ ещё не прочитан вперёд
+    private int record;
+
+    CsvReader(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    // Номер последней прочитанной записи с 1 (заголовок — запись 1); пустые строки не считаются
+    int record() {
+        return record;
+    }
+
+    // null — конец файла; пустые строки пропускаются
+    List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (inQuotes) {
+                if (c == '"') {
+                    int after = read();
+                    if (after == '"') {
+                        field.append('"');
+                        continue;
+                    }
+                    inQuotes = false;
+                    unread(after);
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int after = read();
+                    if (after != '\n') {
+                        unread(after);
+                    }
+                }
+                if (fields.isEmpty() && field.isEmpty() && !quoted) {
+                    continue;
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (c == -1 && fields.isEmpty() && field.isEmpty() && !quoted) {
+            return null;
+        }
+        if (inQuotes) {
+            throw new ValidationException("Unterminated quoted field in record " + (record + 1));
+        }
+        fields.add(field.toString());
+        record++;
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pending = c;
+    }
+}
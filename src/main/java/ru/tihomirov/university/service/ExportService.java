@@ -0,0 +1,13 @@
+package ru.tihomirov.university.service;
+
+import ru.tihomirov.university.dto.ExportFilter;
+import ru.tihomirov.university.dto.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+    // Возвращают число выгруженных строк
+    long exportAttendance(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException;
+    long exportSchedules(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException;
+}
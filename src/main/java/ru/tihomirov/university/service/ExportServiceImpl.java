@@ -0,0 +1,126 @@
+package ru.tihomirov.university.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.ExportFilter;
+import ru.tihomirov.university.dto.ExportFormat;
+import ru.tihomirov.university.dto.ScheduleInfoDto;
+import ru.tihomirov.university.repository.AttendanceRepository;
+import ru.tihomirov.university.repository.ScheduleRepository;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка посещаемости и расписания. Строки читаются из БД курсором и сразу пишутся
+ * в выходной поток — в памяти одновременно только одна пачка fetch size, независимо от объёма.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportServiceImpl implements ExportService {
+
+    private static final List<Column<AttendanceInfoDto>> ATTENDANCE_COLUMNS = List.of(
+            new Column<>("date", AttendanceInfoDto::getScheduleDate),
+            new Column<>("start_time", AttendanceInfoDto::getScheduleStartTime),
+            new Column<>("end_time", AttendanceInfoDto::getScheduleEndTime),
+            new Column<>("group", AttendanceInfoDto::getGroupName),
+            new Column<>("course", AttendanceInfoDto::getCourseName),
+            new Column<>("teacher", AttendanceInfoDto::getTeacherFullName),
+            new Column<>("student", AttendanceInfoDto::getStudentFullName),
+            new Column<>("status", AttendanceInfoDto::getAttendanceStatusName),
+            new Column<>("marked_time", AttendanceInfoDto::getMarkedTime));
+
+    private static final List<Column<ScheduleInfoDto>> SCHEDULE_COLUMNS = List.of(
+            new Column<>("date", ScheduleInfoDto::getDate),
+            new Column<>("start_time", ScheduleInfoDto::getStartTime),
+            new Column<>("end_time", ScheduleInfoDto::getEndTime),
+            new Column<>("group", ScheduleInfoDto::getGroupName),
+            new Column<>("course", ScheduleInfoDto::getCourseName),
+            new Column<>("class_type", ScheduleInfoDto::getClassTypeName),
+            new Column<>("teacher", ScheduleInfoDto::getTeacherFullName));
+
+    private final AttendanceRepository attendanceRepository;
+    private final ScheduleRepository scheduleRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAttendance(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<AttendanceInfoDto> rows = attendanceRepository.streamInfo(
+                filter.getDateFrom(), filter.getDateTo(), filter.getGroupId(), filter.getCourseId())) {
+            return write(rows, format, ATTENDANCE_COLUMNS, AttendanceInfoDto.class, out);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportSchedules(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<ScheduleInfoDto> rows = scheduleRepository.streamInfo(
+                filter.getDateFrom(), filter.getDateTo(), filter.getGroupId(), filter.getCourseId())) {
+            return write(rows, format, SCHEDULE_COLUMNS, ScheduleInfoDto.class, out);
+        }
+    }
+
+    private <T> long write(Stream<T> rows, ExportFormat format, List<Column<T>> columns,
+                           Class<T> type, OutputStream out) throws IOException {
+        // Поток ответа закрывает контейнер, здесь только сбрасываем буфер
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        ObjectWriter json = objectMapper.writerFor(type);
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(writer, columns.stream().map(Column::header).toList());
+        }
+        long count = 0;
+        for (Iterator<T> it = rows.iterator(); it.hasNext(); count++) {
+            T row = it.next();
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(writer, columns.stream().map(c -> format(c.value().apply(row))).toList());
+            } else {
+                writer.write(json.writeValueAsString(row));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof LocalTime time) {
+            return DateTimeFormatter.ISO_LOCAL_TIME.format(time);
+        }
+        return value.toString();
+    }
+
+    private static void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: поле с разделителем, кавычкой или переводом строки берётся в кавычки, кавычки удваиваются
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record Column<T>(String header, Function<T, Object> value) {
+    }
+}
@@ -1,11 +1,11 @@
 package ru.tihomirov.university.service;
 
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.model.Group;
 
-import java.util.List;
-
 public interface GroupService {
-    List<Group> getAll();
+    CursorPage<Group> getAll(CursorRequest page);
     Group getById(Long id);
     Group getByName(String name);
     Group save(Group group);
@@ -2,11 +2,12 @@ package ru.tihomirov.university.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.repository.GroupRepository;
-
-import java.util.List;
+import ru.tihomirov.university.repository.KeysetOrder;
 
 @Service
 @RequiredArgsConstructor
@@ -15,8 +16,8 @@ public class GroupServiceImpl implements GroupService {
     private final GroupRepository groupRepository;
 
     @Override
-    public List<Group> getAll() {
-        return groupRepository.findAll();
+    public CursorPage<Group> getAll(CursorRequest page) {
+        return page.fetch(KeysetOrder.ID, groupRepository::findAllBy);
     }
 
     @Override
@@ -0,0 +1,309 @@
+package ru.tihomirov.university.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tihomirov.university.dto.ScheduleConflictDto;
+import ru.tihomirov.university.dto.ScheduleSlotDto;
+import ru.tihomirov.university.model.Schedule;
+import ru.tihomirov.university.repository.ScheduleRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс занятых интервалов по (группа, дата) и (преподаватель, дата).
+ * Внутри дня интервалы отсортированы по началу, поиск пересечения — O(log n) плюс число кандидатов.
+ * Прогревается из ScheduleRepository при старте, обновляется ScheduleServiceImpl после коммита записи
+ * и периодически сверяется с БД (app.schedule.conflict-index.resync-interval).
+ * <p>
+ * Индекс свой у каждого узла и не видит чужих записей до сверки, поэтому отвечает только на предварительную
+ * проверку (POST /api/schedules/conflicts). Запись расписания проверяет пересечения по слотам,
+ * прочитанным из БД, — {@link #checkBatch(List, Collection)}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScheduleConflictIndex {
+
+    public static final String GROUP = "GROUP";
+    public static final String TEACHER = "TEACHER";
+
+    static final String GROUP_BUSY = "Группа уже занята в это время";
+    static final String TEACHER_BUSY = "Преподаватель уже занят в это время";
+
+    private final ScheduleRepository scheduleRepository;
+
+    private final Map<DayKey, DaySlots> groupDays = new ConcurrentHashMap<>();
+    private final Map<DayKey, DaySlots> teacherDays = new ConcurrentHashMap<>();
+    private final Map<Long, ScheduleSlotDto> slotsById = new ConcurrentHashMap<>();
+    private volatile boolean warm;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureWarm();
+    }
+
+    public Optional<Long> findGroupConflict(Long groupId, LocalDate date, LocalTime start, LocalTime end, Long excludeId) {
+        ensureWarm();
+        return Optional.ofNullable(findOverlap(groupDays, groupId, date, start, end, excludeId)).map(Slot::id);
+    }
+
+    public Optional<Long> findTeacherConflict(Long teacherId, LocalDate date, LocalTime start, LocalTime end, Long excludeId) {
+        ensureWarm();
+        return Optional.ofNullable(findOverlap(teacherDays, teacherId, date, start, end, excludeId)).map(Slot::id);
+    }
+
+    /**
+     * Проверяет список предлагаемых слотов за один вызов: и против индекса, и друг против друга.
+     * Слот с заданным id не конфликтует с собственной записью (проверка переноса).
+     * Слоты, отклонённые из-за конфликта, не мешают следующим слотам списка.
+     */
+    public List<ScheduleConflictDto> checkBatch(List<ScheduleSlotDto> proposed) {
+        ensureWarm();
+        return check(proposed, groupDays, teacherDays);
+    }
+
+    /**
+     * Та же проверка, но против переданных слотов (занятия тех же групп и преподавателей, прочитанные из БД),
+     * а не против индекса этого узла.
+     */
+    public List<ScheduleConflictDto> checkBatch(List<ScheduleSlotDto> proposed, Collection<ScheduleSlotDto> stored) {
+        Map<DayKey, DaySlots> storedGroups = new HashMap<>();
+        Map<DayKey, DaySlots> storedTeachers = new HashMap<>();
+        for (ScheduleSlotDto dto : stored) {
+            Slot slot = dto.getId() != null ? toSlot(dto.getId(), dto) : null;
+            if (slot != null) {
+                addTo(storedGroups, dto.getGroupId(), dto.getDate(), slot);
+                addTo(storedTeachers, dto.getTeacherId(), dto.getDate(), slot);
+            }
+        }
+        return check(proposed, storedGroups, storedTeachers);
+    }
+
+    private List<ScheduleConflictDto> check(List<ScheduleSlotDto> proposed,
+                                            Map<DayKey, DaySlots> storedGroups, Map<DayKey, DaySlots> storedTeachers) {
+        Map<DayKey, DaySlots> batchGroups = new HashMap<>();
+        Map<DayKey, DaySlots> batchTeachers = new HashMap<>();
+        List<ScheduleConflictDto> conflicts = new ArrayList<>();
+
+        for (int i = 0; i < proposed.size(); i++) {
+            ScheduleSlotDto slot = proposed.get(i);
+            int found = conflicts.size();
+            checkSlot(i, slot, GROUP, slot.getGroupId(), storedGroups, batchGroups, GROUP_BUSY, conflicts);
+            checkSlot(i, slot, TEACHER, slot.getTeacherId(), storedTeachers, batchTeachers, TEACHER_BUSY, conflicts);
+
+            // Занимает место в пачке только слот без конфликтов; отрицательный id помечает слот из этой же пачки
+            Slot batchSlot = toSlot(-(i + 1L), slot);
+            if (batchSlot != null && conflicts.size() == found) {
+                addTo(batchGroups, slot.getGroupId(), slot.getDate(), batchSlot);
+                addTo(batchTeachers, slot.getTeacherId(), slot.getDate(), batchSlot);
+            }
+        }
+        return conflicts;
+    }
+
+    public void put(Schedule schedule) {
+        ensureWarm();
+        add(new ScheduleSlotDto(
+                schedule.getId(),
+                schedule.getGroup() != null ? schedule.getGroup().getId() : null,
+                schedule.getTeacher() != null ? schedule.getTeacher().getId() : null,
+                schedule.getDate(), schedule.getStartTime(), schedule.getEndTime()));
+    }
+
+    // Внутри транзакции индекс обновляется только после коммита, чтобы откат не оставил в нём лишних слотов
+    public void putAfterCommit(Collection<Schedule> schedules) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedules.forEach(this::put);
+            return;
+        }
+        List<Schedule> committed = List.copyOf(schedules);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                committed.forEach(ScheduleConflictIndex.this::put);
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long scheduleId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(scheduleId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove(scheduleId);
+            }
+        });
+    }
+
+    public void remove(Long scheduleId) {
+        ensureWarm();
+        ScheduleSlotDto previous = slotsById.remove(scheduleId);
+        if (previous != null) {
+            removeFrom(groupDays, previous.getGroupId(), previous);
+            removeFrom(teacherDays, previous.getTeacherId(), previous);
+        }
+    }
+
+    /**
+     * Сверка с БД: подхватывает занятия, созданные, изменённые или удалённые другими узлами и в обход сервиса.
+     * Идёт на месте, без пересборки: запись, закоммиченная во время сверки, может выпасть до следующей.
+     */
+    @Scheduled(fixedDelayString = "${app.schedule.conflict-index.resync-interval:5m}",
+            initialDelayString = "${app.schedule.conflict-index.resync-interval:5m}")
+    public void resync() {
+        if (!warm) {
+            ensureWarm();
+            return;
+        }
+        List<ScheduleSlotDto> slots = scheduleRepository.findAllSlots();
+        Set<Long> present = new HashSet<>(slots.size() * 2);
+        int changed = 0;
+        for (ScheduleSlotDto slot : slots) {
+            present.add(slot.getId());
+            if (!slot.equals(slotsById.get(slot.getId()))) {
+                add(slot);
+                changed++;
+            }
+        }
+        List<Long> removed = slotsById.keySet().stream().filter(id -> !present.contains(id)).toList();
+        removed.forEach(this::remove);
+        if (changed > 0 || !removed.isEmpty()) {
+            log.info("Schedule conflict index resynced: {} slots added or changed, {} removed", changed, removed.size());
+        }
+    }
+
+    private void ensureWarm() {
+        if (warm) {
+            return;
+        }
+        synchronized (this) {
+            if (!warm) {
+                List<ScheduleSlotDto> slots = scheduleRepository.findAllSlots();
+                slots.forEach(this::add);
+                warm = true;
+                log.info("Schedule conflict index warmed with {} slots", slots.size());
+            }
+        }
+    }
+
+    private void add(ScheduleSlotDto dto) {
+        if (dto.getId() == null) {
+            return;
+        }
+        Slot slot = toSlot(dto.getId(), dto);
+        if (slot == null) {
+            return;
+        }
+        ScheduleSlotDto previous = slotsById.put(dto.getId(), dto);
+        if (previous != null) {
+            removeFrom(groupDays, previous.getGroupId(), previous);
+            removeFrom(teacherDays, previous.getTeacherId(), previous);
+        }
+        addTo(groupDays, dto.getGroupId(), dto.getDate(), slot);
+        addTo(teacherDays, dto.getTeacherId(), dto.getDate(), slot);
+    }
+
+    private void checkSlot(int index, ScheduleSlotDto slot, String type, Long ownerId,
+                           Map<DayKey, DaySlots> stored, Map<DayKey, DaySlots> batch,
+                           String busyMessage, List<ScheduleConflictDto> conflicts) {
+        Slot hit = findOverlap(stored, ownerId, slot.getDate(), slot.getStartTime(), slot.getEndTime(), slot.getId());
+        if (hit != null) {
+            conflicts.add(new ScheduleConflictDto(index, type, hit.id(), busyMessage));
+            return;
+        }
+        hit = findOverlap(batch, ownerId, slot.getDate(), slot.getStartTime(), slot.getEndTime(), null);
+        if (hit != null) {
+            conflicts.add(new ScheduleConflictDto(index, type, null,
+                    busyMessage + " (пересечение со слотом #" + (-hit.id() - 1) + " из запроса)"));
+        }
+    }
+
+    private static Slot findOverlap(Map<DayKey, DaySlots> days, Long ownerId, LocalDate date,
+                                    LocalTime start, LocalTime end, Long excludeId) {
+        if (ownerId == null || date == null || start == null || end == null) {
+            return null;
+        }
+        DaySlots slots = days.get(new DayKey(ownerId, date));
+        return slots == null ? null : slots.findOverlap(start.toNanoOfDay(), end.toNanoOfDay(), excludeId);
+    }
+
+    private static void addTo(Map<DayKey, DaySlots> days, Long ownerId, LocalDate date, Slot slot) {
+        if (ownerId == null) {
+            return;
+        }
+        days.compute(new DayKey(ownerId, date), (key, slots) -> {
+            DaySlots result = slots != null ? slots : new DaySlots();
+            result.add(slot);
+            return result;
+        });
+    }
+
+    private static void removeFrom(Map<DayKey, DaySlots> days, Long ownerId, ScheduleSlotDto dto) {
+        if (ownerId == null) {
+            return;
+        }
+        days.computeIfPresent(new DayKey(ownerId, dto.getDate()), (key, slots) -> {
+            slots.remove(dto.getId(), dto.getStartTime().toNanoOfDay());
+            return slots.isEmpty() ? null : slots;
+        });
+    }
+
+    private static Slot toSlot(long id, ScheduleSlotDto dto) {
+        if (dto.getDate() == null || dto.getStartTime() == null || dto.getEndTime() == null) {
+            return null;
+        }
+        return new Slot(id, dto.getStartTime().toNanoOfDay(), dto.getEndTime().toNanoOfDay());
+    }
+
+    private record DayKey(long ownerId, LocalDate date) {}
+
+    private record Slot(long id, long start, long end) {}
+
+    private static final class DaySlots {
+
+        private static final Comparator<Slot> ORDER =
+                Comparator.comparingLong(Slot::start).thenComparingLong(Slot::id);
+
+        private final TreeSet<Slot> slots = new TreeSet<>(ORDER);
+        // Самый длинный интервал дня: дальше него от начала запроса кандидатов быть не может
+        private long maxDuration;
+
+        synchronized void add(Slot slot) {
+            slots.add(slot);
+            maxDuration = Math.max(maxDuration, slot.end() - slot.start());
+        }
+
+        synchronized void remove(long id, long start) {
+            slots.remove(new Slot(id, start, start));
+        }
+
+        synchronized boolean isEmpty() {
+            return slots.isEmpty();
+        }
+
+        // Идём от последнего интервала, начавшегося до конца запроса, назад по началу
+        synchronized Slot findOverlap(long start, long end, Long excludeId) {
+            for (Slot slot : slots.headSet(new Slot(Long.MIN_VALUE, end, end), false).descendingSet()) {
+                if (slot.start() + maxDuration <= start) {
+                    break;
+                }
+                if (slot.end() > start && (excludeId == null || slot.id() != excludeId)) {
+                    return slot;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -2,7 +2,12 @@ package ru.tihomirov.university.service;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.dto.ScheduleConflictDto;
 import ru.tihomirov.university.dto.ScheduleInfoDto;
+import ru.tihomirov.university.dto.ScheduleSeriesRequest;
+import ru.tihomirov.university.dto.ScheduleSeriesResponse;
 import ru.tihomirov.university.model.Schedule;
 
 import java.time.LocalDate;
@@ -12,8 +17,15 @@ public interface ScheduleService {
     Schedule save(Schedule schedule);
     Schedule update(Long id, Schedule updatedSchedule);
     void delete(Long id);
+
+    // Проверка пачки слотов на конфликты без сохранения
+    List<ScheduleConflictDto> checkConflicts(List<Schedule> proposed);
+
+    // Разворачивает серии в занятия, конфликтующие даты возвращает в отчёте
+    ScheduleSeriesResponse createSeries(List<ScheduleSeriesRequest> series);
+
     Schedule getById(Long id);
-    List<Schedule> getAll();
+    CursorPage<Schedule> getAll(CursorRequest page);
 
     List<Schedule> getByGroupId(Long groupId);
     Page<Schedule> getByGroupIdPaged(Long groupId, Pageable pageable);
@@ -21,7 +33,7 @@ public interface ScheduleService {
     List<Schedule> getByTeacherId(Long teacherId);
     Page<Schedule> getByTeacherIdPaged(Long teacherId, Pageable pageable);
 
-    List<Schedule> getByDate(LocalDate date);
+    CursorPage<Schedule> getByDate(LocalDate date, CursorRequest page);
 
     List<ScheduleInfoDto> getFormattedScheduleByGroup(Long groupId);
     List<ScheduleInfoDto> getFormattedScheduleByTeacher(Long teacherId);
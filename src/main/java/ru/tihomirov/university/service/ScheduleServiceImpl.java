@@ -3,30 +3,45 @@ package ru.tihomirov.university.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
-import ru.tihomirov.university.dto.ScheduleInfoDto;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tihomirov.university.dto.*;
 import ru.tihomirov.university.exception.EntityNotFoundException;
-import ru.tihomirov.university.model.Schedule;
+import ru.tihomirov.university.exception.ValidationException;
+import ru.tihomirov.university.model.*;
 import ru.tihomirov.university.repository.*;
 
 import ru.tihomirov.university.aop.LogExecutionTime;
+import ru.tihomirov.university.security.ScheduleOwnership;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ScheduleServiceImpl implements ScheduleService {
 
+    // Серия не длиннее учебного года
+    private static final long MAX_SERIES_DAYS = 366;
+
     private final ScheduleRepository scheduleRepository;
     private final GroupRepository groupRepository;
     private final CourseRepository courseRepository;
     private final TeacherRepository teacherRepository;
     private final ClassTypeRepository classTypeRepository;
+    private final ScheduleConflictIndex conflictIndex;
+    private final AttendanceJournalService attendanceJournalService;
+    private final ScheduleOwnership scheduleOwnership;
 
-
+    // Ответ сериализуется после закрытия сессии (open-in-view выключен): возвращаем занятие,
+    // перечитанное вместе с группой, курсом, преподавателем и типом, а не сущность со ссылками-прокси
     @Override
+    @Transactional
     @LogExecutionTime
     public Schedule save(Schedule schedule) {
         schedule.setGroup(groupRepository.findById(schedule.getGroup().getId())
@@ -38,24 +53,24 @@ public class ScheduleServiceImpl implements ScheduleService {
         schedule.setClassType(classTypeRepository.findById(schedule.getClassType().getId())
                 .orElseThrow(() -> new EntityNotFoundException("ClassType not found")));
 
-        if (scheduleRepository.existsByGroupIdAndDateAndStartTimeLessThanAndEndTimeGreaterThan(
-                schedule.getGroup().getId(), schedule.getDate(), schedule.getEndTime(), schedule.getStartTime())) {
-            throw new IllegalStateException("Группа уже занята в это время");
-        }
-
-        if (scheduleRepository.existsByTeacherIdAndDateAndStartTimeLessThanAndEndTimeGreaterThan(
-                schedule.getTeacher().getId(), schedule.getDate(), schedule.getEndTime(), schedule.getStartTime())) {
-            throw new IllegalStateException("Преподаватель уже занят в это время");
-        }
+        checkConflicts(schedule);
 
-        return scheduleRepository.save(schedule);
+        Schedule saved = scheduleRepository.save(schedule);
+        conflictIndex.putAfterCommit(List.of(saved));
+        evictJournal(saved);
+        return withDetails(saved.getId());
     }
 
     @Override
+    @Transactional
     @LogExecutionTime
     public Schedule update(Long id, Schedule updatedSchedule) {
-        Schedule existing = scheduleRepository.findById(id)
+        // Связи грузятся сразу: в сессии не остаётся прокси, которые попали бы в ответ незагруженными
+        Schedule existing = scheduleRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Schedule not found with id: " + id));
+        // Занятие могло перейти в журнал другой группы или курса — сбрасываются оба
+        evictJournal(existing);
+        scheduleOwnership.evict(id);
 
         // Заменяем поля
         existing.setDate(updatedSchedule.getDate());
@@ -71,48 +86,208 @@ public class ScheduleServiceImpl implements ScheduleService {
         existing.setClassType(classTypeRepository.findById(updatedSchedule.getClassType().getId())
                 .orElseThrow(() -> new EntityNotFoundException("ClassType not found")));
 
-        // Проверка на конфликт времени по группе, исключая текущую запись
-        boolean groupConflict = scheduleRepository.findByGroupId(existing.getGroup().getId()).stream()
-                .anyMatch(s -> !s.getId().equals(id)
-                        && s.getDate().equals(existing.getDate())
-                        && s.getStartTime().isBefore(existing.getEndTime())
-                        && s.getEndTime().isAfter(existing.getStartTime()));
-        if (groupConflict) {
-            throw new IllegalStateException("Группа уже занята в это время");
-        }
+        // Проверка на конфликт времени, исключая текущую запись
+        checkConflicts(existing);
 
-        // Проверка на конфликт времени по преподавателю, исключая текущую запись
-        boolean teacherConflict = scheduleRepository.findByTeacherId(existing.getTeacher().getId()).stream()
-                .anyMatch(s -> !s.getId().equals(id)
-                        && s.getDate().equals(existing.getDate())
-                        && s.getStartTime().isBefore(existing.getEndTime())
-                        && s.getEndTime().isAfter(existing.getStartTime()));
-        if (teacherConflict) {
-            throw new IllegalStateException("Преподаватель уже занят в это время");
-        }
+        Schedule saved = scheduleRepository.save(existing);
+        conflictIndex.putAfterCommit(List.of(saved));
+        evictJournal(saved);
+        return withDetails(id);
+    }
 
-        return scheduleRepository.save(existing);
+    private Schedule withDetails(Long id) {
+        return scheduleRepository.findWithDetailsById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Schedule not found with id: " + id));
     }
 
 
+    // В транзакции: владелец, прочитанный другим запросом до коммита, сбрасывается ещё раз после него
     @Override
+    @Transactional
     @LogExecutionTime
     public void delete(Long id) {
-        if (!scheduleRepository.existsById(id)) {
-            throw new EntityNotFoundException("Schedule not found with id: " + id);
-        }
+        Schedule existing = scheduleRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Schedule not found with id: " + id));
+        scheduleOwnership.evict(id);
         scheduleRepository.deleteById(id);
+        conflictIndex.removeAfterCommit(id);
+        evictJournal(existing);
+    }
+
+    // Предварительная проверка по индексу этого узла; запись перепроверяет по БД
+    @Override
+    public List<ScheduleConflictDto> checkConflicts(List<Schedule> proposed) {
+        return conflictIndex.checkBatch(proposed.stream().map(ScheduleServiceImpl::slotOf).toList());
+    }
+
+    @Override
+    @Transactional
+    @LogExecutionTime
+    public ScheduleSeriesResponse createSeries(List<ScheduleSeriesRequest> series) {
+        series.forEach(this::validateSeries);
+
+        Map<Long, Group> groups = loadAll(groupRepository, series, ScheduleSeriesRequest::getGroupId, Group::getId, "Group");
+        Map<Long, Course> courses = loadAll(courseRepository, series, ScheduleSeriesRequest::getCourseId, Course::getId, "Course");
+        Map<Long, Teacher> teachers = loadAll(teacherRepository, series, ScheduleSeriesRequest::getTeacherId, Teacher::getId, "Teacher");
+        Map<Long, ClassType> classTypes = loadAll(classTypeRepository, series, ScheduleSeriesRequest::getClassTypeId, ClassType::getId, "ClassType");
+
+        // Разворачиваем все серии в занятия, запоминая, из какой серии каждое
+        List<Schedule> occurrences = new ArrayList<>();
+        List<Integer> seriesOf = new ArrayList<>();
+        for (int i = 0; i < series.size(); i++) {
+            ScheduleSeriesRequest request = series.get(i);
+            for (LocalDate date : expand(request)) {
+                occurrences.add(new Schedule()
+                        .setDate(date)
+                        .setStartTime(request.getStartTime())
+                        .setEndTime(request.getEndTime())
+                        .setGroup(groups.get(request.getGroupId()))
+                        .setCourse(courses.get(request.getCourseId()))
+                        .setTeacher(teachers.get(request.getTeacherId()))
+                        .setClassType(classTypes.get(request.getClassTypeId())));
+                seriesOf.add(i);
+            }
+        }
+
+        // Одна проверка на все занятия сразу — и с существующим расписанием, и между собой
+        List<ScheduleSeriesConflictDto> rejected = new ArrayList<>();
+        Set<Integer> rejectedIndexes = new HashSet<>();
+        for (ScheduleConflictDto conflict : checkStored(occurrences.stream().map(ScheduleServiceImpl::slotOf).toList())) {
+            rejectedIndexes.add(conflict.getIndex());
+            rejected.add(new ScheduleSeriesConflictDto(
+                    seriesOf.get(conflict.getIndex()),
+                    occurrences.get(conflict.getIndex()).getDate(),
+                    conflict.getType(),
+                    conflict.getConflictingScheduleId(),
+                    conflict.getMessage()));
+        }
+
+        List<Schedule> accepted = new ArrayList<>(occurrences.size() - rejectedIndexes.size());
+        for (int i = 0; i < occurrences.size(); i++) {
+            if (!rejectedIndexes.contains(i)) {
+                accepted.add(occurrences.get(i));
+            }
+        }
+
+        List<Schedule> saved = scheduleRepository.saveAll(accepted);
+        conflictIndex.putAfterCommit(saved);
+        saved.forEach(this::evictJournal);
+
+        return new ScheduleSeriesResponse(occurrences.size(), saved.size(), rejected);
+    }
+
+    // id связей доступны без загрузки ленивых прокси
+    private void evictJournal(Schedule schedule) {
+        if (schedule.getGroup() != null && schedule.getCourse() != null) {
+            attendanceJournalService.evict(schedule.getGroup().getId(), schedule.getCourse().getId());
+        }
+    }
+
+    private void validateSeries(ScheduleSeriesRequest request) {
+        if (request.getGroupId() == null || request.getCourseId() == null
+                || request.getTeacherId() == null || request.getClassTypeId() == null) {
+            throw new ValidationException("Серия должна содержать группу, дисциплину, преподавателя и тип занятия");
+        }
+        if (request.getDayOfWeek() == null || request.getStartTime() == null || request.getEndTime() == null) {
+            throw new ValidationException("Серия должна содержать день недели и время занятия");
+        }
+        if (!request.getStartTime().isBefore(request.getEndTime())) {
+            throw new ValidationException("Время начала должно быть раньше времени окончания");
+        }
+        if (request.getDateFrom() == null || request.getDateTo() == null
+                || request.getDateTo().isBefore(request.getDateFrom())) {
+            throw new ValidationException("Некорректный диапазон дат серии");
+        }
+        if (ChronoUnit.DAYS.between(request.getDateFrom(), request.getDateTo()) > MAX_SERIES_DAYS) {
+            throw new ValidationException("Серия не может быть длиннее " + MAX_SERIES_DAYS + " дней");
+        }
+        if (request.getWeekInterval() < 1) {
+            throw new ValidationException("Интервал повторения должен быть не меньше одной недели");
+        }
+    }
+
+    private static List<LocalDate> expand(ScheduleSeriesRequest request) {
+        Set<LocalDate> excluded = request.getExcludedDates() == null
+                ? Set.of() : new HashSet<>(request.getExcludedDates());
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = request.getDateFrom().with(TemporalAdjusters.nextOrSame(request.getDayOfWeek()));
+             !date.isAfter(request.getDateTo());
+             date = date.plusWeeks(request.getWeekInterval())) {
+            if (!excluded.contains(date)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    // Один findAllById на тип справочника вместо findById на каждое занятие
+    private static <T> Map<Long, T> loadAll(JpaRepository<T, Long> repository, List<ScheduleSeriesRequest> series,
+                                            Function<ScheduleSeriesRequest, Long> idOf, Function<T, Long> entityId,
+                                            String name) {
+        Set<Long> ids = series.stream().map(idOf).collect(Collectors.toSet());
+        Map<Long, T> found = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(entityId, Function.identity()));
+        if (found.size() != ids.size()) {
+            Set<Long> missing = new TreeSet<>(ids);
+            missing.removeAll(found.keySet());
+            throw new EntityNotFoundException(name + " not found: " + missing);
+        }
+        return found;
+    }
+
+    // id занятия исключает пересечение с собственной записью при переносе
+    private void checkConflicts(Schedule schedule) {
+        List<ScheduleConflictDto> conflicts = checkStored(List.of(slotOf(schedule)));
+        if (!conflicts.isEmpty()) {
+            throw new IllegalStateException(conflicts.get(0).getMessage());
+        }
+    }
+
+    // Пересечения проверяются по БД, а не по индексу в памяти: его не видно другим узлам и записям в обход сервиса.
+    // Строки групп и преподавателей заблокированы до коммита — параллельная запись тех же владельцев
+    // ждёт и затем видит уже вставленные занятия
+    private List<ScheduleConflictDto> checkStored(List<ScheduleSlotDto> proposed) {
+        Set<Long> groupIds = new TreeSet<>();
+        Set<Long> teacherIds = new TreeSet<>();
+        LocalDate from = null;
+        LocalDate to = null;
+        for (ScheduleSlotDto slot : proposed) {
+            if (slot.getGroupId() != null) {
+                groupIds.add(slot.getGroupId());
+            }
+            if (slot.getTeacherId() != null) {
+                teacherIds.add(slot.getTeacherId());
+            }
+            if (slot.getDate() != null) {
+                from = from == null || slot.getDate().isBefore(from) ? slot.getDate() : from;
+                to = to == null || slot.getDate().isAfter(to) ? slot.getDate() : to;
+            }
+        }
+        // Группа и преподаватель уже загружены (save, update) или проверены (validateSeries)
+        if (from == null) {
+            return conflictIndex.checkBatch(proposed, List.of());
+        }
+        groupRepository.lockAllById(groupIds);
+        teacherRepository.lockAllById(teacherIds);
+        return conflictIndex.checkBatch(proposed, scheduleRepository.findSlots(groupIds, teacherIds, from, to));
+    }
+
+    private static ScheduleSlotDto slotOf(Schedule schedule) {
+        return new ScheduleSlotDto(schedule.getId(),
+                schedule.getGroup() != null ? schedule.getGroup().getId() : null,
+                schedule.getTeacher() != null ? schedule.getTeacher().getId() : null,
+                schedule.getDate(), schedule.getStartTime(), schedule.getEndTime());
     }
 
     @Override
     public Schedule getById(Long id) {
-        return scheduleRepository.findById(id)
+        return scheduleRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Schedule not found with id: " + id));
     }
 
     @Override
-    public List<Schedule> getAll() {
-        return scheduleRepository.findAll();
+    public CursorPage<Schedule> getAll(CursorRequest page) {
+        return page.fetch(KeysetOrder.SCHEDULE_TIME, scheduleRepository::findAllBy);
     }
 
     @Override
@@ -136,51 +311,29 @@ public class ScheduleServiceImpl implements ScheduleService {
     }
 
     @Override
-    public List<Schedule> getByDate(LocalDate date) {
-        return scheduleRepository.findByDate(date);
+    public CursorPage<Schedule> getByDate(LocalDate date, CursorRequest page) {
+        return page.fetch(KeysetOrder.SCHEDULE_TIME,
+                (position, sort, limit) -> scheduleRepository.findByDate(date, position, sort, limit));
     }
 
     @Override
     public List<ScheduleInfoDto> getFormattedScheduleByGroup(Long groupId) {
-        return scheduleRepository.findByGroupId(groupId)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return scheduleRepository.findInfoByGroupId(groupId);
     }
 
     @Override
     public List<ScheduleInfoDto> getFormattedScheduleByTeacher(Long teacherId) {
-        return scheduleRepository.findByTeacherId(teacherId)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
-    }
-
-    private ScheduleInfoDto mapToDto(Schedule s) {
-        return new ScheduleInfoDto()
-                .setDate(s.getDate())
-                .setStartTime(s.getStartTime())
-                .setEndTime(s.getEndTime())
-                .setTeacherFullName(s.getTeacher().getLastName() + " " + s.getTeacher().getName() + " " + s.getTeacher().getMiddleName())
-                .setCourseName(s.getCourse().getName())
-                .setClassTypeName(s.getClassType().getName())
-                .setGroupName(s.getGroup().getName());
+        return scheduleRepository.findInfoByTeacherId(teacherId);
     }
 
     @Override
     public List<ScheduleInfoDto> getFormattedScheduleByGroupName(String groupName) {
-        return scheduleRepository.findByGroup_Name(groupName)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return scheduleRepository.findInfoByGroupName(groupName);
     }
 
     @Override
     public List<ScheduleInfoDto> getFormattedScheduleByTeacherEmail(String email) {
-        return scheduleRepository.findByTeacher_Email(email)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return scheduleRepository.findInfoByTeacherEmail(email);
     }
 
 }
@@ -0,0 +1,11 @@
+package ru.tihomirov.university.service;
+
+import org.springframework.core.io.InputStreamSource;
+import ru.tihomirov.university.dto.StudentImportReport;
+
+import java.io.IOException;
+
+public interface StudentImportService {
+    // Источник читается дважды (проверка и вставка), поэтому нужен InputStreamSource, а не поток
+    StudentImportReport importCsv(InputStreamSource source, char delimiter) throws IOException;
+}
@@ -0,0 +1,187 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tihomirov.university.dto.StudentImportError;
+import ru.tihomirov.university.dto.StudentImportReport;
+import ru.tihomirov.university.exception.ValidationException;
+import ru.tihomirov.university.model.Group;
+import ru.tihomirov.university.model.Student;
+import ru.tihomirov.university.repository.GroupRepository;
+import ru.tihomirov.university.repository.StudentRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Импорт студентов из CSV за два прохода по файлу, без чтения его в память целиком.
+ * Первый проход проверяет строки и считает места по группам; затем группы находятся одним запросом
+ * и места в каждой занимаются одним условным UPDATE на всю группу. Второй проход вставляет студентов
+ * пачками. Всё в одной транзакции: при сбое не остаётся ни части студентов, ни изменённых счётчиков.
+ * <p>
+ * Колонки по заголовку: last_name и group обязательны, name, middle_name, email, phone — нет.
+ */
+@Service
+public class StudentImportServiceImpl implements StudentImportService {
+
+    private static final String LAST_NAME = "last_name";
+    private static final String GROUP = "group";
+    private static final List<String> COLUMNS = List.of(LAST_NAME, "name", "middle_name", "email", "phone", GROUP);
+
+    private final GroupRepository groupRepository;
+    private final StudentRepository studentRepository;
+    private final AttendanceJournalService attendanceJournalService;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    @Autowired
+    public StudentImportServiceImpl(GroupRepository groupRepository,
+                                    StudentRepository studentRepository,
+                                    AttendanceJournalService attendanceJournalService,
+                                    EntityManager entityManager,
+                                    @Value("${app.students.import.batch-size:500}") int batchSize) {
+        this.groupRepository = groupRepository;
+        this.studentRepository = studentRepository;
+        this.attendanceJournalService = attendanceJournalService;
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public StudentImportReport importCsv(InputStreamSource source, char delimiter) throws IOException {
+        StudentImportReport report = new StudentImportReport();
+
+        // Проход 1: ошибки строк и число мест, которое просит каждая группа
+        Map<String, Integer> requested = new LinkedHashMap<>();
+        read(source, delimiter, (row, values, error) -> {
+            report.setRows(report.getRows() + 1);
+            if (error != null) {
+                report.getErrors().add(new StudentImportError(row, error));
+            } else {
+                requested.merge(values.get(GROUP), 1, Integer::sum);
+            }
+        });
+
+        Map<String, Group> groups = new HashMap<>();
+        if (!requested.isEmpty()) {
+            groupRepository.findByNameIn(requested.keySet()).forEach(g -> groups.put(g.getName(), g));
+        }
+        // Места занимаются до вставки: параллельное зачисление не переполнит группу между проходами
+        Map<String, String> rejected = new HashMap<>();
+        requested.forEach((name, seats) -> {
+            Group group = groups.get(name);
+            if (group == null) {
+                rejected.put(name, "Group not found: " + name);
+            } else if (groupRepository.reserveSeats(group.getId(), seats) == 0) {
+                rejected.put(name, "Group " + name + " has " + freeSeats(group) + " free seats, " + seats + " requested");
+            }
+        });
+
+        // Проход 2: вставка пачками; контекст очищается после каждой, чтобы не копить сущности
+        List<Student> batch = new ArrayList<>(batchSize);
+        read(source, delimiter, (row, values, error) -> {
+            if (error != null) {
+                return;
+            }
+            String groupName = values.get(GROUP);
+            String reason = rejected.get(groupName);
+            if (reason != null) {
+                report.getErrors().add(new StudentImportError(row, reason));
+                return;
+            }
+            batch.add(new Student()
+                    .setLastName(values.get(LAST_NAME))
+                    .setName(values.get("name"))
+                    .setMiddleName(values.get("middle_name"))
+                    .setEmail(values.get("email"))
+                    .setPhone(values.get("phone"))
+                    .setGroup(entityManager.getReference(Group.class, groups.get(groupName).getId())));
+            report.getImportedByGroup().merge(groupName, 1, Integer::sum);
+            if (batch.size() == batchSize) {
+                flush(batch);
+            }
+        });
+        flush(batch);
+
+        report.getImportedByGroup().keySet().forEach(name -> attendanceJournalService.evictGroup(groups.get(name).getId()));
+        report.setImported(report.getImportedByGroup().values().stream().mapToInt(Integer::intValue).sum());
+        report.getErrors().sort(Comparator.comparingInt(StudentImportError::getRow));
+        return report;
+    }
+
+    private void flush(List<Student> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        studentRepository.saveAll(batch);
+        entityManager.flush();
+        entityManager.clear();
+        batch.clear();
+    }
+
+    private static int freeSeats(Group group) {
+        int count = group.getCountStudents() != null ? group.getCountStudents() : 0;
+        int max = group.getMaxCountStudents() != null ? group.getMaxCountStudents() : 0;
+        return Math.max(0, max - count);
+    }
+
+    // Разбор одинаков в обоих проходах, поэтому номера строк и ошибки совпадают
+    private static void read(InputStreamSource source, char delimiter, RowHandler handler) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8))) {
+            CsvReader csv = new CsvReader(reader, delimiter);
+            Map<String, Integer> columns = header(csv.next());
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                if (fields.size() != columns.size()) {
+                    handler.handle(csv.record(), null,
+                            "Expected " + columns.size() + " fields, got " + fields.size());
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                    String value = fields.get(column.getValue()).trim();
+                    if (COLUMNS.contains(column.getKey()) && !value.isEmpty()) {
+                        values.put(column.getKey(), value);
+                    }
+                }
+                String error = values.containsKey(LAST_NAME)
+                        ? (values.containsKey(GROUP) ? null : "Column 'group' is empty")
+                        : "Column 'last_name' is empty";
+                handler.handle(csv.record(), values, error);
+            }
+        }
+    }
+
+    private static Map<String, Integer> header(List<String> fields) {
+        if (fields == null) {
+            throw new ValidationException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            // BOM, который добавляют табличные редакторы при сохранении в UTF-8
+            String name = (i == 0 ? fields.get(i).replace("\uFEFF", "") : fields.get(i)).trim().toLowerCase(Locale.ROOT);
+            if (columns.putIfAbsent(name, i) != null) {
+                throw new ValidationException("Duplicate CSV column: " + name);
+            }
+        }
+        for (String required : List.of(LAST_NAME, GROUP)) {
+            if (!columns.containsKey(required)) {
+                throw new ValidationException("Missing required CSV column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(int row, Map<String, String> values, String error);
+    }
+}
@@ -1,13 +1,17 @@
 package ru.tihomirov.university.service;
 
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.model.Student;
 
 import java.util.List;
 
 public interface StudentService {
-    List<Student> getAll();
+    CursorPage<Student> getAll(CursorRequest page);
     Student getById(Long id);
     Student save(Student student);
+    // Массовое зачисление в группу: места резервируются одним запросом, все или никто
+    List<Student> enroll(Long groupId, List<Student> students);
     Student update(Long id, Student updatedStudent);
     void deleteById(Long id);
     List<Student> getByGroupId(Long groupId);
@@ -3,10 +3,13 @@ package ru.tihomirov.university.service;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.model.Student;
 import ru.tihomirov.university.repository.GroupRepository;
+import ru.tihomirov.university.repository.KeysetOrder;
 import ru.tihomirov.university.repository.StudentRepository;
 
 import java.util.List;
@@ -17,10 +20,11 @@ public class StudentServiceImpl implements StudentService {
 
     private final StudentRepository studentRepository;
     private final GroupRepository groupRepository;
+    private final AttendanceJournalService attendanceJournalService;
 
     @Override
-    public List<Student> getAll() {
-        return studentRepository.findAll();
+    public CursorPage<Student> getAll(CursorRequest page) {
+        return page.fetch(KeysetOrder.ID, studentRepository::findAllBy);
     }
 
     @Override
@@ -32,55 +36,65 @@ public class StudentServiceImpl implements StudentService {
     @Override
     @Transactional
     public Student save(Student student) {
-        Group group = groupRepository.findById(student.getGroup().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Group not found with id: " + student.getGroup().getId()));
-
-        if (group.getCountStudents() >= group.getMaxCountStudents()) {
-            throw new IllegalStateException("Group is full: " + group.getName());
+        Long groupId = student.getGroup().getId();
+        // Место занимается до чтения группы, поэтому группа читается уже с новым счётчиком
+        if (groupRepository.reserveSeats(groupId, 1) == 0) {
+            throw seatsUnavailable(groupId, "Group is full: ");
         }
+        Group group = findGroup(groupId);
 
         student.setGroup(group);
         Student savedStudent = studentRepository.save(student);
-
-        group.setCountStudents(group.getCountStudents() + 1);
-        groupRepository.save(group);
+        attendanceJournalService.evictGroup(group.getId());
 
         return savedStudent;
     }
 
+    @Override
+    @Transactional
+    public List<Student> enroll(Long groupId, List<Student> students) {
+        if (students.isEmpty()) {
+            return List.of();
+        }
+        // Все места одним UPDATE: либо зачисляются все, либо никто
+        if (groupRepository.reserveSeats(groupId, students.size()) == 0) {
+            throw seatsUnavailable(groupId, "Not enough free seats for " + students.size() + " students in group ");
+        }
+        Group group = findGroup(groupId);
+
+        students.forEach(student -> student.setGroup(group));
+        List<Student> saved = studentRepository.saveAll(students);
+        attendanceJournalService.evictGroup(groupId);
+
+        return saved;
+    }
+
     @Override
     @Transactional
     public Student update(Long id, Student updatedStudent) {
         Student existingStudent = studentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Student not found with id: " + id));
-        Group oldGroup = existingStudent.getGroup();
+        Long oldGroupId = existingStudent.getGroup().getId();
+        Long newGroupId = updatedStudent.getGroup().getId();
 
-        Group newGroup = groupRepository.findById(updatedStudent.getGroup().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Group not found with id: " + updatedStudent.getGroup().getId()));
+        // если группа изменилась — место в новой занимается атомарно, в старой освобождается
+        boolean groupChanged = !oldGroupId.equals(newGroupId);
+        if (groupChanged && groupRepository.reserveSeats(newGroupId, 1) == 0) {
+            throw seatsUnavailable(newGroupId, "New group is full: ");
+        }
+        Group newGroup = findGroup(newGroupId);
 
         updatedStudent.setId(id);
         updatedStudent.setGroup(newGroup);
+        // ФИО в журнале или состав групп могли измениться
+        attendanceJournalService.evictGroup(oldGroupId);
+        attendanceJournalService.evictGroup(newGroupId);
 
-        // если группа изменилась — пересчитать количество
-        if (!oldGroup.getId().equals(newGroup.getId())) {
-            if (newGroup.getCountStudents() >= newGroup.getMaxCountStudents()) {
-                throw new IllegalStateException("New group is full: " + newGroup.getName());
-            }
-
-            // сохранить студента с новой группой
-            studentRepository.save(updatedStudent);
-
-            // изменить count студентов
-            oldGroup.setCountStudents(oldGroup.getCountStudents() - 1);
-            newGroup.setCountStudents(newGroup.getCountStudents() + 1);
-
-            groupRepository.save(oldGroup);
-            groupRepository.save(newGroup);
-
-            return updatedStudent;
+        Student saved = studentRepository.save(updatedStudent);
+        if (groupChanged) {
+            groupRepository.releaseSeats(oldGroupId, 1);
         }
-
-        return studentRepository.save(updatedStudent);
+        return saved;
     }
 
     @Override
@@ -88,14 +102,24 @@ public class StudentServiceImpl implements StudentService {
     public void deleteById(Long id) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Student not found with id: " + id));
-        Group group = student.getGroup();
-        group.setCountStudents(group.getCountStudents() - 1);
-        groupRepository.save(group);
+        Long groupId = student.getGroup().getId();
+        groupRepository.releaseSeats(groupId, 1);
         studentRepository.deleteById(id);
+        attendanceJournalService.evictGroup(groupId);
     }
 
     @Override
     public List<Student> getByGroupId(Long groupId) {
         return studentRepository.findByGroupId(groupId);
     }
+
+    private Group findGroup(Long groupId) {
+        return groupRepository.findById(groupId)
+                .orElseThrow(() -> new EntityNotFoundException("Group not found with id: " + groupId));
+    }
+
+    // Условный UPDATE не изменил строку: группы нет (404) или не хватает мест (409)
+    private IllegalStateException seatsUnavailable(Long groupId, String message) {
+        return new IllegalStateException(message + findGroup(groupId).getName());
+    }
 }
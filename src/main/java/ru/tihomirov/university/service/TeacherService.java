@@ -1,12 +1,12 @@
 package ru.tihomirov.university.service;
 
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.model.Teacher;
 
-import java.util.List;
-
 public interface TeacherService {
-    List<Teacher> getAll();
+    CursorPage<Teacher> getAll(CursorRequest page);
     Teacher getById(Long id);
     Teacher getByEmail(String email);
     Teacher save(Teacher teacher);
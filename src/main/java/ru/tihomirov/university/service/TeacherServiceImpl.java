@@ -2,13 +2,14 @@ package ru.tihomirov.university.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.model.Teacher;
+import ru.tihomirov.university.repository.KeysetOrder;
 import ru.tihomirov.university.repository.TeacherRepository;
 
-import java.util.List;
-
 @Service
 @RequiredArgsConstructor
 public class TeacherServiceImpl implements TeacherService {
@@ -16,8 +17,8 @@ public class TeacherServiceImpl implements TeacherService {
     private final TeacherRepository teacherRepository;
 
     @Override
-    public List<Teacher> getAll() {
-        return teacherRepository.findAll();
+    public CursorPage<Teacher> getAll(CursorRequest page) {
+        return page.fetch(KeysetOrder.ID, teacherRepository::findAllBy);
     }
 
     @Override
@@ -0,0 +1,12 @@
+package ru.tihomirov.university.service;
+
+import ru.tihomirov.university.dto.BulkRegisterJobDto;
+import ru.tihomirov.university.dto.RegisterRequest;
+
+import java.util.List;
+
+public interface UserProvisioningService {
+    // Задание выполняется в фоне; ход и итог — через getJob
+    BulkRegisterJobDto submit(List<RegisterRequest> requests);
+    BulkRegisterJobDto getJob(String jobId);
+}
@@ -0,0 +1,302 @@
+package ru.tihomirov.university.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.tihomirov.university.dto.BulkRegisterJobDto;
+import ru.tihomirov.university.dto.BulkRegisterOutcome;
+import ru.tihomirov.university.dto.RegisterRequest;
+import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.exception.ValidationException;
+import ru.tihomirov.university.model.Role;
+import ru.tihomirov.university.model.User;
+import ru.tihomirov.university.repository.RoleRepository;
+import ru.tihomirov.university.repository.StudentRepository;
+import ru.tihomirov.university.repository.TeacherRepository;
+import ru.tihomirov.university.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Массовое создание учётных записей (например, на весь набор студентов). Запрос проверяется целиком
+ * несколькими запросами IN (логины, студенты, преподаватели), пароли хешируются BCrypt на отдельном пуле
+ * по числу ядер, а записи вставляются пачками — каждая пачка в своей транзакции.
+ * Задание выполняется в фоне, ход виден через getJob; итоги хранятся app.users.bulk.retention.
+ */
+@Slf4j
+@Service
+public class UserProvisioningServiceImpl implements UserProvisioningService {
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService hashPool;
+    private final Executor jobRunner;
+    private final int batchSize;
+    private final int maxUsers;
+    private final Duration retention;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserProvisioningServiceImpl(UserRepository userRepository,
+                                       RoleRepository roleRepository,
+                                       StudentRepository studentRepository,
+                                       TeacherRepository teacherRepository,
+                                       PasswordEncoder passwordEncoder,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.users.bulk.hash-threads:0}") int hashThreads,
+                                       @Value("${app.users.bulk.batch-size:200}") int batchSize,
+                                       @Value("${app.users.bulk.max-users:10000}") int maxUsers,
+                                       @Value("${app.users.bulk.retention:1h}") Duration retention) {
+        this(userRepository, roleRepository, studentRepository, teacherRepository, passwordEncoder, transactionManager,
+                newPool("bcrypt-bulk-", hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors()),
+                newPool("bulk-users-", 1), batchSize, maxUsers, retention);
+    }
+
+    UserProvisioningServiceImpl(UserRepository userRepository, RoleRepository roleRepository,
+                                StudentRepository studentRepository, TeacherRepository teacherRepository,
+                                PasswordEncoder passwordEncoder, PlatformTransactionManager transactionManager,
+                                ExecutorService hashPool, Executor jobRunner,
+                                int batchSize, int maxUsers, Duration retention) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.studentRepository = studentRepository;
+        this.teacherRepository = teacherRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hashPool = hashPool;
+        this.jobRunner = jobRunner;
+        this.batchSize = batchSize;
+        this.maxUsers = maxUsers;
+        this.retention = retention;
+    }
+
+    @Override
+    public BulkRegisterJobDto submit(List<RegisterRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ValidationException("Bulk registration requires at least one user");
+        }
+        if (requests.size() > maxUsers) {
+            throw new ValidationException("Bulk registration is limited to " + maxUsers + " users per job");
+        }
+        Job job = new Job(UUID.randomUUID().toString(), List.copyOf(requests));
+        jobs.put(job.id, job);
+        jobRunner.execute(() -> run(job));
+        return job.toDto();
+    }
+
+    @Override
+    public BulkRegisterJobDto getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException("Bulk registration job not found: " + jobId);
+        }
+        return job.toDto();
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.bulk.purge-interval:10m}")
+    public void purgeFinished() {
+        Instant threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+        if (jobRunner instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void run(Job job) {
+        job.status = BulkRegisterJobDto.Status.RUNNING;
+        try {
+            List<Entry> accepted = validate(job);
+            for (int from = 0; from < accepted.size(); from += batchSize) {
+                insert(job, accepted.subList(from, Math.min(from + batchSize, accepted.size())));
+            }
+            job.finish(BulkRegisterJobDto.Status.DONE, null);
+        } catch (RuntimeException e) {
+            log.error("Bulk registration job {} failed", job.id, e);
+            job.finish(BulkRegisterJobDto.Status.FAILED, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(BulkRegisterJobDto.Status.FAILED, "Interrupted");
+        }
+    }
+
+    // Все проверки по БД — по одному запросу на логины и на каждую роль, до хеширования
+    private List<Entry> validate(Job job) {
+        Map<String, Role> roles = new HashMap<>();
+        roleRepository.findAll().forEach(role -> roles.put(role.getName().toUpperCase(Locale.ROOT), role));
+
+        Set<String> usernames = new HashSet<>();
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> teacherIds = new HashSet<>();
+        for (RegisterRequest request : job.requests) {
+            if (request.getUsername() != null) {
+                usernames.add(request.getUsername());
+            }
+            if (request.getRelatedId() != null && "STUDENT".equalsIgnoreCase(request.getRole())) {
+                studentIds.add(request.getRelatedId());
+            } else if (request.getRelatedId() != null && "TEACHER".equalsIgnoreCase(request.getRole())) {
+                teacherIds.add(request.getRelatedId());
+            }
+        }
+        Set<String> taken = usernames.isEmpty() ? new HashSet<>() : new HashSet<>(userRepository.findExistingUsernames(usernames));
+        Set<Long> freeStudents = studentIds.isEmpty() ? new HashSet<>() : new HashSet<>(studentRepository.findUnlinkedIds(studentIds));
+        Set<Long> freeTeachers = teacherIds.isEmpty() ? new HashSet<>() : new HashSet<>(teacherRepository.findUnlinkedIds(teacherIds));
+
+        List<Entry> accepted = new ArrayList<>();
+        for (int i = 0; i < job.requests.size(); i++) {
+            RegisterRequest request = job.requests.get(i);
+            Role role = request.getRole() != null ? roles.get(request.getRole().toUpperCase(Locale.ROOT)) : null;
+            String reason;
+            if (isBlank(request.getUsername()) || isBlank(request.getPassword())) {
+                reason = "Username and password are required";
+            } else if (role == null) {
+                reason = "Role not found: " + request.getRole();
+            } else if (!taken.add(request.getUsername())) {
+                // taken пополняется принятыми логинами — повтор внутри запроса отклоняется так же
+                reason = "Username already exists: " + request.getUsername();
+            } else if ("STUDENT".equalsIgnoreCase(role.getName()) && !freeStudents.remove(request.getRelatedId())) {
+                reason = "Student not found or already linked to a user: " + request.getRelatedId();
+            } else if ("TEACHER".equalsIgnoreCase(role.getName()) && !freeTeachers.remove(request.getRelatedId())) {
+                reason = "Teacher not found or already linked to a user: " + request.getRelatedId();
+            } else {
+                accepted.add(new Entry(i, request, role));
+                continue;
+            }
+            job.outcome(i, request.getUsername(), BulkRegisterOutcome.Status.REJECTED, reason);
+        }
+        return accepted;
+    }
+
+    // Пачка хешируется параллельно на пуле и вставляется одной транзакцией
+    private void insert(Job job, List<Entry> batch) throws InterruptedException {
+        List<Future<String>> hashes = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            hashes.add(hashPool.submit(() -> {
+                String hash = passwordEncoder.encode(entry.request().getPassword());
+                job.hashed.incrementAndGet();
+                return hash;
+            }));
+        }
+        List<String> passwords = new ArrayList<>(batch.size());
+        for (Future<String> hash : hashes) {
+            try {
+                passwords.add(hash.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Password hashing failed", e.getCause());
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                List<User> users = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    Entry entry = batch.get(i);
+                    User user = new User()
+                            .setUsername(entry.request().getUsername())
+                            .setPassword(passwords.get(i))
+                            .setRole(entry.role());
+                    if ("STUDENT".equalsIgnoreCase(entry.role().getName())) {
+                        user.setStudent(studentRepository.getReferenceById(entry.request().getRelatedId()));
+                    } else if ("TEACHER".equalsIgnoreCase(entry.role().getName())) {
+                        user.setTeacher(teacherRepository.getReferenceById(entry.request().getRelatedId()));
+                    }
+                    users.add(user);
+                }
+                userRepository.saveAll(users);
+            });
+            batch.forEach(entry -> job.outcome(entry.index(), entry.request().getUsername(),
+                    BulkRegisterOutcome.Status.CREATED, null));
+        } catch (DataAccessException e) {
+            // Например, ту же привязку заняли параллельно; остальные пачки продолжаются
+            String reason = "Batch could not be saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            batch.forEach(entry -> job.outcome(entry.index(), entry.request().getUsername(),
+                    BulkRegisterOutcome.Status.REJECTED, reason));
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static ExecutorService newPool(String prefix, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private record Entry(int index, RegisterRequest request, Role role) {
+    }
+
+    private static final class Job {
+        private final String id;
+        private final List<RegisterRequest> requests;
+        private final Instant submittedAt = Instant.now();
+        private final AtomicInteger hashed = new AtomicInteger();
+        private final AtomicInteger created = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private final BulkRegisterOutcome[] outcomes;
+        // Итоги пишет только поток задания; volatile-запись статуса публикует их читателям
+        private volatile BulkRegisterJobDto.Status status = BulkRegisterJobDto.Status.QUEUED;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(String id, List<RegisterRequest> requests) {
+            this.id = id;
+            this.requests = requests;
+            this.outcomes = new BulkRegisterOutcome[requests.size()];
+        }
+
+        private void outcome(int index, String username, BulkRegisterOutcome.Status result, String message) {
+            outcomes[index] = new BulkRegisterOutcome(index, username, result, message);
+            (result == BulkRegisterOutcome.Status.CREATED ? created : rejected).incrementAndGet();
+        }
+
+        private void finish(BulkRegisterJobDto.Status result, String message) {
+            error = message;
+            finishedAt = Instant.now();
+            status = result;
+        }
+
+        private BulkRegisterJobDto toDto() {
+            BulkRegisterJobDto.Status current = status;
+            BulkRegisterJobDto dto = new BulkRegisterJobDto()
+                    .setId(id)
+                    .setStatus(current)
+                    .setTotal(requests.size())
+                    .setHashed(hashed.get())
+                    .setCreated(created.get())
+                    .setRejected(rejected.get())
+                    .setSubmittedAt(submittedAt)
+                    .setFinishedAt(finishedAt)
+                    .setError(error);
+            if (current == BulkRegisterJobDto.Status.DONE || current == BulkRegisterJobDto.Status.FAILED) {
+                dto.setOutcomes(Arrays.stream(outcomes).filter(Objects::nonNull).toList());
+            }
+            return dto;
+        }
+    }
+}
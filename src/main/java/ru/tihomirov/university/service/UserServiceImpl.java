@@ -4,14 +4,16 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.dto.RegisterRequest;
 import ru.tihomirov.university.dto.RegisterResponse;
 import ru.tihomirov.university.dto.UpdateUserRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.*;
 import ru.tihomirov.university.repository.*;
-
-import java.util.List;
+import ru.tihomirov.university.security.TokenRevocationService;
+import ru.tihomirov.university.security.TokenVersionRegistry;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +24,8 @@ public class UserServiceImpl implements UserService {
     private final StudentRepository studentRepository;
     private final TeacherRepository teacherRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     public RegisterResponse registerUser(RegisterRequest request) {
@@ -48,6 +52,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public User updateUser(Long userId, UpdateUserRequest request) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
@@ -79,7 +84,26 @@ public class UserServiceImpl implements UserService {
             }
         }
 
-        return userRepository.save(user);
+        // Любая смена логина, пароля, роли или привязки делает выданные ранее JWT недействительными
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User saved = userRepository.save(user);
+        tokenVersionRegistry.update(saved.getId(), saved.getTokenVersion());
+        // Реестр версий — в памяти этого узла; список отзыва доносит то же до остальных
+        tokenRevocationService.revokeUser(saved.getId());
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void revokeTokens(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+
+        // Новая версия обрывает и цепочки refresh-токенов, иначе по ним выдавались бы новые access-токены
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        tokenVersionRegistry.update(userId, user.getTokenVersion());
+        tokenRevocationService.revokeUser(userId);
     }
 
     @Override
@@ -92,6 +116,8 @@ public class UserServiceImpl implements UserService {
         Long teacherId = user.getTeacher() != null ? user.getTeacher().getId() : null;
 
         userRepository.deleteById(userId);
+        tokenVersionRegistry.remove(userId);
+        tokenRevocationService.revokeUser(userId);
 
         if (studentId != null) {
             studentRepository.deleteById(studentId);
@@ -103,7 +129,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<User> getAllUsers(CursorRequest page) {
+        return page.fetch(KeysetOrder.ID, userRepository::findAllBy);
     }
 }
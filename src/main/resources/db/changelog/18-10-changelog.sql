@@ -0,0 +1,97 @@
+-- liquibase formatted sql
+
+-- changeset rklim:1792294396000-1
+ALTER SEQUENCE attendance_id_seq INCREMENT BY 50;
+
+-- changeset rklim:1792294396000-2
+DELETE FROM attendance
+WHERE schedule_id IS NOT NULL
+  AND student_id IS NOT NULL
+  AND id NOT IN (SELECT MIN(id) FROM attendance GROUP BY schedule_id, student_id);
+
+-- changeset rklim:1792294396000-3
+ALTER TABLE attendance
+    ADD CONSTRAINT uc_attendance_schedule_student UNIQUE (schedule_id, student_id);
+
+-- changeset rklim:1792294396000-4
+-- статус посещаемости хранится в колонке teacher_id (исторически), индекс под фильтр по статусу + keyset по id
+CREATE INDEX IF NOT EXISTS idx_attendance_status_id ON attendance (teacher_id, id);
+
+-- changeset rklim:1792294396000-5
+ALTER TABLE users
+    ADD COLUMN token_version INTEGER DEFAULT 0 NOT NULL;
+
+-- changeset rklim:1792294396000-6
+-- шаг под allocationSize = 50 в Schedule (пакетная вставка серий)
+ALTER SEQUENCE schedule_id_seq INCREMENT BY 50;
+
+-- changeset rklim:1792294396000-7
+-- шаг под allocationSize = 50 и pooled-lo во всех сущностях
+ALTER SEQUENCE attendance_status_id_seq INCREMENT BY 50;
+ALTER SEQUENCE class_type_id_seq INCREMENT BY 50;
+ALTER SEQUENCE course_id_seq INCREMENT BY 50;
+ALTER SEQUENCE group_id_seq INCREMENT BY 50;
+ALTER SEQUENCE role_id_seq INCREMENT BY 50;
+ALTER SEQUENCE student_id_seq INCREMENT BY 50;
+ALTER SEQUENCE teacher_id_seq INCREMENT BY 50;
+ALTER SEQUENCE user_id_seq INCREMENT BY 50;
+
+-- changeset rklim:1792294396000-8
+-- keyset-пагинация расписания по (date, start_time, id)
+CREATE INDEX IF NOT EXISTS idx_schedule_date_start_id ON schedule (date, start_time, id);
+
+-- changeset rklim:1792294396000-9
+-- read-model сводки посещаемости; счётчики поддерживаются приложением, полная пересборка — AttendanceSummaryService.rebuild
+CREATE TABLE attendance_summary
+(
+    student_id    BIGINT            NOT NULL,
+    course_id     BIGINT            NOT NULL,
+    class_type_id BIGINT            NOT NULL,
+    present_count INTEGER DEFAULT 0 NOT NULL,
+    absent_count  INTEGER DEFAULT 0 NOT NULL,
+    late_count    INTEGER DEFAULT 0 NOT NULL,
+    total_count   INTEGER DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_attendance_summary PRIMARY KEY (student_id, course_id, class_type_id)
+);
+
+-- changeset rklim:1792294396000-10
+-- refresh-токены: хранится только HMAC токена; family_id общий для цепочки ротаций одного входа
+CREATE SEQUENCE IF NOT EXISTS refresh_token_id_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE refresh_token
+(
+    id            BIGINT                NOT NULL,
+    token_hash    VARCHAR(64)           NOT NULL,
+    family_id     UUID                  NOT NULL,
+    user_id       BIGINT                NOT NULL,
+    token_version INTEGER               NOT NULL,
+    expires_at    TIMESTAMP             NOT NULL,
+    used_at       TIMESTAMP,
+    revoked       BOOLEAN DEFAULT FALSE NOT NULL,
+    CONSTRAINT pk_refresh_token PRIMARY KEY (id),
+    CONSTRAINT uc_refresh_token_hash UNIQUE (token_hash),
+    CONSTRAINT FK_REFRESH_TOKEN_ON_USER FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_family ON refresh_token (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expires ON refresh_token (expires_at);
+
+-- changeset rklim:1792294396000-11
+-- отозванные access-токены: token_key — jti:<id токена> или user:<id пользователя> (все токены, выданные до revoked_at);
+-- строка нужна до expires_at — после этого все затронутые токены истекли сами
+CREATE TABLE revoked_token
+(
+    token_key  VARCHAR(64) NOT NULL,
+    revoked_at TIMESTAMP   NOT NULL,
+    expires_at TIMESTAMP   NOT NULL,
+    CONSTRAINT pk_revoked_token PRIMARY KEY (token_key)
+);
+CREATE INDEX IF NOT EXISTS idx_revoked_token_expires ON revoked_token (expires_at);
+
+-- changeset rklim:1792294396000-12
+-- счётчик сводки — число отметок, а не проведённых занятий; проведённые считаются по расписанию группы
+ALTER TABLE attendance_summary RENAME COLUMN total_count TO marked_count;
+CREATE INDEX IF NOT EXISTS idx_schedule_group_course ON schedule (group_id, course_id, class_type_id, date);
+
+-- changeset rklim:1792294396000-13
+-- проверка пересечений при записи расписания читает занятия групп и преподавателей за период из БД
+CREATE INDEX IF NOT EXISTS idx_schedule_group_date ON schedule (group_id, date);
+CREATE INDEX IF NOT EXISTS idx_schedule_teacher_date ON schedule (teacher_id, date);
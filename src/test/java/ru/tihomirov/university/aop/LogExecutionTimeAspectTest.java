@@ -1,31 +1,72 @@
 package ru.tihomirov.university.aop;
 
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mockito;
-import org.slf4j.LoggerFactory;
 import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
 import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @ExtendWith(OutputCaptureExtension.class)
 class LogExecutionTimeAspectTest {
 
-    @Test
-    void testLogExecutionTimeAspect(CapturedOutput output) {
-        DummyService target = new DummyService();
-        LogExecutionTimeAspect aspect = new LogExecutionTimeAspect();
+    private SimpleMeterRegistry registry;
+    private DummyService proxy;
 
-        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        LogExecutionTimeAspect aspect = new LogExecutionTimeAspect(registry, Duration.ofMillis(50));
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new DummyService());
         factory.addAspect(aspect);
-        DummyService proxy = factory.getProxy();
+        proxy = factory.getProxy();
+    }
 
+    @Test
+    void testLogExecutionTimeAspect(CapturedOutput output) {
         proxy.doSomething();
 
         assertThat(output.getOut()).contains("Method");
         assertThat(output.getOut()).contains("executed in");
+
+        Timer timer = registry.get(LogExecutionTimeAspect.TIMER_NAME)
+                .tag("class", "DummyService")
+                .tag("method", "doSomething")
+                .tag("outcome", "success")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void shouldRecordFastCallWithoutLogging(CapturedOutput output) {
+        proxy.doQuickly();
+        proxy.doQuickly();
+
+        assertThat(output.getOut()).doesNotContain("executed in");
+        assertThat(registry.get(LogExecutionTimeAspect.TIMER_NAME).tag("method", "doQuickly").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void shouldTagFailedCallsWithException() {
+        assertThatThrownBy(() -> proxy.fail()).isInstanceOf(IllegalStateException.class);
+
+        Timer timer = registry.get(LogExecutionTimeAspect.TIMER_NAME)
+                .tag("method", "fail")
+                .tag("outcome", "error")
+                .tag("exception", "IllegalStateException")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
     }
 
     static class DummyService {
@@ -37,5 +78,14 @@ class LogExecutionTimeAspectTest {
                 Thread.currentThread().interrupt();
             }
         }
+
+        @LogExecutionTime
+        public void doQuickly() {
+        }
+
+        @LogExecutionTime
+        public void fail() {
+            throw new IllegalStateException("boom");
+        }
     }
 }
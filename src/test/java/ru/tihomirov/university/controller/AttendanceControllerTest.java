@@ -2,7 +2,6 @@ package ru.tihomirov.university.controller;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
@@ -13,12 +12,20 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.dto.GroupAttendanceResponse;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.*;
 import ru.tihomirov.university.repository.ScheduleRepository;
 import ru.tihomirov.university.repository.StudentRepository;
+import ru.tihomirov.university.security.ScheduleOwnership;
 import ru.tihomirov.university.security.UserDetailsImpl;
+import ru.tihomirov.university.service.AttendanceEventHub;
+import ru.tihomirov.university.service.AttendanceJournalService;
 import ru.tihomirov.university.service.AttendanceService;
+import ru.tihomirov.university.service.AttendanceSummaryService;
+import ru.tihomirov.university.service.CheckInService;
 
 import java.time.LocalTime;
 import java.util.List;
@@ -29,12 +36,19 @@ import static org.mockito.Mockito.*;
 
 public class AttendanceControllerTest {
 
-    @InjectMocks
     private AttendanceController attendanceController;
 
     @Mock
     private AttendanceService attendanceService;
     @Mock
+    private AttendanceSummaryService attendanceSummaryService;
+    @Mock
+    private AttendanceJournalService attendanceJournalService;
+    @Mock
+    private AttendanceEventHub attendanceEventHub;
+    @Mock
+    private CheckInService checkInService;
+    @Mock
     private ScheduleRepository scheduleRepository;
     @Mock
     private StudentRepository studentRepository;
@@ -49,6 +63,10 @@ public class AttendanceControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // Проверки владельца идут через настоящий кэш поверх замоканного репозитория
+        attendanceController = new AttendanceController(attendanceService, attendanceSummaryService,
+                attendanceJournalService, attendanceEventHub, checkInService,
+                new ScheduleOwnership(scheduleRepository, 1000), scheduleRepository, studentRepository);
 
         teacher = new Teacher()
                 .setId(1L)
@@ -114,7 +132,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldCreateAttendanceAsAdmin() {
         mockAuth("ADMIN", null, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         when(attendanceService.save(attendance)).thenReturn(attendance);
 
         ResponseEntity<Attendance> response = attendanceController.create(attendance);
@@ -127,7 +145,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldCreateAttendanceAsTeacherForOwnSchedule() {
         mockAuth("TEACHER", 1L, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         when(attendanceService.save(attendance)).thenReturn(attendance);
 
         ResponseEntity<Attendance> response = attendanceController.create(attendance);
@@ -146,7 +164,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldThrowWhenTeacherTriesToCreateForOtherSchedule() {
         mockAuth("TEACHER", 2L, null); // teacherId = 2, but schedule teacherId = 1
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
 
         assertThrows(AccessDeniedException.class, () -> attendanceController.create(attendance));
     }
@@ -155,7 +173,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldUpdateAttendanceAsAdmin() {
         mockAuth("ADMIN", null, null);
-        when(attendanceService.getById(1L)).thenReturn(attendance);
+        when(attendanceService.getScheduleId(1L)).thenReturn(1L);
         when(attendanceService.update(1L, attendance)).thenReturn(attendance);
 
         ResponseEntity<Attendance> response = attendanceController.update(1L, attendance);
@@ -167,7 +185,8 @@ public class AttendanceControllerTest {
     @Test
     void shouldUpdateAttendanceAsTeacherForOwnSchedule() {
         mockAuth("TEACHER", 1L, null);
-        when(attendanceService.getById(1L)).thenReturn(attendance);
+        when(attendanceService.getScheduleId(1L)).thenReturn(1L);
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         when(attendanceService.update(1L, attendance)).thenReturn(attendance);
 
         ResponseEntity<Attendance> response = attendanceController.update(1L, attendance);
@@ -179,7 +198,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldThrowWhenStudentTriesToUpdate() {
         mockAuth("STUDENT", null, 1L);
-        when(attendanceService.getById(1L)).thenReturn(attendance);
+        when(attendanceService.getScheduleId(1L)).thenReturn(1L);
 
         assertThrows(AccessDeniedException.class, () -> attendanceController.update(1L, attendance));
     }
@@ -187,16 +206,19 @@ public class AttendanceControllerTest {
     @Test
     void shouldThrowWhenTeacherTriesToUpdateOtherSchedule() {
         mockAuth("TEACHER", 2L, null);
-        when(attendanceService.getById(1L)).thenReturn(attendance);
+        when(attendanceService.getScheduleId(1L)).thenReturn(1L);
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
 
         assertThrows(AccessDeniedException.class, () -> attendanceController.update(1L, attendance));
+        verify(attendanceService, never()).getById(anyLong());
+        verify(attendanceService, never()).update(anyLong(), any());
     }
 
     // DELETE TESTS
     @Test
     void shouldDeleteAttendanceAsAdmin() {
         mockAuth("ADMIN", null, null);
-        when(attendanceService.getById(1L)).thenReturn(attendance);
+        when(attendanceService.getScheduleId(1L)).thenReturn(1L);
         doNothing().when(attendanceService).delete(1L);
 
         ResponseEntity<Void> response = attendanceController.delete(1L);
@@ -208,35 +230,46 @@ public class AttendanceControllerTest {
     @Test
     void shouldThrowWhenStudentTriesToDelete() {
         mockAuth("STUDENT", null, 1L);
-        when(attendanceService.getById(1L)).thenReturn(attendance);
+        when(attendanceService.getScheduleId(1L)).thenReturn(1L);
+
+        assertThrows(AccessDeniedException.class, () -> attendanceController.delete(1L));
+    }
+
+    @Test
+    void shouldThrowWhenTeacherTriesToDeleteOtherSchedule() {
+        mockAuth("TEACHER", 2L, null);
+        when(attendanceService.getScheduleId(1L)).thenReturn(1L);
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
 
         assertThrows(AccessDeniedException.class, () -> attendanceController.delete(1L));
+        verify(attendanceService, never()).delete(anyLong());
     }
 
     // GET ALL TESTS
     @Test
     void shouldGetAllAsAdmin() {
         mockAuth("ADMIN", null, null);
-        List<Attendance> attendances = List.of(attendance);
-        when(attendanceService.getAll()).thenReturn(attendances);
+        CursorRequest request = CursorRequest.first(50);
+        when(attendanceService.getAll(request)).thenReturn(new CursorPage<>(List.of(attendance), null));
 
-        ResponseEntity<List<Attendance>> response = attendanceController.getAll();
+        ResponseEntity<CursorPage<Attendance>> response = attendanceController.getAll(request);
 
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(1, response.getBody().size());
+        assertEquals(1, response.getBody().getContent().size());
     }
 
     @Test
     void shouldGetByStudentIdWhenStudent() {
         mockAuth("STUDENT", null, 1L);
-        List<Attendance> attendances = List.of(attendance);
-        when(attendanceService.getByStudentId(1L)).thenReturn(attendances);
+        CursorRequest request = CursorRequest.first(50);
+        when(attendanceService.getByStudentId(1L, request)).thenReturn(new CursorPage<>(List.of(attendance), null));
 
-        ResponseEntity<List<Attendance>> response = attendanceController.getAll();
+        ResponseEntity<CursorPage<Attendance>> response = attendanceController.getAll(request);
 
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(1, response.getBody().size());
-        verify(attendanceService).getByStudentId(1L);
+        assertEquals(1, response.getBody().getContent().size());
+        verify(attendanceService).getByStudentId(1L, request);
+        verify(attendanceService, never()).getAll(any());
     }
 
     // GET BY ID TESTS
@@ -281,7 +314,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldGetByScheduleAsAdmin() {
         mockAuth("ADMIN", null, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         List<Attendance> attendances = List.of(attendance);
         when(attendanceService.getByScheduleId(1L)).thenReturn(attendances);
 
@@ -294,7 +327,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldGetByScheduleAsTeacherForOwnSchedule() {
         mockAuth("TEACHER", 1L, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         List<Attendance> attendances = List.of(attendance);
         when(attendanceService.getByScheduleId(1L)).thenReturn(attendances);
 
@@ -306,7 +339,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldThrowWhenTeacherTriesToGetByOtherSchedule() {
         mockAuth("TEACHER", 2L, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
 
         assertThrows(AccessDeniedException.class, () -> attendanceController.getBySchedule(1L));
     }
@@ -337,27 +370,28 @@ public class AttendanceControllerTest {
     @Test
     void shouldGetByStatusAsAdmin() {
         mockAuth("ADMIN", null, null);
-        List<Attendance> attendances = List.of(attendance);
-        when(attendanceService.getByAttendanceStatusId(1L)).thenReturn(attendances);
+        CursorPage<Attendance> page = new CursorPage<>(List.of(attendance), null);
+        CursorRequest request = CursorRequest.first(50);
+        when(attendanceService.getByAttendanceStatusId(1L, request, null, null, null)).thenReturn(page);
 
-        ResponseEntity<List<Attendance>> response = attendanceController.getByStatus(1L);
+        ResponseEntity<CursorPage<Attendance>> response = attendanceController.getByStatus(1L, request, null, null, null);
 
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(1, response.getBody().size());
+        assertEquals(1, response.getBody().getContent().size());
     }
 
     @Test
     void shouldThrowWhenStudentTriesToGetByStatus() {
         mockAuth("STUDENT", null, 1L);
 
-        assertThrows(AccessDeniedException.class, () -> attendanceController.getByStatus(1L));
+        assertThrows(AccessDeniedException.class, () -> attendanceController.getByStatus(1L, CursorRequest.first(50), null, null, null));
     }
 
     // FORMATTED ATTENDANCE TESTS
     @Test
     void shouldGetFormattedBySchedule() {
         mockAuth("ADMIN", null, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         List<AttendanceInfoDto> dtos = List.of(new AttendanceInfoDto());
         when(attendanceService.getFormattedAttendanceBySchedule(1L)).thenReturn(dtos);
 
@@ -370,7 +404,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldThrowWhenFormattedByScheduleNotFound() {
         mockAuth("ADMIN", null, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         when(attendanceService.getFormattedAttendanceBySchedule(1L)).thenReturn(List.of());
 
         assertThrows(EntityNotFoundException.class, () -> attendanceController.getFormattedBySchedule(1L));
@@ -393,7 +427,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldMarkAttendanceAsTeacherForOwnSchedule() {
         mockAuth("TEACHER", 1L, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         when(attendanceService.markAttendance(1L, 1L, 1L, 1L)).thenReturn(attendance);
 
         ResponseEntity<Attendance> response = attendanceController.markAttendance(1L, 1L, 1L);
@@ -414,21 +448,21 @@ public class AttendanceControllerTest {
     void shouldMarkAttendanceForGroupAsTeacher() {
         mockAuth("TEACHER", 1L, null);
         List<Long> studentIds = List.of(1L, 2L);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
-        List<Attendance> attendances = List.of(attendance);
-        when(attendanceService.markAttendanceForGroup(1L, 1L, studentIds, 1L)).thenReturn(attendances);
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
+        GroupAttendanceResponse result = new GroupAttendanceResponse().setMarked(List.of(attendance));
+        when(attendanceService.markAttendanceForGroup(1L, 1L, studentIds, 1L)).thenReturn(result);
 
-        ResponseEntity<List<Attendance>> response = attendanceController.markAttendanceForGroup(1L, studentIds, 1L);
+        ResponseEntity<GroupAttendanceResponse> response = attendanceController.markAttendanceForGroup(1L, studentIds, 1L);
 
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(1, response.getBody().size());
+        assertEquals(1, response.getBody().getMarked().size());
     }
 
     // PAGINATION TESTS
     @Test
     void shouldGetBySchedulePaged() {
         mockAuth("ADMIN", null, null);
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(teacher.getId()));
         Page<Attendance> page = new PageImpl<>(List.of(attendance));
         Pageable pageable = Pageable.unpaged();
         when(attendanceService.getByScheduleIdPaged(1L, pageable)).thenReturn(page);
@@ -457,7 +491,7 @@ public class AttendanceControllerTest {
     @Test
     void shouldThrowWhenScheduleNotFound() {
         mockAuth("ADMIN", null, null);
-        when(scheduleRepository.findById(999L)).thenReturn(Optional.empty());
+        when(scheduleRepository.findTeacherIdById(999L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> attendanceController.getBySchedule(999L));
     }
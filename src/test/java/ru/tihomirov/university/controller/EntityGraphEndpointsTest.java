@@ -0,0 +1,218 @@
+package ru.tihomirov.university.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.tihomirov.university.model.*;
+import ru.tihomirov.university.repository.*;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.security.ScheduleOwnership;
+import ru.tihomirov.university.security.UserDetailsImpl;
+import ru.tihomirov.university.service.AttendanceEventHub;
+import ru.tihomirov.university.service.AttendanceJournalServiceImpl;
+import ru.tihomirov.university.service.AttendanceServiceImpl;
+import ru.tihomirov.university.service.AttendanceSummaryServiceImpl;
+import ru.tihomirov.university.service.CheckInServiceImpl;
+import ru.tihomirov.university.service.ScheduleConflictIndex;
+import ru.tihomirov.university.service.ScheduleServiceImpl;
+import ru.tihomirov.university.service.StudentServiceImpl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Связи ленивые, open-in-view выключен: каждый эндпоинт грузит ровно тот граф, который отдаёт,
+ * фиксированным числом запросов, а сериализация вне сессии не трогает незагруженные прокси.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AttendanceServiceImpl.class, AttendanceSummaryServiceImpl.class, AttendanceJournalServiceImpl.class,
+        AttendanceEventHub.class, CheckInServiceImpl.class, ScheduleServiceImpl.class, StudentServiceImpl.class,
+        ScheduleConflictIndex.class, ScheduleOwnership.class, AttendanceController.class, ScheduleController.class,
+        StudentController.class})
+class EntityGraphEndpointsTest {
+
+    @Autowired private AttendanceController attendanceController;
+    @Autowired private ScheduleController scheduleController;
+    @Autowired private StudentController studentController;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private Statistics statistics;
+    private Group group;
+    private Teacher teacher;
+    private Schedule schedule;
+    private Student student;
+    private Student unmarked;
+    private AttendanceStatus status;
+    private Attendance attendance;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            group = new Group().setName("ЦПИ-21").setCountStudents(3).setMaxCountStudents(30);
+            teacher = new Teacher().setLastName("Иванов").setName("Иван").setEmail("ivanov@uni.ru");
+            Course course = new Course().setName("Математика");
+            ClassType classType = new ClassType().setName("Лекция");
+            status = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+            student = new Student().setLastName("Петров").setName("Петр").setGroup(group);
+            Student other = new Student().setLastName("Сидоров").setName("Сидор").setGroup(group);
+            unmarked = new Student().setLastName("Смирнов").setName("Семён").setGroup(group);
+            schedule = new Schedule()
+                    .setDate(LocalDate.of(2026, 9, 1))
+                    .setStartTime(LocalTime.of(9, 0))
+                    .setEndTime(LocalTime.of(10, 30))
+                    .setGroup(group).setTeacher(teacher).setCourse(course).setClassType(classType);
+            Role role = new Role().setName("STUDENT");
+            List.of(group, teacher, course, classType, status, student, other, unmarked, schedule, role)
+                    .forEach(entityManager::persist);
+            attendance = new Attendance().setSchedule(schedule).setStudent(student)
+                    .setAttendanceStatus(status).setMarkedTime(LocalTime.of(9, 5));
+            entityManager.persist(attendance);
+            entityManager.persist(new Attendance().setSchedule(schedule).setStudent(other)
+                    .setAttendanceStatus(status).setMarkedTime(LocalTime.of(9, 7)));
+            entityManager.persist(new User().setUsername("petrov").setPassword("x").setRole(role).setStudent(student));
+            entityManager.flush();
+        });
+        entityManagerFactory.getCache().evictAll();
+
+        loginAs(new User().setId(1L).setUsername("admin").setRole(new Role().setName("ADMIN")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "attendance_summary", "attendance", "users", "schedule", "students",
+                "attendance_status", "class_types", "courses", "teachers", "groups", "roles");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private void loginAs(User user) {
+        UserDetailsImpl principal = new UserDetailsImpl(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    // Результат сериализуется после закрытия сессии, как при выключенном open-in-view
+    private String serialize(int expectedStatements, Supplier<Object> call) throws Exception {
+        statistics.clear();
+        Object body = call.get();
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount(), "SQL statements");
+        return objectMapper.writeValueAsString(body);
+    }
+
+    @Test
+    void attendanceEndpointsLoadFullGraphInOneQuery() throws Exception {
+        String one = serialize(1, () -> attendanceController.getById(attendance.getId()).getBody());
+        assertTrue(one.contains("\"name\":\"ЦПИ-21\""));
+        assertTrue(one.contains("\"name\":\"Математика\""));
+        assertTrue(one.contains("\"attendanceStatusName\":\"Присутствовал\""));
+
+        String all = serialize(1, () -> attendanceController.getAll(CursorRequest.first(10)).getBody());
+        assertTrue(all.contains("Сидоров"));
+
+        // владелец занятия (кэш ещё пуст) + сам список
+        String bySchedule = serialize(2, () -> attendanceController.getBySchedule(schedule.getId()).getBody());
+        assertTrue(bySchedule.contains("\"email\":\"ivanov@uni.ru\""));
+
+        String byStudent = serialize(2, () -> attendanceController
+                .getByStudentPaged(student.getId(), PageRequest.of(0, 10)).getBody());
+        assertTrue(byStudent.contains("Петров"));
+    }
+
+    @Test
+    void scheduleAndStudentEndpointsLoadTheirGraphInOneQuery() throws Exception {
+        assertTrue(serialize(1, () -> scheduleController.getById(schedule.getId()).getBody()).contains("Лекция"));
+        assertTrue(serialize(1, () -> scheduleController.getAll(CursorRequest.first(10)).getBody()).contains("ivanov@uni.ru"));
+        assertTrue(serialize(1, () -> scheduleController.getByDate(schedule.getDate(), CursorRequest.first(10)).getBody()).contains("ЦПИ-21"));
+
+        assertTrue(serialize(1, () -> studentController.getById(student.getId()).getBody()).contains("ЦПИ-21"));
+        assertTrue(serialize(1, () -> studentController.getByGroupId(group.getId()).getBody()).contains("Смирнов"));
+    }
+
+    @Test
+    void markedAttendanceIsReturnedWithFullGraph() throws Exception {
+        loginAs(new User().setId(2L).setUsername("ivanov").setRole(new Role().setName("TEACHER")).setTeacher(teacher));
+
+        String marked = objectMapper.writeValueAsString(attendanceController
+                .markAttendance(schedule.getId(), unmarked.getId(), status.getId()).getBody());
+
+        assertTrue(marked.contains("Смирнов"));
+        assertTrue(marked.contains("\"name\":\"Математика\""));
+    }
+
+    @Test
+    void createdAndUpdatedScheduleIsReturnedWithFullGraph() throws Exception {
+        Group other = new Group().setName("ЦПИ-22").setCountStudents(0).setMaxCountStudents(30);
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> entityManager.persist(other));
+        Schedule request = new Schedule()
+                .setDate(schedule.getDate())
+                .setStartTime(LocalTime.of(12, 0))
+                .setEndTime(LocalTime.of(13, 30))
+                .setGroup(new Group().setId(group.getId()))
+                .setTeacher(new Teacher().setId(teacher.getId()))
+                .setCourse(new Course().setId(schedule.getCourse().getId()))
+                .setClassType(new ClassType().setId(schedule.getClassType().getId()));
+
+        Schedule created = scheduleController.create(request).getBody();
+        String createdJson = objectMapper.writeValueAsString(created);
+        assertTrue(createdJson.contains("\"name\":\"ЦПИ-21\""));
+        assertTrue(createdJson.contains("ivanov@uni.ru"));
+
+        // Та же группа и преподаватель, что и у загруженного занятия, и новая группа
+        String sameLinks = objectMapper.writeValueAsString(scheduleController
+                .update(schedule.getId(), request.setStartTime(LocalTime.of(15, 0)).setEndTime(LocalTime.of(16, 30)))
+                .getBody());
+        assertTrue(sameLinks.contains("\"name\":\"Математика\""));
+        assertTrue(sameLinks.contains("\"name\":\"Лекция\""));
+
+        String moved = objectMapper.writeValueAsString(scheduleController
+                .update(created.getId(), request.setGroup(new Group().setId(other.getId()))
+                        .setStartTime(LocalTime.of(17, 0)).setEndTime(LocalTime.of(18, 30))).getBody());
+        assertTrue(moved.contains("\"name\":\"ЦПИ-22\""));
+        assertTrue(moved.contains("ivanov@uni.ru"));
+    }
+
+    @Test
+    void userIsLoadedWithRoleForAuthenticationAndWithLinksForListing() throws Exception {
+        User byUsername = userRepository.findByUsername("petrov").orElseThrow();
+        UserDetailsImpl details = new UserDetailsImpl(byUsername);
+        assertEquals(student.getId(), details.getStudentId());
+        assertTrue(details.hasRole("STUDENT"));
+
+        String users = serialize(1, () -> userRepository.findAll());
+        assertTrue(users.contains("\"name\":\"ЦПИ-21\""));
+    }
+}
@@ -0,0 +1,146 @@
+package ru.tihomirov.university.controller;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.ScheduleInfoDto;
+import ru.tihomirov.university.model.*;
+import ru.tihomirov.university.security.ScheduleOwnership;
+import ru.tihomirov.university.security.UserDetailsImpl;
+import ru.tihomirov.university.service.AttendanceEventHub;
+import ru.tihomirov.university.service.AttendanceJournalServiceImpl;
+import ru.tihomirov.university.service.AttendanceServiceImpl;
+import ru.tihomirov.university.service.AttendanceSummaryServiceImpl;
+import ru.tihomirov.university.service.CheckInServiceImpl;
+import ru.tihomirov.university.service.ScheduleConflictIndex;
+import ru.tihomirov.university.service.ScheduleServiceImpl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Каждый /info-эндпоинт должен выполнять ровно один SELECT и не загружать управляемые сущности.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AttendanceServiceImpl.class, AttendanceSummaryServiceImpl.class, AttendanceJournalServiceImpl.class,
+        AttendanceEventHub.class, CheckInServiceImpl.class, ScheduleServiceImpl.class, ScheduleConflictIndex.class,
+        ScheduleOwnership.class, AttendanceController.class, ScheduleController.class})
+class InfoEndpointsQueryCountTest {
+
+    @Autowired private AttendanceController attendanceController;
+    @Autowired private ScheduleController scheduleController;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Group group;
+    private Teacher teacher;
+    private Schedule schedule;
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        group = new Group().setName("ЦПИ-21").setCountStudents(2).setMaxCountStudents(30);
+        teacher = new Teacher().setLastName("Иванов").setName("Иван").setMiddleName("Иванович").setEmail("ivanov@uni.ru");
+        Course course = new Course().setName("Математика");
+        ClassType classType = new ClassType().setName("Лекция");
+        AttendanceStatus status = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+        student = new Student().setLastName("Петров").setName("Петр").setGroup(group);
+        Student other = new Student().setLastName("Сидоров").setName("Сидор").setMiddleName("Сидорович").setGroup(group);
+        schedule = new Schedule()
+                .setDate(LocalDate.of(2026, 9, 1))
+                .setStartTime(LocalTime.of(9, 0))
+                .setEndTime(LocalTime.of(10, 30))
+                .setGroup(group).setTeacher(teacher).setCourse(course).setClassType(classType);
+        Schedule second = new Schedule()
+                .setDate(LocalDate.of(2026, 9, 2))
+                .setStartTime(LocalTime.of(9, 0))
+                .setEndTime(LocalTime.of(10, 30))
+                .setGroup(group).setTeacher(teacher).setCourse(course).setClassType(classType);
+        List.of(group, teacher, course, classType, status, student, other, schedule, second).forEach(entityManager::persist);
+        for (Student s : List.of(student, other)) {
+            for (Schedule sc : List.of(schedule, second)) {
+                entityManager.persist(new Attendance().setSchedule(sc).setStudent(s)
+                        .setAttendanceStatus(status).setMarkedTime(LocalTime.of(9, 5)));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        User admin = new User().setId(1L).setUsername("admin").setRole(new Role().setName("ADMIN"));
+        UserDetailsImpl principal = new UserDetailsImpl(admin);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private <T> List<T> inOneSelect(Supplier<List<T>> call) {
+        statistics.clear();
+        List<T> result = call.get();
+        assertEquals(1, statistics.getPrepareStatementCount(), "SELECT statements");
+        assertEquals(0, statistics.getEntityLoadCount(), "managed entities loaded");
+        return result;
+    }
+
+    @Test
+    void scheduleAttendanceInfoIsOneSelect() {
+        List<AttendanceInfoDto> result = inOneSelect(() -> attendanceController.getFormattedBySchedule(schedule.getId()).getBody());
+
+        assertEquals(2, result.size());
+        assertEquals("Петров Петр", result.get(0).getStudentFullName());
+        assertEquals("Иванов Иван Иванович", result.get(0).getTeacherFullName());
+        assertEquals("Математика", result.get(0).getCourseName());
+    }
+
+    @Test
+    void studentAttendanceInfoIsOneSelect() {
+        List<AttendanceInfoDto> result = inOneSelect(() -> attendanceController.getFormattedByStudent(student.getId()).getBody());
+
+        assertEquals(2, result.size());
+        assertEquals("Присутствовал", result.get(0).getAttendanceStatusName());
+    }
+
+    @Test
+    void groupScheduleInfoIsOneSelect() {
+        List<ScheduleInfoDto> result = inOneSelect(() -> scheduleController.getFormattedByGroup(group.getId()).getBody());
+
+        assertEquals(2, result.size());
+        assertEquals(LocalDate.of(2026, 9, 1), result.get(0).getDate());
+        assertEquals("Лекция", result.get(0).getClassTypeName());
+    }
+
+    @Test
+    void teacherScheduleInfoIsOneSelect() {
+        assertEquals(2, inOneSelect(() -> scheduleController.getFormattedByTeacher(teacher.getId()).getBody()).size());
+    }
+
+    @Test
+    void groupNameAndTeacherEmailLookupsAreOneSelect() {
+        assertEquals(2, inOneSelect(() -> scheduleController.getByGroupName("ЦПИ-21").getBody()).size());
+        assertEquals(2, inOneSelect(() -> scheduleController.getByTeacherEmail("ivanov@uni.ru").getBody()).size());
+    }
+}
@@ -0,0 +1,175 @@
+package ru.tihomirov.university.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.tihomirov.university.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttendanceRepositoryTest {
+
+    @Autowired private AttendanceRepository attendanceRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Long scheduleId;
+    private Long studentId;
+    private Long statusId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Group group = new Group().setName("ЦПИ-21").setCountStudents(1).setMaxCountStudents(30);
+            Teacher teacher = new Teacher().setLastName("Иванов");
+            Course course = new Course().setName("Математика");
+            ClassType classType = new ClassType().setName("Лекция");
+            AttendanceStatus attendanceStatus = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+            Student student = new Student().setLastName("Петров").setGroup(group);
+            Schedule schedule = new Schedule()
+                    .setDate(LocalDate.of(2026, 9, 1))
+                    .setStartTime(LocalTime.of(9, 0))
+                    .setEndTime(LocalTime.of(10, 30))
+                    .setGroup(group)
+                    .setTeacher(teacher)
+                    .setCourse(course)
+                    .setClassType(classType);
+            List.of(group, teacher, course, classType, attendanceStatus, student, schedule).forEach(entityManager::persist);
+            scheduleId = schedule.getId();
+            studentId = student.getId();
+            statusId = attendanceStatus.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "attendance", "schedule", "students",
+                "attendance_status", "class_types", "courses", "teachers", "groups");
+    }
+
+    @Test
+    void insertIfAbsentSkipsSecondMarkOfSameStudent() {
+        Map<Long, Long> first = tx.execute(status -> attendanceRepository.insertIfAbsent(scheduleId, List.of(studentId), statusId, LocalTime.of(9, 1)));
+        Map<Long, Long> second = tx.execute(status -> attendanceRepository.insertIfAbsent(scheduleId, List.of(studentId), statusId, LocalTime.of(9, 2)));
+
+        assertEquals(Set.of(studentId), first.keySet());
+        assertTrue(second.isEmpty());
+        assertEquals(first.get(studentId), attendanceRepository.findByScheduleIdAndStudentId(scheduleId, studentId).orElseThrow().getId());
+    }
+
+    @Test
+    void batchInsertReturnsIdsOfInsertedRowsOnly() {
+        List<Long> others = tx.execute(status -> {
+            Group group = entityManager.find(Schedule.class, scheduleId).getGroup();
+            List<Long> ids = new ArrayList<>();
+            for (String lastName : List.of("Сидоров", "Кузнецов")) {
+                Student student = new Student().setLastName(lastName).setGroup(group);
+                entityManager.persist(student);
+                ids.add(student.getId());
+            }
+            return ids;
+        });
+        tx.executeWithoutResult(status -> attendanceRepository.insertIfAbsent(scheduleId, List.of(studentId), statusId, LocalTime.of(9, 1)));
+
+        List<Long> batch = List.of(others.get(0), studentId, others.get(1));
+        Map<Long, Long> inserted = tx.execute(status -> attendanceRepository.insertIfAbsent(scheduleId, batch, statusId, LocalTime.of(9, 2)));
+
+        assertEquals(Set.copyOf(others), inserted.keySet());
+        for (Long other : others) {
+            assertEquals(inserted.get(other), attendanceRepository.findByScheduleIdAndStudentId(scheduleId, other).orElseThrow().getId());
+        }
+        assertEquals(3, attendanceRepository.findByScheduleId(scheduleId).size());
+    }
+
+    @Test
+    void batchInsertTakesIdsFromEntityPoolInsteadOfSequencePerRow() {
+        List<Long> others = tx.execute(status -> {
+            Group group = entityManager.find(Schedule.class, scheduleId).getGroup();
+            List<Long> ids = new ArrayList<>();
+            for (String lastName : List.of("Сидоров", "Кузнецов")) {
+                Student student = new Student().setLastName(lastName).setGroup(group);
+                entityManager.persist(student);
+                ids.add(student.getId());
+            }
+            return ids;
+        });
+
+        Map<Long, Long> first = tx.execute(status -> attendanceRepository.insertIfAbsent(scheduleId, List.of(studentId), statusId, LocalTime.of(9, 1)));
+        Map<Long, Long> next = tx.execute(status -> attendanceRepository.insertIfAbsent(scheduleId, others, statusId, LocalTime.of(9, 2)));
+
+        // Шаг последовательности — 50: при nextval на строку id шли бы через 50
+        Long firstId = first.get(studentId);
+        assertEquals(firstId + 1, next.get(others.get(0)));
+        assertEquals(firstId + 2, next.get(others.get(1)));
+    }
+
+    @Test
+    void findByStatusAfterPagesByIdAndAppliesFilters() {
+        tx.executeWithoutResult(status -> attendanceRepository.insertIfAbsent(scheduleId, List.of(studentId), statusId, LocalTime.of(9, 1)));
+        Long groupId = jdbcTemplate.queryForObject("select group_id from schedule where id = ?", Long.class, scheduleId);
+
+        List<Attendance> page = tx.execute(status -> attendanceRepository.findByStatusAfter(
+                statusId, 0L, LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 30), groupId, PageRequest.of(0, 10)));
+        assertEquals(1, page.size());
+        assertEquals("Петров", page.get(0).getStudent().getLastName());
+
+        Long lastId = page.get(0).getId();
+        assertTrue(attendanceRepository.findByStatusAfter(statusId, lastId, null, null, null, PageRequest.of(0, 10)).isEmpty());
+        assertTrue(attendanceRepository.findByStatusAfter(statusId, 0L, LocalDate.of(2026, 10, 1), null, null, PageRequest.of(0, 10)).isEmpty());
+        assertTrue(attendanceRepository.findByStatusAfter(statusId, 0L, null, null, groupId + 1, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void concurrentMarksOfSameStudentStoreExactlyOneRow() throws Exception {
+        int writers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<Long, Long>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < writers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return tx.execute(status ->
+                            attendanceRepository.insertIfAbsent(scheduleId, List.of(studentId), statusId, LocalTime.now()));
+                }));
+            }
+            start.countDown();
+
+            int inserted = 0;
+            for (Future<Map<Long, Long>> result : results) {
+                inserted += result.get(30, TimeUnit.SECONDS).size();
+            }
+            assertEquals(1, inserted);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, attendanceRepository.findByScheduleId(scheduleId).size());
+    }
+}
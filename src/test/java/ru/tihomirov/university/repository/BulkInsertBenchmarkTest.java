@@ -0,0 +1,161 @@
+package ru.tihomirov.university.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tihomirov.university.model.*;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Обращения к БД на одну вставленную строку для студентов, занятий и отметок посещаемости.
+ * До pooled-последовательностей было 2 на строку (nextval + INSERT); с allocationSize = 50 и
+ * пакетами по 50 — около 2/50. Для сравнения те же вставки прогоняются без пакетов (batch size 1).
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BulkInsertBenchmarkTest.RoundTripCounter.class)
+class BulkInsertBenchmarkTest {
+
+    /**
+     * Оборачивает DataSource и считает реальные обращения к БД: execute*, в том числе executeBatch.
+     * Статистика Hibernate считает только подготовку выражений, а пакет переиспользует одно выражение.
+     */
+    @TestConfiguration
+    static class RoundTripCounter implements BeanPostProcessor {
+
+        static final AtomicLong EXECUTIONS = new AtomicLong();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean instanceof DataSource dataSource ? countingDataSource(dataSource) : bean;
+        }
+
+        private static DataSource countingDataSource(DataSource target) {
+            return proxy(DataSource.class, target, (method, result) ->
+                    result instanceof Connection connection ? proxy(Connection.class, connection, (m, r) ->
+                            r instanceof Statement statement ? proxyStatement(statement) : r) : result);
+        }
+
+        private static Object proxyStatement(Statement statement) {
+            Class<?> type = statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return Proxy.newProxyInstance(RoundTripCounter.class.getClassLoader(), new Class<?>[]{type},
+                    (p, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            EXECUTIONS.incrementAndGet();
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, BiFunction<Method, Object, Object> wrap) {
+            return (T) Proxy.newProxyInstance(RoundTripCounter.class.getClassLoader(), new Class<?>[]{type},
+                    (p, method, args) -> wrap.apply(method, invoke(target, method, args)));
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static final int ROWS = 500;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired private EntityManager entityManager;
+
+    private Group group;
+    private Teacher teacher;
+    private Course course;
+    private ClassType classType;
+    private AttendanceStatus status;
+
+    @BeforeEach
+    void setUp() {
+        group = new Group().setName("ЦПИ-21").setCountStudents(0).setMaxCountStudents(ROWS * 2);
+        teacher = new Teacher().setLastName("Иванов");
+        course = new Course().setName("Математика");
+        classType = new ClassType().setName("Лекция");
+        status = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+        List.of(group, teacher, course, classType, status).forEach(entityManager::persist);
+        entityManager.flush();
+    }
+
+    private <T> double roundTripsPerRow(int batchSize, IntFunction<T> row, List<T> inserted) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        RoundTripCounter.EXECUTIONS.set(0);
+        for (int i = 0; i < ROWS; i++) {
+            T entity = row.apply(i);
+            entityManager.persist(entity);
+            inserted.add(entity);
+        }
+        entityManager.flush();
+        return (double) RoundTripCounter.EXECUTIONS.get() / ROWS;
+    }
+
+    private Student student(int i) {
+        return new Student().setLastName("Студент" + i).setName("Имя").setGroup(group);
+    }
+
+    private Schedule schedule(int i) {
+        return new Schedule()
+                .setDate(LocalDate.of(2026, 9, 1).plusDays(i))
+                .setStartTime(LocalTime.of(9, 0))
+                .setEndTime(LocalTime.of(10, 30))
+                .setGroup(group)
+                .setTeacher(teacher)
+                .setCourse(course)
+                .setClassType(classType);
+    }
+
+    @Test
+    void pooledSequencesAndBatchingCutRoundTripsPerRow() {
+        double unbatchedStudents = roundTripsPerRow(1, this::student, new ArrayList<>());
+
+        List<Student> students = new ArrayList<>();
+        List<Schedule> schedules = new ArrayList<>();
+        double batchedStudents = roundTripsPerRow(BATCH_SIZE, this::student, students);
+        double batchedSchedules = roundTripsPerRow(BATCH_SIZE, this::schedule, schedules);
+        double batchedAttendance = roundTripsPerRow(BATCH_SIZE, i -> new Attendance()
+                .setSchedule(schedules.get(i))
+                .setStudent(students.get(i))
+                .setAttendanceStatus(status)
+                .setMarkedTime(LocalTime.of(9, 5)), new ArrayList<>());
+
+        // без пакетов остаётся INSERT на строку, но nextval уже раз на 50 строк
+        assertTrue(unbatchedStudents >= 1.0 && unbatchedStudents < 1.1, "unbatched: " + unbatchedStudents);
+        // nextval раз на 50 строк + один пакет INSERT на 50 строк
+        double expected = 2.0 / BATCH_SIZE;
+        assertEquals(expected, batchedStudents, 0.01, "students");
+        assertEquals(expected, batchedSchedules, 0.01, "schedules");
+        assertEquals(expected, batchedAttendance, 0.01, "attendance");
+    }
+}
@@ -0,0 +1,157 @@
+package ru.tihomirov.university.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.tihomirov.university.config.CursorRequestArgumentResolver;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.exception.ValidationException;
+import ru.tihomirov.university.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset-пагинация: обход по курсорам отдаёт все строки ровно один раз в порядке сортировки,
+ * каждая страница — один запрос, чужой или испорченный курсор отклоняется.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class KeysetPaginationTest {
+
+    @Autowired private ScheduleRepository scheduleRepository;
+    @Autowired private StudentRepository studentRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Schedule> schedules = new ArrayList<>();
+    private final List<Student> students = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Group group = new Group().setName("ЦПИ-21").setCountStudents(0).setMaxCountStudents(30);
+        Teacher teacher = new Teacher().setLastName("Иванов").setEmail("ivanov@uni.ru");
+        Course course = new Course().setName("Математика");
+        ClassType classType = new ClassType().setName("Лекция");
+        List.of(group, teacher, course, classType).forEach(entityManager::persist);
+
+        // вставка не в порядке сортировки; одинаковые (date, startTime) различаются только id
+        int[][] slots = {{2, 9}, {1, 13}, {1, 9}, {2, 9}, {1, 11}, {3, 8}, {1, 9}};
+        for (int[] slot : slots) {
+            Schedule schedule = new Schedule()
+                    .setDate(LocalDate.of(2026, 9, slot[0]))
+                    .setStartTime(LocalTime.of(slot[1], 0))
+                    .setEndTime(LocalTime.of(slot[1] + 1, 30))
+                    .setGroup(group).setTeacher(teacher).setCourse(course).setClassType(classType);
+            entityManager.persist(schedule);
+            schedules.add(schedule);
+        }
+        for (int i = 0; i < 5; i++) {
+            Student student = new Student().setLastName("Студент " + i).setGroup(group);
+            entityManager.persist(student);
+            students.add(student);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void schedulesArePagedByDateStartTimeAndId() {
+        List<Long> expected = schedules.stream()
+                .sorted(Comparator.comparing(Schedule::getDate)
+                        .thenComparing(Schedule::getStartTime)
+                        .thenComparing(Schedule::getId))
+                .map(Schedule::getId)
+                .toList();
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            CursorPage<Schedule> page = new CursorRequest(cursor, 3)
+                    .fetch(KeysetOrder.SCHEDULE_TIME, scheduleRepository::findAllBy);
+            assertEquals(1, statistics.getPrepareStatementCount(), "one query per page, graph included");
+            page.getContent().forEach(s -> walked.add(s.getId()));
+            assertNotNull(page.getContent().get(0).getTeacher().getEmail());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, walked);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void schedulesOfOneDateArePagedWithFilter() {
+        LocalDate date = LocalDate.of(2026, 9, 1);
+        CursorPage<Schedule> first = new CursorRequest(null, 2).fetch(KeysetOrder.SCHEDULE_TIME,
+                (position, sort, limit) -> scheduleRepository.findByDate(date, position, sort, limit));
+        CursorPage<Schedule> second = new CursorRequest(first.getNextCursor(), 2).fetch(KeysetOrder.SCHEDULE_TIME,
+                (position, sort, limit) -> scheduleRepository.findByDate(date, position, sort, limit));
+
+        assertEquals(List.of(LocalTime.of(9, 0), LocalTime.of(9, 0)),
+                first.getContent().stream().map(Schedule::getStartTime).toList());
+        assertEquals(List.of(LocalTime.of(11, 0), LocalTime.of(13, 0)),
+                second.getContent().stream().map(Schedule::getStartTime).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void studentsArePagedById() {
+        CursorPage<Student> first = CursorRequest.first(4).fetch(KeysetOrder.ID, studentRepository::findAllBy);
+        CursorPage<Student> rest = new CursorRequest(first.getNextCursor(), 4).fetch(KeysetOrder.ID, studentRepository::findAllBy);
+
+        assertEquals(4, first.getContent().size());
+        assertEquals(List.of(students.get(4).getId()), rest.getContent().stream().map(Student::getId).toList());
+        assertNull(rest.getNextCursor());
+        assertEquals("ЦПИ-21", rest.getContent().get(0).getGroup().getName());
+    }
+
+    @Test
+    void foreignOrBrokenCursorIsRejected() {
+        String idCursor = KeysetOrder.ID.encode(List.of(5L));
+
+        assertEquals(List.of(5L), KeysetOrder.ID.values(idCursor));
+        assertThrows(ValidationException.class, () -> KeysetOrder.SCHEDULE_TIME.decode(idCursor));
+        assertThrows(ValidationException.class, () -> KeysetOrder.ID.decode("не-курсор"));
+        assertThrows(ValidationException.class,
+                () -> KeysetOrder.ID.decode(KeysetOrder.ID.encode(List.of("abc"))));
+    }
+
+    @Test
+    void pageSizeDefaultsAndIsCapped() {
+        CursorRequestArgumentResolver resolver = new CursorRequestArgumentResolver(50, 500);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        assertEquals(50, resolver.resolveArgument(null, null, new ServletWebRequest(request), null).getSize());
+
+        request.setParameter("size", "100000");
+        request.setParameter("cursor", "abc");
+        CursorRequest capped = resolver.resolveArgument(null, null, new ServletWebRequest(request), null);
+        assertEquals(500, capped.getSize());
+        assertEquals("abc", capped.getCursor());
+
+        request.setParameter("size", "0");
+        assertEquals(1, resolver.resolveArgument(null, null, new ServletWebRequest(request), null).getSize());
+    }
+}
@@ -0,0 +1,175 @@
+package ru.tihomirov.university.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.model.*;
+import ru.tihomirov.university.service.CourseServiceImpl;
+import ru.tihomirov.university.service.GroupServiceImpl;
+import ru.tihomirov.university.service.TeacherServiceImpl;
+
+import javax.cache.CacheManager;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кэш второго уровня для справочников: повторное чтение не ходит в БД, запись через сервисы
+ * обновляет/вытесняет запись, findByName/findByEmail кэшируются и инвалидируются при изменении таблицы.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CourseServiceImpl.class, GroupServiceImpl.class, TeacherServiceImpl.class})
+class ReferenceCacheTest {
+
+    @Autowired private CourseServiceImpl courseService;
+    @Autowired private GroupServiceImpl groupService;
+    @Autowired private TeacherServiceImpl teacherService;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private AttendanceRepository attendanceRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "attendance", "schedule", "students",
+                "attendance_status", "class_types", "courses", "teachers", "groups", "roles");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void repeatedFindByIdIsServedFromCacheAndSeesUpdates() {
+        Course course = courseService.save(new Course().setName("Математика"));
+        entityManagerFactory.getCache().evictAll();
+
+        statistics.clear();
+        courseService.getById(course.getId());
+        courseService.getById(course.getId());
+        assertEquals(1, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+
+        courseService.save(new Course().setId(course.getId()).setName("Алгебра"));
+        assertEquals("Алгебра", courseService.getById(course.getId()).getName());
+
+        // после удаления в регионе остаётся только soft lock, чтение идёт в БД
+        courseService.deleteById(course.getId());
+        assertThrows(EntityNotFoundException.class, () -> courseService.getById(course.getId()));
+    }
+
+    @Test
+    void groupUpdateAndDeleteEvictStaleEntries() {
+        Group group = groupService.save(new Group().setName("ЦПИ-21").setCountStudents(0).setMaxCountStudents(30));
+        groupService.getById(group.getId());
+        assertTrue(entityManagerFactory.getCache().contains(Group.class, group.getId()));
+
+        groupService.update(group.getId(), new Group().setName("ЦПИ-22").setCountStudents(1).setMaxCountStudents(30));
+        statistics.clear();
+        Group updated = groupService.getById(group.getId());
+        assertEquals("ЦПИ-22", updated.getName());
+        assertEquals(1, updated.getCountStudents());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        groupService.deleteById(group.getId());
+        assertThrows(EntityNotFoundException.class, () -> groupService.getById(group.getId()));
+    }
+
+    @Test
+    void findByNameAndEmailUseQueryCacheUntilTableChanges() {
+        roleRepository.save(new Role().setName("ADMIN"));
+        teacherService.save(new Teacher().setLastName("Иванов").setEmail("ivanov@uni.ru"));
+
+        statistics.clear();
+        roleRepository.findByName("ADMIN");
+        roleRepository.findByName("ADMIN");
+        teacherService.getByEmail("ivanov@uni.ru");
+        teacherService.getByEmail("ivanov@uni.ru");
+        assertEquals(2, statistics.getQueryExecutionCount());
+        assertEquals(2, statistics.getQueryCacheHitCount());
+
+        Teacher teacher = teacherService.getByEmail("ivanov@uni.ru");
+        teacherService.save(teacher.setEmail("ivanov@university.ru"));
+
+        assertTrue(teacherService.getByEmail("ivanov@university.ru").getEmail().endsWith("university.ru"));
+        assertThrows(EntityNotFoundException.class,
+                () -> teacherService.getByEmail("ivanov@uni.ru"));
+    }
+
+    @Test
+    void nativeAttendanceInsertKeepsReferenceRegions() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Group group = groupService.save(new Group().setName("ЦПИ-21").setCountStudents(1).setMaxCountStudents(30));
+        Long[] ids = tx.execute(status -> {
+            var em = entityManagerFactory.createEntityManager();
+            em.joinTransaction();
+            Teacher teacher = new Teacher().setLastName("Иванов");
+            Course course = new Course().setName("Математика");
+            ClassType classType = new ClassType().setName("Лекция");
+            AttendanceStatus attendanceStatus = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+            Student student = new Student().setLastName("Петров").setGroup(em.find(Group.class, group.getId()));
+            Schedule schedule = new Schedule().setDate(LocalDate.of(2026, 9, 1))
+                    .setStartTime(LocalTime.of(9, 0)).setEndTime(LocalTime.of(10, 30))
+                    .setGroup(student.getGroup()).setTeacher(teacher).setCourse(course).setClassType(classType);
+            for (Object entity : new Object[]{teacher, course, classType, attendanceStatus, student, schedule}) {
+                em.persist(entity);
+            }
+            em.flush();
+            return new Long[]{schedule.getId(), student.getId(), attendanceStatus.getId()};
+        });
+        groupService.getById(group.getId());
+        assertTrue(entityManagerFactory.getCache().contains(Group.class, group.getId()));
+
+        tx.executeWithoutResult(status -> attendanceRepository.insertIfAbsent(ids[0], List.of(ids[1]), ids[2], LocalTime.of(9, 1)));
+
+        assertTrue(entityManagerFactory.getCache().contains(Group.class, group.getId()));
+    }
+
+    @Test
+    void regionHitsAndMissesArePublishedAsMetrics() {
+        Course course = courseService.save(new Course().setName("Физика"));
+        entityManagerFactory.getCache().evictAll();
+        courseService.getById(course.getId());
+        courseService.getById(course.getId());
+
+        CacheManager cacheManager = ((JCacheRegionFactory) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache().getRegionFactory()).getCacheManager();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JCacheMetrics.monitor(registry, cacheManager.getCache("courses"));
+
+        assertTrue(registry.get("cache.gets").tag("cache", "courses").tag("result", "hit")
+                .functionCounter().count() >= 1);
+        assertTrue(registry.get("cache.gets").tag("cache", "courses").tag("result", "miss")
+                .functionCounter().count() >= 1);
+    }
+}
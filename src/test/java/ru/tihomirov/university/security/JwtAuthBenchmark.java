@@ -0,0 +1,118 @@
+package ru.tihomirov.university.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import java.time.Clock;
+import java.time.Duration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.tihomirov.university.model.Role;
+import ru.tihomirov.university.model.Student;
+import ru.tihomirov.university.model.User;
+import ru.tihomirov.university.repository.RevokedTokenRepository;
+import ru.tihomirov.university.repository.UserRepository;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JMH-бенчмарк проверки JWT в фильтре.
+ * legacyTripleParse — как было: extractUsername + isTokenValid, каждый раз новый parserBuilder и проверка подписи (×3);
+ * filterSingleParse — фильтр с общим парсером без кэша; filterCached — фильтр с кэшем проверенных токенов.
+ * Запуск: main() из IDE или
+ * {@code mvn test-compile && java -cp target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) org.openjdk.jmh.Main JwtAuthBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "BenchmarkJwtSecretKey12345678901234567";
+
+    private Key key;
+    private String token;
+    private JwtAuthenticationFilter uncachedFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        JwtUtils uncached = jwtUtils(0);
+        JwtUtils cached = jwtUtils(10_000);
+        key = (Key) ReflectionTestUtils.getField(uncached, "key");
+
+        User user = new User()
+                .setId(1L)
+                .setUsername("student")
+                .setRole(new Role().setName("STUDENT"))
+                .setStudent(new Student().setId(5L));
+        token = uncached.generateToken(user);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0));
+        // Пустой список отзыва: на каждый запрос — только проверка фильтра Блума
+        TokenRevocationService revocation = new TokenRevocationService(mock(RevokedTokenRepository.class),
+                Clock.systemUTC(), Duration.ofHours(1), 10_000, 0.01);
+        uncachedFilter = new JwtAuthenticationFilter(uncached, new TokenVersionRegistry(userRepository, 1000, Duration.ofMinutes(1)), revocation);
+        cachedFilter = new JwtAuthenticationFilter(cached, new TokenVersionRegistry(userRepository, 1000, Duration.ofMinutes(1)), revocation);
+        chain = (request, response) -> { };
+    }
+
+    private static JwtUtils jwtUtils(long cacheSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", cacheSize);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    private Claims legacyParse() {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public void legacyTripleParse(Blackhole bh) {
+        String username = legacyParse().getSubject();
+        boolean valid = username.equals(legacyParse().getSubject()) && !legacyParse().getExpiration().before(new Date());
+        bh.consume(valid);
+    }
+
+    @Benchmark
+    public void filterSingleParse(Blackhole bh) throws Exception {
+        bh.consume(authenticate(uncachedFilter));
+    }
+
+    @Benchmark
+    public void filterCached(Blackhole bh) throws Exception {
+        bh.consume(authenticate(cachedFilter));
+    }
+
+    private Object authenticate(JwtAuthenticationFilter filter) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthBenchmark.class.getSimpleName()).build()).run();
+    }
+}
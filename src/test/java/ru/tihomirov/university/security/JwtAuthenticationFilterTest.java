@@ -0,0 +1,158 @@
+package ru.tihomirov.university.security;
+
+import jakarta.servlet.FilterChain;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tihomirov.university.model.RevokedToken;
+import ru.tihomirov.university.model.Role;
+import ru.tihomirov.university.model.Teacher;
+import ru.tihomirov.university.model.User;
+import ru.tihomirov.university.repository.RevokedTokenRepository;
+import ru.tihomirov.university.repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private JwtUtils jwtUtils;
+    private UserRepository userRepository;
+    private TokenVersionRegistry tokenVersionRegistry;
+    private RevokedTokenRepository revokedTokenRepository;
+    private TokenRevocationService tokenRevocationService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", "TestJwtSecretKey1234567890123456789012");
+        ReflectionTestUtils.setField(jwtUtils, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 100L);
+        jwtUtils.init();
+
+        userRepository = mock(UserRepository.class);
+        tokenVersionRegistry = new TokenVersionRegistry(userRepository, 1000, Duration.ofMinutes(1));
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        tokenRevocationService = new TokenRevocationService(revokedTokenRepository, Clock.systemUTC(),
+                Duration.ofHours(1), 1000, 0.01);
+        filter = new JwtAuthenticationFilter(jwtUtils, tokenVersionRegistry, tokenRevocationService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private User teacherUser() {
+        return new User()
+                .setId(7L)
+                .setUsername("ivanov")
+                .setRole(new Role().setName("TEACHER"))
+                .setTeacher(new Teacher().setId(3L))
+                .setTokenVersion(2);
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), mock(FilterChain.class));
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Test
+    void shouldBuildPrincipalFromClaimsWithoutLoadingUser() throws Exception {
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(2));
+        String token = jwtUtils.generateToken(teacherUser());
+
+        Authentication first = authenticate(token);
+        SecurityContextHolder.clearContext();
+        authenticate(token);
+
+        UserDetailsImpl principal = (UserDetailsImpl) first.getPrincipal();
+        assertEquals(7L, principal.getUserId());
+        assertEquals(3L, principal.getTeacherId());
+        assertNull(principal.getStudentId());
+        assertTrue(principal.hasRole("TEACHER"));
+        assertEquals("ivanov", principal.getUsername());
+        // версия читается один раз, полная загрузка пользователя не нужна
+        verify(userRepository, times(1)).findTokenVersionById(7L);
+        verify(userRepository, never()).findByUsername(any());
+        // пустой список отзыва — фильтр Блума отвечает «нет» без запроса к БД
+        verify(revokedTokenRepository, never()).findByTokenKeyIn(any());
+    }
+
+    @Test
+    void shouldRejectRevokedTokenButKeepOthersOfSameUser() throws Exception {
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(2));
+        String revoked = jwtUtils.generateToken(teacherUser());
+        String other = jwtUtils.generateToken(teacherUser());
+        String key = TokenRevocationService.JTI_PREFIX + jwtUtils.extractAllClaims(revoked).getId();
+        when(revokedTokenRepository.findActiveKeys(any())).thenReturn(List.of(key));
+        when(revokedTokenRepository.findByTokenKeyIn(List.of(key))).thenReturn(List.of(new RevokedToken()
+                .setTokenKey(key).setRevokedAt(Instant.now()).setExpiresAt(Instant.now().plusSeconds(3600))));
+        tokenRevocationService.rebuild();
+
+        assertNull(authenticate(revoked));
+        SecurityContextHolder.clearContext();
+        assertNotNull(authenticate(other));
+    }
+
+    @Test
+    void shouldRejectTokenIssuedBeforeRoleChange() throws Exception {
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(2));
+        String token = jwtUtils.generateToken(teacherUser());
+        tokenVersionRegistry.update(7L, 3);
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void shouldRejectTokenOfDeletedUser() throws Exception {
+        String token = jwtUtils.generateToken(teacherUser());
+        tokenVersionRegistry.remove(7L);
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void shouldApplyVersionChangeOnlyAfterCommit() throws Exception {
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(2));
+        String token = jwtUtils.generateToken(teacherUser());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tokenVersionRegistry.update(7L, 3);
+            assertNotNull(authenticate(token), "uncommitted change must not reject tokens");
+            SecurityContextHolder.clearContext();
+
+            // Откат: синхронизации отбрасываются без afterCommit
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            tokenVersionRegistry.update(7L, 3);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void shouldIgnoreMalformedToken() throws Exception {
+        assertNull(authenticate("not-a-jwt"));
+    }
+}
@@ -0,0 +1,70 @@
+package ru.tihomirov.university.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.tihomirov.university.model.Role;
+import ru.tihomirov.university.model.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    private JwtUtils jwtUtils(long expiration, long cacheSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", "TestJwtSecretKey1234567890123456789012");
+        ReflectionTestUtils.setField(jwtUtils, "expiration", expiration);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", cacheSize);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    private User user() {
+        return new User().setId(1L).setUsername("admin").setRole(new Role().setName("ADMIN"));
+    }
+
+    @Test
+    void shouldServeRepeatedTokenFromVerifiedCache() {
+        JwtUtils jwtUtils = jwtUtils(3_600_000L, 100);
+        String token = jwtUtils.generateToken(user());
+
+        Claims first = jwtUtils.extractAllClaims(token);
+        Claims second = jwtUtils.extractAllClaims(token);
+
+        assertSame(first, second);
+        assertEquals("admin", second.getSubject());
+    }
+
+    @Test
+    void shouldNotTrustTamperedToken() {
+        JwtUtils jwtUtils = jwtUtils(3_600_000L, 100);
+        String token = jwtUtils.generateToken(user());
+        jwtUtils.extractAllClaims(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwtUtils.extractAllClaims(tampered));
+        assertFalse(jwtUtils.validateToken(tampered));
+    }
+
+    @Test
+    void shouldRejectExpiredTokenEvenAfterCaching() throws InterruptedException {
+        JwtUtils jwtUtils = jwtUtils(2_000L, 100);
+        String token = jwtUtils.generateToken(user());
+        assertTrue(jwtUtils.validateToken(token));
+
+        Thread.sleep(2_100L);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtils.extractAllClaims(token));
+    }
+
+    @Test
+    void shouldValidateWithoutCache() {
+        JwtUtils jwtUtils = jwtUtils(3_600_000L, 0);
+        String token = jwtUtils.generateToken(user());
+
+        assertTrue(jwtUtils.isTokenValid(token, new UserDetailsImpl(user())));
+        assertNotSame(jwtUtils.extractAllClaims(token), jwtUtils.extractAllClaims(token));
+    }
+}
@@ -0,0 +1,168 @@
+package ru.tihomirov.university.security;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.tihomirov.university.exception.ErrorResponse;
+import ru.tihomirov.university.exception.GlobalExceptionHandler;
+import ru.tihomirov.university.exception.ServiceOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAdmissionTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private LoginAdmission admission;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        admission.shutdown();
+    }
+
+    // Кодировщик, который держит поток пула, пока тест его не отпустит. Прерывание (отмена по тайм-ауту)
+    // его не освобождает — как и настоящий BCrypt, который прерывания не проверяет
+    private static PasswordEncoder blocking(CountDownLatch entered, CountDownLatch release) {
+        return new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                entered.countDown();
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.matches(rawPassword, encodedPassword);
+            }
+        };
+    }
+
+    @Test
+    void passwordIsCheckedOnThePoolAndBothPhasesAreTimed() {
+        admission = new LoginAdmission(registry, 2, 10, 20, Duration.ofSeconds(5), Duration.ofSeconds(2));
+        String[] thread = new String[1];
+        PasswordEncoder encoder = admission.guard(new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                thread[0] = Thread.currentThread().getName();
+                return super.matches(rawPassword, encodedPassword);
+            }
+        });
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+
+        assertTrue(thread[0].startsWith("bcrypt-login-"));
+        assertEquals(2, registry.get(LoginAdmission.QUEUE_WAIT_TIMER).timer().count());
+        assertEquals(2, registry.get(LoginAdmission.HASH_TIMER).timer().count());
+        assertEquals(0, registry.get(LoginAdmission.REJECTED_COUNTER).counters().stream().mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void fullQueueFailsFastWithRetryAfter() throws Exception {
+        admission = new LoginAdmission(registry, 1, 1, 10, Duration.ofSeconds(5), Duration.ofSeconds(3));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = admission.guard(blocking(entered, release));
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+
+        Future<Boolean> running = callers.submit(() -> encoder.matches("secret", hash));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<Boolean> queued = callers.submit(() -> encoder.matches("secret", hash));
+        while (registry.get(LoginAdmission.QUEUE_GAUGE).gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        long start = System.nanoTime();
+        ServiceOverloadedException rejected = assertThrows(ServiceOverloadedException.class,
+                () -> encoder.matches("secret", hash));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "rejection does not wait for BCrypt");
+        assertEquals(1, registry.get(LoginAdmission.REJECTED_COUNTER).tag("reason", "queue_full").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(10, TimeUnit.SECONDS));
+        assertTrue(queued.get(10, TimeUnit.SECONDS));
+
+        ResponseEntity<ErrorResponse> response = new GlobalExceptionHandler().handleServiceOverloaded(rejected);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void inFlightLimitDerivedFromTomcatThreadsRejectsWithoutQueueing() throws Exception {
+        // max-in-flight не задан: четверть от 8 потоков Tomcat — два одновременных входа
+        admission = new LoginAdmission(registry, 1, 100, 0, 8, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = admission.guard(blocking(entered, release));
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+
+        Future<Boolean> running = callers.submit(() -> encoder.matches("secret", hash));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<Boolean> queued = callers.submit(() -> encoder.matches("secret", hash));
+        while (registry.get(LoginAdmission.QUEUE_GAUGE).gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        long start = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, () -> encoder.matches("secret", hash));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "rejection does not wait");
+        assertEquals(1, registry.get(LoginAdmission.REJECTED_COUNTER).tag("reason", "in_flight").counter().count());
+        assertEquals(0, registry.get(LoginAdmission.REJECTED_COUNTER).tag("reason", "queue_full").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(10, TimeUnit.SECONDS));
+        assertTrue(queued.get(10, TimeUnit.SECONDS));
+        assertTrue(encoder.matches("secret", hash), "permits are returned");
+    }
+
+    @Test
+    void callerGivesUpAfterMaxQueueWaitAndQueuedCheckIsSkipped() throws Exception {
+        admission = new LoginAdmission(registry, 1, 10, 10, Duration.ofMillis(200), Duration.ofSeconds(1));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = admission.guard(blocking(entered, release));
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+
+        Future<Boolean> running = callers.submit(() -> encoder.matches("secret", hash));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, () -> encoder.matches("secret", hash));
+        long waited = System.nanoTime() - start;
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(200) && waited < TimeUnit.SECONDS.toNanos(2),
+                "caller waits max-queue-wait, not until BCrypt is free");
+
+        // Поток пула всё ещё занят: первый вызывающий тоже перестаёт ждать по тайм-ауту
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> running.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceOverloadedException.class, failure.getCause());
+        release.countDown();
+
+        Timer hashTimer = registry.get(LoginAdmission.HASH_TIMER).timer();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hashTimer.count() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        admission.shutdown();
+        assertEquals(1, hashTimer.count(), "cancelled check is never hashed");
+        assertEquals(2, registry.get(LoginAdmission.REJECTED_COUNTER).tag("reason", "timeout").counter().count());
+    }
+}
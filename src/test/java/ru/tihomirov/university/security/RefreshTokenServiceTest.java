@@ -0,0 +1,192 @@
+package ru.tihomirov.university.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.jsonwebtoken.Claims;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tihomirov.university.dto.AuthResponse;
+import ru.tihomirov.university.model.RefreshToken;
+import ru.tihomirov.university.model.Role;
+import ru.tihomirov.university.model.Student;
+import ru.tihomirov.university.model.User;
+import ru.tihomirov.university.repository.RefreshTokenRepository;
+import ru.tihomirov.university.repository.UserRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ротация refresh-токенов: обмен без пароля, одноразовость, отзыв всей цепочки при повторном
+ * использовании, промах индекса в памяти — один запрос к БД.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RefreshTokenServiceTest {
+
+    private static final String SECRET = "TestJwtSecretKey1234567890123456789012";
+    private static final Duration TTL = Duration.ofDays(30);
+
+    @Autowired private RefreshTokenRepository refreshTokenRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private final Instant now = Instant.parse("2026-09-01T05:55:00Z");
+    private JwtUtils jwtUtils;
+    private TokenVersionRegistry tokenVersionRegistry;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "expiration", 900_000L);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 0L);
+        jwtUtils.init();
+        tokenVersionRegistry = new TokenVersionRegistry(userRepository, 1000, Duration.ofMinutes(1));
+
+        Role role = new Role().setName("STUDENT");
+        Student student = new Student().setLastName("Петров");
+        entityManager.persist(role);
+        entityManager.persist(student);
+        user = new User().setUsername("petrov").setPassword("x").setRole(role).setStudent(student);
+        entityManager.persist(user);
+        entityManager.flush();
+    }
+
+    private RefreshTokenService service(Instant at) {
+        return new RefreshTokenService(refreshTokenRepository, tokenVersionRegistry, jwtUtils, entityManager,
+                Clock.fixed(at, ZoneOffset.UTC), SECRET, TTL, 1000);
+    }
+
+    private RefreshToken stored(RefreshTokenService service, String token) {
+        return refreshTokenRepository.findByTokenHash(service.hash(token)).orElseThrow();
+    }
+
+    @Test
+    void refreshRotatesTokenAndIssuesAccessTokenFromSnapshot() {
+        RefreshTokenService service = service(now);
+        String first = service.issue(user);
+
+        AuthResponse response = service.refresh(first);
+
+        Claims claims = jwtUtils.extractAllClaims(response.getToken());
+        assertEquals("petrov", claims.getSubject());
+        assertEquals("STUDENT", claims.get(JwtUtils.CLAIM_ROLE, String.class));
+        assertEquals(user.getStudent().getId(), claims.get(JwtUtils.CLAIM_STUDENT_ID, Long.class));
+        assertNotEquals(first, response.getRefreshToken());
+
+        entityManager.flush();
+        entityManager.clear();
+        RefreshToken old = stored(service, first);
+        RefreshToken next = stored(service, response.getRefreshToken());
+        assertNotNull(old.getUsedAt());
+        assertNull(next.getUsedAt());
+        assertEquals(old.getFamilyId(), next.getFamilyId());
+        assertFalse(old.getTokenHash().contains(first), "only the HMAC is stored");
+
+        assertNotNull(service.refresh(response.getRefreshToken()).getRefreshToken());
+    }
+
+    @Test
+    void reuseOfRotatedTokenRevokesWholeFamily() {
+        RefreshTokenService service = service(now);
+        String first = service.issue(user);
+        String second = service.refresh(first).getRefreshToken();
+        String otherLogin = service.issue(user);
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(first));
+        assertThrows(BadCredentialsException.class, () -> service.refresh(second));
+
+        entityManager.flush();
+        entityManager.clear();
+        assertTrue(stored(service, first).isRevoked());
+        assertTrue(stored(service, second).isRevoked());
+        // Другой вход того же пользователя — своя цепочка, её отзыв не касается
+        assertFalse(stored(service, otherLogin).isRevoked());
+        assertNotNull(service.refresh(otherLogin).getToken());
+    }
+
+    @Test
+    void indexMissCostsOneLookupAndSeesRotationFromAnotherNode() {
+        String first = service(now).issue(user);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Новый экземпляр — пустой индекс, как после рестарта или на другом узле
+        RefreshTokenService otherNode = service(now);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        String second = otherNode.refresh(first).getRefreshToken();
+        entityManager.flush();
+
+        // SELECT по token_hash, UPDATE старого, INSERT нового (+ возможно, очередной блок последовательности)
+        assertTrue(statistics.getPrepareStatementCount() <= 4, "statements: " + statistics.getPrepareStatementCount());
+
+        // Первый узел не видел ротации в памяти, но условный UPDATE не проходит — это повторное использование
+        RefreshTokenService thirdNode = service(now);
+        assertThrows(BadCredentialsException.class, () -> thirdNode.refresh(first));
+        assertThrows(BadCredentialsException.class, () -> otherNode.refresh(second));
+    }
+
+    @Test
+    void expiredUnknownOrOutdatedTokensAreRejected() {
+        String token = service(now).issue(user);
+        entityManager.flush();
+
+        assertThrows(BadCredentialsException.class, () -> service(now.plus(TTL).plusSeconds(1)).refresh(token));
+        assertThrows(BadCredentialsException.class, () -> service(now).refresh("not-a-token"));
+        assertThrows(BadCredentialsException.class, () -> service(now).refresh(null));
+
+        // Смена роли или пароля повышает tokenVersion — цепочка, начатая до неё, недействительна
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        entityManager.flush();
+        assertThrows(BadCredentialsException.class, () -> service(now).refresh(token));
+    }
+
+    @Test
+    void rotationReachesInMemoryIndexOnlyAfterCommit() {
+        RefreshTokenService service = service(now);
+        String first = service.issue(user);
+        String second = service.refresh(first).getRefreshToken();
+        @SuppressWarnings("unchecked")
+        Cache<String, Object> index = (Cache<String, Object>) ReflectionTestUtils.getField(service, "index");
+
+        // Тестовая транзакция не коммитится: откат не оставит в индексе ни нового токена, ни «обменянного» старого
+        assertNull(index.getIfPresent(service.hash(second)));
+        TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(sync -> sync.getClass().getEnclosingClass() == RefreshTokenService.class)
+                .forEach(TransactionSynchronization::afterCommit);
+        assertNotNull(index.getIfPresent(service.hash(first)));
+        assertNotNull(index.getIfPresent(service.hash(second)));
+    }
+
+    @Test
+    void logoutRevokesFamily() {
+        RefreshTokenService service = service(now);
+        String first = service.issue(user);
+        String second = service.refresh(first).getRefreshToken();
+
+        service.revoke(second);
+        service.revoke("unknown");
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(second));
+    }
+}
@@ -0,0 +1,135 @@
+package ru.tihomirov.university.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.model.Role;
+import ru.tihomirov.university.model.Teacher;
+import ru.tihomirov.university.model.User;
+import ru.tihomirov.university.repository.ScheduleRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ScheduleOwnershipTest {
+
+    private ScheduleRepository scheduleRepository;
+    private ScheduleOwnership ownership;
+
+    @BeforeEach
+    void setUp() {
+        scheduleRepository = mock(ScheduleRepository.class);
+        ownership = new ScheduleOwnership(scheduleRepository, 1000);
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(7L));
+        when(scheduleRepository.findTeacherIdById(2L)).thenReturn(Optional.of(ScheduleOwnership.NO_TEACHER));
+        when(scheduleRepository.findTeacherIdById(99L)).thenReturn(Optional.empty());
+    }
+
+    private static UserDetailsImpl user(String role, Long teacherId) {
+        User user = new User().setId(1L).setUsername("login").setRole(new Role().setName(role));
+        if (teacherId != null) {
+            user.setTeacher(new Teacher().setId(teacherId));
+        }
+        return new UserDetailsImpl(user);
+    }
+
+    @Test
+    void ownerIsLoadedOncePerSchedule() {
+        UserDetailsImpl owner = user("TEACHER", 7L);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ownership.isOwner(owner, 1L));
+        }
+
+        verify(scheduleRepository, times(1)).findTeacherIdById(1L);
+    }
+
+    @Test
+    void teacherAccessesOnlyOwnSchedules() {
+        assertTrue(ownership.canAccess(user("TEACHER", 7L), 1L));
+        assertFalse(ownership.canAccess(user("TEACHER", 8L), 1L));
+        assertFalse(ownership.canAccess(user("TEACHER", 7L), 2L));
+        assertTrue(ownership.canAccess(user("ADMIN", null), 2L));
+    }
+
+    @Test
+    void missingScheduleIsNotFoundForAnyRole() {
+        assertThrows(EntityNotFoundException.class, () -> ownership.canAccess(user("ADMIN", null), 99L));
+        assertThrows(EntityNotFoundException.class, () -> ownership.canAccess(user("TEACHER", 7L), 99L));
+    }
+
+    @Test
+    void expressionVariantReadsPrincipalFromAuthentication() {
+        UserDetailsImpl owner = user("TEACHER", 7L);
+
+        assertTrue(ownership.canAccess(new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()), 1L));
+        assertFalse(ownership.canAccess(new UsernamePasswordAuthenticationToken("anonymous", null), 1L));
+        assertFalse(ownership.canAccess((Authentication) null, 1L));
+    }
+
+    @Test
+    void evictReloadsChangedOwner() {
+        UserDetailsImpl previous = user("TEACHER", 7L);
+        assertTrue(ownership.isOwner(previous, 1L));
+
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(8L));
+        ownership.evict(1L);
+
+        assertFalse(ownership.isOwner(previous, 1L));
+        assertTrue(ownership.isOwner(user("TEACHER", 8L), 1L));
+    }
+
+    @Test
+    void ownerReadDuringConcurrentEvictionIsNotCached() {
+        // Между чтением старого владельца и возвратом занятие успели переназначить
+        when(scheduleRepository.findTeacherIdById(1L)).thenAnswer(invocation -> {
+            ownership.evict(1L);
+            return Optional.of(7L);
+        });
+        ownership.teacherOf(1L);
+        when(scheduleRepository.findTeacherIdById(1L)).thenReturn(Optional.of(8L));
+
+        assertEquals(8L, ownership.teacherOf(1L));
+    }
+
+    @Test
+    void cacheIsDroppedWhenFull() {
+        ScheduleOwnership small = new ScheduleOwnership(scheduleRepository, 1);
+        small.teacherOf(1L);
+        small.teacherOf(2L);
+        small.teacherOf(1L);
+
+        verify(scheduleRepository, times(2)).findTeacherIdById(1L);
+    }
+
+    @Test
+    void longMapMatchesHashMapUnderRandomPutsAndRemoves() {
+        ScheduleOwnership.LongLongMap map = new ScheduleOwnership.LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                long value = random.nextLong();
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 2_000; key++) {
+            assertEquals(expected.getOrDefault(key, -1L), map.get(key, -1L), "key " + key);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.tihomirov.university.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.tihomirov.university.model.Role;
+import ru.tihomirov.university.model.User;
+import ru.tihomirov.university.repository.RevokedTokenRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Список отзыва: фильтр Блума отсекает неотозванные токены без запроса, точная проверка — по ключу,
+ * отзыв с другого узла виден после пересборки фильтра из БД.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TokenRevocationServiceTest {
+
+    @Autowired private RevokedTokenRepository revokedTokenRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", "TestJwtSecretKey1234567890123456789012");
+        ReflectionTestUtils.setField(jwtUtils, "expiration", 900_000L);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 0L);
+        jwtUtils.init();
+    }
+
+    private TokenRevocationService service(RevokedTokenRepository repository, Instant now) {
+        return new TokenRevocationService(repository, Clock.fixed(now, ZoneOffset.UTC), Duration.ofMinutes(15), 1000, 0.01);
+    }
+
+    private Claims token(long userId) {
+        User user = new User().setId(userId).setUsername("user" + userId).setRole(new Role().setName("STUDENT"));
+        return jwtUtils.extractAllClaims(jwtUtils.generateToken(user));
+    }
+
+    @Test
+    void revokedTokenIsRejectedAndOthersPassTheFilterWithoutLookups() {
+        TokenRevocationService service = service(revokedTokenRepository, Instant.now());
+        Claims revoked = token(1L);
+        service.revokeToken(revoked);
+        entityManager.flush();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (long userId = 2; userId < 2002; userId++) {
+            assertFalse(service.isRevoked(token(userId)));
+        }
+        // 1% ложных срабатываний на каждый из двух ключей; точная проверка отвечает «не отозван»
+        assertTrue(statistics.getPrepareStatementCount() < 100, "exact lookups: " + statistics.getPrepareStatementCount());
+
+        assertTrue(service.isRevoked(revoked));
+        assertFalse(service.isRevoked(token(1L)), "another token of the same user stays valid");
+    }
+
+    @Test
+    void userRevocationCoversTokensIssuedUpToThatSecond() {
+        Claims before = token(7L);
+        Instant revokedAt = before.getIssuedAt().toInstant().plusMillis(500);
+        TokenRevocationService service = service(revokedTokenRepository, revokedAt);
+
+        service.revokeUser(7L);
+
+        assertTrue(service.isRevoked(before));
+        Claims later = mock(Claims.class);
+        when(later.get(JwtUtils.CLAIM_USER_ID, Long.class)).thenReturn(7L);
+        when(later.getIssuedAt()).thenReturn(Date.from(revokedAt.plusSeconds(1)));
+        assertFalse(service.isRevoked(later), "tokens issued after the revocation are valid");
+        assertFalse(service.isRevoked(token(8L)));
+    }
+
+    @Test
+    void revocationFromAnotherNodeIsSeenAfterRebuild() {
+        Instant now = Instant.now();
+        TokenRevocationService thisNode = service(revokedTokenRepository, now);
+        TokenRevocationService otherNode = service(revokedTokenRepository, now);
+        Claims claims = token(3L);
+
+        otherNode.revokeToken(claims);
+        entityManager.flush();
+        assertFalse(thisNode.isRevoked(claims), "filter has not been rebuilt yet");
+
+        thisNode.rebuild();
+        assertTrue(thisNode.isRevoked(claims));
+
+        // Истёкшие записи не попадают в фильтр и удаляются
+        TokenRevocationService later = service(revokedTokenRepository, now.plus(Duration.ofHours(1)));
+        later.rebuild();
+        assertFalse(later.isRevoked(claims));
+        later.purgeExpired();
+        assertTrue(revokedTokenRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndKeepsTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("jti:" + UUID.nameUUIDFromBytes(("in" + i).getBytes()));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("jti:" + UUID.nameUUIDFromBytes(("in" + i).getBytes())));
+            if (filter.mightContain("jti:" + UUID.nameUUIDFromBytes(("out" + i).getBytes()))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,169 @@
+package ru.tihomirov.university.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.tihomirov.university.dto.AttendanceEventDto;
+import ru.tihomirov.university.dto.AttendanceSnapshotDto;
+import ru.tihomirov.university.repository.AttendanceRepository;
+
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AttendanceEventHubTest {
+
+    @Mock private AttendanceRepository attendanceRepository;
+
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private AttendanceEventHub hub;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // отправка выполняется только по runPending(): так видно, что копится в буфере медленного клиента
+        hub = new AttendanceEventHub(attendanceRepository, pending::add, 4, 60_000);
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.poll().run();
+        }
+    }
+
+    private static AttendanceEventDto marked(Long scheduleId, Long attendanceId) {
+        return new AttendanceEventDto(attendanceId, scheduleId, attendanceId, "Студент", 1L, "Присутствовал", LocalTime.of(9, 5));
+    }
+
+    @Test
+    void snapshotIsSentBeforeEventsOfThatSchedule() {
+        when(attendanceRepository.findEventsByScheduleId(1L)).thenReturn(List.of(marked(1L, 10L), marked(1L, 11L)));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        hub.subscribe(1L, emitter);
+        hub.publish(marked(1L, 12L));
+        hub.publish(marked(2L, 20L));
+        runPending();
+
+        assertEquals(List.of("snapshot", "MARKED"), emitter.names);
+        AttendanceSnapshotDto snapshot = (AttendanceSnapshotDto) emitter.payloads.get(0);
+        assertEquals(0, snapshot.getSequence());
+        assertEquals(2, snapshot.getMarks().size());
+        AttendanceEventDto event = (AttendanceEventDto) emitter.payloads.get(1);
+        assertEquals(12L, event.getAttendanceId());
+        assertEquals(1, event.getSequence());
+    }
+
+    @Test
+    void eventCommittedWhileSnapshotLoadsIsNotLost() {
+        when(attendanceRepository.findEventsByScheduleId(1L)).thenAnswer(inv -> {
+            hub.publish(marked(1L, 12L)); // коммит другой транзакции между подпиской и чтением снимка
+            return List.of();
+        });
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        hub.subscribe(1L, emitter);
+        runPending();
+
+        assertEquals(List.of("snapshot", "MARKED"), emitter.names);
+    }
+
+    @Test
+    void slowSubscriberKeepsOnlyNewestEvents() {
+        when(attendanceRepository.findEventsByScheduleId(1L)).thenReturn(List.of());
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.subscribe(1L, emitter);
+
+        for (long i = 1; i <= 10; i++) {
+            hub.publish(marked(1L, i));
+        }
+        runPending();
+
+        List<Long> sequences = emitter.payloads.stream()
+                .filter(AttendanceEventDto.class::isInstance)
+                .map(p -> ((AttendanceEventDto) p).getSequence())
+                .toList();
+        // буфер на 4 события: самые старые вытеснены, разрыв 0 → 7 сообщает клиенту о потере
+        assertEquals(List.of(7L, 8L, 9L, 10L), sequences);
+    }
+
+    @Test
+    void disconnectedSubscriberIsRemoved() {
+        when(attendanceRepository.findEventsByScheduleId(1L)).thenReturn(List.of());
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.failing = true;
+
+        hub.subscribe(1L, emitter);
+        assertEquals(1, hub.subscriberCount(1L));
+        runPending();
+
+        assertEquals(0, hub.subscriberCount(1L));
+        hub.publish(marked(1L, 12L));
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void eventsArePublishedOnlyAfterCommit() {
+        when(attendanceRepository.findEventsByScheduleId(1L)).thenReturn(List.of());
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.subscribe(1L, emitter);
+        runPending();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            hub.publishAfterCommit(List.of(marked(1L, 12L)));
+            runPending();
+            assertEquals(List.of("snapshot"), emitter.names);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        runPending();
+        assertEquals(List.of("snapshot", "MARKED"), emitter.names);
+    }
+
+    @Test
+    void idleSchedulesCostNothing() {
+        hub.publish(marked(5L, 50L));
+        hub.heartbeat();
+
+        assertEquals(0, hub.subscriberCount(5L));
+        assertTrue(pending.isEmpty());
+    }
+
+    // Записывает имена и объекты отправленных событий вместо записи в HTTP-ответ
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> payloads = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> parts = builder.build();
+            for (ResponseBodyEmitter.DataWithMediaType part : parts) {
+                if (part.getData() instanceof String text) {
+                    text.lines().filter(line -> line.startsWith("event:"))
+                            .forEach(line -> names.add(line.substring("event:".length())));
+                } else {
+                    payloads.add(part.getData());
+                }
+            }
+        }
+    }
+}
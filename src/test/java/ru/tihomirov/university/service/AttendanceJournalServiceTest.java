@@ -0,0 +1,153 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tihomirov.university.dto.AttendanceJournalDto;
+import ru.tihomirov.university.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Журнал группы по курсу: матрица собирается одним запросом, повторно отдаётся из памяти
+ * и пересобирается после записи отметки по этой группе и курсу.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AttendanceServiceImpl.class, AttendanceSummaryServiceImpl.class, AttendanceJournalServiceImpl.class,
+        AttendanceEventHub.class})
+class AttendanceJournalServiceTest {
+
+    private static final int STUDENTS = 25;
+    private static final int SESSIONS = 16;
+
+    @Autowired private AttendanceJournalService journalService;
+    @Autowired private AttendanceService attendanceService;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Group group;
+    private Course math;
+    private Course physics;
+    private AttendanceStatus present;
+    private AttendanceStatus absent;
+    private final List<Student> students = new ArrayList<>();
+    private final List<Schedule> sessions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        group = new Group().setName("ЦПИ-21").setCountStudents(STUDENTS).setMaxCountStudents(30);
+        Teacher teacher = new Teacher().setLastName("Иванов").setEmail("ivanov@uni.ru");
+        math = new Course().setName("Математика");
+        physics = new Course().setName("Физика");
+        ClassType lecture = new ClassType().setName("Лекция");
+        present = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+        absent = new AttendanceStatus().setAttendanceStatusName("Отсутствовал");
+        List.of(group, teacher, math, physics, lecture, present, absent).forEach(entityManager::persist);
+
+        // фамилии вставляются в обратном порядке: строки журнала сортируются по ФИО
+        for (int i = STUDENTS - 1; i >= 0; i--) {
+            Student student = new Student().setLastName(String.format("Студент %02d", i)).setGroup(group);
+            entityManager.persist(student);
+            students.add(0, student);
+        }
+        for (int day = SESSIONS; day >= 1; day--) {
+            Schedule schedule = new Schedule()
+                    .setDate(LocalDate.of(2026, 9, day))
+                    .setStartTime(LocalTime.of(9, 0)).setEndTime(LocalTime.of(10, 30))
+                    .setGroup(group).setTeacher(teacher).setCourse(math).setClassType(lecture);
+            entityManager.persist(schedule);
+            sessions.add(0, schedule);
+        }
+        // занятие другого курса в журнал по математике не попадает
+        entityManager.persist(new Schedule()
+                .setDate(LocalDate.of(2026, 9, 1))
+                .setStartTime(LocalTime.of(12, 0)).setEndTime(LocalTime.of(13, 30))
+                .setGroup(group).setTeacher(teacher).setCourse(physics).setClassType(lecture));
+
+        for (int s = 0; s < SESSIONS; s++) {
+            for (int i = 0; i < STUDENTS; i++) {
+                if ((i + s) % 5 != 0) { // часть ячеек без отметки
+                    entityManager.persist(new Attendance().setSchedule(sessions.get(s)).setStudent(students.get(i))
+                            .setAttendanceStatus(i % 4 == 0 ? absent : present).setMarkedTime(LocalTime.of(9, 5)));
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void matrixIsBuiltFromOneQuery() {
+        statistics.clear();
+        AttendanceJournalDto journal = journalService.getJournal(group.getId(), math.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(STUDENTS, journal.getStudents().size());
+        assertEquals(SESSIONS, journal.getSessions().size());
+        assertEquals(STUDENTS * SESSIONS, journal.getCells().length);
+        assertEquals("Студент 00", journal.getStudents().get(0).getFullName());
+        assertEquals(LocalDate.of(2026, 9, 1), journal.getSessions().get(0).getDate());
+
+        for (int s = 0; s < SESSIONS; s++) {
+            for (int i = 0; i < STUDENTS; i++) {
+                int cell = journal.cell(i, s);
+                if ((i + s) % 5 == 0) {
+                    assertEquals(0, cell);
+                } else {
+                    AttendanceStatus expected = i % 4 == 0 ? absent : present;
+                    assertEquals(expected.getId(), journal.getStatuses().get(cell - 1).getId());
+                }
+            }
+        }
+    }
+
+    @Test
+    void journalIsCachedUntilAttendanceWriteForThatGroupAndCourse() {
+        AttendanceJournalDto first = journalService.getJournal(group.getId(), math.getId());
+
+        statistics.clear();
+        assertSame(first, journalService.getJournal(group.getId(), math.getId()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // отметка по другому курсу журнал по математике не сбрасывает
+        journalService.getJournal(group.getId(), physics.getId());
+        journalService.evict(group.getId(), physics.getId());
+        assertSame(first, journalService.getJournal(group.getId(), math.getId()));
+
+        // (0, 0) — пустая ячейка
+        attendanceService.markAttendance(sessions.get(0).getId(), students.get(0).getId(), null, absent.getId());
+        entityManager.flush();
+
+        AttendanceJournalDto updated = journalService.getJournal(group.getId(), math.getId());
+        assertNotSame(first, updated);
+        assertEquals(0, first.cell(0, 0));
+        assertEquals(absent.getId(), updated.getStatuses().get(updated.cell(0, 0) - 1).getId());
+    }
+
+    @Test
+    void emptyJournalForCourseWithoutSessions() {
+        AttendanceJournalDto journal = journalService.getJournal(group.getId(), -1L);
+
+        assertTrue(journal.getSessions().isEmpty());
+        assertEquals(0, journal.getCells().length);
+    }
+}
@@ -0,0 +1,137 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tihomirov.university.dto.GroupAttendanceResponse;
+import ru.tihomirov.university.model.*;
+import ru.tihomirov.university.repository.AttendanceRepository;
+import ru.tihomirov.university.repository.StudentRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение отметки посещаемости целой группы: старый цикл findById + save на каждого студента
+ * против пакетного markAttendanceForGroup. Считаются подготовленные JDBC-выражения и время.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AttendanceServiceImpl.class, AttendanceSummaryServiceImpl.class, AttendanceJournalServiceImpl.class,
+        AttendanceEventHub.class})
+class AttendanceMarkingBenchmarkTest {
+
+    private static final int STUDENTS = 200;
+
+    @Autowired private AttendanceService attendanceService;
+    @Autowired private AttendanceRepository attendanceRepository;
+    @Autowired private StudentRepository studentRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Schedule loopSchedule;
+    private Schedule bulkSchedule;
+    private AttendanceStatus status;
+    private List<Long> studentIds;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Group group = new Group().setName("ЦПИ-21").setCountStudents(STUDENTS).setMaxCountStudents(STUDENTS);
+        Teacher teacher = new Teacher().setLastName("Иванов").setName("Иван").setMiddleName("Иванович");
+        Course course = new Course().setName("Математика");
+        ClassType classType = new ClassType().setName("Лекция");
+        status = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+        entityManager.persist(group);
+        entityManager.persist(teacher);
+        entityManager.persist(course);
+        entityManager.persist(classType);
+        entityManager.persist(status);
+
+        loopSchedule = newSchedule(group, teacher, course, classType, LocalTime.of(9, 0));
+        bulkSchedule = newSchedule(group, teacher, course, classType, LocalTime.of(11, 0));
+
+        studentIds = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student().setLastName("Студент" + i).setName("Имя").setGroup(group);
+            entityManager.persist(student);
+            studentIds.add(student.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Schedule newSchedule(Group group, Teacher teacher, Course course, ClassType classType, LocalTime start) {
+        Schedule schedule = new Schedule()
+                .setDate(LocalDate.of(2026, 9, 1))
+                .setStartTime(start)
+                .setEndTime(start.plusMinutes(90))
+                .setGroup(group)
+                .setTeacher(teacher)
+                .setCourse(course)
+                .setClassType(classType);
+        entityManager.persist(schedule);
+        return schedule;
+    }
+
+    @Test
+    void bulkMarkingIssuesFarFewerStatementsThanPerStudentLoop() {
+        statistics.clear();
+        Schedule schedule = entityManager.find(Schedule.class, loopSchedule.getId());
+        AttendanceStatus loopStatus = entityManager.find(AttendanceStatus.class, status.getId());
+        for (Long studentId : studentIds) {
+            Student student = studentRepository.findById(studentId).orElseThrow();
+            attendanceRepository.save(new Attendance()
+                    .setSchedule(schedule)
+                    .setStudent(student)
+                    .setAttendanceStatus(loopStatus)
+                    .setMarkedTime(LocalTime.now()));
+        }
+        entityManager.flush();
+        long loopStatements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+
+        statistics.clear();
+        GroupAttendanceResponse response = attendanceService.markAttendanceForGroup(
+                bulkSchedule.getId(), null, studentIds, status.getId());
+        entityManager.flush();
+        long bulkStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(STUDENTS, response.getMarked().size());
+        assertTrue(response.getFailures().isEmpty());
+        // цикл уже пользуется батчингом вставок, но всё равно делает по SELECT на каждого студента
+        assertTrue(loopStatements >= STUDENTS, "loop issued " + loopStatements + " statements");
+        assertTrue(bulkStatements <= 20, "bulk path issued " + bulkStatements + " statements");
+    }
+
+    @Test
+    void bulkMarkingReportsFailuresWithoutAbortingTheRest() {
+        List<Long> ids = new ArrayList<>(studentIds.subList(0, 10));
+        ids.add(-1L);
+        attendanceService.markAttendanceForGroup(bulkSchedule.getId(), null, studentIds.subList(0, 5), status.getId());
+        entityManager.flush();
+
+        GroupAttendanceResponse response = attendanceService.markAttendanceForGroup(
+                bulkSchedule.getId(), null, ids, status.getId());
+        entityManager.flush();
+
+        assertEquals(5, response.getMarked().size());
+        assertEquals(6, response.getFailures().size());
+        assertEquals(10, attendanceRepository.findByScheduleId(bulkSchedule.getId()).size());
+    }
+}
@@ -5,16 +5,25 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.AttendanceMarkDto;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
+import ru.tihomirov.university.dto.GroupAttendanceResponse;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.*;
 import ru.tihomirov.university.repository.*;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +35,9 @@ class AttendanceServiceImplTest {
     @Mock private ScheduleRepository scheduleRepository;
     @Mock private StudentRepository studentRepository;
     @Mock private AttendanceStatusRepository attendanceStatusRepository;
+    @Mock private AttendanceSummaryService attendanceSummaryService;
+    @Mock private AttendanceJournalService attendanceJournalService;
+    @Mock private AttendanceEventHub attendanceEventHub;
 
     @InjectMocks private AttendanceServiceImpl attendanceService;
 
@@ -77,22 +89,25 @@ class AttendanceServiceImplTest {
     void shouldSaveAttendance() {
         Attendance attendance = createSampleAttendance();
 
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
         when(studentRepository.findById(1L)).thenReturn(Optional.of(attendance.getStudent()));
         when(attendanceStatusRepository.findById(1L)).thenReturn(Optional.of(attendance.getAttendanceStatus()));
-        when(attendanceRepository.findByScheduleId(1L)).thenReturn(List.of());
-        when(attendanceRepository.save(any(Attendance.class))).thenReturn(attendance);
+        when(attendanceRepository.insertIfAbsent(1L, List.of(1L), 1L, attendance.getMarkedTime())).thenReturn(Map.of(1L, 1L));
 
         Attendance saved = attendanceService.save(attendance);
         assertNotNull(saved);
         assertEquals(attendance.getId(), saved.getId());
-        verify(attendanceRepository, times(1)).save(attendance);
+        assertSame(attendance.getStudent(), saved.getStudent());
+        verify(attendanceRepository, times(1)).insertIfAbsent(1L, List.of(1L), 1L, attendance.getMarkedTime());
+        verify(attendanceRepository, never()).findByScheduleIdAndStudentId(any(), any());
+        verify(attendanceRepository, never()).findByScheduleId(any());
+        verify(attendanceSummaryService).apply(List.of(), List.of(new AttendanceMarkDto(1L, 1L, null, "Present", 1L, 1L)));
     }
 
     @Test
     void shouldThrowWhenScheduleNotFoundOnSave() {
         Attendance attendance = createSampleAttendance();
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.empty());
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> attendanceService.save(attendance));
     }
@@ -100,7 +115,7 @@ class AttendanceServiceImplTest {
     @Test
     void shouldThrowWhenStudentNotFoundOnSave() {
         Attendance attendance = createSampleAttendance();
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
         when(studentRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> attendanceService.save(attendance));
@@ -109,7 +124,7 @@ class AttendanceServiceImplTest {
     @Test
     void shouldThrowWhenAttendanceStatusNotFoundOnSave() {
         Attendance attendance = createSampleAttendance();
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
         when(studentRepository.findById(1L)).thenReturn(Optional.of(attendance.getStudent()));
         when(attendanceStatusRepository.findById(1L)).thenReturn(Optional.empty());
 
@@ -119,12 +134,11 @@ class AttendanceServiceImplTest {
     @Test
     void shouldThrowWhenAttendanceAlreadyExists() {
         Attendance attendance = createSampleAttendance();
-        Attendance existingAttendance = createSampleAttendance();
 
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
         when(studentRepository.findById(1L)).thenReturn(Optional.of(attendance.getStudent()));
         when(attendanceStatusRepository.findById(1L)).thenReturn(Optional.of(attendance.getAttendanceStatus()));
-        when(attendanceRepository.findByScheduleId(1L)).thenReturn(List.of(existingAttendance));
+        when(attendanceRepository.insertIfAbsent(1L, List.of(1L), 1L, attendance.getMarkedTime())).thenReturn(Map.of());
 
         assertThrows(IllegalStateException.class, () -> attendanceService.save(attendance));
     }
@@ -138,17 +152,36 @@ class AttendanceServiceImplTest {
         assertThrows(EntityNotFoundException.class, () -> attendanceService.update(999L, updated));
     }
 
+    @Test
+    void shouldMoveSummaryCountersOnStatusUpdate() {
+        Attendance existing = createSampleAttendance();
+        AttendanceStatus late = new AttendanceStatus().setId(2L).setAttendanceStatusName("Late");
+        when(attendanceRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(attendanceStatusRepository.findById(2L)).thenReturn(Optional.of(late));
+        when(attendanceRepository.save(existing)).thenReturn(existing);
+
+        attendanceService.update(1L, new Attendance().setAttendanceStatus(new AttendanceStatus().setId(2L)));
+
+        verify(attendanceSummaryService).apply(
+                List.of(new AttendanceMarkDto(1L, 1L, null, "Present", 1L, 1L)),
+                List.of(new AttendanceMarkDto(1L, 1L, null, "Late", 1L, 1L)));
+        verify(attendanceJournalService, times(2)).evict(1L, 1L);
+    }
+
     @Test
     void shouldDeleteAttendanceSuccessfully() {
-        when(attendanceRepository.existsById(1L)).thenReturn(true);
+        AttendanceMarkDto mark = new AttendanceMarkDto(1L, 1L, 1L, "Present", 1L, 1L);
+        when(attendanceRepository.findMarkById(1L)).thenReturn(Optional.of(mark));
         attendanceService.delete(1L);
         verify(attendanceRepository).deleteById(1L);
+        verify(attendanceSummaryService).apply(List.of(mark), List.of());
     }
 
     @Test
     void shouldThrowWhenAttendanceNotFoundOnDelete() {
-        when(attendanceRepository.existsById(999L)).thenReturn(false);
+        when(attendanceRepository.findMarkById(999L)).thenReturn(Optional.empty());
         assertThrows(EntityNotFoundException.class, () -> attendanceService.delete(999L));
+        verifyNoInteractions(attendanceSummaryService);
     }
 
     @Test
@@ -169,10 +202,12 @@ class AttendanceServiceImplTest {
     @Test
     void shouldGetAllAttendances() {
         List<Attendance> attendances = List.of(createSampleAttendance());
-        when(attendanceRepository.findAll()).thenReturn(attendances);
+        when(attendanceRepository.findAllBy(any(), eq(KeysetOrder.ID.sort()), eq(Limit.of(50))))
+                .thenReturn(Window.from(attendances, i -> ScrollPosition.forward(Map.of("id", 1L))));
 
-        List<Attendance> result = attendanceService.getAll();
-        assertEquals(1, result.size());
+        CursorPage<Attendance> result = attendanceService.getAll(CursorRequest.first(50));
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getNextCursor());
     }
 
     @Test
@@ -220,39 +255,55 @@ class AttendanceServiceImplTest {
     @Test
     void shouldGetByAttendanceStatusId() {
         List<Attendance> attendances = List.of(createSampleAttendance());
-        when(attendanceRepository.findAll()).thenReturn(attendances);
+        when(attendanceRepository.findByStatusAfter(eq(1L), eq(0L), isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(attendances);
 
-        List<Attendance> result = attendanceService.getByAttendanceStatusId(1L);
-        assertEquals(1, result.size());
+        CursorPage<Attendance> result = attendanceService.getByAttendanceStatusId(1L, CursorRequest.first(50), null, null, null);
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getNextCursor());
+        verify(attendanceRepository, never()).findAll();
+    }
+
+    @Test
+    void shouldReturnNextCursorWhenMoreStatusRowsExist() {
+        Attendance first = createSampleAttendance().setId(5L);
+        Attendance second = createSampleAttendance().setId(7L);
+        when(attendanceRepository.findByStatusAfter(eq(1L), eq(3L), isNull(), isNull(), eq(2L), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(first, second));
+
+        String after = KeysetOrder.ID.encode(List.of(3L));
+        CursorPage<Attendance> result = attendanceService.getByAttendanceStatusId(1L, new CursorRequest(after, 1), null, null, 2L);
+        assertEquals(1, result.getContent().size());
+        assertEquals(List.of(5L), KeysetOrder.ID.values(result.getNextCursor()));
     }
 
     @Test
     void shouldGetFormattedAttendanceBySchedule() {
-        List<Attendance> attendances = List.of(createSampleAttendance());
-        when(attendanceRepository.findByScheduleId(1L)).thenReturn(attendances);
+        when(attendanceRepository.findInfoByScheduleId(1L)).thenReturn(List.of(createSampleAttendanceInfoDto()));
 
         List<AttendanceInfoDto> result = attendanceService.getFormattedAttendanceBySchedule(1L);
         assertEquals(1, result.size());
+        assertEquals("Petrov Petr Petrovich", result.get(0).getStudentFullName());
+        verify(attendanceRepository, never()).findByScheduleId(any());
     }
 
     @Test
     void shouldGetFormattedAttendanceByStudent() {
-        List<Attendance> attendances = List.of(createSampleAttendance());
-        when(attendanceRepository.findByStudentId(1L)).thenReturn(attendances);
+        when(attendanceRepository.findInfoByStudentId(1L)).thenReturn(List.of(createSampleAttendanceInfoDto()));
 
         List<AttendanceInfoDto> result = attendanceService.getFormattedAttendanceByStudent(1L);
         assertEquals(1, result.size());
+        verify(attendanceRepository, never()).findByStudentId(any());
     }
 
     @Test
     void shouldMarkAttendance() {
         Attendance attendance = createSampleAttendance();
 
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
         when(studentRepository.findById(1L)).thenReturn(Optional.of(attendance.getStudent()));
         when(attendanceStatusRepository.findById(1L)).thenReturn(Optional.of(attendance.getAttendanceStatus()));
-        when(attendanceRepository.findByScheduleId(1L)).thenReturn(List.of());
-        when(attendanceRepository.save(any(Attendance.class))).thenReturn(attendance);
+        when(attendanceRepository.insertIfAbsent(eq(1L), eq(List.of(1L)), eq(1L), any(LocalTime.class))).thenReturn(Map.of(1L, 1L));
 
         Attendance result = attendanceService.markAttendance(1L, 1L, 1L, 1L);
         assertNotNull(result);
@@ -267,44 +318,75 @@ class AttendanceServiceImplTest {
         Student student1 = new Student().setId(1L);
         Student student2 = new Student().setId(2L);
 
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(schedule));
         when(attendanceStatusRepository.findById(1L)).thenReturn(Optional.of(status));
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(student1));
-        when(studentRepository.findById(2L)).thenReturn(Optional.of(student2));
-        when(attendanceRepository.save(any(Attendance.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        List<Attendance> result = attendanceService.markAttendanceForGroup(1L, 1L, studentIds, 1L);
-        assertEquals(2, result.size());
-        verify(attendanceRepository, times(2)).save(any(Attendance.class));
+        when(studentRepository.findAllById(any())).thenReturn(List.of(student1, student2));
+        when(attendanceRepository.insertIfAbsent(eq(1L), eq(List.of(1L, 2L)), eq(1L), any())).thenReturn(Map.of(1L, 11L, 2L, 12L));
+
+        GroupAttendanceResponse result = attendanceService.markAttendanceForGroup(1L, 1L, studentIds, 1L);
+        assertEquals(List.of(11L, 12L), result.getMarked().stream().map(Attendance::getId).toList());
+        assertTrue(result.getFailures().isEmpty());
+        verify(attendanceRepository, times(1)).insertIfAbsent(any(), anyCollection(), any(), any());
+        verify(attendanceRepository, never()).saveAll(anyList());
+        verify(studentRepository, never()).findById(any());
+        verify(attendanceRepository, never()).save(any(Attendance.class));
     }
 
     @Test
-    void shouldThrowWhenStudentNotFoundInGroupMarking() {
+    void shouldReportMissingStudentInGroupMarking() {
         Schedule schedule = createSampleAttendance().getSchedule();
         AttendanceStatus status = createSampleAttendance().getAttendanceStatus();
         List<Long> studentIds = List.of(1L, 999L);
 
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(schedule));
+        when(attendanceStatusRepository.findById(1L)).thenReturn(Optional.of(status));
+        when(studentRepository.findAllById(any())).thenReturn(List.of(new Student().setId(1L)));
+        when(attendanceRepository.insertIfAbsent(eq(1L), eq(List.of(1L)), eq(1L), any())).thenReturn(Map.of(1L, 11L));
+
+        GroupAttendanceResponse result = attendanceService.markAttendanceForGroup(1L, 1L, studentIds, 1L);
+        assertEquals(1, result.getMarked().size());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(999L, result.getFailures().get(0).getStudentId());
+    }
+
+    @Test
+    void shouldReportAlreadyMarkedAndDuplicateStudentsInGroupMarking() {
+        Schedule schedule = createSampleAttendance().getSchedule();
+        AttendanceStatus status = createSampleAttendance().getAttendanceStatus();
+        List<Long> studentIds = List.of(1L, 2L, 2L);
+
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(schedule));
         when(attendanceStatusRepository.findById(1L)).thenReturn(Optional.of(status));
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(new Student().setId(1L)));
-        when(studentRepository.findById(999L)).thenReturn(Optional.empty());
+        when(studentRepository.findAllById(any())).thenReturn(List.of(new Student().setId(1L), new Student().setId(2L)));
+        // Студент 1 уже отмечен (в том числе параллельным запросом): вставка его пропускает
+        when(attendanceRepository.insertIfAbsent(eq(1L), eq(List.of(1L, 2L)), eq(1L), any())).thenReturn(Map.of(2L, 12L));
+
+        GroupAttendanceResponse result = attendanceService.markAttendanceForGroup(1L, 1L, studentIds, 1L);
+        assertEquals(1, result.getMarked().size());
+        assertEquals(2L, result.getMarked().get(0).getStudent().getId());
+        assertEquals(12L, result.getMarked().get(0).getId());
+        assertEquals(2, result.getFailures().size());
+        assertTrue(result.getFailures().stream().anyMatch(f -> f.getStudentId().equals(1L)));
+    }
+
+    @Test
+    void shouldThrowWhenScheduleNotFoundInGroupMarking() {
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class,
-                () -> attendanceService.markAttendanceForGroup(1L, 1L, studentIds, 1L));
+                () -> attendanceService.markAttendanceForGroup(1L, 1L, List.of(1L), 1L));
     }
 
     @Test
     void shouldSetCurrentTimeWhenMarkedTimeIsNull() {
         Attendance attendance = createSampleAttendance().setMarkedTime(null);
 
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(attendance.getSchedule()));
         when(studentRepository.findById(1L)).thenReturn(Optional.of(attendance.getStudent()));
         when(attendanceStatusRepository.findById(1L)).thenReturn(Optional.of(attendance.getAttendanceStatus()));
-        when(attendanceRepository.findByScheduleId(1L)).thenReturn(List.of());
-        when(attendanceRepository.save(any(Attendance.class))).thenAnswer(invocation -> {
-            Attendance saved = invocation.getArgument(0);
-            assertNotNull(saved.getMarkedTime());
-            return saved;
+        when(attendanceRepository.insertIfAbsent(eq(1L), eq(List.of(1L)), eq(1L), any())).thenAnswer(invocation -> {
+            assertNotNull(invocation.getArgument(3));
+            return Map.of(1L, 1L);
         });
 
         attendanceService.save(attendance);
@@ -319,14 +401,14 @@ class AttendanceServiceImplTest {
         updated.setSchedule(newSchedule);
 
         when(attendanceRepository.findById(1L)).thenReturn(Optional.of(existing));
-        when(scheduleRepository.findById(2L)).thenReturn(Optional.of(newSchedule));
+        when(scheduleRepository.findWithDetailsById(2L)).thenReturn(Optional.of(newSchedule));
         when(attendanceRepository.save(any(Attendance.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         Attendance result = attendanceService.update(1L, updated);
 
         // Then
-        verify(scheduleRepository, times(1)).findById(2L);
+        verify(scheduleRepository, times(1)).findWithDetailsById(2L);
         verify(attendanceRepository, times(1)).save(existing);
         assertEquals(newSchedule, existing.getSchedule());
         // Проверяем, что остальные поля не изменились
@@ -401,7 +483,7 @@ class AttendanceServiceImplTest {
 
         // Then
         // Не должно быть вызовов к репозиториям сущностей, т.к. обновляется только время
-        verify(scheduleRepository, never()).findById(any());
+        verify(scheduleRepository, never()).findWithDetailsById(any());
         verify(studentRepository, never()).findById(any());
         verify(attendanceStatusRepository, never()).findById(any());
         verify(attendanceRepository, times(1)).save(existing);
@@ -429,7 +511,7 @@ class AttendanceServiceImplTest {
                 .setMarkedTime(newMarkedTime);
 
         when(attendanceRepository.findById(1L)).thenReturn(Optional.of(existing));
-        when(scheduleRepository.findById(2L)).thenReturn(Optional.of(newSchedule));
+        when(scheduleRepository.findWithDetailsById(2L)).thenReturn(Optional.of(newSchedule));
         when(studentRepository.findById(2L)).thenReturn(Optional.of(newStudent));
         when(attendanceStatusRepository.findById(2L)).thenReturn(Optional.of(newStatus));
         when(attendanceRepository.save(any(Attendance.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -438,7 +520,7 @@ class AttendanceServiceImplTest {
         Attendance result = attendanceService.update(1L, updated);
 
         // Then
-        verify(scheduleRepository, times(1)).findById(2L);
+        verify(scheduleRepository, times(1)).findWithDetailsById(2L);
         verify(studentRepository, times(1)).findById(2L);
         verify(attendanceStatusRepository, times(1)).findById(2L);
         verify(attendanceRepository, times(1)).save(existing);
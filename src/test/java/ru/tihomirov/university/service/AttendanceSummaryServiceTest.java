@@ -0,0 +1,191 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tihomirov.university.dto.AttendanceSummaryDto;
+import ru.tihomirov.university.model.*;
+import ru.tihomirov.university.repository.AttendanceRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сводка посещаемости: инкрементальные счётчики после отметок, правок и удалений совпадают
+ * с полной пересборкой, пустая сводка заполняется при старте, а сводка студента читается одним запросом.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AttendanceServiceImpl.class, AttendanceSummaryServiceImpl.class, AttendanceJournalServiceImpl.class,
+        AttendanceEventHub.class})
+class AttendanceSummaryServiceTest {
+
+    private static final String ALL_ROWS = "SELECT * FROM attendance_summary ORDER BY student_id, course_id, class_type_id";
+
+    @Autowired private AttendanceService attendanceService;
+    @Autowired private AttendanceSummaryService attendanceSummaryService;
+    @Autowired private AttendanceSummaryServiceImpl attendanceSummaryBackfill;
+    @Autowired private AttendanceRepository attendanceRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private final List<Student> students = new ArrayList<>();
+    private final List<Schedule> lectures = new ArrayList<>();
+    private Schedule practice;
+    private AttendanceStatus present;
+    private AttendanceStatus absent;
+    private AttendanceStatus late;
+    private AttendanceStatus excused;
+
+    @BeforeEach
+    void setUp() {
+        // статусы кэшируются между контекстами тестов: чужие записи с теми же id подменили бы названия
+        entityManagerFactory.getCache().evictAll();
+        Group group = new Group().setName("ЦПИ-21").setCountStudents(3).setMaxCountStudents(30);
+        Teacher teacher = new Teacher().setLastName("Иванов").setEmail("ivanov@uni.ru");
+        Course math = new Course().setName("Математика");
+        ClassType lecture = new ClassType().setName("Лекция");
+        ClassType seminar = new ClassType().setName("Практика");
+        present = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+        absent = new AttendanceStatus().setAttendanceStatusName("Отсутствовал");
+        late = new AttendanceStatus().setAttendanceStatusName("опоздал");
+        excused = new AttendanceStatus().setAttendanceStatusName("Уважительная причина");
+        List.of(group, teacher, math, lecture, seminar, present, absent, late, excused).forEach(entityManager::persist);
+
+        for (int i = 0; i < 3; i++) {
+            Student student = new Student().setLastName("Студент " + i).setGroup(group);
+            entityManager.persist(student);
+            students.add(student);
+        }
+        for (int day = 1; day <= 3; day++) {
+            lectures.add(schedule(day, group, teacher, math, lecture));
+        }
+        practice = schedule(4, group, teacher, math, seminar);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Schedule schedule(int day, Group group, Teacher teacher, Course course, ClassType classType) {
+        Schedule schedule = new Schedule()
+                .setDate(LocalDate.of(2026, 9, day))
+                .setStartTime(LocalTime.of(9, 0)).setEndTime(LocalTime.of(10, 30))
+                .setGroup(group).setTeacher(teacher).setCourse(course).setClassType(classType);
+        entityManager.persist(schedule);
+        return schedule;
+    }
+
+    private void markTerm() {
+        List<Long> ids = students.stream().map(Student::getId).toList();
+        Student first = students.get(0);
+        Student second = students.get(1);
+
+        attendanceService.markAttendanceForGroup(lectures.get(0).getId(), null, ids, present.getId());
+        attendanceService.markAttendance(lectures.get(1).getId(), first.getId(), null, absent.getId());
+        attendanceService.markAttendance(lectures.get(1).getId(), second.getId(), null, late.getId());
+        attendanceService.markAttendance(lectures.get(2).getId(), first.getId(), null, excused.getId());
+        attendanceService.markAttendanceForGroup(practice.getId(), null, ids, present.getId());
+
+        Long corrected = attendanceRepository.findByScheduleIdAndStudentId(lectures.get(1).getId(), first.getId())
+                .orElseThrow().getId();
+        attendanceService.update(corrected, new Attendance().setAttendanceStatus(new AttendanceStatus().setId(late.getId())));
+        Long removed = attendanceRepository.findByScheduleIdAndStudentId(practice.getId(), second.getId())
+                .orElseThrow().getId();
+        attendanceService.delete(removed);
+        entityManager.flush();
+    }
+
+    @Test
+    void countersFollowMarksUpdatesAndDeletes() {
+        markTerm();
+        // Будущее занятие ещё не проведено и в heldCount не входит
+        Schedule next = lectures.get(0);
+        entityManager.persist(new Schedule().setDate(LocalDate.now().plusDays(7))
+                .setStartTime(next.getStartTime()).setEndTime(next.getEndTime())
+                .setGroup(next.getGroup()).setTeacher(next.getTeacher())
+                .setCourse(next.getCourse()).setClassType(next.getClassType()));
+        entityManager.flush();
+
+        List<AttendanceSummaryDto> first = attendanceSummaryService.getByStudentId(students.get(0).getId());
+        assertEquals(2, first.size());
+        AttendanceSummaryDto lecture = first.get(0);
+        assertEquals("Лекция", lecture.getClassTypeName());
+        assertEquals(1, lecture.getPresentCount());
+        assertEquals(0, lecture.getAbsentCount());
+        assertEquals(1, lecture.getLateCount());
+        assertEquals(3, lecture.getMarkedCount()); // уважительная причина учитывается только в числе отметок
+        assertEquals(3, lecture.getHeldCount());
+        assertEquals(66.7, lecture.getAttendancePercent());
+        assertEquals(1, first.get(1).getPresentCount());
+
+        List<AttendanceSummaryDto> second = attendanceSummaryService.getByStudentId(students.get(1).getId());
+        assertEquals(0, second.get(1).getMarkedCount()); // отметка на практике удалена, строка осталась с нулями
+        assertEquals(1, second.get(1).getHeldCount()); // а занятие по-прежнему считается проведённым
+    }
+
+    @Test
+    void rebuildProducesTheSameRowsAsIncrementalUpdates() {
+        markTerm();
+        // после удаления отметки строка с нулями остаётся — пересборка её тоже обнуляет, а не удаляет
+        List<Map<String, Object>> incremental = jdbcTemplate.queryForList(ALL_ROWS);
+        // расхождение, которое должна исправить пересборка
+        jdbcTemplate.update("UPDATE attendance_summary SET present_count = present_count + 5");
+
+        int rows = attendanceSummaryService.rebuild();
+
+        assertEquals(incremental, jdbcTemplate.queryForList(ALL_ROWS));
+        assertEquals(incremental.size(), rows);
+    }
+
+    @Test
+    void emptySummaryIsBackfilledFromExistingMarks() {
+        markTerm();
+        List<Map<String, Object>> incremental = jdbcTemplate.queryForList(ALL_ROWS).stream()
+                .filter(row -> ((Number) row.get("marked_count")).intValue() > 0)
+                .toList();
+        // отметки сделаны до появления сводки
+        jdbcTemplate.update("DELETE FROM attendance_summary");
+
+        attendanceSummaryBackfill.backfillIfEmpty();
+
+        assertEquals(incremental, jdbcTemplate.queryForList(ALL_ROWS));
+    }
+
+    @Test
+    void filledSummaryIsNotRebuiltAtStartup() {
+        markTerm();
+        jdbcTemplate.update("UPDATE attendance_summary SET present_count = 42");
+        List<Map<String, Object>> before = jdbcTemplate.queryForList(ALL_ROWS);
+
+        attendanceSummaryBackfill.backfillIfEmpty();
+
+        assertEquals(before, jdbcTemplate.queryForList(ALL_ROWS));
+    }
+
+    @Test
+    void studentSummaryIsOneQuery() {
+        markTerm();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        attendanceSummaryService.getByStudentId(students.get(2).getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
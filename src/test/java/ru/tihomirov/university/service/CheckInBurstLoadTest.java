@@ -0,0 +1,147 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.tihomirov.university.dto.CheckInResult;
+import ru.tihomirov.university.model.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Нагрузочный сценарий самоотметки: несколько тысяч студентов отмечаются за одну минуту,
+ * каждый дважды (повтор по нажатию) и один раз с ошибкой в коде. Фоновая запись идёт параллельно,
+ * как по расписанию flush-interval.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CheckInServiceImpl.class, AttendanceServiceImpl.class, AttendanceSummaryServiceImpl.class,
+        AttendanceJournalServiceImpl.class, AttendanceEventHub.class})
+class CheckInBurstLoadTest {
+
+    private static final int GROUPS = 4;
+    private static final int STUDENTS_PER_GROUP = 750;
+    private static final int THREADS = 32;
+
+    @Autowired private CheckInService checkInService;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final Map<Long, List<Long>> studentsBySchedule = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            Teacher teacher = new Teacher().setLastName("Иванов").setEmail("ivanov@uni.ru");
+            Course course = new Course().setName("Математика");
+            ClassType lecture = new ClassType().setName("Лекция");
+            AttendanceStatus present = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+            List.of(teacher, course, lecture, present).forEach(entityManager::persist);
+            for (int g = 0; g < GROUPS; g++) {
+                Group group = new Group().setName("ЦПИ-" + g).setCountStudents(STUDENTS_PER_GROUP).setMaxCountStudents(1000);
+                entityManager.persist(group);
+                Schedule schedule = new Schedule()
+                        .setDate(LocalDate.of(2026, 9, 1))
+                        .setStartTime(LocalTime.of(9 + g, 0)).setEndTime(LocalTime.of(9 + g, 50))
+                        .setGroup(group).setTeacher(teacher).setCourse(course).setClassType(lecture);
+                entityManager.persist(schedule);
+                List<Student> students = new ArrayList<>();
+                for (int i = 0; i < STUDENTS_PER_GROUP; i++) {
+                    Student student = new Student().setLastName("Студент " + g + "-" + i).setGroup(group);
+                    entityManager.persist(student);
+                    students.add(student);
+                }
+                entityManager.flush();
+                studentsBySchedule.put(schedule.getId(), students.stream().map(Student::getId).toList());
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "attendance_summary", "attendance", "schedule", "students",
+                "attendance_status", "class_types", "courses", "teachers", "groups");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void burstOfCheckInsIsAbsorbedAndPersistedOnce() throws Exception {
+        Map<Long, String> codes = new HashMap<>();
+        studentsBySchedule.keySet().forEach(id -> codes.put(id, checkInService.issueCode(id).getCode()));
+
+        List<Callable<CheckInResult>> requests = new ArrayList<>();
+        studentsBySchedule.forEach((scheduleId, students) -> students.forEach(studentId -> {
+            String code = codes.get(scheduleId);
+            String wrong = code.equals("000000") ? "111111" : "000000";
+            requests.add(() -> checkInService.checkIn(scheduleId, studentId, wrong));
+            requests.add(() -> checkInService.checkIn(scheduleId, studentId, code));
+            requests.add(() -> checkInService.checkIn(scheduleId, studentId, code));
+        }));
+        Collections.shuffle(requests, new Random(42));
+        int total = GROUPS * STUDENTS_PER_GROUP;
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        AtomicBoolean burstDone = new AtomicBoolean();
+        ExecutorService flusher = Executors.newSingleThreadExecutor();
+        Future<?> flushing = flusher.submit(() -> {
+            while (!burstDone.get()) {
+                checkInService.flush();
+                Thread.sleep(200);
+            }
+            return null;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        long started = System.nanoTime();
+        List<Future<CheckInResult>> results = clients.invokeAll(requests);
+        burstDone.set(true);
+        flushing.get(60, TimeUnit.SECONDS);
+        checkInService.flush();
+        Duration persisted = Duration.ofNanos(System.nanoTime() - started);
+        clients.shutdown();
+        flusher.shutdown();
+
+        Map<CheckInResult, Integer> counts = new EnumMap<>(CheckInResult.class);
+        for (Future<CheckInResult> result : results) {
+            counts.merge(result.get(), 1, Integer::sum);
+        }
+        assertEquals(total, counts.get(CheckInResult.ACCEPTED));
+        assertEquals(total, counts.get(CheckInResult.ALREADY_CHECKED_IN));
+        assertEquals(total, counts.get(CheckInResult.INVALID_CODE));
+        assertEquals(total, JdbcTestUtils.countRowsInTable(jdbcTemplate, "attendance"));
+        assertEquals(total, jdbcTemplate.queryForObject(
+                "select count(distinct schedule_id * 100000 + student_id) from attendance", Integer.class));
+        // Весь всплеск укладывается в минуту с запасом, а проверка отметки не ходит в БД:
+        // запросы — только пакетная запись, по несколько на пачку занятия
+        assertTrue(persisted.compareTo(Duration.ofSeconds(60)) < 0, "burst took " + persisted);
+        assertTrue(statistics.getPrepareStatementCount() < total / 10,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,192 @@
+package ru.tihomirov.university.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.tihomirov.university.dto.AttendanceFailureDto;
+import ru.tihomirov.university.dto.CheckInCodeDto;
+import ru.tihomirov.university.dto.CheckInResult;
+import ru.tihomirov.university.dto.GroupAttendanceResponse;
+import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.model.AttendanceStatus;
+import ru.tihomirov.university.model.Group;
+import ru.tihomirov.university.model.Schedule;
+import ru.tihomirov.university.model.Teacher;
+import ru.tihomirov.university.repository.AttendanceRepository;
+import ru.tihomirov.university.repository.AttendanceStatusRepository;
+import ru.tihomirov.university.repository.ScheduleRepository;
+import ru.tihomirov.university.repository.StudentRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CheckInServiceImplTest {
+
+    @Mock private ScheduleRepository scheduleRepository;
+    @Mock private StudentRepository studentRepository;
+    @Mock private AttendanceRepository attendanceRepository;
+    @Mock private AttendanceStatusRepository attendanceStatusRepository;
+    @Mock private AttendanceService attendanceService;
+
+    private Instant now = Instant.parse("2026-09-01T09:00:00Z");
+    private CheckInServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Clock clock = new Clock() {
+            @Override public ZoneOffset getZone() { return ZoneOffset.UTC; }
+            @Override public Clock withZone(ZoneId zone) { return this; }
+            @Override public Instant instant() { return now; }
+        };
+        service = new CheckInServiceImpl(scheduleRepository, studentRepository, attendanceRepository,
+                attendanceStatusRepository, attendanceService, clock, Duration.ofSeconds(30), 6, "Присутствовал", 3, 100, 3);
+
+        Schedule schedule = new Schedule().setId(1L).setGroup(new Group().setId(5L)).setTeacher(new Teacher().setId(7L));
+        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(attendanceStatusRepository.findByAttendanceStatusName("Присутствовал"))
+                .thenReturn(Optional.of(new AttendanceStatus().setId(3L)));
+        when(studentRepository.findIdsByGroupId(5L)).thenReturn(List.of(10L, 11L, 12L, 13L, 14L));
+        when(attendanceRepository.findMarkedStudentIdsBySchedule(1L)).thenReturn(List.of(14L));
+        writesSucceed();
+    }
+
+    private void writesSucceed() {
+        when(attendanceService.markAttendanceForGroup(anyLong(), any(), anyList(), anyLong()))
+                .thenReturn(new GroupAttendanceResponse());
+    }
+
+    @Test
+    void acceptsCurrentAndPreviousCodeUntilTheyExpire() {
+        String first = service.issueCode(1L).getCode();
+        now = now.plusSeconds(25);
+        CheckInCodeDto second = service.issueCode(1L);
+
+        assertEquals(6, second.getCode().length());
+        assertEquals(now.plusSeconds(30), second.getExpiresAt());
+        assertEquals(CheckInResult.ACCEPTED, service.checkIn(1L, 10L, first));
+        assertEquals(CheckInResult.ACCEPTED, service.checkIn(1L, 11L, second.getCode()));
+
+        now = now.plusSeconds(10); // первый код истёк, второй ещё действует
+        assertEquals(first.equals(second.getCode()) ? CheckInResult.ACCEPTED : CheckInResult.INVALID_CODE,
+                service.checkIn(1L, 12L, first));
+        now = now.plusSeconds(30);
+        assertEquals(CheckInResult.INVALID_CODE, service.checkIn(1L, 13L, second.getCode()));
+    }
+
+    @Test
+    void rejectsUnknownScheduleWrongCodeAndForeignStudent() {
+        String code = service.issueCode(1L).getCode();
+
+        assertEquals(CheckInResult.INVALID_CODE, service.checkIn(2L, 10L, code));
+        assertEquals(CheckInResult.INVALID_CODE, service.checkIn(1L, 10L, code.equals("000000") ? "111111" : "000000"));
+        assertEquals(CheckInResult.NOT_IN_GROUP, service.checkIn(1L, 99L, code));
+    }
+
+    @Test
+    void deduplicatesInMemoryIncludingManualMarks() {
+        String code = service.issueCode(1L).getCode();
+
+        assertEquals(CheckInResult.ACCEPTED, service.checkIn(1L, 10L, code));
+        assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(1L, 10L, code));
+        assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(1L, 14L, code)); // отмечен преподавателем
+        verify(attendanceRepository, times(1)).findMarkedStudentIdsBySchedule(1L);
+    }
+
+    @Test
+    void fullQueueRejectsWithoutConsumingDedupeSlot() {
+        String code = service.issueCode(1L).getCode();
+        for (long id = 10; id <= 12; id++) {
+            assertEquals(CheckInResult.ACCEPTED, service.checkIn(1L, id, code));
+        }
+
+        assertEquals(CheckInResult.QUEUE_FULL, service.checkIn(1L, 13L, code));
+        service.flush();
+        assertEquals(CheckInResult.ACCEPTED, service.checkIn(1L, 13L, code));
+    }
+
+    @Test
+    void flushWritesOneBatchPerSchedule() {
+        String code = service.issueCode(1L).getCode();
+        service.checkIn(1L, 10L, code);
+        service.checkIn(1L, 11L, code);
+
+        assertEquals(2, service.flush());
+        verify(attendanceService).markAttendanceForGroup(1L, 7L, List.of(10L, 11L), 3L);
+        assertEquals(0, service.flush());
+    }
+
+    @Test
+    void failedWriteIsRetriedAndReleasedAfterLastAttempt() {
+        String code = service.issueCode(1L).getCode();
+        service.checkIn(1L, 10L, code);
+        when(attendanceService.markAttendanceForGroup(anyLong(), any(), anyList(), anyLong()))
+                .thenThrow(new EntityNotFoundException("Schedule not found"));
+
+        assertEquals(0, service.flush());
+        assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(1L, 10L, code), "still queued for retry");
+        assertEquals(0, service.flush());
+        assertEquals(0, service.flush());
+        verify(attendanceService, times(3)).markAttendanceForGroup(1L, 7L, List.of(10L), 3L);
+
+        assertEquals(CheckInResult.ACCEPTED, service.checkIn(1L, 10L, code));
+    }
+
+    @Test
+    void failedBatchIsSplitSoOneBadStudentDoesNotLoseOthers() {
+        String code = service.issueCode(1L).getCode();
+        service.checkIn(1L, 10L, code);
+        service.checkIn(1L, 11L, code);
+        service.checkIn(1L, 12L, code);
+        when(attendanceService.markAttendanceForGroup(1L, 7L, List.of(10L, 11L, 12L), 3L))
+                .thenThrow(new IllegalStateException("fk_attendance_student"));
+        when(attendanceService.markAttendanceForGroup(1L, 7L, List.of(11L), 3L))
+                .thenThrow(new IllegalStateException("fk_attendance_student"));
+
+        assertEquals(2, service.flush());
+        verify(attendanceService).markAttendanceForGroup(1L, 7L, List.of(10L), 3L);
+        verify(attendanceService).markAttendanceForGroup(1L, 7L, List.of(12L), 3L);
+
+        // Временный сбой прошёл — отметка из повторной очереди записывается следующим сбросом
+        reset(attendanceService);
+        writesSucceed();
+        assertEquals(1, service.flush());
+        verify(attendanceService).markAttendanceForGroup(1L, 7L, List.of(11L), 3L);
+        assertEquals(0, service.flush());
+    }
+
+    @Test
+    void manualMarkCountsAsWrittenAndOtherFailuresAreRetried() {
+        String code = service.issueCode(1L).getCode();
+        service.checkIn(1L, 10L, code);
+        service.checkIn(1L, 11L, code);
+        service.checkIn(1L, 12L, code);
+        GroupAttendanceResponse response = new GroupAttendanceResponse();
+        response.getFailures().add(new AttendanceFailureDto(10L, AttendanceFailureDto.ALREADY_MARKED));
+        response.getFailures().add(new AttendanceFailureDto(11L, "Student not found with id: 11"));
+        when(attendanceService.markAttendanceForGroup(1L, 7L, List.of(10L, 11L, 12L), 3L)).thenReturn(response);
+        when(attendanceService.markAttendanceForGroup(1L, 7L, List.of(11L), 3L)).thenReturn(new GroupAttendanceResponse()
+                .setFailures(List.of(new AttendanceFailureDto(11L, "Student not found with id: 11"))));
+
+        assertEquals(2, service.flush());
+        assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(1L, 11L, code), "still queued for retry");
+        assertEquals(0, service.flush());
+        assertEquals(0, service.flush());
+        verify(attendanceService, times(2)).markAttendanceForGroup(1L, 7L, List.of(11L), 3L);
+
+        // После последней попытки место освобождено, а отмеченные студенты так и остались отмеченными
+        assertEquals(CheckInResult.ACCEPTED, service.checkIn(1L, 11L, code));
+        assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(1L, 10L, code));
+        assertEquals(CheckInResult.ALREADY_CHECKED_IN, service.checkIn(1L, 12L, code));
+    }
+}
@@ -5,11 +5,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Course;
 import ru.tihomirov.university.repository.CourseRepository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,9 +40,10 @@ class CourseServiceTest {
 
     @Test
     void shouldReturnAllCourses() {
-        when(courseRepository.findAll()).thenReturn(List.of(sampleCourse()));
+        when(courseRepository.findAllBy(any(), any(), any()))
+                .thenReturn(Window.from(List.of(sampleCourse()), i -> ScrollPosition.forward(Map.of("id", 1L))));
 
-        List<Course> result = courseService.getAll();
+        List<Course> result = courseService.getAll(CursorRequest.first(50)).getContent();
 
         assertEquals(1, result.size());
         assertEquals("Математика", result.get(0).getName());
@@ -0,0 +1,169 @@
+package ru.tihomirov.university.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tihomirov.university.dto.AttendanceInfoDto;
+import ru.tihomirov.university.dto.ExportFilter;
+import ru.tihomirov.university.dto.ExportFormat;
+import ru.tihomirov.university.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Потоковая выгрузка: фильтры, форматы NDJSON/CSV и чтение одним запросом без загрузки сущностей.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ExportServiceImpl.class, JacksonAutoConfiguration.class})
+class ExportServiceTest {
+
+    private static final int STUDENTS = 40;
+    private static final int DAYS = 30;
+
+    @Autowired private ExportService exportService;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Group group;
+    private Group otherGroup;
+    private Course math;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        group = new Group().setName("ЦПИ-21").setCountStudents(STUDENTS).setMaxCountStudents(50);
+        otherGroup = new Group().setName("ЦПИ-22").setCountStudents(1).setMaxCountStudents(50);
+        Teacher teacher = new Teacher().setLastName("Иванов").setName("Иван").setEmail("ivanov@uni.ru");
+        math = new Course().setName("Математика");
+        Course physics = new Course().setName("Физика, \"основы\"");
+        ClassType lecture = new ClassType().setName("Лекция");
+        AttendanceStatus present = new AttendanceStatus().setAttendanceStatusName("Присутствовал");
+        List.of(group, otherGroup, teacher, math, physics, lecture, present).forEach(entityManager::persist);
+
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student().setLastName("Студент" + i).setName("Имя").setGroup(group);
+            entityManager.persist(student);
+            students.add(student);
+        }
+        Student other = new Student().setLastName("Чужой").setName("Имя").setGroup(otherGroup);
+        entityManager.persist(other);
+
+        for (int day = 1; day <= DAYS; day++) {
+            Schedule schedule = new Schedule()
+                    .setDate(LocalDate.of(2026, 9, day))
+                    .setStartTime(LocalTime.of(9, 0)).setEndTime(LocalTime.of(10, 30))
+                    .setGroup(group).setTeacher(teacher).setCourse(day % 2 == 0 ? physics : math).setClassType(lecture);
+            entityManager.persist(schedule);
+            for (Student student : students) {
+                entityManager.persist(new Attendance().setSchedule(schedule).setStudent(student)
+                        .setAttendanceStatus(present).setMarkedTime(LocalTime.of(9, 5)));
+            }
+        }
+        Schedule foreign = new Schedule()
+                .setDate(LocalDate.of(2026, 9, 1))
+                .setStartTime(LocalTime.of(12, 0)).setEndTime(LocalTime.of(13, 30))
+                .setGroup(otherGroup).setTeacher(teacher).setCourse(math).setClassType(lecture);
+        entityManager.persist(foreign);
+        entityManager.persist(new Attendance().setSchedule(foreign).setStudent(other)
+                .setAttendanceStatus(present).setMarkedTime(LocalTime.of(12, 1)));
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void wholeTermIsStreamedInOneQueryWithoutManagedEntities() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+
+        statistics.clear();
+        long rows = exportService.exportAttendance(new ExportFilter(), ExportFormat.NDJSON, out);
+
+        assertEquals(DAYS * STUDENTS + 1, rows);
+        assertEquals(rows, out.lines);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void ndjsonRespectsDateRangeAndGroupFilters() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportFilter filter = new ExportFilter()
+                .setDateFrom(LocalDate.of(2026, 9, 1))
+                .setDateTo(LocalDate.of(2026, 9, 3))
+                .setGroupId(group.getId());
+
+        long rows = exportService.exportAttendance(filter, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3 * STUDENTS, rows);
+        assertEquals(rows, lines.length);
+        AttendanceInfoDto first = objectMapper.readValue(lines[0], AttendanceInfoDto.class);
+        AttendanceInfoDto last = objectMapper.readValue(lines[lines.length - 1], AttendanceInfoDto.class);
+        assertEquals(LocalDate.of(2026, 9, 1), first.getScheduleDate());
+        assertEquals(LocalDate.of(2026, 9, 3), last.getScheduleDate());
+        assertEquals("ЦПИ-21", first.getGroupName());
+        assertEquals(LocalTime.of(9, 5), first.getMarkedTime());
+    }
+
+    @Test
+    void csvHasHeaderAndEscapesValues() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportFilter filter = new ExportFilter()
+                .setDateFrom(LocalDate.of(2026, 9, 2))
+                .setDateTo(LocalDate.of(2026, 9, 2));
+
+        long rows = exportService.exportSchedules(filter, ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, rows);
+        assertEquals("date,start_time,end_time,group,course,class_type,teacher", lines[0]);
+        assertEquals("2026-09-02,09:00:00,10:30:00,ЦПИ-21,\"Физика, \"\"основы\"\"\",Лекция,Иванов Иван", lines[1]);
+    }
+
+    @Test
+    void courseFilterAppliesToScheduleExport() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportSchedules(new ExportFilter().setCourseId(math.getId()), ExportFormat.NDJSON, out);
+
+        // нечётные дни у ЦПИ-21 и одно занятие ЦПИ-22
+        assertEquals(DAYS / 2 + 1, rows);
+        assertFalse(out.toString(StandardCharsets.UTF_8).contains("Физика"));
+    }
+
+    // Не копит вывод: для большой выгрузки важен только счёт строк
+    private static class CountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+    }
+}
@@ -5,11 +5,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import ru.tihomirov.university.dto.CursorPage;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.repository.GroupRepository;
+import ru.tihomirov.university.repository.KeysetOrder;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,12 +44,14 @@ class GroupServiceTest {
 
     @Test
     void shouldReturnAllGroups() {
-        when(groupRepository.findAll()).thenReturn(List.of(sampleGroup()));
+        when(groupRepository.findAllBy(any(), eq(KeysetOrder.ID.sort()), eq(Limit.of(1))))
+                .thenReturn(Window.from(List.of(sampleGroup()), i -> ScrollPosition.forward(Map.of("id", 1L)), true));
 
-        List<Group> result = groupService.getAll();
+        CursorPage<Group> result = groupService.getAll(CursorRequest.first(1));
 
-        assertEquals(1, result.size());
-        assertEquals("ЦПИ-21", result.get(0).getName());
+        assertEquals(1, result.getContent().size());
+        assertEquals("ЦПИ-21", result.getContent().get(0).getName());
+        assertEquals(List.of(1L), KeysetOrder.ID.values(result.getNextCursor()));
     }
 
     @Test
@@ -0,0 +1,136 @@
+package ru.tihomirov.university.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.tihomirov.university.dto.ScheduleConflictDto;
+import ru.tihomirov.university.dto.ScheduleSlotDto;
+import ru.tihomirov.university.model.Group;
+import ru.tihomirov.university.model.Schedule;
+import ru.tihomirov.university.model.Teacher;
+import ru.tihomirov.university.repository.ScheduleRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ScheduleConflictIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 1);
+
+    private ScheduleRepository scheduleRepository;
+    private ScheduleConflictIndex index;
+
+    @BeforeEach
+    void setUp() {
+        scheduleRepository = mock(ScheduleRepository.class);
+        when(scheduleRepository.findAllSlots()).thenReturn(List.of(
+                slot(1L, 10L, 20L, "08:00", "12:00"),   // длинное занятие
+                slot(2L, 10L, 21L, "12:00", "13:30"),
+                slot(3L, 11L, 20L, "14:00", "15:30")
+        ));
+        index = new ScheduleConflictIndex(scheduleRepository);
+        index.warmUp();
+    }
+
+    private static ScheduleSlotDto slot(Long id, Long groupId, Long teacherId, String start, String end) {
+        return new ScheduleSlotDto(id, groupId, teacherId, DAY, LocalTime.parse(start), LocalTime.parse(end));
+    }
+
+    @Test
+    void shouldWarmOnlyOnce() {
+        index.warmUp();
+        index.findGroupConflict(10L, DAY, LocalTime.of(9, 0), LocalTime.of(10, 0), null);
+        verify(scheduleRepository, times(1)).findAllSlots();
+    }
+
+    @Test
+    void shouldFindOverlapsAndIgnoreTouchingIntervals() {
+        assertEquals(Optional.of(1L), index.findGroupConflict(10L, DAY, LocalTime.of(11, 0), LocalTime.of(11, 30), null));
+        assertEquals(Optional.of(2L), index.findGroupConflict(10L, DAY, LocalTime.of(13, 0), LocalTime.of(14, 0), null));
+        assertTrue(index.findGroupConflict(10L, DAY, LocalTime.of(13, 30), LocalTime.of(15, 0), null).isEmpty());
+        assertTrue(index.findGroupConflict(10L, DAY.plusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0), null).isEmpty());
+        assertEquals(Optional.of(3L), index.findTeacherConflict(20L, DAY, LocalTime.of(15, 0), LocalTime.of(16, 0), null));
+    }
+
+    @Test
+    void shouldFindLongIntervalBehindShorterOnes() {
+        // Данные до индекса могли содержать пересечения: 08:00–12:00 накрывает более позднее 09:00–09:30
+        index.put(new Schedule().setId(4L).setGroup(new Group().setId(10L)).setTeacher(new Teacher().setId(22L))
+                .setDate(DAY).setStartTime(LocalTime.of(9, 0)).setEndTime(LocalTime.of(9, 30)));
+
+        assertEquals(Optional.of(1L), index.findGroupConflict(10L, DAY, LocalTime.of(10, 0), LocalTime.of(10, 30), null));
+    }
+
+    @Test
+    void shouldExcludeOwnSlotAndMoveOnUpdate() {
+        assertTrue(index.findGroupConflict(10L, DAY, LocalTime.of(12, 0), LocalTime.of(13, 0), 2L).isEmpty());
+
+        index.put(new Schedule().setId(2L).setGroup(new Group().setId(11L)).setTeacher(new Teacher().setId(21L))
+                .setDate(DAY).setStartTime(LocalTime.of(16, 0)).setEndTime(LocalTime.of(17, 0)));
+
+        assertTrue(index.findGroupConflict(10L, DAY, LocalTime.of(12, 30), LocalTime.of(13, 0), null).isEmpty());
+        assertEquals(Optional.of(2L), index.findGroupConflict(11L, DAY, LocalTime.of(16, 30), LocalTime.of(17, 30), null));
+    }
+
+    @Test
+    void shouldForgetRemovedSlot() {
+        index.remove(3L);
+        assertTrue(index.findGroupConflict(11L, DAY, LocalTime.of(14, 0), LocalTime.of(15, 30), null).isEmpty());
+        assertTrue(index.findTeacherConflict(20L, DAY, LocalTime.of(14, 0), LocalTime.of(15, 30), null).isEmpty());
+    }
+
+    @Test
+    void shouldCheckBatchAgainstIndexAndItself() {
+        List<ScheduleConflictDto> conflicts = index.checkBatch(List.of(
+                slot(null, 12L, 30L, "09:00", "10:00"),   // свободно
+                slot(null, 12L, 31L, "09:30", "10:30"),   // группа 12 занята слотом #0
+                slot(null, 13L, 20L, "11:00", "12:00"),   // преподаватель 20 занят занятием 1
+                slot(null, 14L, 32L, "16:00", "17:00")    // свободно
+        ));
+
+        assertEquals(2, conflicts.size());
+        assertEquals(1, conflicts.get(0).getIndex());
+        assertEquals(ScheduleConflictIndex.GROUP, conflicts.get(0).getType());
+        assertNull(conflicts.get(0).getConflictingScheduleId());
+        assertEquals(2, conflicts.get(1).getIndex());
+        assertEquals(ScheduleConflictIndex.TEACHER, conflicts.get(1).getType());
+        assertEquals(1L, conflicts.get(1).getConflictingScheduleId());
+
+        // Пачка ничего не записывает в индекс
+        assertTrue(index.findGroupConflict(12L, DAY, LocalTime.of(9, 0), LocalTime.of(10, 0), null).isEmpty());
+    }
+
+    @Test
+    void shouldResyncWithChangesMadeElsewhere() {
+        // Другой узел удалил занятие 1, перенёс 2 и добавил 4
+        when(scheduleRepository.findAllSlots()).thenReturn(List.of(
+                slot(2L, 10L, 21L, "16:00", "17:30"),
+                slot(3L, 11L, 20L, "14:00", "15:30"),
+                slot(4L, 12L, 22L, "09:00", "10:00")
+        ));
+
+        index.resync();
+
+        assertTrue(index.findGroupConflict(10L, DAY, LocalTime.of(9, 0), LocalTime.of(13, 0), null).isEmpty());
+        assertEquals(Optional.of(2L), index.findGroupConflict(10L, DAY, LocalTime.of(17, 0), LocalTime.of(18, 0), null));
+        assertEquals(Optional.of(3L), index.findTeacherConflict(20L, DAY, LocalTime.of(15, 0), LocalTime.of(16, 0), null));
+        assertEquals(Optional.of(4L), index.findTeacherConflict(22L, DAY, LocalTime.of(9, 30), LocalTime.of(9, 45), null));
+    }
+
+    @Test
+    void shouldCheckAgainstGivenSlotsInsteadOfIndex() {
+        ScheduleSlotDto proposed = slot(null, 10L, 23L, "10:00", "11:00");
+        assertEquals(1, index.checkBatch(List.of(proposed)).size());
+
+        // Слоты, прочитанные из БД, не содержат занятия 1 — индекс этого узла не мешает записи
+        assertTrue(index.checkBatch(List.of(proposed), List.of(slot(2L, 10L, 21L, "12:00", "13:30"))).isEmpty());
+        List<ScheduleConflictDto> conflicts = index.checkBatch(List.of(proposed),
+                List.of(slot(5L, 99L, 23L, "10:30", "12:00")));
+        assertEquals(ScheduleConflictIndex.TEACHER, conflicts.get(0).getType());
+        assertEquals(5L, conflicts.get(0).getConflictingScheduleId());
+    }
+}
@@ -0,0 +1,139 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tihomirov.university.dto.ScheduleSeriesConflictDto;
+import ru.tihomirov.university.dto.ScheduleSeriesRequest;
+import ru.tihomirov.university.dto.ScheduleSeriesResponse;
+import ru.tihomirov.university.model.*;
+import ru.tihomirov.university.repository.ScheduleRepository;
+import ru.tihomirov.university.security.ScheduleOwnership;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Загрузка семестра для 300 групп одним вызовом createSeries: одна выборка занятий этих групп и преподавателей
+ * из БД, одна проверка конфликтов на все занятия и пакетные вставки. Считаются подготовленные JDBC-выражения и время.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ScheduleServiceImpl.class, ScheduleConflictIndex.class, ScheduleOwnership.class, AttendanceJournalServiceImpl.class})
+class ScheduleSeriesBulkTest {
+
+    private static final int GROUPS = 300;
+    private static final LocalDate FROM = LocalDate.of(2026, 9, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 12, 28);
+    private static final LocalDate HOLIDAY = LocalDate.of(2026, 11, 2);
+
+    @Autowired private ScheduleService scheduleService;
+    @Autowired private ScheduleRepository scheduleRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Group> groups = new ArrayList<>();
+    private final List<Teacher> teachers = new ArrayList<>();
+    private Course course;
+    private ClassType classType;
+    private Schedule existing;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        course = new Course().setName("Математика");
+        classType = new ClassType().setName("Лекция");
+        entityManager.persist(course);
+        entityManager.persist(classType);
+        for (int i = 0; i < GROUPS; i++) {
+            Group group = new Group().setName("Г-" + i).setCountStudents(0).setMaxCountStudents(30);
+            Teacher teacher = new Teacher().setLastName("Преподаватель" + i).setName("Имя");
+            entityManager.persist(group);
+            entityManager.persist(teacher);
+            groups.add(group);
+            teachers.add(teacher);
+        }
+
+        // Уже занятый слот группы 0 в первый понедельник семестра, у преподавателя вне серий
+        Teacher other = new Teacher().setLastName("Сидоров").setName("Имя");
+        entityManager.persist(other);
+        existing = new Schedule()
+                .setDate(LocalDate.of(2026, 9, 7))
+                .setStartTime(LocalTime.of(9, 30))
+                .setEndTime(LocalTime.of(11, 0))
+                .setGroup(groups.get(0))
+                .setTeacher(other)
+                .setCourse(course)
+                .setClassType(classType);
+        entityManager.persist(existing);
+        entityManager.flush();
+        entityManager.clear();
+        // Запись в обход сервиса: индекс в памяти о ней не знает, проверка серии видит её в БД
+    }
+
+    private ScheduleSeriesRequest series(int group, int teacher, LocalTime start) {
+        return new ScheduleSeriesRequest()
+                .setGroupId(groups.get(group).getId())
+                .setTeacherId(teachers.get(teacher).getId())
+                .setCourseId(course.getId())
+                .setClassTypeId(classType.getId())
+                .setDayOfWeek(DayOfWeek.MONDAY)
+                .setStartTime(start)
+                .setEndTime(start.plusMinutes(90))
+                .setDateFrom(FROM)
+                .setDateTo(TO)
+                .setExcludedDates(List.of(HOLIDAY));
+    }
+
+    @Test
+    void semesterForAllGroupsIsCheckedOnceAndInsertedInBatches() {
+        List<ScheduleSeriesRequest> request = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            request.add(series(i, i, LocalTime.of(9, 0)));
+        }
+        // Тот же преподаватель 5 во второй серии пересекается с первой
+        request.add(series(6, 5, LocalTime.of(10, 0)));
+
+        statistics.clear();
+        ScheduleSeriesResponse response = scheduleService.createSeries(request);
+        entityManager.flush();
+        long statements = statistics.getPrepareStatementCount();
+
+        // 17 понедельников с 01.09 по 28.12 минус праздник
+        int perSeries = 16;
+
+        assertEquals((GROUPS + 1) * perSeries, response.getRequested());
+        // группа 0 теряет 07.09; вторая серия преподавателя 5 и группа 6 в 10:00 отклоняются целиком
+        assertEquals(GROUPS * perSeries - 1, response.getCreated());
+        assertEquals(response.getRequested() - response.getCreated(),
+                response.getRejected().stream().map(c -> c.getSeriesIndex() + "/" + c.getDate()).distinct().count());
+
+        ScheduleSeriesConflictDto groupZero = response.getRejected().get(0);
+        assertEquals(0, groupZero.getSeriesIndex());
+        assertEquals(LocalDate.of(2026, 9, 7), groupZero.getDate());
+        assertEquals(ScheduleConflictIndex.GROUP, groupZero.getType());
+        assertEquals(existing.getId(), groupZero.getConflictingScheduleId());
+        assertTrue(response.getRejected().stream().skip(1).allMatch(c -> c.getSeriesIndex() == GROUPS));
+        assertTrue(response.getRejected().stream().noneMatch(c -> c.getDate().equals(HOLIDAY)));
+
+        assertEquals(GROUPS * perSeries, scheduleRepository.count());
+        // 4 справочника + прогрев индекса + пачки вставок и выборки из последовательности по 50 id
+        assertTrue(statements < 300, "series creation issued " + statements + " statements");
+    }
+}
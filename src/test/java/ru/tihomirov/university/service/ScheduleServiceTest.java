@@ -2,17 +2,23 @@ package ru.tihomirov.university.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import ru.tihomirov.university.dto.ScheduleSeriesRequest;
+import ru.tihomirov.university.dto.ScheduleSeriesResponse;
+import ru.tihomirov.university.dto.ScheduleSlotDto;
 import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.exception.ValidationException;
 import ru.tihomirov.university.model.*;
 import ru.tihomirov.university.repository.*;
+import ru.tihomirov.university.security.ScheduleOwnership;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,12 +30,19 @@ class ScheduleServiceTest {
     @Mock private CourseRepository courseRepository;
     @Mock private TeacherRepository teacherRepository;
     @Mock private ClassTypeRepository classTypeRepository;
+    @Mock private AttendanceJournalService attendanceJournalService;
+    @Mock private ScheduleOwnership scheduleOwnership;
 
-    @InjectMocks private ScheduleServiceImpl scheduleService;
+    private ScheduleConflictIndex conflictIndex;
+    private ScheduleServiceImpl scheduleService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        conflictIndex = new ScheduleConflictIndex(scheduleRepository);
+        scheduleService = new ScheduleServiceImpl(scheduleRepository, groupRepository, courseRepository,
+                teacherRepository, classTypeRepository, conflictIndex, attendanceJournalService,
+                scheduleOwnership);
     }
 
     private Schedule createSampleSchedule() {
@@ -48,13 +61,12 @@ class ScheduleServiceTest {
     void shouldSaveSchedule() {
         Schedule s = createSampleSchedule();
 
-        when(groupRepository.findById(1L)).thenReturn(Optional.of(new Group()));
+        when(groupRepository.findById(1L)).thenReturn(Optional.of(new Group().setId(1L)));
         when(courseRepository.findById(2L)).thenReturn(Optional.of(new Course()));
-        when(teacherRepository.findById(3L)).thenReturn(Optional.of(new Teacher()));
+        when(teacherRepository.findById(3L)).thenReturn(Optional.of(new Teacher().setId(3L)));
         when(classTypeRepository.findById(4L)).thenReturn(Optional.of(new ClassType()));
-        when(scheduleRepository.existsByGroupIdAndDateAndStartTimeLessThanAndEndTimeGreaterThan(any(), any(), any(), any())).thenReturn(false);
-        when(scheduleRepository.existsByTeacherIdAndDateAndStartTimeLessThanAndEndTimeGreaterThan(any(), any(), any(), any())).thenReturn(false);
         when(scheduleRepository.save(any())).thenReturn(s);
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(s));
 
         Schedule saved = scheduleService.save(s);
         assertEquals(s.getDate(), saved.getDate());
@@ -69,9 +81,11 @@ class ScheduleServiceTest {
 
     @Test
     void shouldDeleteScheduleSuccessfully() {
-        when(scheduleRepository.existsById(1L)).thenReturn(true);
+        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(createSampleSchedule()));
         scheduleService.delete(1L);
         verify(scheduleRepository).deleteById(1L);
+        verify(attendanceJournalService).evict(1L, 2L);
+        verify(scheduleOwnership).evict(1L);
     }
 
     @Test
@@ -79,45 +93,63 @@ class ScheduleServiceTest {
         Schedule existing = createSampleSchedule();
         Schedule updated = createSampleSchedule().setDate(LocalDate.now().plusDays(1));
 
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(existing));
-        when(groupRepository.findById(any())).thenReturn(Optional.of(new Group()));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(existing));
+        when(groupRepository.findById(any())).thenReturn(Optional.of(new Group().setId(1L)));
         when(courseRepository.findById(any())).thenReturn(Optional.of(new Course()));
-        when(teacherRepository.findById(any())).thenReturn(Optional.of(new Teacher()));
+        when(teacherRepository.findById(any())).thenReturn(Optional.of(new Teacher().setId(3L)));
         when(classTypeRepository.findById(any())).thenReturn(Optional.of(new ClassType()));
-        when(scheduleRepository.findByGroupId(any())).thenReturn(List.of());
-        when(scheduleRepository.findByTeacherId(any())).thenReturn(List.of());
         when(scheduleRepository.save(any())).thenReturn(updated);
 
         Schedule result = scheduleService.update(1L, updated);
         assertEquals(updated.getDate(), result.getDate());
+        verify(scheduleOwnership).evict(1L);
     }
 
     @Test
     void shouldThrowWhenGroupConflict() {
         Schedule s = createSampleSchedule();
 
-        when(groupRepository.findById(1L)).thenReturn(Optional.of(new Group()));
+        when(groupRepository.findById(1L)).thenReturn(Optional.of(new Group().setId(1L)));
         when(courseRepository.findById(2L)).thenReturn(Optional.of(new Course()));
-        when(teacherRepository.findById(3L)).thenReturn(Optional.of(new Teacher()));
+        when(teacherRepository.findById(3L)).thenReturn(Optional.of(new Teacher().setId(3L)));
         when(classTypeRepository.findById(4L)).thenReturn(Optional.of(new ClassType()));
-        when(scheduleRepository.existsByGroupIdAndDateAndStartTimeLessThanAndEndTimeGreaterThan(any(), any(), any(), any()))
-                .thenReturn(true);
+        when(scheduleRepository.findSlots(any(), any(), any(), any())).thenReturn(List.of(
+                new ScheduleSlotDto(7L, 1L, 99L, s.getDate(), LocalTime.of(10, 30), LocalTime.of(12, 0))));
 
         assertThrows(IllegalStateException.class, () -> scheduleService.save(s));
+        verify(groupRepository).lockAllById(Set.of(1L));
+        verify(teacherRepository).lockAllById(Set.of(3L));
+        verify(scheduleRepository).findSlots(Set.of(1L), Set.of(3L), s.getDate(), s.getDate());
+    }
+
+    @Test
+    void shouldCheckWritesAgainstDatabaseNotLocalIndex() {
+        Schedule s = createSampleSchedule();
+
+        when(groupRepository.findById(1L)).thenReturn(Optional.of(new Group().setId(1L)));
+        when(courseRepository.findById(2L)).thenReturn(Optional.of(new Course()));
+        when(teacherRepository.findById(3L)).thenReturn(Optional.of(new Teacher().setId(3L)));
+        when(classTypeRepository.findById(4L)).thenReturn(Optional.of(new ClassType()));
+        // Занятие удалено на другом узле: в индексе этого узла оно ещё есть, в БД — нет
+        when(scheduleRepository.findAllSlots()).thenReturn(List.of(
+                new ScheduleSlotDto(7L, 1L, 3L, s.getDate(), LocalTime.of(10, 0), LocalTime.of(11, 0))));
+        when(scheduleRepository.save(any())).thenReturn(s);
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(s));
+
+        assertFalse(scheduleService.checkConflicts(List.of(s)).isEmpty(), "the preview still sees the stale slot");
+        assertSame(s, scheduleService.save(s));
     }
 
     @Test
     void shouldThrowWhenTeacherConflict() {
         Schedule s = createSampleSchedule();
 
-        when(groupRepository.findById(1L)).thenReturn(Optional.of(new Group()));
+        when(groupRepository.findById(1L)).thenReturn(Optional.of(new Group().setId(1L)));
         when(courseRepository.findById(2L)).thenReturn(Optional.of(new Course()));
-        when(teacherRepository.findById(3L)).thenReturn(Optional.of(new Teacher()));
+        when(teacherRepository.findById(3L)).thenReturn(Optional.of(new Teacher().setId(3L)));
         when(classTypeRepository.findById(4L)).thenReturn(Optional.of(new ClassType()));
-        when(scheduleRepository.existsByGroupIdAndDateAndStartTimeLessThanAndEndTimeGreaterThan(any(), any(), any(), any()))
-                .thenReturn(false);
-        when(scheduleRepository.existsByTeacherIdAndDateAndStartTimeLessThanAndEndTimeGreaterThan(any(), any(), any(), any()))
-                .thenReturn(true);
+        when(scheduleRepository.findSlots(any(), any(), any(), any())).thenReturn(List.of(
+                new ScheduleSlotDto(7L, 99L, 3L, s.getDate(), LocalTime.of(9, 0), LocalTime.of(10, 30))));
 
         assertThrows(IllegalStateException.class, () -> scheduleService.save(s));
     }
@@ -125,7 +157,7 @@ class ScheduleServiceTest {
     @Test
     void shouldGetScheduleById() {
         Schedule s = createSampleSchedule();
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(s));
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(s));
 
         Schedule result = scheduleService.getById(1L);
         assertEquals(s.getId(), result.getId());
@@ -143,7 +175,7 @@ class ScheduleServiceTest {
 
     @Test
     void shouldThrowWhenScheduleToDeleteNotFound() {
-        when(scheduleRepository.existsById(999L)).thenReturn(false);
+        when(scheduleRepository.findById(999L)).thenReturn(Optional.empty());
         assertThrows(EntityNotFoundException.class, () -> scheduleService.delete(999L));
     }
 
@@ -154,5 +186,101 @@ class ScheduleServiceTest {
 
         assertThrows(EntityNotFoundException.class, () -> scheduleService.save(s));
     }
-    
+
+    @Test
+    void shouldNotConflictWithItselfOnUpdate() {
+        Schedule existing = createSampleSchedule();
+        Schedule moved = createSampleSchedule().setStartTime(LocalTime.of(10, 30)).setEndTime(LocalTime.of(11, 30));
+
+        List<ScheduleSlotDto> stored = List.of(
+                new ScheduleSlotDto(1L, 1L, 3L, existing.getDate(), LocalTime.of(10, 0), LocalTime.of(11, 0)));
+        when(scheduleRepository.findAllSlots()).thenReturn(stored);
+        when(scheduleRepository.findSlots(any(), any(), any(), any())).thenReturn(stored);
+        when(scheduleRepository.findWithDetailsById(1L)).thenReturn(Optional.of(existing));
+        when(groupRepository.findById(any())).thenReturn(Optional.of(new Group().setId(1L)));
+        when(courseRepository.findById(any())).thenReturn(Optional.of(new Course()));
+        when(teacherRepository.findById(any())).thenReturn(Optional.of(new Teacher().setId(3L)));
+        when(classTypeRepository.findById(any())).thenReturn(Optional.of(new ClassType()));
+        when(scheduleRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        scheduleService.update(1L, moved);
+
+        assertTrue(conflictIndex.findGroupConflict(1L, existing.getDate(),
+                LocalTime.of(10, 0), LocalTime.of(10, 30), null).isEmpty());
+        assertEquals(Optional.of(1L), conflictIndex.findGroupConflict(1L, existing.getDate(),
+                LocalTime.of(11, 0), LocalTime.of(11, 15), null));
+    }
+
+    @Test
+    void shouldDropDeletedScheduleFromIndex() {
+        LocalDate date = LocalDate.now();
+        when(scheduleRepository.findAllSlots()).thenReturn(List.of(
+                new ScheduleSlotDto(1L, 1L, 3L, date, LocalTime.of(10, 0), LocalTime.of(11, 0))));
+        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(createSampleSchedule()));
+
+        scheduleService.delete(1L);
+
+        assertTrue(conflictIndex.findTeacherConflict(3L, date, LocalTime.of(10, 0), LocalTime.of(11, 0), null).isEmpty());
+    }
+
+    private ScheduleSeriesRequest sampleSeries() {
+        return new ScheduleSeriesRequest()
+                .setGroupId(1L).setCourseId(2L).setTeacherId(3L).setClassTypeId(4L)
+                .setDayOfWeek(DayOfWeek.WEDNESDAY)
+                .setStartTime(LocalTime.of(10, 0)).setEndTime(LocalTime.of(11, 30))
+                .setDateFrom(LocalDate.of(2026, 9, 1)).setDateTo(LocalDate.of(2026, 9, 30));
+    }
+
+    private void mockSeriesReferences() {
+        when(groupRepository.findAllById(any())).thenReturn(List.of(new Group().setId(1L)));
+        when(courseRepository.findAllById(any())).thenReturn(List.of(new Course().setId(2L)));
+        when(teacherRepository.findAllById(any())).thenReturn(List.of(new Teacher().setId(3L)));
+        when(classTypeRepository.findAllById(any())).thenReturn(List.of(new ClassType().setId(4L)));
+        when(scheduleRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void shouldExpandSeriesSkippingExcludedAndConflictingDates() {
+        mockSeriesReferences();
+        when(scheduleRepository.findSlots(any(), any(), any(), any())).thenReturn(List.of(
+                new ScheduleSlotDto(7L, 1L, 99L, LocalDate.of(2026, 9, 16), LocalTime.of(11, 0), LocalTime.of(12, 0))));
+
+        ScheduleSeriesResponse response = scheduleService.createSeries(List.of(
+                sampleSeries().setExcludedDates(List.of(LocalDate.of(2026, 9, 9)))));
+
+        // среды сентября: 2, 9 (исключена), 16 (занята), 23, 30
+        assertEquals(4, response.getRequested());
+        assertEquals(3, response.getCreated());
+        assertEquals(1, response.getRejected().size());
+        assertEquals(LocalDate.of(2026, 9, 16), response.getRejected().get(0).getDate());
+        assertEquals(7L, response.getRejected().get(0).getConflictingScheduleId());
+        verify(groupRepository, never()).findById(any());
+        verify(scheduleRepository, times(1)).saveAll(argThat(list -> ((List<?>) list).size() == 3));
+    }
+
+    @Test
+    void shouldRepeatSeriesEveryOtherWeek() {
+        mockSeriesReferences();
+
+        ScheduleSeriesResponse response = scheduleService.createSeries(List.of(sampleSeries().setWeekInterval(2)));
+
+        assertEquals(3, response.getCreated());
+    }
+
+    @Test
+    void shouldRejectSeriesWithMissingReference() {
+        mockSeriesReferences();
+        when(teacherRepository.findAllById(any())).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class, () -> scheduleService.createSeries(List.of(sampleSeries())));
+        verify(scheduleRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void shouldRejectInvalidSeries() {
+        assertThrows(ValidationException.class, () -> scheduleService.createSeries(List.of(
+                sampleSeries().setEndTime(LocalTime.of(9, 0)))));
+        assertThrows(ValidationException.class, () -> scheduleService.createSeries(List.of(
+                sampleSeries().setDateTo(LocalDate.of(2028, 1, 1)))));
+    }
 }
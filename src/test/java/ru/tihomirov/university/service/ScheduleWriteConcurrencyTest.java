@@ -0,0 +1,185 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.model.*;
+import ru.tihomirov.university.repository.*;
+import ru.tihomirov.university.security.ScheduleOwnership;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Запись расписания под конкурентной нагрузкой: пересекающиеся занятия, записываемые параллельно,
+ * не проходят оба; занятие, записанное в обход этого узла, учитывается; владелец занятия, прочитанный
+ * другим запросом между сбросом кэша и коммитом, не переживает транзакцию.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ScheduleServiceImpl.class, ScheduleConflictIndex.class, ScheduleOwnership.class})
+class ScheduleWriteConcurrencyTest {
+
+    // Сброс журнала вызывается и до, и после записи занятия — через него встраиваемся в середину транзакции
+    @TestConfiguration
+    static class JournalHook {
+        @Bean
+        AttendanceJournalService attendanceJournalService() {
+            return mock(AttendanceJournalService.class);
+        }
+    }
+
+    @Autowired private ScheduleService scheduleService;
+    @Autowired private ScheduleOwnership scheduleOwnership;
+    @Autowired private AttendanceJournalService attendanceJournalService;
+    @Autowired private GroupRepository groupRepository;
+    @Autowired private TeacherRepository teacherRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private ClassTypeRepository classTypeRepository;
+    @Autowired private ScheduleRepository scheduleRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Group group;
+    private Teacher previous;
+    private Teacher next;
+    private Course course;
+    private ClassType classType;
+
+    @BeforeEach
+    void setUp() {
+        group = groupRepository.save(new Group().setName("ЦПИ-21").setCountStudents(0).setMaxCountStudents(30));
+        previous = teacherRepository.save(new Teacher().setLastName("Иванов").setName("Иван"));
+        next = teacherRepository.save(new Teacher().setLastName("Петров").setName("Пётр"));
+        course = courseRepository.save(new Course().setName("Математика"));
+        classType = classTypeRepository.save(new ClassType().setName("Лекция"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reset(attendanceJournalService);
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "schedule", "class_types", "courses", "teachers", "groups");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private Schedule schedule(Teacher teacher, int hour) {
+        return new Schedule()
+                .setDate(LocalDate.of(2026, 9, 1))
+                .setStartTime(LocalTime.of(hour, 0))
+                .setEndTime(LocalTime.of(hour + 1, 30))
+                .setGroup(new Group().setId(group.getId()))
+                .setTeacher(new Teacher().setId(teacher.getId()))
+                .setCourse(new Course().setId(course.getId()))
+                .setClassType(new ClassType().setId(classType.getId()));
+    }
+
+    // На n-м сбросе журнала другой поток спрашивает владельца занятия и видит ещё закоммиченное состояние
+    private AtomicLong readOwnerOnEviction(int call, Long scheduleId) {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicLong owner = new AtomicLong(-1);
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == call) {
+                owner.set(CompletableFuture.supplyAsync(() -> scheduleOwnership.teacherOf(scheduleId))
+                        .get(10, TimeUnit.SECONDS));
+            }
+            return null;
+        }).when(attendanceJournalService).evict(anyLong(), anyLong());
+        return owner;
+    }
+
+    @Test
+    void concurrentOverlappingWritesLetOnlyOneThrough() throws Exception {
+        int writers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Schedule>> futures = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            // Все занятия одной группы пересекаются по времени; преподаватели чередуются
+            Schedule schedule = schedule(i % 2 == 0 ? previous : next, 9).setStartTime(LocalTime.of(9, i));
+            futures.add(executor.submit(() -> {
+                start.await();
+                return scheduleService.save(schedule);
+            }));
+        }
+        start.countDown();
+        int saved = 0;
+        try {
+            for (Future<Schedule> future : futures) {
+                try {
+                    future.get(60, TimeUnit.SECONDS);
+                    saved++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause(), "only 'busy' conflicts are expected");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, saved);
+        assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "schedule"));
+    }
+
+    @Test
+    void scheduleWrittenBypassingThisNodeIsSeen() {
+        Schedule existing = scheduleService.save(schedule(previous, 9));
+        // Другой узел: строка появилась в БД, индекс этого узла о ней не знает
+        jdbcTemplate.update("insert into schedule (id, date, start_time, end_time, group_id, teacher_id, course_id, class_type_id) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, ?)", existing.getId() + 1000, LocalDate.of(2026, 9, 1),
+                LocalTime.of(13, 0), LocalTime.of(14, 30), group.getId(), next.getId(), course.getId(), classType.getId());
+
+        assertThrows(IllegalStateException.class, () -> scheduleService.save(schedule(previous, 13)));
+        // Занятие, удалённое в обход узла, больше не мешает
+        jdbcTemplate.update("delete from schedule where id = ?", existing.getId());
+        assertNotNull(scheduleService.save(schedule(next, 9)).getId());
+    }
+
+    @Test
+    void ownerReadBetweenEvictionAndCommitIsDroppedAfterUpdate() {
+        Schedule saved = scheduleService.save(schedule(previous, 9));
+        assertEquals(previous.getId(), scheduleOwnership.teacherOf(saved.getId()));
+
+        // Второй сброс журнала — уже после save, но до коммита
+        AtomicLong readDuringUpdate = readOwnerOnEviction(2, saved.getId());
+        scheduleService.update(saved.getId(), schedule(next, 9));
+
+        assertEquals(previous.getId(), readDuringUpdate.get(), "the concurrent read saw the committed owner");
+        assertEquals(next.getId(), scheduleOwnership.teacherOf(saved.getId()));
+    }
+
+    @Test
+    void ownerReadBetweenEvictionAndCommitIsDroppedAfterDelete() {
+        Schedule saved = scheduleService.save(schedule(previous, 11));
+        assertEquals(previous.getId(), scheduleOwnership.teacherOf(saved.getId()));
+
+        AtomicLong readDuringDelete = readOwnerOnEviction(1, saved.getId());
+        scheduleService.delete(saved.getId());
+
+        assertEquals(previous.getId(), readDuringDelete.get(), "the concurrent read saw the committed row");
+        assertFalse(scheduleRepository.existsById(saved.getId()));
+        assertThrows(EntityNotFoundException.class, () -> scheduleOwnership.teacherOf(saved.getId()));
+    }
+}
@@ -0,0 +1,156 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tihomirov.university.model.Group;
+import ru.tihomirov.university.model.Student;
+import ru.tihomirov.university.repository.GroupRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Параллельное зачисление (приёмная кампания): 64 писателя одновременно занимают места в группах.
+ * Условный UPDATE счётчика не должен ни терять зачисления, ни переполнять группу.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StudentServiceImpl.class, AttendanceJournalServiceImpl.class})
+class StudentEnrollmentConcurrencyTest {
+
+    private static final int WRITERS = 64;
+
+    @Autowired private StudentService studentService;
+    @Autowired private GroupRepository groupRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(WRITERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "students", "groups");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private Group group(String name, int count, int max) {
+        return groupRepository.save(new Group().setName(name).setCountStudents(count).setMaxCountStudents(max));
+    }
+
+    private static Student student(String lastName) {
+        return new Student().setLastName(lastName).setName("Имя");
+    }
+
+    // Все писатели стартуют одновременно; возвращает число успешных вызовов
+    private int race(List<Callable<Object>> writers) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (Callable<Object> writer : writers) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return writer.call();
+            }));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Object> future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause(), "only 'group is full' is expected");
+            }
+        }
+        return succeeded;
+    }
+
+    private int countStudents(Long groupId) {
+        return JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "students", "group_id = " + groupId);
+    }
+
+    @Test
+    void concurrentSingleEnrollmentsNeverOverfillGroup() throws Exception {
+        Group group = group("ЦПИ-21", 10, 50);
+        // Прогрев кэша второго уровня: счётчик из кэша не должен остаться старым
+        groupRepository.findById(group.getId());
+
+        List<Callable<Object>> writers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            Student student = student("Студент " + i).setGroup(new Group().setId(group.getId()));
+            writers.add(() -> studentService.save(student));
+        }
+
+        assertEquals(40, race(writers));
+        assertEquals(40, countStudents(group.getId()));
+        assertEquals(50, groupRepository.findById(group.getId()).orElseThrow().getCountStudents());
+    }
+
+    @Test
+    void concurrentBulkEnrollmentsReserveAllOrNothing() throws Exception {
+        Group group = group("ЦПИ-22", 0, 100);
+
+        List<Callable<Object>> writers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            int batch = i;
+            writers.add(() -> studentService.enroll(group.getId(),
+                    List.of(student("Пачка " + batch + "-1"), student("Пачка " + batch + "-2"), student("Пачка " + batch + "-3"))));
+        }
+
+        // 33 пачки по 3 — 99 мест; для 34-й места уже не хватает, частичного зачисления нет
+        assertEquals(33, race(writers));
+        assertEquals(99, countStudents(group.getId()));
+        assertEquals(99, groupRepository.findById(group.getId()).orElseThrow().getCountStudents());
+    }
+
+    @Test
+    void concurrentTransfersAndDeletesKeepCountersExact() throws Exception {
+        Group from = group("ЦПИ-23", 0, WRITERS);
+        Group to = group("ЦПИ-24", 0, WRITERS / 2);
+        List<Student> students = studentService.enroll(from.getId(),
+                IntStream.range(0, WRITERS).mapToObj(i -> student("Переводимый " + i)).toList());
+
+        List<Callable<Object>> writers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            Student existing = students.get(i);
+            if (i % 4 == 0) {
+                writers.add(() -> {
+                    studentService.deleteById(existing.getId());
+                    return null;
+                });
+            } else {
+                Student moved = student(existing.getLastName()).setGroup(new Group().setId(to.getId()));
+                writers.add(() -> studentService.update(existing.getId(), moved));
+            }
+        }
+
+        // 16 удалений успешны всегда, из 48 переводов проходят только 32 — по числу мест
+        assertEquals(WRITERS / 4 + WRITERS / 2, race(writers));
+        assertEquals(countStudents(from.getId()), groupRepository.findById(from.getId()).orElseThrow().getCountStudents());
+        assertEquals(WRITERS / 2, countStudents(to.getId()));
+        assertEquals(WRITERS / 2, groupRepository.findById(to.getId()).orElseThrow().getCountStudents());
+        assertEquals(WRITERS - WRITERS / 4 - WRITERS / 2, countStudents(from.getId()));
+    }
+}
@@ -0,0 +1,150 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tihomirov.university.dto.StudentImportError;
+import ru.tihomirov.university.dto.StudentImportReport;
+import ru.tihomirov.university.exception.ValidationException;
+import ru.tihomirov.university.model.Group;
+import ru.tihomirov.university.model.Student;
+import ru.tihomirov.university.repository.StudentRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Импорт студентов из CSV: разбор RFC 4180, отчёт по строкам, места в группах — одним UPDATE на группу,
+ * вставка пачками.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StudentImportServiceImpl.class, AttendanceJournalServiceImpl.class})
+class StudentImportServiceTest {
+
+    private static final String HEADER = "last_name,name,middle_name,email,phone,group\r\n";
+
+    @Autowired private StudentImportService importService;
+    @Autowired private StudentRepository studentRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Group big;
+    private Group small;
+
+    @BeforeEach
+    void setUp() {
+        big = new Group().setName("ЦПИ-21").setCountStudents(0).setMaxCountStudents(5000);
+        small = new Group().setName("ЦПИ-22").setCountStudents(8).setMaxCountStudents(10);
+        entityManager.persist(big);
+        entityManager.persist(small);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private StudentImportReport importCsv(String csv) throws IOException {
+        StudentImportReport report = importService.importCsv(new ByteArrayResource(csv.getBytes(StandardCharsets.UTF_8)), ',');
+        entityManager.clear();
+        return report;
+    }
+
+    private int countOf(Group group) {
+        return entityManager.find(Group.class, group.getId()).getCountStudents();
+    }
+
+    @Test
+    void largeFileIsInsertedInBatchesWithOneCounterUpdatePerGroup() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 2000; i++) {
+            csv.append("Студент").append(i).append(",Имя,,s").append(i).append("@uni.ru,,ЦПИ-21\r\n");
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        StudentImportReport report = importCsv(csv.toString());
+
+        assertEquals(2000, report.getRows());
+        assertEquals(2000, report.getImported());
+        assertTrue(report.getErrors().isEmpty());
+        // группы одним запросом, один UPDATE счётчика, вставки пачками по hibernate.jdbc.batch_size
+        assertTrue(statistics.getPrepareStatementCount() < 200, "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(2000, countOf(big));
+        assertEquals(2000, studentRepository.findByGroupId(big.getId()).size());
+    }
+
+    @Test
+    void badRowsAreReportedAndGoodRowsImported() throws Exception {
+        String csv = HEADER
+                + "Петров,Пётр,Петрович,petrov@uni.ru,+7 900,ЦПИ-21\r\n"
+                + ",Без,Фамилии,,,ЦПИ-21\r\n"
+                + "Сидоров,Сидор,,,,\r\n"
+                + "Короткая,строка\r\n"
+                + "Неизвестный,Гость,,,,ЦПИ-99\r\n"
+                + "\"Иванов, мл.\",\"Иван \"\"Ваня\"\"\",,,,ЦПИ-21\r\n";
+
+        StudentImportReport report = importCsv(csv);
+
+        assertEquals(6, report.getRows());
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(3, 4, 5, 6), report.getErrors().stream().map(StudentImportError::getRow).toList());
+        assertTrue(report.getErrors().get(3).getMessage().contains("ЦПИ-99"));
+        assertEquals(2, countOf(big));
+
+        List<Student> imported = studentRepository.findByGroupId(big.getId());
+        assertTrue(imported.stream().anyMatch(s -> s.getLastName().equals("Иванов, мл.") && s.getName().equals("Иван \"Ваня\"")));
+        assertTrue(imported.stream().anyMatch(s -> "+7 900".equals(s.getPhone())));
+    }
+
+    @Test
+    void groupWithoutEnoughSeatsIsRejectedAsAWhole() throws Exception {
+        String csv = HEADER
+                + "Первый,,,,,ЦПИ-22\r\n"
+                + "Второй,,,,,ЦПИ-22\r\n"
+                + "Третий,,,,,ЦПИ-22\r\n"
+                + "Четвёртый,,,,,ЦПИ-21\r\n";
+
+        StudentImportReport report = importCsv(csv);
+
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(2, 3, 4), report.getErrors().stream().map(StudentImportError::getRow).toList());
+        assertTrue(report.getErrors().get(0).getMessage().contains("2 free seats, 3 requested"));
+        assertEquals(8, countOf(small));
+        assertEquals(1, countOf(big));
+    }
+
+    @Test
+    void headerIsMatchedByNameWithBomAndAnyOrder() throws Exception {
+        String csv = "\uFEFFGroup;Last_Name;Comment\n"
+                + "ЦПИ-21;\"Многострочная\nфамилия\";игнорируется\n"
+                + "\n"
+                + "ЦПИ-21;Обычный;\n";
+
+        StudentImportReport report = importService.importCsv(new ByteArrayResource(csv.getBytes(StandardCharsets.UTF_8)), ';');
+
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getImportedByGroup().get("ЦПИ-21"));
+        assertTrue(studentRepository.findByGroupId(big.getId()).stream()
+                .anyMatch(s -> s.getLastName().equals("Многострочная\nфамилия")));
+    }
+
+    @Test
+    void missingRequiredColumnOrUnterminatedQuoteFailsWholeImport() {
+        assertThrows(ValidationException.class, () -> importCsv("name,group\r\nИван,ЦПИ-21\r\n"));
+        assertThrows(ValidationException.class, () -> importCsv(HEADER + "\"Незакрытая,,,,,ЦПИ-21\r\n"));
+        assertThrows(ValidationException.class, () -> importCsv(""));
+        assertEquals(0, countOf(big));
+    }
+}
@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Group;
 import ru.tihomirov.university.model.Student;
@@ -12,6 +15,7 @@ import ru.tihomirov.university.repository.GroupRepository;
 import ru.tihomirov.university.repository.StudentRepository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +25,7 @@ class StudentServiceTest {
 
     @Mock private StudentRepository studentRepository;
     @Mock private GroupRepository groupRepository;
+    @Mock private AttendanceJournalService attendanceJournalService;
 
     @InjectMocks private StudentServiceImpl studentService;
 
@@ -50,8 +55,9 @@ class StudentServiceTest {
 
     @Test
     void shouldReturnAllStudents() {
-        when(studentRepository.findAll()).thenReturn(List.of(new Student(), new Student()));
-        List<Student> result = studentService.getAll();
+        when(studentRepository.findAllBy(any(), any(), any()))
+                .thenReturn(Window.from(List.of(new Student(), new Student()), i -> ScrollPosition.forward(Map.of("id", 1L))));
+        List<Student> result = studentService.getAll(CursorRequest.first(50)).getContent();
         assertEquals(2, result.size());
     }
 
@@ -74,13 +80,15 @@ class StudentServiceTest {
         Group group = sampleGroup(1L, 5, 10);
         Student student = sampleStudent(null, group);
 
+        when(groupRepository.reserveSeats(1L, 1)).thenReturn(1);
         when(groupRepository.findById(1L)).thenReturn(Optional.of(group));
         when(studentRepository.save(any())).thenReturn(student);
 
         Student result = studentService.save(student);
 
         assertEquals(group, result.getGroup());
-        verify(groupRepository).save(group);
+        verify(groupRepository).reserveSeats(1L, 1);
+        verify(groupRepository, never()).save(any());
     }
 
     @Test
@@ -88,9 +96,49 @@ class StudentServiceTest {
         Group group = sampleGroup(1L, 10, 10);
         Student student = sampleStudent(null, group);
 
+        when(groupRepository.reserveSeats(1L, 1)).thenReturn(0);
         when(groupRepository.findById(1L)).thenReturn(Optional.of(group));
 
         assertThrows(IllegalStateException.class, () -> studentService.save(student));
+        verify(studentRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldThrowNotFoundWhenSavingToMissingGroup() {
+        Student student = sampleStudent(null, new Group().setId(9L));
+
+        when(groupRepository.reserveSeats(9L, 1)).thenReturn(0);
+        when(groupRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> studentService.save(student));
+    }
+
+    @Test
+    void shouldEnrollStudentsWithOneReservation() {
+        Group group = sampleGroup(1L, 5, 10);
+        List<Student> students = List.of(sampleStudent(null, null), sampleStudent(null, null), sampleStudent(null, null));
+
+        when(groupRepository.reserveSeats(1L, 3)).thenReturn(1);
+        when(groupRepository.findById(1L)).thenReturn(Optional.of(group));
+        when(studentRepository.saveAll(students)).thenReturn(students);
+
+        List<Student> result = studentService.enroll(1L, students);
+
+        assertEquals(3, result.size());
+        assertTrue(result.stream().allMatch(s -> s.getGroup() == group));
+        verify(groupRepository, times(1)).reserveSeats(anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldNotEnrollAnyoneWhenSeatsAreShort() {
+        Group group = sampleGroup(1L, 9, 10);
+        List<Student> students = List.of(sampleStudent(null, null), sampleStudent(null, null));
+
+        when(groupRepository.reserveSeats(1L, 2)).thenReturn(0);
+        when(groupRepository.findById(1L)).thenReturn(Optional.of(group));
+
+        assertThrows(IllegalStateException.class, () -> studentService.enroll(1L, students));
+        verify(studentRepository, never()).saveAll(any());
     }
 
     @Test
@@ -105,6 +153,8 @@ class StudentServiceTest {
 
         Student result = studentService.update(1L, updated);
         assertEquals("Петров", result.getLastName());
+        verify(groupRepository, never()).reserveSeats(anyLong(), anyInt());
+        verify(groupRepository, never()).releaseSeats(anyLong(), anyInt());
     }
 
     @Test
@@ -115,14 +165,15 @@ class StudentServiceTest {
         Student updated = sampleStudent(null, newGroup);
 
         when(studentRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(groupRepository.reserveSeats(2L, 1)).thenReturn(1);
         when(groupRepository.findById(2L)).thenReturn(Optional.of(newGroup));
         when(studentRepository.save(any())).thenReturn(updated);
 
         Student result = studentService.update(1L, updated);
 
         assertEquals(2L, result.getGroup().getId());
-        verify(groupRepository).save(oldGroup);
-        verify(groupRepository).save(newGroup);
+        verify(groupRepository).reserveSeats(2L, 1);
+        verify(groupRepository).releaseSeats(1L, 1);
     }
 
     @Test
@@ -133,9 +184,11 @@ class StudentServiceTest {
         Student updated = sampleStudent(null, fullGroup);
 
         when(studentRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(groupRepository.reserveSeats(2L, 1)).thenReturn(0);
         when(groupRepository.findById(2L)).thenReturn(Optional.of(fullGroup));
 
         assertThrows(IllegalStateException.class, () -> studentService.update(1L, updated));
+        verify(groupRepository, never()).releaseSeats(anyLong(), anyInt());
     }
 
     @Test
@@ -148,7 +201,7 @@ class StudentServiceTest {
         studentService.deleteById(1L);
 
         verify(studentRepository).deleteById(1L);
-        verify(groupRepository).save(group);
+        verify(groupRepository).releaseSeats(1L, 1);
     }
 
     @Test
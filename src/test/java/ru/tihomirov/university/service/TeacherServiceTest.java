@@ -5,11 +5,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import ru.tihomirov.university.dto.CursorRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.Teacher;
 import ru.tihomirov.university.repository.TeacherRepository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,9 +45,10 @@ class TeacherServiceTest {
     @Test
     void shouldReturnAllTeachers() {
         Teacher teacher = sampleTeacher();
-        when(teacherRepository.findAll()).thenReturn(List.of(teacher));
+        when(teacherRepository.findAllBy(any(), any(), any()))
+                .thenReturn(Window.from(List.of(teacher), i -> ScrollPosition.forward(Map.of("id", 1L))));
 
-        List<Teacher> result = teacherService.getAll();
+        List<Teacher> result = teacherService.getAll(CursorRequest.first(50)).getContent();
 
         assertEquals(1, result.size());
         assertEquals("ivanov@university.com", result.get(0).getEmail());
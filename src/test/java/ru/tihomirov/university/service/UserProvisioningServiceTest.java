@@ -0,0 +1,180 @@
+package ru.tihomirov.university.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.tihomirov.university.dto.BulkRegisterJobDto;
+import ru.tihomirov.university.dto.BulkRegisterOutcome;
+import ru.tihomirov.university.dto.RegisterRequest;
+import ru.tihomirov.university.exception.EntityNotFoundException;
+import ru.tihomirov.university.exception.ValidationException;
+import ru.tihomirov.university.model.*;
+import ru.tihomirov.university.repository.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Массовая регистрация: проверки по БД — по запросу на логины и на роль, хеширование на пуле,
+ * вставка пачками, итог по каждому пользователю. Задание здесь выполняется в потоке теста
+ * и присоединяется к его транзакции, поэтому перед проверками контекст сбрасывается в БД.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserProvisioningServiceTest {
+
+    private static final int STUDENTS = 120;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private StudentRepository studentRepository;
+    @Autowired private TeacherRepository teacherRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private final Set<String> hashThreads = ConcurrentHashMap.newKeySet();
+    // Минимальная стоимость BCrypt, чтобы тест не зависел от скорости машины
+    private final PasswordEncoder encoder = new BCryptPasswordEncoder(4) {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashThreads.add(Thread.currentThread().getName());
+            return super.encode(rawPassword);
+        }
+    };
+
+    private ExecutorService hashPool;
+    private UserProvisioningServiceImpl service;
+    private final List<Student> students = new ArrayList<>();
+    private Teacher teacher;
+    private Student linked;
+
+    @BeforeEach
+    void setUp() {
+        hashPool = Executors.newFixedThreadPool(4);
+        service = new UserProvisioningServiceImpl(userRepository, roleRepository, studentRepository, teacherRepository,
+                encoder, transactionManager, hashPool, Runnable::run, 50, 1000, Duration.ofHours(1));
+
+        Role studentRole = new Role().setName("STUDENT");
+        Role teacherRole = new Role().setName("TEACHER");
+        Group group = new Group().setName("ЦПИ-21").setCountStudents(STUDENTS + 1).setMaxCountStudents(500);
+        teacher = new Teacher().setLastName("Иванов").setEmail("ivanov@uni.ru");
+        List.of(studentRole, teacherRole, group, teacher).forEach(entityManager::persist);
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student().setLastName("Студент " + i).setGroup(group);
+            entityManager.persist(student);
+            students.add(student);
+        }
+        linked = new Student().setLastName("Уже с логином").setGroup(group);
+        entityManager.persist(linked);
+        entityManager.persist(new User().setUsername("taken").setPassword("x").setRole(studentRole).setStudent(linked));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashPool.shutdownNow();
+    }
+
+    private static RegisterRequest request(String username, String role, Long relatedId) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(username);
+        request.setPassword("secret-" + username);
+        request.setRole(role);
+        request.setRelatedId(relatedId);
+        return request;
+    }
+
+    @Test
+    void wholeIntakeIsCreatedWithOneLookupPerRoleAndParallelHashing() {
+        List<RegisterRequest> requests = new ArrayList<>();
+        students.forEach(s -> requests.add(request("s" + s.getId(), "student", s.getId())));
+        requests.add(request("teacher", "TEACHER", teacher.getId()));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BulkRegisterJobDto job = service.submit(requests);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(BulkRegisterJobDto.Status.DONE, job.getStatus());
+        assertEquals(STUDENTS + 1, job.getCreated());
+        assertEquals(STUDENTS + 1, job.getHashed());
+        assertEquals(STUDENTS + 1, job.getOutcomes().size());
+        assertTrue(job.getOutcomes().stream().allMatch(o -> o.getStatus() == BulkRegisterOutcome.Status.CREATED));
+        // роли, логины, студенты, преподаватели + вставки пачками вместо запроса на пользователя
+        assertTrue(statistics.getPrepareStatementCount() < 30, "statements: " + statistics.getPrepareStatementCount());
+        assertTrue(hashThreads.size() > 1, "hashing runs on the pool: " + hashThreads);
+        assertFalse(hashThreads.contains(Thread.currentThread().getName()));
+
+        User created = userRepository.findByUsername("s" + students.get(0).getId()).orElseThrow();
+        assertTrue(encoder.matches("secret-s" + students.get(0).getId(), created.getPassword()));
+        assertEquals(students.get(0).getId(), created.getStudent().getId());
+        assertEquals(teacher.getId(), userRepository.findByUsername("teacher").orElseThrow().getTeacher().getId());
+    }
+
+    @Test
+    void invalidEntriesAreRejectedIndividually() {
+        Long free = students.get(0).getId();
+        List<RegisterRequest> requests = List.of(
+                request("ok", "STUDENT", free),
+                request("taken", "STUDENT", students.get(1).getId()),
+                request("ok", "STUDENT", students.get(2).getId()),
+                request("second-link", "STUDENT", free),
+                request("linked", "STUDENT", linked.getId()),
+                request("ghost", "TEACHER", 999_999L),
+                request("nobody", "RECTOR", null),
+                request("", "STUDENT", students.get(3).getId()));
+
+        BulkRegisterJobDto job = service.submit(requests);
+
+        assertEquals(1, job.getCreated());
+        assertEquals(7, job.getRejected());
+        assertEquals(1, job.getHashed(), "rejected entries are not hashed");
+        List<BulkRegisterOutcome> outcomes = job.getOutcomes();
+        assertEquals(BulkRegisterOutcome.Status.CREATED, outcomes.get(0).getStatus());
+        for (int i = 1; i < outcomes.size(); i++) {
+            assertEquals(i, outcomes.get(i).getIndex());
+            assertEquals(BulkRegisterOutcome.Status.REJECTED, outcomes.get(i).getStatus(), outcomes.get(i).getMessage());
+        }
+        assertTrue(outcomes.get(1).getMessage().contains("already exists"));
+        assertTrue(outcomes.get(2).getMessage().contains("already exists"));
+        assertTrue(outcomes.get(3).getMessage().contains("already linked"));
+        assertTrue(outcomes.get(6).getMessage().contains("Role not found"));
+    }
+
+    @Test
+    void jobIsLookedUpByIdAndEmptyOrOversizedRequestsAreRefused() {
+        BulkRegisterJobDto job = service.submit(List.of(request("one", "STUDENT", students.get(0).getId())));
+
+        assertEquals(job.getId(), service.getJob(job.getId()).getId());
+        assertEquals(1, service.getJob(job.getId()).getCreated());
+        assertThrows(EntityNotFoundException.class, () -> service.getJob("missing"));
+        assertThrows(ValidationException.class, () -> service.submit(List.of()));
+        List<RegisterRequest> tooMany = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            tooMany.add(request("u" + i, "STUDENT", null));
+        }
+        assertThrows(ValidationException.class, () -> service.submit(tooMany));
+    }
+}
@@ -12,6 +12,8 @@ import ru.tihomirov.university.dto.UpdateUserRequest;
 import ru.tihomirov.university.exception.EntityNotFoundException;
 import ru.tihomirov.university.model.*;
 import ru.tihomirov.university.repository.*;
+import ru.tihomirov.university.security.TokenRevocationService;
+import ru.tihomirov.university.security.TokenVersionRegistry;
 
 import java.util.Optional;
 
@@ -25,6 +27,8 @@ class UserServiceTest {
     @Mock private StudentRepository studentRepository;
     @Mock private TeacherRepository teacherRepository;
     @Mock private PasswordEncoder passwordEncoder;
+    @Mock private TokenVersionRegistry tokenVersionRegistry;
+    @Mock private TokenRevocationService tokenRevocationService;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -163,7 +167,9 @@ class UserServiceTest {
         assertEquals("encodedNewPass", updatedUser.getPassword());
         assertEquals(newRole, updatedUser.getRole());
         assertEquals(student, updatedUser.getStudent());
+        assertEquals(1, updatedUser.getTokenVersion());
         verify(userRepository).save(existingUser);
+        verify(tokenVersionRegistry).update(userId, 1);
     }
 
 
@@ -213,6 +219,21 @@ class UserServiceTest {
 
         verify(userRepository).deleteById(5L);
         verify(studentRepository).deleteById(10L);
+        verify(tokenVersionRegistry).remove(5L);
+        verify(tokenRevocationService).revokeUser(5L);
+    }
+
+    @Test
+    void shouldRevokeTokensOnAllNodesAndEndRefreshChains() {
+        User user = new User().setId(6L).setTokenVersion(4);
+        when(userRepository.findById(6L)).thenReturn(Optional.of(user));
+
+        userService.revokeTokens(6L);
+
+        assertEquals(5, user.getTokenVersion());
+        verify(userRepository).save(user);
+        verify(tokenVersionRegistry).update(6L, 5);
+        verify(tokenRevocationService).revokeUser(6L);
     }
 
     @Test